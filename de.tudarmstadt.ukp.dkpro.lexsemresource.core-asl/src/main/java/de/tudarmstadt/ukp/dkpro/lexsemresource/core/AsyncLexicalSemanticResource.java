@@ -0,0 +1,417 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.LexicalRelation;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.SemanticRelation;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+
+/**
+ * An asynchronous facade for a {@link LexicalSemanticResource}. Each lookup and relation query
+ * runs on an executor and returns a {@link CompletableFuture}, so that a caller can start many
+ * lookups, e.g. for all tokens of a document, and wait for all of them together, without
+ * blocking a thread per database round trip. A query that fails with a
+ * {@link LexicalSemanticResourceException} completes its future exceptionally.
+ * <p>
+ * Identical queries that are in flight at the same time are coalesced: they share one call to
+ * the resource, and each caller gets its own dependent future, so cancelling it does not affect
+ * the other callers. Once the call has finished, the next identical query calls the resource
+ * again.
+ * <p>
+ * The facade calls the resource from several threads, so the resource has to be safe for
+ * concurrent reads, or the facade has to be created with a single thread.
+ */
+public class AsyncLexicalSemanticResource {
+
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+
+    private final LexicalSemanticResource resource;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+    private final ConcurrentMap<List<Object>, CompletableFuture<?>> inFlight =
+            new ConcurrentHashMap<List<Object>, CompletableFuture<?>>();
+
+    /**
+     * Creates a facade with its own pool of daemon threads. If the queue is full, further
+     * queries fail with a {@link RejectedExecutionException} instead of blocking the caller.
+     *
+     * @param resource The resource.
+     * @param threads The number of threads that call the resource, e.g. the number of database
+     *            connections.
+     * @param queueCapacity The maximum number of queries that wait for a thread.
+     */
+    public AsyncLexicalSemanticResource(LexicalSemanticResource resource, int threads,
+            int queueCapacity)
+    {
+        this.resource = resource;
+        final String prefix = "lsr-async-" + poolNumber.incrementAndGet() + "-";
+        this.ownExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+                    private final AtomicInteger threadNumber = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable,
+                                prefix + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor = ownExecutor;
+    }
+
+    /**
+     * Creates a facade that runs the queries on the given executor, which is not shut down by
+     * {@link #close()}.
+     *
+     * @param resource The resource.
+     * @param executor The executor.
+     */
+    public AsyncLexicalSemanticResource(LexicalSemanticResource resource, Executor executor) {
+        this.resource = resource;
+        this.executor = executor;
+        this.ownExecutor = null;
+    }
+
+    /**
+     * @return The resource that answers the queries.
+     */
+    public LexicalSemanticResource getResource() {
+        return resource;
+    }
+
+    /**
+     * @return The number of distinct queries that are currently running or queued.
+     */
+    public int getNumberOfQueriesInFlight() {
+        return inFlight.size();
+    }
+
+    public CompletableFuture<Boolean> containsLexeme(final String lexeme) {
+        return submit(new Query<Boolean>("containsLexeme", lexeme) {
+            @Override
+            protected Boolean call() throws LexicalSemanticResourceException {
+                return resource.containsLexeme(lexeme);
+            }
+        });
+    }
+
+    public CompletableFuture<Boolean> containsEntity(final Entity entity) {
+        return submit(new Query<Boolean>("containsEntity", entity) {
+            @Override
+            protected Boolean call() throws LexicalSemanticResourceException {
+                return resource.containsEntity(entity);
+            }
+        });
+    }
+
+    public CompletableFuture<Set<Entity>> getEntity(final String lexeme) {
+        return submit(new Query<Set<Entity>>("getEntity", lexeme) {
+            @Override
+            protected Set<Entity> call() throws LexicalSemanticResourceException {
+                return resource.getEntity(lexeme);
+            }
+        });
+    }
+
+    public CompletableFuture<Set<Entity>> getEntity(final String lexeme, final PoS pos) {
+        return submit(new Query<Set<Entity>>("getEntity", lexeme, pos) {
+            @Override
+            protected Set<Entity> call() throws LexicalSemanticResourceException {
+                return resource.getEntity(lexeme, pos);
+            }
+        });
+    }
+
+    public CompletableFuture<Set<Entity>> getEntity(final String lexeme, final PoS pos,
+            final String sense)
+    {
+        return submit(new Query<Set<Entity>>("getEntity", lexeme, pos, sense) {
+            @Override
+            protected Set<Entity> call() throws LexicalSemanticResourceException {
+                return resource.getEntity(lexeme, pos, sense);
+            }
+        });
+    }
+
+    public CompletableFuture<Entity> getEntity(final Map<String, String> lexemes, final PoS pos) {
+        return submit(new Query<Entity>("getEntity", lexemes, pos) {
+            @Override
+            protected Entity call() throws LexicalSemanticResourceException {
+                return resource.getEntity(lexemes, pos);
+            }
+        });
+    }
+
+    /**
+     * Looks up several lexemes concurrently.
+     *
+     * @param lexemes The lexemes.
+     * @return A future of the entities of each lexeme, in the order of the lexemes. It fails if
+     *         any lookup fails.
+     */
+    public CompletableFuture<Map<String, Set<Entity>>> getEntities(Collection<String> lexemes) {
+        final Map<String, CompletableFuture<Set<Entity>>> futures =
+                new LinkedHashMap<String, CompletableFuture<Set<Entity>>>();
+        for (String lexeme : lexemes) {
+            if (!futures.containsKey(lexeme)) {
+                futures.put(lexeme, getEntity(lexeme));
+            }
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(new Function<Void, Map<String, Set<Entity>>>() {
+                    @Override
+                    public Map<String, Set<Entity>> apply(Void ignored) {
+                        Map<String, Set<Entity>> entities =
+                                new LinkedHashMap<String, Set<Entity>>();
+                        for (Map.Entry<String, CompletableFuture<Set<Entity>>> entry : futures
+                                .entrySet()) {
+                            entities.put(entry.getKey(), entry.getValue().join());
+                        }
+                        return entities;
+                    }
+                });
+    }
+
+    public CompletableFuture<Entity> getMostFrequentEntity(final String lexeme) {
+        return submit(new Query<Entity>("getMostFrequentEntity", lexeme) {
+            @Override
+            protected Entity call() throws LexicalSemanticResourceException {
+                return resource.getMostFrequentEntity(lexeme);
+            }
+        });
+    }
+
+    public CompletableFuture<Entity> getMostFrequentEntity(final String lexeme, final PoS pos) {
+        return submit(new Query<Entity>("getMostFrequentEntity", lexeme, pos) {
+            @Override
+            protected Entity call() throws LexicalSemanticResourceException {
+                return resource.getMostFrequentEntity(lexeme, pos);
+            }
+        });
+    }
+
+    public CompletableFuture<Entity> getEntityById(final String id) {
+        return submit(new Query<Entity>("getEntityById", id) {
+            @Override
+            protected Entity call() throws LexicalSemanticResourceException {
+                return resource.getEntityById(id);
+            }
+        });
+    }
+
+    public CompletableFuture<String> getGloss(final Entity entity) {
+        return submit(new Query<String>("getGloss", entity) {
+            @Override
+            protected String call() throws LexicalSemanticResourceException {
+                return resource.getGloss(entity);
+            }
+        });
+    }
+
+    public CompletableFuture<String> getPseudoGloss(final Entity entity,
+            final Set<LexicalRelation> lexicalRelations,
+            final Map<SemanticRelation, Integer> semanticRelations)
+    {
+        return submit(new Query<String>("getPseudoGloss", entity, lexicalRelations,
+                semanticRelations) {
+            @Override
+            protected String call() throws LexicalSemanticResourceException {
+                return resource.getPseudoGloss(entity, lexicalRelations, semanticRelations);
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> getNumberOfEntities() {
+        return submit(new Query<Integer>("getNumberOfEntities") {
+            @Override
+            protected Integer call() throws LexicalSemanticResourceException {
+                return resource.getNumberOfEntities();
+            }
+        });
+    }
+
+    public CompletableFuture<Set<Entity>> getNeighbors(final Entity entity) {
+        return submit(new Query<Set<Entity>>("getNeighbors", entity) {
+            @Override
+            protected Set<Entity> call() throws LexicalSemanticResourceException {
+                return resource.getNeighbors(entity);
+            }
+        });
+    }
+
+    public CompletableFuture<Set<Entity>> getParents(final Entity entity) {
+        return submit(new Query<Set<Entity>>("getParents", entity) {
+            @Override
+            protected Set<Entity> call() throws LexicalSemanticResourceException {
+                return resource.getParents(entity);
+            }
+        });
+    }
+
+    public CompletableFuture<Set<Entity>> getChildren(final Entity entity) {
+        return submit(new Query<Set<Entity>>("getChildren", entity) {
+            @Override
+            protected Set<Entity> call() throws LexicalSemanticResourceException {
+                return resource.getChildren(entity);
+            }
+        });
+    }
+
+    public CompletableFuture<Entity> getRoot() {
+        return submit(new Query<Entity>("getRoot") {
+            @Override
+            protected Entity call() throws LexicalSemanticResourceException {
+                return resource.getRoot();
+            }
+        });
+    }
+
+    public CompletableFuture<Entity> getRoot(final PoS pos) {
+        return submit(new Query<Entity>("getRoot", pos) {
+            @Override
+            protected Entity call() throws LexicalSemanticResourceException {
+                return resource.getRoot(pos);
+            }
+        });
+    }
+
+    public CompletableFuture<Set<String>> getRelatedLexemes(final String lexeme, final PoS pos,
+            final String sense, final LexicalRelation lexicalRelation)
+    {
+        return submit(new Query<Set<String>>("getRelatedLexemes", lexeme, pos, sense,
+                lexicalRelation) {
+            @Override
+            protected Set<String> call() throws LexicalSemanticResourceException {
+                return resource.getRelatedLexemes(lexeme, pos, sense, lexicalRelation);
+            }
+        });
+    }
+
+    public CompletableFuture<Set<Entity>> getRelatedEntities(final Entity entity,
+            final SemanticRelation semanticRelation)
+    {
+        return submit(new Query<Set<Entity>>("getRelatedEntities", entity, semanticRelation) {
+            @Override
+            protected Set<Entity> call() throws LexicalSemanticResourceException {
+                return resource.getRelatedEntities(entity, semanticRelation);
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> getShortestPathLength(final Entity e1, final Entity e2) {
+        return submit(new Query<Integer>("getShortestPathLength", e1, e2) {
+            @Override
+            protected Integer call() throws LexicalSemanticResourceException {
+                return resource.getShortestPathLength(e1, e2);
+            }
+        });
+    }
+
+    /**
+     * Shuts down the threads of the facade, if it created them. Queries that were already
+     * submitted are still answered.
+     */
+    public void close() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Runs the query, or joins an identical query that is in flight.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> submit(final Query<T> query) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(query.key,
+                future);
+        if (existing != null) {
+            return copy(existing);
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    T result;
+                    try {
+                        result = query.call();
+                    }
+                    catch (Throwable e) {
+                        inFlight.remove(query.key, future);
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                    // later identical queries have to call the resource again
+                    inFlight.remove(query.key, future);
+                    future.complete(result);
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            inFlight.remove(query.key, future);
+            future.completeExceptionally(e);
+        }
+        return copy(future);
+    }
+
+    private static <T> CompletableFuture<T> copy(CompletableFuture<T> future) {
+        return future.thenApply(Function.<T> identity());
+    }
+
+    /**
+     * A call to the resource, identified by the method name and the arguments.
+     */
+    private abstract static class Query<T> {
+
+        private final List<Object> key;
+
+        protected Query(String method, Object... arguments) {
+            List<Object> key = new ArrayList<Object>(arguments.length + 1);
+            key.add(method);
+            key.addAll(Arrays.asList(arguments));
+            this.key = key;
+        }
+
+        protected abstract T call() throws LexicalSemanticResourceException;
+    }
+}
@@ -22,9 +22,20 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.support.FileSystemXmlApplicationContext;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LSRFramework;
@@ -34,17 +45,37 @@ import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.ResourceLoaderException
 /**
  * Class for loading diverse resources, implementing the LexicalSemanticResource
  * interface, with fewer parameters.
+ * <p>
+ * By default, resources are only loaded when they are first requested, so a process only pays
+ * for the resources it uses. Each resource is loaded once, also if several threads request it
+ * at the same time; the other threads wait for it. Resources can be loaded in the background
+ * with {@link #warmUp(String, String)}, and {@link #getStartupReport()} shows which resources
+ * were loaded and how long it took.
+ * <p>
+ * A shared factory, like the one returned by {@link #getInstance()}, hands out the same
+ * resource instances as all other shared factories of the same configuration file in the JVM.
+ * Shared resources must therefore not be modified by their users.
  *
  * @author Richard Eckart de Castilho
  */
 public class ResourceFactory
 {
+	private static final Log log = LogFactory.getLog(ResourceFactory.class);
+
 	public final static String CONFIG_FILE = "resources.xml";
     public final static String DEFAULT_CONFIG_FILE = "/de/tudarmstadt/ukp/dkpro/lexsemresource/core/default-resources.xml";
 
 	private static ResourceFactory loader;
 
-	private FileSystemXmlApplicationContext context;
+	// resources of all shared factories, all access is guarded by the map itself
+	private static final Map<String, LoadingResource> sharedResources = new HashMap<String, LoadingResource>();
+
+	private final String location;
+
+	private final FileSystemXmlApplicationContext context;
+
+	// resources by location and bean name, all access is guarded by the map itself
+	private final Map<String, LoadingResource> resources;
 
 	public static synchronized ResourceFactory getInstance()
 		throws ResourceLoaderException
@@ -103,24 +134,59 @@ public class ResourceFactory
 								+ "] in " + locs.toString());
 			}
 
-			loader = new ResourceFactory(resourceXmlUrl.toString());
+			loader = new ResourceFactory(resourceXmlUrl.toString(), true, true);
 		}
 		return loader;
 	}
 
 	/**
-	 * Constructor parameterized by the path to the configuration file.
+	 * Constructor parameterized by the path to the configuration file. Resources are loaded
+	 * lazily and are not shared with other factories.
 	 *
 	 * @param location location of the configuration file.
 	 */
 	public ResourceFactory(String location)
 	{
-		context = new FileSystemXmlApplicationContext(location);
+		this(location, true, false);
+	}
+
+	/**
+	 * @param location
+	 *            location of the configuration file.
+	 * @param lazy
+	 *            if true, each resource is loaded when it is first requested, otherwise all
+	 *            singleton resources are loaded by the constructor.
+	 * @param shared
+	 *            if true, resources are shared with all other shared factories of the same
+	 *            configuration file in the JVM.
+	 */
+	public ResourceFactory(String location, boolean lazy, boolean shared)
+	{
+		this.location = location;
+		this.resources = shared ? sharedResources : new HashMap<String, LoadingResource>();
+
+		long start = System.currentTimeMillis();
+		context = new FileSystemXmlApplicationContext(new String[] { location }, false);
+		if (lazy) {
+			context.addBeanFactoryPostProcessor(new BeanFactoryPostProcessor()
+			{
+				@Override
+				public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory)
+				{
+					for (String beanName : beanFactory.getBeanDefinitionNames()) {
+						beanFactory.getBeanDefinition(beanName).setLazyInit(true);
+					}
+				}
+			});
+		}
+		context.refresh();
+		log.info("Read resource configuration [" + location + "] in "
+				+ (System.currentTimeMillis() - start) + "ms.");
 	}
 
 	/**
 	 * Standard function to get a resource object specified by name and
-	 * language.
+	 * language. The resource is loaded on the first call.
 	 *
 	 * @param name
 	 *            String
@@ -132,8 +198,7 @@ public class ResourceFactory
 	public LexicalSemanticResource get(String name, String lang)
 		throws ResourceLoaderException
 	{
-		return (LexicalSemanticResource) context.getBean(name + "-" + lang,
-				LexicalSemanticResource.class);
+		return load(name + "-" + lang);
 	}
 
 	/**
@@ -143,7 +208,160 @@ public class ResourceFactory
 	 */
 	public Collection<LexicalSemanticResource> getAll()
 	{
-		return context.getBeansOfType(LexicalSemanticResource.class).values();
+		List<LexicalSemanticResource> all = new ArrayList<LexicalSemanticResource>();
+		for (String beanName : getResourceNames()) {
+			try {
+				all.add(load(beanName));
+			}
+			catch (ResourceLoaderException e) {
+				log.warn("Skipping resource [" + beanName + "]: " + e.getMessage());
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * @return The bean names of all configured resources, i.e. name and language joined by a
+	 *         dash.
+	 */
+	public List<String> getResourceNames()
+	{
+		return Arrays.asList(context.getBeanNamesForType(LexicalSemanticResource.class, true,
+				false));
+	}
+
+	/**
+	 * Starts loading a resource on a background thread, unless it is already loaded or being
+	 * loaded. A later {@link #get(String, String)} waits for it instead of loading it again.
+	 * Failures are logged and reported by the next {@link #get(String, String)}.
+	 *
+	 * @param name
+	 *            String
+	 * @param lang
+	 *            String
+	 */
+	public void warmUp(String name, String lang)
+	{
+		final LoadingResource resource = getLoadingResource(name + "-" + lang);
+		if (!resource.task.isDone()) {
+			startThread("lsr-warmup-" + name + "-" + lang, resource.task);
+		}
+	}
+
+	/**
+	 * Loads all configured resources one after the other on a background thread, and logs the
+	 * {@link #getStartupReport() startup report} when they are done.
+	 */
+	public void warmUpAll()
+	{
+		startThread("lsr-warmup", new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				getAll();
+				log.info(getStartupReport());
+			}
+		});
+	}
+
+	/**
+	 * @return The time it took to load each resource that was loaded so far, in milliseconds,
+	 *         by bean name.
+	 */
+	public Map<String, Long> getLoadTimes()
+	{
+		Map<String, Long> loadTimes = new LinkedHashMap<String, Long>();
+		for (String beanName : getResourceNames()) {
+			LoadingResource resource = peekLoadingResource(beanName);
+			if (resource != null && resource.loadTime >= 0) {
+				loadTimes.put(beanName, resource.loadTime);
+			}
+		}
+		return loadTimes;
+	}
+
+	/**
+	 * @return A description of the state of each configured resource, i.e. whether it is
+	 *         loaded, being loaded, failed to load or was not requested yet, and how long
+	 *         loading took.
+	 */
+	public String getStartupReport()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("Resources of [").append(location).append("]:");
+		for (String beanName : getResourceNames()) {
+			LoadingResource resource = peekLoadingResource(beanName);
+			sb.append("\n  ").append(beanName).append(": ");
+			if (resource == null) {
+				sb.append("not loaded");
+			}
+			else if (resource.failure != null) {
+				sb.append("failed after ").append(resource.loadTime).append("ms (")
+						.append(resource.failure.getMessage()).append(")");
+			}
+			else if (resource.task.isDone()) {
+				sb.append("loaded in ").append(resource.loadTime).append("ms");
+			}
+			else {
+				sb.append("loading");
+			}
+		}
+		return sb.toString();
+	}
+
+	private LexicalSemanticResource load(String beanName)
+		throws ResourceLoaderException
+	{
+		LoadingResource resource = getLoadingResource(beanName);
+		// does nothing if another thread is already loading the resource
+		resource.task.run();
+		try {
+			return resource.task.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ResourceLoaderException("Interrupted while waiting for resource ["
+					+ beanName + "]", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof ResourceLoaderException) {
+				throw (ResourceLoaderException) e.getCause();
+			}
+			throw new ResourceLoaderException("Unable to load resource [" + beanName + "]",
+					e.getCause());
+		}
+	}
+
+	/**
+	 * Returns the entry of a resource, creating it if the resource was not requested before or
+	 * failed to load, so that a failed resource is loaded again.
+	 */
+	private LoadingResource getLoadingResource(String beanName)
+	{
+		String key = location + "#" + beanName;
+		synchronized (resources) {
+			LoadingResource resource = resources.get(key);
+			if (resource == null || resource.failure != null) {
+				resource = new LoadingResource(context, beanName);
+				resources.put(key, resource);
+			}
+			return resource;
+		}
+	}
+
+	private LoadingResource peekLoadingResource(String beanName)
+	{
+		synchronized (resources) {
+			return resources.get(location + "#" + beanName);
+		}
+	}
+
+	private static void startThread(String name, Runnable runnable)
+	{
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		thread.start();
 	}
 
 	/**
@@ -156,4 +374,44 @@ public class ResourceFactory
 	{
         return new File(LSRFramework.getWorkspace(), ResourceFactory.class.getName());
 	}
+
+	/**
+	 * A resource that is loaded at most once, by the first thread that runs its task.
+	 */
+	private static class LoadingResource
+	{
+		private final FutureTask<LexicalSemanticResource> task;
+		private volatile long loadTime = -1;
+		private volatile Throwable failure;
+
+		public LoadingResource(final FileSystemXmlApplicationContext context,
+				final String beanName)
+		{
+			task = new FutureTask<LexicalSemanticResource>(
+					new Callable<LexicalSemanticResource>()
+					{
+						@Override
+						public LexicalSemanticResource call()
+							throws Exception
+						{
+							long start = System.currentTimeMillis();
+							try {
+								LexicalSemanticResource resource = context.getBean(beanName,
+										LexicalSemanticResource.class);
+								loadTime = System.currentTimeMillis() - start;
+								log.info("Loaded resource [" + beanName + "] in " + loadTime
+										+ "ms.");
+								return resource;
+							}
+							catch (RuntimeException e) {
+								loadTime = System.currentTimeMillis() - start;
+								failure = e;
+								log.warn("Unable to load resource [" + beanName + "]: "
+										+ e.getMessage());
+								throw e;
+							}
+						}
+					});
+		}
+	}
 }
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hits and misses of a cache. Caches record their lookups with {@link #hit()} and
+ * {@link #miss()}, which do nothing while the registry is disabled.
+ */
+public class CacheMetrics implements CacheMetricsMXBean {
+
+    private final MetricsRegistry registry;
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CacheMetrics(MetricsRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    public void hit() {
+        if (registry.isEnabled()) {
+            hits.increment();
+        }
+    }
+
+    public void miss() {
+        if (registry.isEnabled()) {
+            misses.increment();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The fraction of lookups that were hits, or 0 if there were no lookups.
+     */
+    @Override
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,392 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+import java.util.Map;
+import java.util.Set;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+
+/**
+ * Wraps a {@link LexicalSemanticResource} and records the latency, the result size and the
+ * failures of each call in a {@link MetricsRegistry}. The metrics are named
+ * <code>scope.method</code>, where the scope defaults to the name of the resource; overloads
+ * of a method share their metrics.
+ * <p>
+ * While the registry is disabled, each call only adds a read of a volatile flag.
+ */
+public class InstrumentedResource implements LexicalSemanticResource {
+
+    private final LexicalSemanticResource delegate;
+    private final MethodMetrics containsLexeme;
+    private final MethodMetrics containsEntity;
+    private final MethodMetrics getEntity;
+    private final MethodMetrics getMostFrequentEntity;
+    private final MethodMetrics getEntityById;
+    private final MethodMetrics getGloss;
+    private final MethodMetrics getPseudoGloss;
+    private final MethodMetrics getNumberOfEntities;
+    private final MethodMetrics getEntities;
+    private final MethodMetrics getNeighbors;
+    private final MethodMetrics getParents;
+    private final MethodMetrics getChildren;
+    private final MethodMetrics getRoot;
+    private final MethodMetrics getRelatedLexemes;
+    private final MethodMetrics getRelatedEntities;
+    private final MethodMetrics getShortestPathLength;
+
+    /**
+     * Records the calls in the {@link MetricsRegistry#getDefault() default registry}.
+     *
+     * @param delegate The resource to instrument.
+     */
+    public InstrumentedResource(LexicalSemanticResource delegate) {
+        this(delegate, MetricsRegistry.getDefault(), delegate.getResourceName());
+    }
+
+    /**
+     * @param delegate The resource to instrument.
+     * @param registry The registry to record the calls in.
+     * @param scope The prefix of the metrics names.
+     */
+    public InstrumentedResource(LexicalSemanticResource delegate, MetricsRegistry registry,
+            String scope)
+    {
+        this.delegate = delegate;
+        containsLexeme = registry.getMethod(scope + ".containsLexeme");
+        containsEntity = registry.getMethod(scope + ".containsEntity");
+        getEntity = registry.getMethod(scope + ".getEntity");
+        getMostFrequentEntity = registry.getMethod(scope + ".getMostFrequentEntity");
+        getEntityById = registry.getMethod(scope + ".getEntityById");
+        getGloss = registry.getMethod(scope + ".getGloss");
+        getPseudoGloss = registry.getMethod(scope + ".getPseudoGloss");
+        getNumberOfEntities = registry.getMethod(scope + ".getNumberOfEntities");
+        getEntities = registry.getMethod(scope + ".getEntities");
+        getNeighbors = registry.getMethod(scope + ".getNeighbors");
+        getParents = registry.getMethod(scope + ".getParents");
+        getChildren = registry.getMethod(scope + ".getChildren");
+        getRoot = registry.getMethod(scope + ".getRoot");
+        getRelatedLexemes = registry.getMethod(scope + ".getRelatedLexemes");
+        getRelatedEntities = registry.getMethod(scope + ".getRelatedEntities");
+        getShortestPathLength = registry.getMethod(scope + ".getShortestPathLength");
+    }
+
+    /**
+     * @return The instrumented resource.
+     */
+    public LexicalSemanticResource getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getResourceName() {
+        return delegate.getResourceName();
+    }
+
+    @Override
+    public String getResourceVersion() {
+        return delegate.getResourceVersion();
+    }
+
+    @Override
+    public boolean containsLexeme(String lexeme) throws LexicalSemanticResourceException {
+        long start = containsLexeme.start();
+        try {
+            return containsLexeme.stop(start, delegate.containsLexeme(lexeme));
+        }
+        catch (Throwable e) {
+            containsLexeme.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean containsEntity(Entity entity) throws LexicalSemanticResourceException {
+        long start = containsEntity.start();
+        try {
+            return containsEntity.stop(start, delegate.containsEntity(entity));
+        }
+        catch (Throwable e) {
+            containsEntity.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getEntity(String lexeme) throws LexicalSemanticResourceException {
+        long start = getEntity.start();
+        try {
+            return getEntity.stop(start, delegate.getEntity(lexeme));
+        }
+        catch (Throwable e) {
+            getEntity.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getEntity(String lexeme, PoS pos) throws LexicalSemanticResourceException {
+        long start = getEntity.start();
+        try {
+            return getEntity.stop(start, delegate.getEntity(lexeme, pos));
+        }
+        catch (Throwable e) {
+            getEntity.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getEntity(String lexeme, PoS pos, String sense)
+        throws LexicalSemanticResourceException
+    {
+        long start = getEntity.start();
+        try {
+            return getEntity.stop(start, delegate.getEntity(lexeme, pos, sense));
+        }
+        catch (Throwable e) {
+            getEntity.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Entity getEntity(Map<String, String> lexemes, PoS pos)
+        throws LexicalSemanticResourceException
+    {
+        long start = getEntity.start();
+        try {
+            return getEntity.stop(start, delegate.getEntity(lexemes, pos));
+        }
+        catch (Throwable e) {
+            getEntity.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Entity getMostFrequentEntity(String lexeme) throws LexicalSemanticResourceException {
+        long start = getMostFrequentEntity.start();
+        try {
+            return getMostFrequentEntity.stop(start, delegate.getMostFrequentEntity(lexeme));
+        }
+        catch (Throwable e) {
+            getMostFrequentEntity.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Entity getMostFrequentEntity(String lexeme, PoS pos)
+        throws LexicalSemanticResourceException
+    {
+        long start = getMostFrequentEntity.start();
+        try {
+            return getMostFrequentEntity.stop(start, delegate.getMostFrequentEntity(lexeme, pos));
+        }
+        catch (Throwable e) {
+            getMostFrequentEntity.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Entity getEntityById(String id) throws LexicalSemanticResourceException {
+        long start = getEntityById.start();
+        try {
+            return getEntityById.stop(start, delegate.getEntityById(id));
+        }
+        catch (Throwable e) {
+            getEntityById.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String getGloss(Entity entity) throws LexicalSemanticResourceException {
+        long start = getGloss.start();
+        try {
+            return getGloss.stop(start, delegate.getGloss(entity));
+        }
+        catch (Throwable e) {
+            getGloss.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String getPseudoGloss(Entity entity, Set<LexicalRelation> lexicalRelations,
+            Map<SemanticRelation, Integer> semanticRelations)
+        throws LexicalSemanticResourceException
+    {
+        long start = getPseudoGloss.start();
+        try {
+            return getPseudoGloss.stop(start,
+                    delegate.getPseudoGloss(entity, lexicalRelations, semanticRelations));
+        }
+        catch (Throwable e) {
+            getPseudoGloss.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNumberOfEntities() throws LexicalSemanticResourceException {
+        long start = getNumberOfEntities.start();
+        try {
+            return getNumberOfEntities.stop(start, delegate.getNumberOfEntities());
+        }
+        catch (Throwable e) {
+            getNumberOfEntities.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Iterable<Entity> getEntities() throws LexicalSemanticResourceException {
+        long start = getEntities.start();
+        try {
+            return getEntities.stop(start, delegate.getEntities());
+        }
+        catch (Throwable e) {
+            getEntities.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getNeighbors(Entity entity) throws LexicalSemanticResourceException {
+        long start = getNeighbors.start();
+        try {
+            return getNeighbors.stop(start, delegate.getNeighbors(entity));
+        }
+        catch (Throwable e) {
+            getNeighbors.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getParents(Entity entity) throws LexicalSemanticResourceException {
+        long start = getParents.start();
+        try {
+            return getParents.stop(start, delegate.getParents(entity));
+        }
+        catch (Throwable e) {
+            getParents.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getChildren(Entity entity) throws LexicalSemanticResourceException {
+        long start = getChildren.start();
+        try {
+            return getChildren.stop(start, delegate.getChildren(entity));
+        }
+        catch (Throwable e) {
+            getChildren.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Entity getRoot() throws LexicalSemanticResourceException {
+        long start = getRoot.start();
+        try {
+            return getRoot.stop(start, delegate.getRoot());
+        }
+        catch (Throwable e) {
+            getRoot.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Entity getRoot(PoS pos) throws LexicalSemanticResourceException {
+        long start = getRoot.start();
+        try {
+            return getRoot.stop(start, delegate.getRoot(pos));
+        }
+        catch (Throwable e) {
+            getRoot.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<String> getRelatedLexemes(String lexeme, PoS pos, String sense,
+            LexicalRelation lexicalRelation)
+        throws LexicalSemanticResourceException
+    {
+        long start = getRelatedLexemes.start();
+        try {
+            return getRelatedLexemes.stop(start,
+                    delegate.getRelatedLexemes(lexeme, pos, sense, lexicalRelation));
+        }
+        catch (Throwable e) {
+            getRelatedLexemes.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getRelatedEntities(Entity entity, SemanticRelation semanticRelation)
+        throws LexicalSemanticResourceException
+    {
+        long start = getRelatedEntities.start();
+        try {
+            return getRelatedEntities.stop(start,
+                    delegate.getRelatedEntities(entity, semanticRelation));
+        }
+        catch (Throwable e) {
+            getRelatedEntities.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getShortestPathLength(Entity e1, Entity e2) throws LexicalSemanticResourceException {
+        long start = getShortestPathLength.start();
+        try {
+            return getShortestPathLength.stop(start, delegate.getShortestPathLength(e1, e2));
+        }
+        catch (Throwable e) {
+            getShortestPathLength.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setIsCaseSensitive(boolean isCaseSensitive) {
+        delegate.setIsCaseSensitive(isCaseSensitive);
+    }
+
+    @Override
+    public boolean getIsCaseSensitive() {
+        return delegate.getIsCaseSensitive();
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Registers the metrics of methods and caches as MXBeans, e.g. for JConsole or VisualVM. The
+ * beans read the live metrics, so a report only registers the metrics that were created since
+ * the last report.
+ * <p>
+ * The beans are named <code>domain:type=Method,name=...</code> and
+ * <code>domain:type=Cache,name=...</code>.
+ */
+public class JmxMetricsReporter implements MetricsReporter {
+
+    private static final Log log = LogFactory.getLog(JmxMetricsReporter.class);
+
+    public static final String DEFAULT_DOMAIN = "de.tudarmstadt.ukp.dkpro.lexsemresource";
+
+    private final MBeanServer server;
+    private final String domain;
+    private final Set<ObjectName> registered =
+            ConcurrentHashMap.<ObjectName> newKeySet();
+
+    public JmxMetricsReporter() {
+        this(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+    }
+
+    /**
+     * @param server The server to register the beans with.
+     * @param domain The domain of the bean names.
+     */
+    public JmxMetricsReporter(MBeanServer server, String domain) {
+        this.server = server;
+        this.domain = domain;
+    }
+
+    @Override
+    public void report(MetricsRegistry registry) {
+        for (MethodMetrics method : registry.getMethods()) {
+            register(method, "Method", method.getName());
+        }
+        for (CacheMetrics cache : registry.getCaches()) {
+            register(cache, "Cache", cache.getName());
+        }
+    }
+
+    /**
+     * Unregisters all beans of this reporter.
+     */
+    @Override
+    public void close() {
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            }
+            catch (JMException e) {
+                log.debug("Could not unregister " + name + ": " + e.getMessage());
+            }
+        }
+        registered.clear();
+    }
+
+    private void register(Object bean, String type, String name) {
+        ObjectName objectName;
+        try {
+            objectName = new ObjectName(domain + ":type=" + type + ",name="
+                    + ObjectName.quote(name));
+        }
+        catch (JMException e) {
+            log.warn("Invalid metrics name " + name + ": " + e.getMessage());
+            return;
+        }
+        if (!registered.add(objectName)) {
+            return;
+        }
+        try {
+            if (server.isRegistered(objectName)) {
+                // e.g. left by an earlier reporter of another registry
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(bean, objectName);
+        }
+        catch (JMException e) {
+            registered.remove(objectName);
+            log.warn("Could not register " + objectName + ": " + e.getMessage());
+        }
+    }
+}
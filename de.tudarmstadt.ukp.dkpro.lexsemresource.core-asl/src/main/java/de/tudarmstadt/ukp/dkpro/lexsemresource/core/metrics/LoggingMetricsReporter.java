@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Writes one line per called method and per used cache to the log, at info level.
+ */
+public class LoggingMetricsReporter implements MetricsReporter {
+
+    private final Log log;
+
+    public LoggingMetricsReporter() {
+        this(LogFactory.getLog(LoggingMetricsReporter.class));
+    }
+
+    /**
+     * @param log The log to write to.
+     */
+    public LoggingMetricsReporter(Log log) {
+        this.log = log;
+    }
+
+    @Override
+    public void report(MetricsRegistry registry) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (MethodMetrics method : registry.getMethods()) {
+            if (method.getCalls() == 0) {
+                continue;
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append(method.getName());
+            sb.append(": calls=").append(method.getCalls());
+            sb.append(" errors=").append(method.getErrors());
+            sb.append(String.format(" mean=%.1fus", method.getMeanLatencyMicros()));
+            sb.append(" p50=").append(method.getP50LatencyMicros()).append("us");
+            sb.append(" p99=").append(method.getP99LatencyMicros()).append("us");
+            sb.append(" max=").append(method.getMaxLatencyMicros()).append("us");
+            if (method.getResultSizes().getCount() > 0) {
+                sb.append(String.format(" results=%.1f", method.getMeanResultSize()));
+                sb.append(" maxResults=").append(method.getMaxResultSize());
+            }
+            log.info(sb.toString());
+        }
+        for (CacheMetrics cache : registry.getCaches()) {
+            if (cache.getHits() + cache.getMisses() == 0) {
+                continue;
+            }
+            log.info(String.format("%s: hits=%d misses=%d hitRate=%.3f", cache.getName(),
+                    cache.getHits(), cache.getMisses(), cache.getHitRate()));
+        }
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one instrumented method: the number of calls and failed calls, a histogram of
+ * the latencies in nanoseconds and a histogram of the sizes of returned collections.
+ * <p>
+ * A call is measured by passing the value of {@link #start()} to one of the <code>stop</code>
+ * methods when it returns, or to {@link #fail(long, Throwable)} when it throws. While the
+ * registry is disabled, {@link #start()} does not read the clock and the other methods return
+ * immediately.
+ */
+public class MethodMetrics implements MethodMetricsMXBean {
+
+    /** Returned by {@link #start()} while the registry is disabled. */
+    static final long DISABLED = Long.MIN_VALUE;
+
+    private final MetricsRegistry registry;
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final Histogram latencies = new Histogram();
+    private final Histogram resultSizes = new Histogram();
+    private volatile String lastError;
+
+    MethodMetrics(MetricsRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    /**
+     * @return The start time of a call.
+     */
+    public long start() {
+        return registry.isEnabled() ? System.nanoTime() : DISABLED;
+    }
+
+    /**
+     * Records a call without a result.
+     *
+     * @param start The value of {@link #start()}.
+     */
+    public void stop(long start) {
+        if (start != DISABLED) {
+            latencies.record(System.nanoTime() - start);
+            calls.increment();
+        }
+    }
+
+    /**
+     * Records a call, and the size of the result if it is a collection or a map.
+     *
+     * @param start The value of {@link #start()}.
+     * @param result The result of the call.
+     * @return The result.
+     */
+    public <T> T stop(long start, T result) {
+        if (start != DISABLED) {
+            stop(start);
+            if (result instanceof Collection) {
+                resultSizes.record(((Collection<?>) result).size());
+            }
+            else if (result instanceof Map) {
+                resultSizes.record(((Map<?, ?>) result).size());
+            }
+        }
+        return result;
+    }
+
+    public boolean stop(long start, boolean result) {
+        stop(start);
+        return result;
+    }
+
+    public int stop(long start, int result) {
+        stop(start);
+        return result;
+    }
+
+    public double stop(long start, double result) {
+        stop(start);
+        return result;
+    }
+
+    /**
+     * Records a failed call.
+     *
+     * @param start The value of {@link #start()}.
+     * @param e The exception thrown by the call.
+     */
+    public void fail(long start, Throwable e) {
+        if (start != DISABLED) {
+            stop(start);
+            errors.increment();
+            lastError = e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    /**
+     * @return The latencies of the calls in nanoseconds.
+     */
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return The sizes of the collections returned by the calls.
+     */
+    public Histogram getResultSizes() {
+        return resultSizes;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        return latencies.getMean() / 1000;
+    }
+
+    @Override
+    public long getP50LatencyMicros() {
+        return toMicros(latencies.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getP99LatencyMicros() {
+        return toMicros(latencies.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getP999LatencyMicros() {
+        return toMicros(latencies.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public long getMaxLatencyMicros() {
+        return toMicros(latencies.getMax());
+    }
+
+    @Override
+    public double getMeanResultSize() {
+        return resultSizes.getMean();
+    }
+
+    @Override
+    public long getMaxResultSize() {
+        return resultSizes.getMax();
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
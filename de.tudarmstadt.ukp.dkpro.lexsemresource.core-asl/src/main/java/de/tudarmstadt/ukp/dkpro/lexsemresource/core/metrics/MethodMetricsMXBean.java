@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+/**
+ * The attributes of {@link MethodMetrics} as shown by {@link JmxMetricsReporter}.
+ */
+public interface MethodMetricsMXBean {
+
+    public String getName();
+
+    public long getCalls();
+    public long getErrors();
+    public String getLastError();
+
+    public double getMeanLatencyMicros();
+    public long getP50LatencyMicros();
+    public long getP99LatencyMicros();
+    public long getP999LatencyMicros();
+    public long getMaxLatencyMicros();
+
+    public double getMeanResultSize();
+    public long getMaxResultSize();
+}
@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Holds the metrics of instrumented methods and caches by name, and hands them to its
+ * reporters. A registry starts disabled: until {@link #setEnabled(boolean)} is called,
+ * instrumented calls only pay for reading a volatile flag.
+ * <p>
+ * Metrics are usually named <code>scope.method</code>, e.g. <code>WordNet.getEntity</code>, so
+ * that several instrumented resources can share a registry. Resources that keep caches record
+ * their hits in the {@link #getDefault() default registry}.
+ */
+public class MetricsRegistry {
+
+    private static final Log log = LogFactory.getLog(MetricsRegistry.class);
+
+    private static final MetricsRegistry defaultRegistry = new MetricsRegistry();
+
+    private volatile boolean enabled = false;
+
+    private final ConcurrentMap<String, MethodMetrics> methods =
+            new ConcurrentSkipListMap<String, MethodMetrics>();
+    private final ConcurrentMap<String, CacheMetrics> caches =
+            new ConcurrentHashMap<String, CacheMetrics>();
+    private final List<MetricsReporter> reporters = new CopyOnWriteArrayList<MetricsReporter>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @return The registry that is used if no other registry is given.
+     */
+    public static MetricsRegistry getDefault() {
+        return defaultRegistry;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled Whether calls and cache lookups are recorded.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param name The name of a method.
+     * @return The metrics of the method, created on the first call.
+     */
+    public MethodMetrics getMethod(String name) {
+        MethodMetrics metrics = methods.get(name);
+        if (metrics == null) {
+            metrics = new MethodMetrics(this, name);
+            MethodMetrics existing = methods.putIfAbsent(name, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @param name The name of a cache.
+     * @return The metrics of the cache, created on the first call.
+     */
+    public CacheMetrics getCache(String name) {
+        CacheMetrics metrics = caches.get(name);
+        if (metrics == null) {
+            metrics = new CacheMetrics(this, name);
+            CacheMetrics existing = caches.putIfAbsent(name, metrics);
+            if (existing != null) {
+                metrics = existing;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * @return The metrics of all methods, sorted by name.
+     */
+    public List<MethodMetrics> getMethods() {
+        return new ArrayList<MethodMetrics>(methods.values());
+    }
+
+    /**
+     * @return The metrics of all caches.
+     */
+    public List<CacheMetrics> getCaches() {
+        return new ArrayList<CacheMetrics>(caches.values());
+    }
+
+    public void addReporter(MetricsReporter reporter) {
+        reporters.add(reporter);
+    }
+
+    public void removeReporter(MetricsReporter reporter) {
+        reporters.remove(reporter);
+    }
+
+    /**
+     * Hands the current metrics to all reporters. A failing reporter does not keep the others
+     * from reporting.
+     */
+    public void report() {
+        for (MetricsReporter reporter : reporters) {
+            try {
+                reporter.report(this);
+            }
+            catch (RuntimeException e) {
+                log.warn("Metrics reporter " + reporter + " failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reports the metrics periodically from a daemon thread, replacing an earlier schedule.
+     *
+     * @param period The time between two reports.
+     * @param unit The unit of the period.
+     */
+    public synchronized void startReporting(long period, TimeUnit unit) {
+        stopReporting();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "lsr-metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                report();
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stops periodic reporting.
+     */
+    public synchronized void stopReporting() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Stops periodic reporting and closes all reporters.
+     */
+    public void close() {
+        stopReporting();
+        for (MetricsReporter reporter : reporters) {
+            reporter.close();
+        }
+        reporters.clear();
+    }
+}
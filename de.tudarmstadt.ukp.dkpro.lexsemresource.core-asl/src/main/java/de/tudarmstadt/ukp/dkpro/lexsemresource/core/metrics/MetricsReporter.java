@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+/**
+ * Publishes the metrics of a {@link MetricsRegistry}, e.g. to a log or to JMX.
+ *
+ * @see MetricsRegistry#addReporter(MetricsReporter)
+ */
+public interface MetricsReporter {
+
+    /**
+     * Called by {@link MetricsRegistry#report()}, possibly from a background thread.
+     *
+     * @param registry The registry with the current metrics.
+     */
+    public void report(MetricsRegistry registry);
+
+    /**
+     * Releases the resources of the reporter.
+     */
+    public void close();
+}
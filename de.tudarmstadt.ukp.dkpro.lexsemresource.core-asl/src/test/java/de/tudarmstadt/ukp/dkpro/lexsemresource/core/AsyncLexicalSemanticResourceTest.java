@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+
+public class AsyncLexicalSemanticResourceTest
+{
+	@Test
+	public void testCoalescing()
+		throws Exception
+	{
+		BlockingResource resource = new BlockingResource();
+		AsyncLexicalSemanticResource async = new AsyncLexicalSemanticResource(resource, 4, 16);
+		try {
+			CompletableFuture<Set<Entity>> first = async.getEntity("tree");
+			CompletableFuture<Set<Entity>> second = async.getEntity("tree");
+			CompletableFuture<Set<Entity>> other = async.getEntity("house");
+			resource.started.await();
+			assertEquals(2, async.getNumberOfQueriesInFlight());
+
+			// cancelling one caller does not affect the shared call
+			second.cancel(true);
+			resource.release.countDown();
+			assertEquals(new Entity("tree"), first.get().iterator().next());
+			assertEquals(new Entity("house"), other.get().iterator().next());
+			assertEquals(2, resource.calls.get());
+			assertEquals(0, async.getNumberOfQueriesInFlight());
+
+			// a finished query is not reused
+			async.getEntity("tree").get();
+			assertEquals(3, resource.calls.get());
+		}
+		finally {
+			async.close();
+		}
+	}
+
+	@Test
+	public void testFanOut()
+		throws Exception
+	{
+		BlockingResource resource = new BlockingResource();
+		resource.release.countDown();
+		AsyncLexicalSemanticResource async = new AsyncLexicalSemanticResource(resource, 2, 16);
+		try {
+			Map<String, Set<Entity>> entities = async.getEntities(
+					Arrays.asList("c", "a", "b", "a")).get();
+			assertEquals(Arrays.asList("c", "a", "b"),
+					Arrays.asList(entities.keySet().toArray()));
+			assertEquals(new Entity("b"), entities.get("b").iterator().next());
+		}
+		finally {
+			async.close();
+		}
+	}
+
+	@Test
+	public void testFailures()
+		throws Exception
+	{
+		BlockingResource resource = new BlockingResource();
+		AsyncLexicalSemanticResource async = new AsyncLexicalSemanticResource(resource, 1, 1);
+		try {
+			try {
+				async.getEntityById("invalid").get();
+				fail("Expected an exception for an invalid id");
+			}
+			catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof LexicalSemanticResourceException);
+			}
+
+			// one query runs, one waits in the queue, the third is rejected
+			CompletableFuture<Set<Entity>> running = async.getEntity("a");
+			resource.started.await();
+			async.getEntity("b");
+			try {
+				async.getEntity("c").get();
+				fail("Expected the query to be rejected");
+			}
+			catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+			resource.release.countDown();
+			assertEquals(1, running.get().size());
+		}
+		finally {
+			async.close();
+		}
+	}
+
+	private static class BlockingResource
+		extends StringResource
+	{
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		@Override
+		public Set<Entity> getEntity(String lexeme)
+			throws LexicalSemanticResourceException
+		{
+			calls.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				throw new LexicalSemanticResourceException(e);
+			}
+			return super.getEntity(lexeme);
+		}
+	}
+}
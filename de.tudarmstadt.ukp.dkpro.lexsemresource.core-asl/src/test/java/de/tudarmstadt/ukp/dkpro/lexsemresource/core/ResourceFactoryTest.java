@@ -17,10 +17,30 @@
  *******************************************************************************/
 package de.tudarmstadt.ukp.dkpro.lexsemresource.core;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Ignore;
 import org.junit.Test;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.ResourceLoaderException;
 
 @SuppressWarnings("unused")
 public class ResourceFactoryTest
@@ -66,4 +86,138 @@ public class ResourceFactoryTest
 		LexicalSemanticResource wikipediaCategoryEn = loader.get("wikipedia_category", "en");
 		LexicalSemanticResource wikipediaCategoryTest = loader.get("wikipedia_category", "test");
 	}
+
+	@Test
+	public void testLazyLoading()
+		throws Exception
+	{
+		SlowResource.instances.set(0);
+		ResourceFactory factory = new ResourceFactory(writeConfig().toURI().toString());
+		assertEquals(0, SlowResource.instances.get());
+
+		LexicalSemanticResource slowEn = factory.get("slow", "en");
+		assertSame(slowEn, factory.get("slow", "en"));
+		assertEquals(1, SlowResource.instances.get());
+		assertEquals(1, factory.getLoadTimes().size());
+		assertTrue(factory.getLoadTimes().get("slow-en") >= 0);
+
+		String report = factory.getStartupReport();
+		assertTrue(report, report.contains("slow-en: loaded in "));
+		assertTrue(report, report.contains("slow-de: not loaded"));
+		assertTrue(report, report.contains("broken-en: not loaded"));
+	}
+
+	@Test
+	public void testConcurrentGet()
+		throws Exception
+	{
+		SlowResource.instances.set(0);
+		final ResourceFactory factory = new ResourceFactory(writeConfig().toURI().toString());
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<LexicalSemanticResource>> futures =
+					new ArrayList<Future<LexicalSemanticResource>>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(new Callable<LexicalSemanticResource>()
+				{
+					@Override
+					public LexicalSemanticResource call()
+						throws Exception
+					{
+						return factory.get("slow", "en");
+					}
+				}));
+			}
+			for (Future<LexicalSemanticResource> future : futures) {
+				assertSame(futures.get(0).get(), future.get());
+			}
+			assertEquals(1, SlowResource.instances.get());
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testWarmUpAndFailures()
+		throws Exception
+	{
+		SlowResource.instances.set(0);
+		ResourceFactory factory = new ResourceFactory(writeConfig().toURI().toString());
+		factory.warmUp("slow", "de");
+		LexicalSemanticResource slowDe = factory.get("slow", "de");
+		assertEquals(1, SlowResource.instances.get());
+
+		try {
+			factory.get("broken", "en");
+			fail("Expected the broken resource to fail");
+		}
+		catch (ResourceLoaderException e) {
+			assertTrue(factory.getStartupReport().contains("broken-en: failed after "));
+		}
+
+		// the broken resource is skipped
+		assertEquals(2, factory.getAll().size());
+		assertTrue(factory.getAll().contains(slowDe));
+		assertEquals(2, SlowResource.instances.get());
+	}
+
+	@Test
+	public void testShared()
+		throws Exception
+	{
+		String location = writeConfig().toURI().toString();
+		ResourceFactory first = new ResourceFactory(location, true, true);
+		ResourceFactory second = new ResourceFactory(location, true, true);
+		ResourceFactory unshared = new ResourceFactory(location, true, false);
+		assertSame(first.get("slow", "en"), second.get("slow", "en"));
+		assertNotSame(first.get("slow", "en"), unshared.get("slow", "en"));
+	}
+
+	private static File writeConfig()
+		throws IOException
+	{
+		File file = File.createTempFile("resources", ".xml");
+		file.deleteOnExit();
+		String slow = SlowResource.class.getName();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write("<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+					+ "  xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+					+ "  xsi:schemaLocation=\"http://www.springframework.org/schema/beans "
+					+ "http://www.springframework.org/schema/beans/spring-beans-2.5.xsd\">\n"
+					+ "  <bean id=\"slow-en\" class=\"" + slow + "\"/>\n"
+					+ "  <bean id=\"slow-de\" class=\"" + slow + "\"/>\n"
+					+ "  <bean id=\"broken-en\" class=\"" + BrokenResource.class.getName()
+					+ "\"/>\n"
+					+ "</beans>\n");
+		}
+		finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	public static class SlowResource
+		extends StringResource
+	{
+		static final AtomicInteger instances = new AtomicInteger();
+
+		public SlowResource()
+			throws InterruptedException
+		{
+			Thread.sleep(100);
+			instances.incrementAndGet();
+		}
+	}
+
+	public static class BrokenResource
+		extends StringResource
+	{
+		public BrokenResource()
+			throws ResourceLoaderException
+		{
+			throw new ResourceLoaderException("Resource files not found");
+		}
+	}
 }
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.impl.SimpleLog;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.StringResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+
+public class InstrumentedResourceTest
+{
+	@Test
+	public void testHistogram()
+	{
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 100000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(100000, histogram.getCount());
+		assertEquals(100000, histogram.getMax());
+		assertEquals(50000.5, histogram.getMean(), 0.001);
+		assertEquals(50000, histogram.getValueAtPercentile(50), 50000 / 32);
+		assertEquals(99000, histogram.getValueAtPercentile(99), 99000 / 32);
+		assertEquals(1, histogram.getValueAtPercentile(0));
+		assertEquals(100000, histogram.getValueAtPercentile(100));
+
+		// small values are exact
+		Histogram small = new Histogram();
+		small.record(3);
+		small.record(7);
+		assertEquals(3, small.getValueAtPercentile(50));
+		assertEquals(7, small.getValueAtPercentile(51));
+	}
+
+	@Test
+	public void testDisabled()
+		throws Exception
+	{
+		MetricsRegistry registry = new MetricsRegistry();
+		LexicalSemanticResource resource = new InstrumentedResource(new StringResource(),
+				registry, "String");
+		resource.getEntity("tree");
+		assertEquals(0, registry.getMethod("String.getEntity").getCalls());
+		registry.getCache("cache").hit();
+		assertEquals(0, registry.getCache("cache").getHits());
+	}
+
+	@Test
+	public void testCallsAndErrors()
+		throws Exception
+	{
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.setEnabled(true);
+		LexicalSemanticResource resource = new InstrumentedResource(new StringResource(),
+				registry, "String");
+
+		assertEquals(1, resource.getEntity("tree").size());
+		assertEquals(1, resource.getEntity("tree", Entity.PoS.n).size());
+		assertTrue(resource.containsLexeme("tree"));
+		try {
+			resource.getEntityById("invalid");
+			fail("Expected an exception for an invalid id");
+		}
+		catch (LexicalSemanticResourceException e) {
+			// expected
+		}
+
+		MethodMetrics getEntity = registry.getMethod("String.getEntity");
+		assertEquals(2, getEntity.getCalls());
+		assertEquals(0, getEntity.getErrors());
+		assertEquals(2, getEntity.getLatencies().getCount());
+		assertEquals(1.0, getEntity.getMeanResultSize(), 0.001);
+		assertEquals(1, registry.getMethod("String.containsLexeme").getCalls());
+		assertEquals(0, registry.getMethod("String.containsLexeme").getResultSizes().getCount());
+		MethodMetrics getEntityById = registry.getMethod("String.getEntityById");
+		assertEquals(1, getEntityById.getCalls());
+		assertEquals(1, getEntityById.getErrors());
+		assertTrue(getEntityById.getLastError().contains("Invalid id"));
+
+		// metrics are sorted by name, including those of methods that were not called
+		List<MethodMetrics> methods = registry.getMethods();
+		assertEquals("String.containsEntity", methods.get(0).getName());
+		assertEquals(0, methods.get(0).getCalls());
+	}
+
+	@Test
+	public void testReporters()
+		throws Exception
+	{
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.setEnabled(true);
+		LexicalSemanticResource resource = new InstrumentedResource(new StringResource(),
+				registry, "String");
+		resource.getEntity("tree");
+		CacheMetrics cache = registry.getCache("String.cache");
+		cache.hit();
+		cache.hit();
+		cache.miss();
+		assertEquals(2.0 / 3, cache.getHitRate(), 0.001);
+
+		final Set<String> lines = new HashSet<String>();
+		SimpleLog log = new SimpleLog("metrics") {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void log(int type, Object message, Throwable t)
+			{
+				lines.add(message.toString());
+			}
+		};
+		log.setLevel(SimpleLog.LOG_LEVEL_INFO);
+		registry.addReporter(new LoggingMetricsReporter(log));
+		JmxMetricsReporter jmx = new JmxMetricsReporter();
+		registry.addReporter(jmx);
+		registry.report();
+
+		assertEquals(2, lines.size());
+		Map<String, String> byName = new HashMap<String, String>();
+		for (String line : lines) {
+			byName.put(line.substring(0, line.indexOf(':')), line);
+		}
+		assertTrue(byName.get("String.getEntity").contains("calls=1 errors=0"));
+		assertTrue(byName.get("String.cache").contains("hits=2 misses=1"));
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(JmxMetricsReporter.DEFAULT_DOMAIN
+				+ ":type=Cache,name=" + ObjectName.quote("String.cache"));
+		assertEquals(2L, server.getAttribute(name, "Hits"));
+		registry.close();
+		assertFalse(server.isRegistered(name));
+	}
+}
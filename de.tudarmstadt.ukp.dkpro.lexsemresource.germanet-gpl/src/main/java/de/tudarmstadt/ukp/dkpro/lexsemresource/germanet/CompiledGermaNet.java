@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/gpl-3.0.txt
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.germanet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Read-only access to a GermaNet file written by {@link GermaNetCompiler}. The file is memory
+ * mapped and all reads use absolute positions, so opening it only walks the section headers,
+ * the data is shared through the page cache by all processes that map the same file, and
+ * instances can be used by any number of threads.
+ * <p>
+ * Synsets, lexical units and strings are addressed by their dense ids in the file.
+ */
+public class CompiledGermaNet {
+
+    private final ByteBuffer buffer;
+    private final boolean ignoreCase;
+    private final long fingerprint;
+
+    private final IntSection stringOffsets;
+    private final int stringBytes;
+    private final String[] categoryNames;
+    private final IntSection synsetCategories;
+    private final IntSection synsetLexUnitOffsets;
+    private final IntSection lexUnitOrthForms;
+    private final IntSection lexUnitSenses;
+    private final IntSection lexUnitSynsets;
+    private final Map<String, Relation> conceptualRelations;
+    private final Map<String, Relation> lexicalRelations;
+    private final Postings formLexUnits;
+    private final Postings mainFormLexUnits;
+
+    private CompiledGermaNet(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != GermaNetCompiler.MAGIC) {
+            throw new IOException("Not a compiled GermaNet file.");
+        }
+        int version = buffer.getInt(4);
+        if (version != GermaNetCompiler.VERSION) {
+            throw new IOException("Unsupported compiled GermaNet version " + version
+                    + " (expected " + GermaNetCompiler.VERSION + ")");
+        }
+        ignoreCase = buffer.getInt(8) != 0;
+        fingerprint = buffer.getLong(12);
+
+        int position = 20;
+        int numberOfStrings = buffer.getInt(position);
+        stringOffsets = new IntSection(position + 4, numberOfStrings + 1);
+        stringBytes = stringOffsets.end();
+        int stringLength = stringOffsets.get(numberOfStrings);
+        position = stringBytes + stringLength + (4 - stringLength % 4) % 4;
+
+        int numberOfCategories = buffer.getInt(position);
+        categoryNames = new String[numberOfCategories];
+        for (int i = 0; i < numberOfCategories; i++) {
+            categoryNames[i] = getString(buffer.getInt(position + 4 + 4 * i));
+        }
+        position += 4 + 4 * numberOfCategories;
+
+        int numberOfSynsets = buffer.getInt(position);
+        synsetCategories = new IntSection(position + 4, numberOfSynsets);
+        synsetLexUnitOffsets = new IntSection(synsetCategories.end(), numberOfSynsets + 1);
+        position = synsetLexUnitOffsets.end();
+
+        int numberOfLexUnits = buffer.getInt(position);
+        lexUnitOrthForms = new IntSection(position + 4, numberOfLexUnits);
+        lexUnitSenses = new IntSection(lexUnitOrthForms.end(), numberOfLexUnits);
+        lexUnitSynsets = new IntSection(lexUnitSenses.end(), numberOfLexUnits);
+        position = lexUnitSynsets.end();
+
+        conceptualRelations = new HashMap<String, Relation>();
+        position = readRelations(position, numberOfSynsets, conceptualRelations);
+        lexicalRelations = new HashMap<String, Relation>();
+        position = readRelations(position, numberOfLexUnits, lexicalRelations);
+
+        formLexUnits = new Postings(position);
+        mainFormLexUnits = new Postings(formLexUnits.end());
+    }
+
+    /**
+     * Maps a compiled GermaNet file.
+     *
+     * @param file The file written by {@link GermaNetCompiler}.
+     * @return The compiled GermaNet.
+     * @throws IOException If the file cannot be read or is not a compiled GermaNet file of the
+     *             supported version.
+     */
+    public static CompiledGermaNet open(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Compiled GermaNet file is too large: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return new CompiledGermaNet(mapped);
+        }
+        finally {
+            // the mapping stays valid after the channel is closed
+            channel.close();
+        }
+    }
+
+    /**
+     * Maps a compiled GermaNet file and checks that it was compiled from the current GermaNet
+     * XML files.
+     *
+     * @param file The file written by {@link GermaNetCompiler}.
+     * @param fingerprint The fingerprint of the GermaNet XML files, see
+     *            {@link GermaNetCompiler#getFingerprint(File)}.
+     * @return The compiled GermaNet.
+     * @throws IOException If the file cannot be read, is not a compiled GermaNet file of the
+     *             supported version, or was compiled from different XML files.
+     */
+    public static CompiledGermaNet open(File file, long fingerprint) throws IOException {
+        CompiledGermaNet gn = open(file);
+        if (gn.getFingerprint() != fingerprint) {
+            throw new IOException("Compiled GermaNet file " + file
+                    + " was compiled from different GermaNet files, it has to be recompiled.");
+        }
+        return gn;
+    }
+
+    private int readRelations(int position, int numberOfRows, Map<String, Relation> relations) {
+        int numberOfRelations = buffer.getInt(position);
+        position += 4;
+        for (int i = 0; i < numberOfRelations; i++) {
+            String name = getString(buffer.getInt(position));
+            Relation relation = new Relation(position + 4, numberOfRows);
+            relations.put(name, relation);
+            position = relation.end();
+        }
+        return position;
+    }
+
+    /**
+     * @return True, if the lookup keys are lower case.
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * @return The fingerprint of the GermaNet XML files the file was compiled from.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getNumberOfSynsets() {
+        return synsetCategories.length;
+    }
+
+    public int getNumberOfLexUnits() {
+        return lexUnitOrthForms.length;
+    }
+
+    /**
+     * @param synset A synset id.
+     * @return The name of the word category of the synset.
+     */
+    public String getCategory(int synset) {
+        return categoryNames[synsetCategories.get(synset)];
+    }
+
+    /**
+     * @param synset A synset id.
+     * @return The id of the first lexical unit of the synset.
+     */
+    public int getLexUnitStart(int synset) {
+        return synsetLexUnitOffsets.get(synset);
+    }
+
+    /**
+     * @param synset A synset id.
+     * @return The id after the last lexical unit of the synset.
+     */
+    public int getLexUnitEnd(int synset) {
+        return synsetLexUnitOffsets.get(synset + 1);
+    }
+
+    public String getOrthForm(int lexUnit) {
+        return getString(lexUnitOrthForms.get(lexUnit));
+    }
+
+    public int getSense(int lexUnit) {
+        return lexUnitSenses.get(lexUnit);
+    }
+
+    public int getSynset(int lexUnit) {
+        return lexUnitSynsets.get(lexUnit);
+    }
+
+    /**
+     * @param relation The name of a conceptual relation, see
+     *            {@link de.tuebingen.uni.sfs.germanet.api.ConRel}.
+     * @param synset A synset id.
+     * @return The sorted ids of the related synsets.
+     */
+    public int[] getRelatedSynsets(String relation, int synset) {
+        Relation rows = conceptualRelations.get(relation);
+        return rows != null ? rows.getRow(synset) : new int[0];
+    }
+
+    /**
+     * @param relation The name of a lexical relation, see
+     *            {@link de.tuebingen.uni.sfs.germanet.api.LexRel}.
+     * @param lexUnit A lexical unit id.
+     * @return The sorted ids of the related lexical units.
+     */
+    public int[] getRelatedLexUnits(String relation, int lexUnit) {
+        Relation rows = lexicalRelations.get(relation);
+        return rows != null ? rows.getRow(lexUnit) : new int[0];
+    }
+
+    /**
+     * @param form Any orthographic form or variant.
+     * @return The sorted ids of the synsets with a lexical unit of this form.
+     */
+    public int[] getSynsets(String form) {
+        TreeSet<Integer> synsets = new TreeSet<Integer>();
+        for (int lexUnit : getLexUnitsOfForm(form)) {
+            synsets.add(getSynset(lexUnit));
+        }
+        int[] result = new int[synsets.size()];
+        int i = 0;
+        for (int synset : synsets) {
+            result[i++] = synset;
+        }
+        return result;
+    }
+
+    /**
+     * @param form Any orthographic form or variant.
+     * @return The sorted ids of the lexical units with this form.
+     */
+    public int[] getLexUnitsOfForm(String form) {
+        return formLexUnits.get(GermaNetCompiler.key(form, ignoreCase));
+    }
+
+    /**
+     * @param orthForm A main orthographic form.
+     * @return The sorted ids of the lexical units with this main form.
+     */
+    public int[] getLexUnits(String orthForm) {
+        return mainFormLexUnits.get(GermaNetCompiler.key(orthForm, ignoreCase));
+    }
+
+    private String getString(int id) {
+        int start = stringOffsets.get(id);
+        byte[] bytes = new byte[stringOffsets.get(id + 1) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(stringBytes + start + i);
+        }
+        return new String(bytes, GermaNetCompiler.UTF8);
+    }
+
+    /**
+     * @return The id of the string, or -1 if it is not in the string table.
+     */
+    private int findString(String string) {
+        int low = 0;
+        int high = stringOffsets.length - 2;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = getString(mid).compareTo(string);
+            if (comparison < 0) {
+                low = mid + 1;
+            }
+            else if (comparison > 0) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A run of ints in the mapped file.
+     */
+    private class IntSection {
+
+        private final int start;
+        private final int length;
+
+        public IntSection(int start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        public int get(int i) {
+            return buffer.getInt(start + 4 * i);
+        }
+
+        public int end() {
+            return start + 4 * length;
+        }
+
+        public int[] copy(int from, int to) {
+            int[] values = new int[to - from];
+            for (int i = from; i < to; i++) {
+                values[i - from] = get(i);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Rows of ids in compressed sparse row layout.
+     */
+    private class Relation {
+
+        private final IntSection offsets;
+        private final IntSection targets;
+
+        public Relation(int position, int numberOfRows) {
+            offsets = new IntSection(position, numberOfRows + 1);
+            targets = new IntSection(offsets.end() + 4, buffer.getInt(offsets.end()));
+        }
+
+        public int[] getRow(int row) {
+            return targets.copy(offsets.get(row), offsets.get(row + 1));
+        }
+
+        public int end() {
+            return targets.end();
+        }
+    }
+
+    /**
+     * A sorted key table with a row of ids per key.
+     */
+    private class Postings {
+
+        private final IntSection keys;
+        private final Relation rows;
+
+        public Postings(int position) {
+            keys = new IntSection(position + 4, buffer.getInt(position));
+            rows = new Relation(keys.end(), keys.length);
+        }
+
+        public int[] get(String key) {
+            int string = findString(key);
+            if (string < 0) {
+                return new int[0];
+            }
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int value = keys.get(mid);
+                if (value < string) {
+                    low = mid + 1;
+                }
+                else if (value > string) {
+                    high = mid - 1;
+                }
+                else {
+                    return rows.getRow(mid);
+                }
+            }
+            return new int[0];
+        }
+
+        public int end() {
+            return rows.end();
+        }
+    }
+}
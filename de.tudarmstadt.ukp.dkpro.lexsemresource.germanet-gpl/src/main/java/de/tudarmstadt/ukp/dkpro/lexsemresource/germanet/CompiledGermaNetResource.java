@@ -0,0 +1,340 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/gpl-3.0.txt
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.germanet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.AbstractResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.germanet.util.GermaNetUtils;
+import de.tuebingen.uni.sfs.germanet.api.ConRel;
+import de.tuebingen.uni.sfs.germanet.api.LexRel;
+import de.tuebingen.uni.sfs.germanet.api.WordCategory;
+
+/**
+ * A GermaNet resource backed by a file written by {@link GermaNetCompiler}. The file is memory
+ * mapped instead of parsing the GermaNet XML files, so the resource is available almost
+ * immediately and does not keep the object graph of the GermaNet API on the heap. It answers all
+ * queries like {@link GermaNetResource}.
+ * <p>
+ * The case sensitivity is the one the file was compiled with.
+ */
+public class CompiledGermaNetResource extends AbstractResource {
+
+    private static final Log log = LogFactory.getLog(CompiledGermaNetResource.class);
+
+    private final static String resourceName = "GermaNet";
+    private final static String resourceVersion = "5.0";
+
+    private final CompiledGermaNet gn;
+
+    /**
+     * Maps a compiled GermaNet file without checking whether the GermaNet XML files changed
+     * since it was compiled.
+     *
+     * @param path The compiled GermaNet file as a path or file URL.
+     * @throws LexicalSemanticResourceException
+     */
+    public CompiledGermaNetResource(String path) throws LexicalSemanticResourceException {
+        this(path, null);
+    }
+
+    /**
+     * Maps a compiled GermaNet file and rejects it if it was not compiled from the current
+     * GermaNet XML files.
+     *
+     * @param path The compiled GermaNet file as a path or file URL.
+     * @param germaNetDirectory The directory of the GermaNet XML files as a path or file URL, or
+     *            null to skip the check.
+     * @throws LexicalSemanticResourceException If the file cannot be read or was compiled from
+     *             different GermaNet XML files.
+     */
+    public CompiledGermaNetResource(String path, String germaNetDirectory)
+        throws LexicalSemanticResourceException
+    {
+        long start = System.currentTimeMillis();
+        try {
+            File file = new File(GermaNetResource.toFilePath(path));
+            if (germaNetDirectory != null) {
+                File directory = new File(GermaNetResource.toFilePath(germaNetDirectory));
+                this.gn = CompiledGermaNet.open(file, GermaNetCompiler.getFingerprint(directory));
+            }
+            else {
+                this.gn = CompiledGermaNet.open(file);
+            }
+        }
+        catch (IOException e) {
+            throw new LexicalSemanticResourceException(e);
+        }
+        super.setIsCaseSensitive(!gn.isIgnoreCase());
+        log.info("Mapped compiled GermaNet with " + gn.getNumberOfSynsets() + " synsets in "
+                + (System.currentTimeMillis() - start) + "ms.");
+    }
+
+    /**
+     * The case sensitivity is fixed when the file is compiled.
+     *
+     * @throws UnsupportedOperationException If the given value differs from the compiled one.
+     */
+    @Override
+    public void setIsCaseSensitive(boolean isCaseSensitive) {
+        if (isCaseSensitive != this.isCaseSensitive) {
+            throw new UnsupportedOperationException(
+                    "The case sensitivity of a compiled GermaNet is fixed when it is compiled.");
+        }
+    }
+
+    public boolean containsEntity(Entity entity) throws LexicalSemanticResourceException {
+        return entityToSynsets(entity).size() > 0;
+    }
+
+    public boolean containsLexeme(String lexeme) throws LexicalSemanticResourceException {
+        if (lexeme == null) {
+            return false;
+        }
+        return gn.getLexUnits(lexeme).length > 0;
+    }
+
+    public Set<Entity> getEntity(String lexeme) throws LexicalSemanticResourceException {
+        return synsetsToEntities(entityToSynsets(new Entity(lexeme)));
+    }
+
+    public Set<Entity> getEntity(String lexeme, PoS pos) throws LexicalSemanticResourceException {
+        return synsetsToEntities(entityToSynsets(new Entity(lexeme, pos)));
+    }
+
+    public Set<Entity> getEntity(String lexeme, PoS pos, String sense)
+        throws LexicalSemanticResourceException
+    {
+        return synsetsToEntities(getSynsets(lexeme, pos, sense));
+    }
+
+    public Set<Entity> getChildren(Entity entity) throws LexicalSemanticResourceException {
+        return getRelatedEntities(entity, SemanticRelation.hyponymy);
+    }
+
+    public Set<Entity> getParents(Entity entity) throws LexicalSemanticResourceException {
+        return getRelatedEntities(entity, SemanticRelation.hypernymy);
+    }
+
+    public Iterable<Entity> getEntities() throws LexicalSemanticResourceException {
+        return new Iterable<Entity>() {
+            @Override
+            public Iterator<Entity> iterator() {
+                return new Iterator<Entity>() {
+                    private int synset = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return synset < gn.getNumberOfSynsets();
+                    }
+
+                    @Override
+                    public Entity next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return synsetToEntity(synset++);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    public int getNumberOfEntities() throws LexicalSemanticResourceException {
+        return gn.getNumberOfSynsets();
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public String getResourceVersion() {
+        return resourceVersion;
+    }
+
+    public int getShortestPathLength(Entity firstEntity, Entity secondEntity) {
+        throw new UnsupportedOperationException();
+    }
+
+    public String getGloss(Entity entity) {
+        throw new UnsupportedOperationException();
+    }
+
+    public Set<String> getRelatedLexemes(String lexeme, PoS pos, String sense,
+            LexicalRelation lexicalRelation)
+        throws LexicalSemanticResourceException
+    {
+        String relation;
+        if (lexicalRelation.equals(LexicalRelation.antonymy)) {
+            relation = LexRel.has_antonym.name();
+        }
+        else if (lexicalRelation.equals(LexicalRelation.synonymy)) {
+            relation = LexRel.has_synonym.name();
+        }
+        else {
+            return new HashSet<String>();
+        }
+
+        Set<String> resultLexemes = new HashSet<String>();
+        String category = GermaNetUtils.mapPos(pos).name();
+        for (int lexUnit : gn.getLexUnits(lexeme)) {
+            if (category.equals(gn.getCategory(gn.getSynset(lexUnit)))
+                    && Integer.toString(gn.getSense(lexUnit)).equals(sense)) {
+                for (int related : gn.getRelatedLexUnits(relation, lexUnit)) {
+                    resultLexemes.add(gn.getOrthForm(related));
+                }
+            }
+        }
+        return resultLexemes;
+    }
+
+    public Set<Entity> getRelatedEntities(Entity entity, SemanticRelation semanticRelation)
+        throws LexicalSemanticResourceException
+    {
+        Set<Integer> synsets = entityToSynsets(entity);
+        if (synsets.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        ConRel[] relations;
+        if (semanticRelation.equals(SemanticRelation.holonymy)) {
+            relations = new ConRel[] { ConRel.has_component_holonym,
+                    ConRel.has_member_holonym, ConRel.has_portion_holonym };
+        }
+        else if (semanticRelation.equals(SemanticRelation.hypernymy)) {
+            relations = new ConRel[] { ConRel.has_hypernym };
+        }
+        else if (semanticRelation.equals(SemanticRelation.hyponymy)
+                || semanticRelation.equals(SemanticRelation.cohyponymy)) {
+            // cohyponymy is answered with the hyponyms, like in GermaNetResource
+            relations = new ConRel[] { ConRel.has_hyponym };
+        }
+        else if (semanticRelation.equals(SemanticRelation.meronymy)) {
+            relations = new ConRel[] { ConRel.has_component_meronym,
+                    ConRel.has_member_meronym, ConRel.has_portion_meronym };
+        }
+        else {
+            relations = new ConRel[0];
+        }
+
+        Set<Integer> resultSynsets = new HashSet<Integer>();
+        for (int synset : synsets) {
+            for (ConRel relation : relations) {
+                for (int related : gn.getRelatedSynsets(relation.name(), synset)) {
+                    resultSynsets.add(related);
+                }
+            }
+        }
+        return synsetsToEntities(resultSynsets);
+    }
+
+    @Override
+    public Entity getRoot() throws LexicalSemanticResourceException {
+        Map<String,String> rootLexemes = new HashMap<String,String>();
+        rootLexemes.put("Entität", "1");
+        try {
+            return this.getEntity(rootLexemes, PoS.n);
+        }
+        catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public Entity getRoot(PoS pos) throws LexicalSemanticResourceException {
+        if (pos.equals(PoS.n)) {
+            return getRoot();
+        }
+        else {
+            return null;
+        }
+    }
+
+    @Override
+    public Entity getMostFrequentEntity(String lexeme)
+        throws LexicalSemanticResourceException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Entity getMostFrequentEntity(String lexeme, PoS pos)
+        throws LexicalSemanticResourceException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Looks up the synsets of an entity like
+     * {@link de.tudarmstadt.ukp.dkpro.lexsemresource.germanet.util.GermaNetLemmaIndex}, i.e. by
+     * all orthographic forms of its lexemes and its part of speech, ignoring the senses.
+     */
+    private Set<Integer> entityToSynsets(Entity entity) {
+        Set<Integer> synsets = new HashSet<Integer>();
+        for (String lexeme : entity.getLexemes()) {
+            synsets.addAll(getSynsets(lexeme, entity.getPos(), Entity.UNKNOWN_SENSE));
+        }
+        return synsets;
+    }
+
+    private Set<Integer> getSynsets(String lexeme, PoS pos, String sense) {
+        Set<Integer> synsets = new HashSet<Integer>();
+        String category = null;
+        if (!pos.equals(Entity.UNKNOWN_POS)) {
+            category = GermaNetUtils.mapPos(pos).name();
+        }
+        boolean anySense = sense == null || sense.equals(Entity.UNKNOWN_SENSE);
+        for (int lexUnit : gn.getLexUnitsOfForm(lexeme)) {
+            int synset = gn.getSynset(lexUnit);
+            if ((category == null || category.equals(gn.getCategory(synset)))
+                    && (anySense || sense.equals(Integer.toString(gn.getSense(lexUnit))))) {
+                synsets.add(synset);
+            }
+        }
+        return synsets;
+    }
+
+    private Set<Entity> synsetsToEntities(Set<Integer> synsets) {
+        Set<Entity> entities = new HashSet<Entity>();
+        for (int synset : synsets) {
+            entities.add(synsetToEntity(synset));
+        }
+        return entities;
+    }
+
+    private Entity synsetToEntity(int synset) {
+        Map<String,String> lexemes = new HashMap<String,String>();
+        for (int lexUnit = gn.getLexUnitStart(synset); lexUnit < gn.getLexUnitEnd(synset);
+                lexUnit++) {
+            lexemes.put(gn.getOrthForm(lexUnit), Integer.toString(gn.getSense(lexUnit)));
+        }
+        return new Entity(lexemes, GermaNetUtils.mapPos(WordCategory.valueOf(gn.getCategory(synset))));
+    }
+}
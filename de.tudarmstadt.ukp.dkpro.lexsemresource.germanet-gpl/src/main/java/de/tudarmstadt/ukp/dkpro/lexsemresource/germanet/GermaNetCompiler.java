@@ -0,0 +1,344 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/gpl-3.0.txt
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.germanet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import de.tuebingen.uni.sfs.germanet.api.ConRel;
+import de.tuebingen.uni.sfs.germanet.api.GermaNet;
+import de.tuebingen.uni.sfs.germanet.api.LexRel;
+import de.tuebingen.uni.sfs.germanet.api.LexUnit;
+import de.tuebingen.uni.sfs.germanet.api.Synset;
+import de.tuebingen.uni.sfs.germanet.api.WordCategory;
+
+/**
+ * Compiles a parsed {@link GermaNet} into the binary file read by {@link CompiledGermaNet}.
+ * Synsets and lexical units are numbered densely, lexical units grouped by synset, and all
+ * strings are stored once in a sorted table. Relations are stored by name, so that a file stays
+ * readable if the API adds relation types.
+ * <p>
+ * Layout (version 3, all numbers are big-endian ints unless noted):
+ * <pre>
+ * magic ("LSRN"), version, ignore case (0 or 1), fingerprint of the source files (long)
+ * strings:    count n, offsets (n+1), UTF-8 bytes (padded to 4)
+ * categories: count c, name string ids (c)
+ * synsets:    count s, category (s), lexical unit offsets (s+1)
+ * lex units:  count l, orth form string id (l), sense (l), synset (l)
+ * conceptual relations: count r, r times: name string id, offsets (s+1), count, targets
+ * lexical relations:    count r, r times: name string id, offsets (l+1), count, targets
+ * orth forms: count k, key string ids (k, ascending), offsets (k+1), count, lexical units
+ * main forms: count k, key string ids (k, ascending), offsets (k+1), count, lexical units
+ * </pre>
+ * The orth form keys cover all orthographic forms and variants of a lexical unit, the main form
+ * keys only its main orthographic form. If the file is compiled to ignore case,
+ * all keys are lower case. The fingerprint identifies the GermaNet XML files the file was
+ * compiled from, see {@link #getFingerprint(File)}.
+ */
+public final class GermaNetCompiler {
+
+    private static final Log log = LogFactory.getLog(GermaNetCompiler.class);
+
+    static final int MAGIC = 0x4C53524E;
+    static final int VERSION = 3;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private GermaNetCompiler() {}
+
+    /**
+     * Compiles a GermaNet directory. Usage: <code>GermaNetCompiler germanetDir outputFile
+     * [ignoreCase]</code>
+     *
+     * @param args The command line arguments.
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            log.error("Usage: GermaNetCompiler <germanet directory> <output file> "
+                    + "[ignoreCase]");
+            System.exit(1);
+        }
+        boolean ignoreCase = args.length > 2 && Boolean.parseBoolean(args[2]);
+        long start = System.currentTimeMillis();
+        compile(new GermaNet(args[0], ignoreCase), ignoreCase, getFingerprint(new File(args[0])),
+                new File(args[1]));
+        log.info("Compiled " + args[0] + " to " + args[1] + " in "
+                + (System.currentTimeMillis() - start) + "ms.");
+    }
+
+    /**
+     * Writes the given GermaNet to a compiled file. The data is written to a temporary file
+     * first, which then replaces the target file.
+     *
+     * @param gn A GermaNet.
+     * @param ignoreCase Whether lookups in the compiled file ignore case. This should match the
+     *            setting the GermaNet was loaded with.
+     * @param fingerprint The fingerprint of the directory the GermaNet was loaded from, see
+     *            {@link #getFingerprint(File)}.
+     * @param file The target file.
+     * @throws IOException
+     */
+    public static void compile(GermaNet gn, boolean ignoreCase, long fingerprint, File file)
+        throws IOException
+    {
+        List<Synset> synsets = gn.getSynsets();
+        Map<Integer, Integer> synsetIds = new HashMap<Integer, Integer>(2 * synsets.size());
+        Map<Integer, Integer> lexUnitIds = new HashMap<Integer, Integer>();
+        List<LexUnit> lexUnits = new ArrayList<LexUnit>();
+        for (Synset synset : synsets) {
+            synsetIds.put(synset.getId(), synsetIds.size());
+            for (LexUnit lexUnit : synset.getLexUnits()) {
+                lexUnitIds.put(lexUnit.getId(), lexUnits.size());
+                lexUnits.add(lexUnit);
+            }
+        }
+
+        // collect the keys, then number all strings in sorted order
+        TreeMap<String, TreeSet<Integer>> formLexUnits = new TreeMap<String, TreeSet<Integer>>();
+        TreeMap<String, TreeSet<Integer>> mainFormLexUnits =
+                new TreeMap<String, TreeSet<Integer>>();
+        TreeSet<String> strings = new TreeSet<String>();
+        for (int lu = 0; lu < lexUnits.size(); lu++) {
+            LexUnit lexUnit = lexUnits.get(lu);
+            strings.add(lexUnit.getOrthForm());
+            addPosting(mainFormLexUnits, key(lexUnit.getOrthForm(), ignoreCase), lu);
+            for (String form : new String[] { lexUnit.getOrthForm(), lexUnit.getOrthVar(),
+                    lexUnit.getOldOrthForm(), lexUnit.getOldOrthVar() }) {
+                if (form != null) {
+                    addPosting(formLexUnits, key(form, ignoreCase), lu);
+                }
+            }
+        }
+        strings.addAll(formLexUnits.keySet());
+        strings.addAll(mainFormLexUnits.keySet());
+        for (WordCategory category : WordCategory.values()) {
+            strings.add(category.name());
+        }
+        for (ConRel relation : ConRel.values()) {
+            strings.add(relation.name());
+        }
+        for (LexRel relation : LexRel.values()) {
+            strings.add(relation.name());
+        }
+        Map<String, Integer> stringIds = new HashMap<String, Integer>(2 * strings.size());
+        for (String string : strings) {
+            stringIds.put(string, stringIds.size());
+        }
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmpFile), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ignoreCase ? 1 : 0);
+            out.writeLong(fingerprint);
+
+            // strings
+            out.writeInt(strings.size());
+            List<byte[]> encoded = new ArrayList<byte[]>(strings.size());
+            int offset = 0;
+            out.writeInt(offset);
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(UTF8);
+                encoded.add(bytes);
+                offset += bytes.length;
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+            out.write(new byte[(4 - offset % 4) % 4]);
+
+            // categories
+            WordCategory[] categories = WordCategory.values();
+            out.writeInt(categories.length);
+            for (WordCategory category : categories) {
+                out.writeInt(stringIds.get(category.name()));
+            }
+
+            // synsets
+            out.writeInt(synsets.size());
+            for (Synset synset : synsets) {
+                out.writeInt(synset.getWordCategory().ordinal());
+            }
+            int lexUnitOffset = 0;
+            out.writeInt(lexUnitOffset);
+            for (Synset synset : synsets) {
+                lexUnitOffset += synset.getLexUnits().size();
+                out.writeInt(lexUnitOffset);
+            }
+
+            // lexical units
+            out.writeInt(lexUnits.size());
+            for (LexUnit lexUnit : lexUnits) {
+                out.writeInt(stringIds.get(lexUnit.getOrthForm()));
+            }
+            for (LexUnit lexUnit : lexUnits) {
+                out.writeInt(lexUnit.getSense());
+            }
+            for (LexUnit lexUnit : lexUnits) {
+                out.writeInt(synsetIds.get(lexUnit.getSynset().getId()));
+            }
+
+            // conceptual relations
+            out.writeInt(ConRel.values().length);
+            for (ConRel relation : ConRel.values()) {
+                out.writeInt(stringIds.get(relation.name()));
+                int[][] rows = new int[synsets.size()][];
+                for (int s = 0; s < rows.length; s++) {
+                    List<Synset> related = synsets.get(s).getRelatedSynsets(relation);
+                    List<Integer> ids = new ArrayList<Integer>(related.size());
+                    for (Synset target : related) {
+                        ids.add(target.getId());
+                    }
+                    rows[s] = toIds(ids, synsetIds);
+                }
+                writeRows(out, rows);
+            }
+
+            // lexical relations
+            out.writeInt(LexRel.values().length);
+            for (LexRel relation : LexRel.values()) {
+                out.writeInt(stringIds.get(relation.name()));
+                int[][] rows = new int[lexUnits.size()][];
+                for (int lu = 0; lu < rows.length; lu++) {
+                    List<LexUnit> related = lexUnits.get(lu).getRelatedLexUnits(relation);
+                    List<Integer> ids = new ArrayList<Integer>(related.size());
+                    for (LexUnit target : related) {
+                        ids.add(target.getId());
+                    }
+                    rows[lu] = toIds(ids, lexUnitIds);
+                }
+                writeRows(out, rows);
+            }
+
+            writePostings(out, formLexUnits, stringIds);
+            writePostings(out, mainFormLexUnits, stringIds);
+        }
+        finally {
+            out.close();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The fingerprint changes whenever a GermaNet XML file is added, removed or modified.
+     *
+     * @param germaNetDirectory The directory of the GermaNet XML files.
+     * @return The fingerprint of the XML files in the directory.
+     */
+    public static long getFingerprint(File germaNetDirectory) {
+        File[] files = germaNetDirectory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        Arrays.sort(files);
+        long fingerprint = 17;
+        for (File file : files) {
+            if (file.getName().endsWith(".xml")) {
+                fingerprint = 31 * fingerprint + file.getName().hashCode();
+                fingerprint = 31 * fingerprint + file.length();
+                fingerprint = 31 * fingerprint + file.lastModified();
+            }
+        }
+        return fingerprint;
+    }
+
+    static String key(String form, boolean ignoreCase) {
+        return ignoreCase ? form.toLowerCase() : form;
+    }
+
+    private static void addPosting(Map<String, TreeSet<Integer>> postings, String key, int id) {
+        TreeSet<Integer> ids = postings.get(key);
+        if (ids == null) {
+            ids = new TreeSet<Integer>();
+            postings.put(key, ids);
+        }
+        ids.add(id);
+    }
+
+    /**
+     * @return The sorted dense ids of the given GermaNet ids, without unknown ids.
+     */
+    private static int[] toIds(List<Integer> germaNetIds, Map<Integer, Integer> ids) {
+        TreeSet<Integer> sorted = new TreeSet<Integer>();
+        for (Integer germaNetId : germaNetIds) {
+            Integer id = ids.get(germaNetId);
+            if (id != null) {
+                sorted.add(id);
+            }
+        }
+        int[] result = new int[sorted.size()];
+        int i = 0;
+        for (int id : sorted) {
+            result[i++] = id;
+        }
+        return result;
+    }
+
+    private static void writeRows(DataOutputStream out, int[][] rows) throws IOException {
+        int offset = 0;
+        out.writeInt(offset);
+        for (int[] row : rows) {
+            offset += row.length;
+            out.writeInt(offset);
+        }
+        out.writeInt(offset);
+        for (int[] row : rows) {
+            for (int target : row) {
+                out.writeInt(target);
+            }
+        }
+    }
+
+    private static void writePostings(DataOutputStream out,
+            TreeMap<String, TreeSet<Integer>> postings, Map<String, Integer> stringIds)
+        throws IOException
+    {
+        // the keys are sorted like the string table, so their string ids ascend
+        out.writeInt(postings.size());
+        for (String key : postings.keySet()) {
+            out.writeInt(stringIds.get(key));
+        }
+        int[][] rows = new int[postings.size()][];
+        int i = 0;
+        for (TreeSet<Integer> ids : postings.values()) {
+            rows[i] = new int[ids.size()];
+            int j = 0;
+            for (int id : ids) {
+                rows[i][j++] = id;
+            }
+            i++;
+        }
+        writeRows(out, rows);
+    }
+}
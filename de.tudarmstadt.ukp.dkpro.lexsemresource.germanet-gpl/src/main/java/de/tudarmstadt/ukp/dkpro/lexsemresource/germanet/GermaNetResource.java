@@ -27,6 +27,7 @@ import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.core.AbstractResource;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.germanet.util.GermaNetEntityIterable;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.germanet.util.GermaNetLemmaIndex;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.germanet.util.GermaNetUtils;
 import de.tuebingen.uni.sfs.germanet.api.ConRel;
 import de.tuebingen.uni.sfs.germanet.api.GermaNet;
@@ -45,32 +46,17 @@ public class GermaNetResource extends AbstractResource {
 
 	private final GermaNet gn;
 
+    /** Resolves lexemes to lexical units and synsets with a single lookup. */
+    private final GermaNetLemmaIndex lemmaIndex;
+
 	public GermaNetResource(String path, boolean ignoreCase)
 	    throws LexicalSemanticResourceException
 	{
-        // Check if we got an URL (file URL)
-        String dir = null;
-        try {
-            URL url = new URL(path);
-            if ("file".equals(url.getProtocol())) {
-                dir = new File(url.getPath()).getAbsolutePath();
-            }
-            else {
-                throw new IllegalArgumentException(
-                        "GermaNet resources have to reside on the file "+
-                        "system, but are at ["+url+"]");
-            }
-        }
-        catch (IOException e) {
-            // Ignore
-        }
-
-        if (dir == null) {
-            dir = path;
-        }
+        String dir = toFilePath(path);
 
         try {
             this.gn = new GermaNet(dir, ignoreCase);
+            this.lemmaIndex = new GermaNetLemmaIndex(gn);
             setIsCaseSensitive(!ignoreCase);
         }
         catch (FileNotFoundException e) {
@@ -88,15 +74,38 @@ public class GermaNetResource extends AbstractResource {
 	    this(path, false);
 	}
 
-
-    public boolean containsEntity(Entity entity) throws LexicalSemanticResourceException {
-        Set<Synset> synset = GermaNetUtils.entityToSynsets(gn, entity);
-        if (synset.size() == 0) {
-            return false;
+    /**
+     * @param path A path or file URL.
+     * @return The path of the given path or file URL.
+     * @throws IllegalArgumentException If the path is a URL, but not a file URL.
+     */
+    static String toFilePath(String path) {
+        // Check if we got an URL (file URL)
+        String file = null;
+        try {
+            URL url = new URL(path);
+            if ("file".equals(url.getProtocol())) {
+                file = new File(url.getPath()).getAbsolutePath();
+            }
+            else {
+                throw new IllegalArgumentException(
+                        "GermaNet resources have to reside on the file "+
+                        "system, but are at ["+url+"]");
+            }
         }
-        else {
-            return true;
+        catch (IOException e) {
+            // Ignore
+        }
+
+        if (file == null) {
+            file = path;
         }
+        return file;
+    }
+
+
+    public boolean containsEntity(Entity entity) throws LexicalSemanticResourceException {
+        return !lemmaIndex.getSynsets(entity, isCaseSensitive).isEmpty();
     }
 
     public boolean containsLexeme(String lexeme) throws LexicalSemanticResourceException {
@@ -105,26 +114,23 @@ public class GermaNetResource extends AbstractResource {
             return false;
         }
 
-        return (gn.getLexUnits(lexeme, true).size() > 0);
+        return lemmaIndex.containsMainForm(lexeme, isCaseSensitive);
     }
 
 
     public Set<Entity> getEntity(String lexeme) throws LexicalSemanticResourceException {
-        Entity e = new Entity(lexeme);
-        Set<Entity> entities = GermaNetUtils.synsetsToEntities( GermaNetUtils.entityToSynsets(gn, e) );
-        return entities;
+        return GermaNetUtils.synsetsToEntities(
+                lemmaIndex.getSynsets(lexeme, Entity.UNKNOWN_POS, Entity.UNKNOWN_SENSE, isCaseSensitive));
     }
 
     public Set<Entity> getEntity(String lexeme, PoS pos) throws LexicalSemanticResourceException {
-        Entity e = new Entity(lexeme, pos);
-        Set<Entity> entities = GermaNetUtils.synsetsToEntities( GermaNetUtils.entityToSynsets(gn, e) );
-        return entities;
+        return GermaNetUtils.synsetsToEntities(
+                lemmaIndex.getSynsets(lexeme, pos, Entity.UNKNOWN_SENSE, isCaseSensitive));
     }
 
     public Set<Entity> getEntity(String lexeme, PoS pos, String sense) throws LexicalSemanticResourceException {
-        Entity e = new Entity(lexeme, pos, sense);
-        Set<Entity> entities = GermaNetUtils.synsetsToEntities( GermaNetUtils.entityToSynsets(gn, e) );
-        return entities;
+        return GermaNetUtils.synsetsToEntities(
+                lemmaIndex.getSynsets(lexeme, pos, sense, isCaseSensitive));
     }
 
     public Set<Entity> getChildren(Entity entity) throws LexicalSemanticResourceException {
@@ -193,12 +199,13 @@ public class GermaNetResource extends AbstractResource {
     public Set<Entity> getRelatedEntities(Entity entity, SemanticRelation semanticRelation)
         throws LexicalSemanticResourceException
     {
-        if(!containsEntity(entity)) {
+        // resolve the entity only once, it is not contained if it has no synsets
+        Set<Synset> synsets = lemmaIndex.getSynsets(entity, isCaseSensitive);
+        if (synsets.isEmpty()) {
             return Collections.emptySet();
         }
         Set<Synset> resultSynsets = new HashSet<Synset>();
 
-        Set<Synset> synsets = GermaNetUtils.entityToSynsets(gn, entity);
         for (Synset synset : synsets) {
             if (semanticRelation.equals(SemanticRelation.holonymy)) {
                 resultSynsets.addAll(synset.getRelatedSynsets(ConRel.has_component_holonym));
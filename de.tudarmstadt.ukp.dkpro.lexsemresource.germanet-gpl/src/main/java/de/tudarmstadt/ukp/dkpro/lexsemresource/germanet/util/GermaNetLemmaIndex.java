@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/gpl-3.0.txt
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.germanet.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tuebingen.uni.sfs.germanet.api.GermaNet;
+import de.tuebingen.uni.sfs.germanet.api.LexUnit;
+import de.tuebingen.uni.sfs.germanet.api.Synset;
+import de.tuebingen.uni.sfs.germanet.api.WordCategory;
+
+/**
+ * Maps the orthographic forms of all lexical units of a GermaNet, including the variants and old
+ * spellings, to the lexical units. There is one map for the exact forms and one for the lower
+ * case forms, so that both case sensitive and case insensitive lookups are a single hash lookup.
+ * <p>
+ * The index is immutable after it was built and can be shared by threads.
+ */
+public class GermaNetLemmaIndex {
+
+    private static final LexUnit[] NO_LEX_UNITS = new LexUnit[0];
+
+    private final Map<String, LexUnit[]> exactForms;
+    private final Map<String, LexUnit[]> foldedForms;
+
+    /**
+     * Builds the index over all synsets of the given GermaNet.
+     *
+     * @param gn A GermaNet.
+     */
+    public GermaNetLemmaIndex(GermaNet gn) {
+        Map<String, Set<LexUnit>> exact = new HashMap<String, Set<LexUnit>>();
+        Map<String, Set<LexUnit>> folded = new HashMap<String, Set<LexUnit>>();
+        for (Synset synset : gn.getSynsets()) {
+            for (LexUnit lexUnit : synset.getLexUnits()) {
+                for (String form : new String[] { lexUnit.getOrthForm(), lexUnit.getOrthVar(),
+                        lexUnit.getOldOrthForm(), lexUnit.getOldOrthVar() }) {
+                    if (form != null) {
+                        add(exact, form, lexUnit);
+                        add(folded, form.toLowerCase(), lexUnit);
+                    }
+                }
+            }
+        }
+        exactForms = toArrays(exact);
+        foldedForms = toArrays(folded);
+    }
+
+    /**
+     * @param lexeme An orthographic form or variant.
+     * @param caseSensitive Whether the lexeme has to match in case.
+     * @return True, if the lexeme is the main orthographic form of a lexical unit.
+     */
+    public boolean containsMainForm(String lexeme, boolean caseSensitive) {
+        for (LexUnit lexUnit : getLexUnits(lexeme, caseSensitive)) {
+            String orthForm = lexUnit.getOrthForm();
+            if (caseSensitive ? orthForm.equals(lexeme) : orthForm.equalsIgnoreCase(lexeme)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves a lexeme to its synsets.
+     *
+     * @param lexeme An orthographic form or variant.
+     * @param pos The part of speech, or {@link Entity#UNKNOWN_POS} for all synsets of the lexeme.
+     * @param sense The sense of the lexical unit, or {@link Entity#UNKNOWN_SENSE} for all senses.
+     * @param caseSensitive Whether the lexeme has to match in case.
+     * @return The synsets.
+     */
+    public Set<Synset> getSynsets(String lexeme, PoS pos, String sense, boolean caseSensitive) {
+        Set<Synset> synsets = new HashSet<Synset>();
+        addSynsets(synsets, lexeme, pos, sense, caseSensitive);
+        return synsets;
+    }
+
+    /**
+     * Resolves an entity like {@link GermaNetUtils#entityToSynsets(GermaNet, Entity)}, i.e. by all
+     * of its lexemes and its part of speech, but ignoring the senses.
+     *
+     * @param entity An entity.
+     * @param caseSensitive Whether the lexemes have to match in case.
+     * @return The synsets.
+     */
+    public Set<Synset> getSynsets(Entity entity, boolean caseSensitive) {
+        Set<Synset> synsets = new HashSet<Synset>();
+        for (String lexeme : entity.getLexemes()) {
+            addSynsets(synsets, lexeme, entity.getPos(), Entity.UNKNOWN_SENSE, caseSensitive);
+        }
+        return synsets;
+    }
+
+    private void addSynsets(Set<Synset> synsets, String lexeme, PoS pos, String sense,
+            boolean caseSensitive)
+    {
+        WordCategory category = null;
+        if (!pos.equals(Entity.UNKNOWN_POS)) {
+            category = GermaNetUtils.mapPos(pos);
+        }
+        boolean anySense = sense == null || sense.equals(Entity.UNKNOWN_SENSE);
+        for (LexUnit lexUnit : getLexUnits(lexeme, caseSensitive)) {
+            Synset synset = lexUnit.getSynset();
+            if ((category == null || category.equals(synset.getWordCategory()))
+                    && (anySense || sense.equals(Integer.toString(lexUnit.getSense())))) {
+                synsets.add(synset);
+            }
+        }
+    }
+
+    private LexUnit[] getLexUnits(String lexeme, boolean caseSensitive) {
+        if (lexeme == null) {
+            return NO_LEX_UNITS;
+        }
+        LexUnit[] lexUnits = caseSensitive
+                ? exactForms.get(lexeme) : foldedForms.get(lexeme.toLowerCase());
+        return lexUnits != null ? lexUnits : NO_LEX_UNITS;
+    }
+
+    private static void add(Map<String, Set<LexUnit>> forms, String form, LexUnit lexUnit) {
+        Set<LexUnit> lexUnits = forms.get(form);
+        if (lexUnits == null) {
+            lexUnits = new HashSet<LexUnit>(2);
+            forms.put(form, lexUnits);
+        }
+        lexUnits.add(lexUnit);
+    }
+
+    private static Map<String, LexUnit[]> toArrays(Map<String, Set<LexUnit>> forms) {
+        Map<String, LexUnit[]> result = new HashMap<String, LexUnit[]>(2 * forms.size());
+        for (Map.Entry<String, Set<LexUnit>> entry : forms.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toArray(NO_LEX_UNITS));
+        }
+        return result;
+    }
+}
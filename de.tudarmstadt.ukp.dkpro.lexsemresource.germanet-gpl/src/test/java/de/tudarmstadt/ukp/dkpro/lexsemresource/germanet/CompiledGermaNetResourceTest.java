@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v3.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/gpl-3.0.txt
+ ******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.germanet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.LexicalRelation;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.SemanticRelation;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+import de.tuebingen.uni.sfs.germanet.api.GermaNet;
+
+public class CompiledGermaNetResourceTest {
+
+    static final String GERMANET_DIRECTORY = "src/test/resources/germanet";
+
+    private static final List<String> LEXEMES = Arrays.asList("Auto", "auto", "AUTO",
+            "Automobil", "Wagen", "wagen", "Rad", "Straße", "straße", "STRAßE",
+            "Strasse", "Fluss", "Fluß", "fluß", "Öl", "öl", "ÖL", "Ol",
+            "fahren", "Fahren", "kalt", "warm", "schnell", "rasch", "Entität", "Objekt",
+            "grhphafah");
+
+    private File directory;
+
+    @Before
+    public void setUp() {
+        directory = new File("target/test-output/CompiledGermaNetResourceTest");
+        directory.mkdirs();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private File compile(boolean ignoreCase, long fingerprint) throws Exception {
+        File file = new File(directory, ignoreCase ? "germanet-ci" : "germanet");
+        GermaNetCompiler.compile(new GermaNet(GERMANET_DIRECTORY, ignoreCase), ignoreCase,
+                fingerprint, file);
+        return file;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        long fingerprint = GermaNetCompiler.getFingerprint(new File(GERMANET_DIRECTORY));
+        for (boolean ignoreCase : new boolean[] { false, true }) {
+            GermaNetResource germaNet = new GermaNetResource(GERMANET_DIRECTORY, ignoreCase);
+            CompiledGermaNetResource compiled = new CompiledGermaNetResource(
+                    compile(ignoreCase, fingerprint).getPath(), GERMANET_DIRECTORY);
+            String mode = ignoreCase ? "ignore case: " : "case sensitive: ";
+
+            assertEquals(germaNet.getIsCaseSensitive(), compiled.getIsCaseSensitive());
+            assertEquals(12, compiled.getNumberOfEntities());
+            assertEquals(germaNet.getNumberOfEntities(), compiled.getNumberOfEntities());
+            Set<Entity> entities = toSet(germaNet.getEntities());
+            assertEquals(entities, toSet(compiled.getEntities()));
+
+            for (String lexeme : LEXEMES) {
+                assertEquals(mode + lexeme, germaNet.containsLexeme(lexeme),
+                        compiled.containsLexeme(lexeme));
+                assertEquals(mode + lexeme, germaNet.getEntity(lexeme),
+                        compiled.getEntity(lexeme));
+                for (PoS pos : PoS.values()) {
+                    assertEquals(mode + lexeme + " " + pos, germaNet.getEntity(lexeme, pos),
+                            compiled.getEntity(lexeme, pos));
+                    for (String sense : Arrays.asList("1", "3", Entity.UNKNOWN_SENSE)) {
+                        String query = mode + lexeme + " " + pos + " " + sense;
+                        assertEquals(query, germaNet.getEntity(lexeme, pos, sense),
+                                compiled.getEntity(lexeme, pos, sense));
+                        for (LexicalRelation relation : LexicalRelation.values()) {
+                            assertEquals(query + " " + relation,
+                                    germaNet.getRelatedLexemes(lexeme, pos, sense, relation),
+                                    compiled.getRelatedLexemes(lexeme, pos, sense, relation));
+                        }
+                    }
+                }
+            }
+
+            for (Entity entity : entities) {
+                String query = mode + entity;
+                assertTrue(query, compiled.containsEntity(entity));
+                assertEquals(query, germaNet.getParents(entity), compiled.getParents(entity));
+                assertEquals(query, germaNet.getChildren(entity), compiled.getChildren(entity));
+                for (SemanticRelation relation : SemanticRelation.values()) {
+                    assertEquals(query + " " + relation,
+                            germaNet.getRelatedEntities(entity, relation),
+                            compiled.getRelatedEntities(entity, relation));
+                }
+                assertEquals(query, getGloss(germaNet, entity), getGloss(compiled, entity));
+            }
+            assertEquals(germaNet.getRoot(), compiled.getRoot());
+        }
+    }
+
+    @Test
+    public void testQueries() throws Exception {
+        CompiledGermaNetResource compiled = new CompiledGermaNetResource(compile(false,
+                GermaNetCompiler.getFingerprint(new File(GERMANET_DIRECTORY))).getPath());
+        Entity auto = compiled.getEntity("Wagen", PoS.n, "3").iterator().next();
+        assertEquals(new HashSet<String>(Arrays.asList("Auto", "Automobil", "Wagen")),
+                auto.getLexemes());
+        assertEquals("1", auto.getSense("Auto"));
+
+        assertTrue(compiled.containsLexeme("Auto"));
+        assertFalse(compiled.containsLexeme("auto"));
+        // an old spelling finds the synset, but is no main form
+        assertFalse(compiled.containsLexeme("Fluß"));
+        assertEquals(compiled.getEntity("Fluss"), compiled.getEntity("Fluß"));
+
+        Entity objekt = new Entity("Objekt", PoS.n, "1");
+        assertEquals(Collections.singleton(objekt), compiled.getParents(auto));
+        assertEquals(6, compiled.getChildren(objekt).size());
+        assertEquals(compiled.getEntity("Rad"),
+                compiled.getRelatedEntities(auto, SemanticRelation.meronymy));
+        assertEquals(Collections.singleton("warm"), compiled.getRelatedLexemes("kalt", PoS.adj,
+                "1", LexicalRelation.antonymy));
+    }
+
+    @Test
+    public void testOutdatedFile() throws Exception {
+        long fingerprint = GermaNetCompiler.getFingerprint(new File(GERMANET_DIRECTORY));
+        File file = compile(false, fingerprint + 1);
+        try {
+            new CompiledGermaNetResource(file.getPath(), GERMANET_DIRECTORY);
+            fail("A file compiled from different GermaNet files was accepted.");
+        }
+        catch (LexicalSemanticResourceException e) {
+            // expected
+        }
+        // the check is skipped without the GermaNet directory
+        assertTrue(new CompiledGermaNetResource(file.getPath()).containsLexeme("Auto"));
+    }
+
+    private static Set<Entity> toSet(Iterable<Entity> entities) {
+        Set<Entity> set = new HashSet<Entity>();
+        for (Entity entity : entities) {
+            set.add(entity);
+        }
+        return set;
+    }
+
+    /**
+     * @return The gloss, or the class of the exception if there is none.
+     */
+    private static Object getGloss(LexicalSemanticResource resource, Entity entity)
+        throws LexicalSemanticResourceException
+    {
+        try {
+            return resource.getGloss(entity);
+        }
+        catch (UnsupportedOperationException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -37,9 +38,12 @@ import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.LexicalRelation;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.core.ResourceFactory;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.germanet.util.GermaNetLemmaIndex;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraph;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraphManager;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraphManager.EntityGraphType;
+import de.tuebingen.uni.sfs.germanet.api.GermaNet;
+import de.tuebingen.uni.sfs.germanet.api.Synset;
 
 //ae 	U+00E4
 //oe 	U+00F6
@@ -244,6 +248,107 @@ public class GermaNetResourceTest {
         assertEquals(74612, germaNet.getNumberOfEntities());
     }
 
+    @Test
+    public void testLemmaIndexCaseSensitive() throws Exception {
+        GermaNetLemmaIndex index = new GermaNetLemmaIndex(
+                new GermaNet(CompiledGermaNetResourceTest.GERMANET_DIRECTORY, false));
+
+        assertEquals(ids(6), lookup(index, "Stra\u00dfe", true));
+        assertEquals(ids(), lookup(index, "stra\u00dfe", true));
+        assertEquals(ids(), lookup(index, "STRA\u00dfE", true));
+        assertEquals(ids(), lookup(index, "Strasse", true));
+
+        assertEquals(ids(8), lookup(index, "\u00d6l", true));
+        assertEquals(ids(), lookup(index, "\u00f6l", true));
+        assertEquals(ids(), lookup(index, "\u00d6L", true));
+        assertEquals(ids(), lookup(index, "Ol", true));
+
+        // old spellings are found, but are not main forms
+        assertEquals(ids(7), lookup(index, "Flu\u00df", true));
+        assertEquals(ids(), lookup(index, "flu\u00df", true));
+        assertTrue(index.containsMainForm("Fluss", true));
+        assertFalse(index.containsMainForm("fluss", true));
+        assertFalse(index.containsMainForm("Flu\u00df", true));
+
+        assertEquals(ids(3), ids(index.getSynsets("Wagen", PoS.n, "3", true)));
+        assertEquals(ids(4), ids(index.getSynsets("Wagen", PoS.n, "1", true)));
+        assertEquals(ids(), ids(index.getSynsets("Wagen", PoS.n, "2", true)));
+        assertEquals(ids(3, 4), ids(index.getSynsets("Wagen", PoS.n, Entity.UNKNOWN_SENSE, true)));
+        assertEquals(ids(), ids(index.getSynsets("Wagen", PoS.v, Entity.UNKNOWN_SENSE, true)));
+        assertEquals(ids(), ids(index.getSynsets("wagen", PoS.n, "3", true)));
+        assertEquals(ids(3, 4), ids(index.getSynsets(new Entity("Wagen"), true)));
+        assertEquals(ids(), ids(index.getSynsets(new Entity("wagen"), true)));
+    }
+
+    @Test
+    public void testLemmaIndexCaseInsensitive() throws Exception {
+        GermaNetLemmaIndex index = new GermaNetLemmaIndex(
+                new GermaNet(CompiledGermaNetResourceTest.GERMANET_DIRECTORY, true));
+
+        // umlauts and \u00df fold by case only, \u00df is not the same as ss
+        assertEquals(ids(6), lookup(index, "Stra\u00dfe", false));
+        assertEquals(ids(6), lookup(index, "stra\u00dfe", false));
+        assertEquals(ids(6), lookup(index, "STRA\u00dfE", false));
+        assertEquals(ids(), lookup(index, "Strasse", false));
+        assertEquals(ids(), lookup(index, "STRASSE", false));
+
+        assertEquals(ids(8), lookup(index, "\u00d6l", false));
+        assertEquals(ids(8), lookup(index, "\u00f6l", false));
+        assertEquals(ids(8), lookup(index, "\u00d6L", false));
+        assertEquals(ids(), lookup(index, "Ol", false));
+        assertEquals(ids(), lookup(index, "Oel", false));
+
+        assertEquals(ids(7), lookup(index, "flu\u00df", false));
+        assertEquals(ids(7), lookup(index, "FLU\u00df", false));
+        assertTrue(index.containsMainForm("fluss", false));
+        assertFalse(index.containsMainForm("flu\u00df", false));
+
+        assertEquals(ids(3), ids(index.getSynsets("wagen", PoS.n, "3", false)));
+        assertEquals(ids(4), ids(index.getSynsets("WAGEN", PoS.n, "1", false)));
+        assertEquals(ids(3, 4), ids(index.getSynsets(new Entity("wagen"), false)));
+    }
+
+    @Test
+    public void testLemmaIndexGetEntityPosSense() throws LexicalSemanticResourceException {
+        for (boolean ignoreCase : new boolean[] { false, true }) {
+            GermaNetResource resource = new GermaNetResource(
+                    CompiledGermaNetResourceTest.GERMANET_DIRECTORY, ignoreCase);
+
+            Set<Entity> entities = resource.getEntity("Wagen", PoS.n, "3");
+            assertEquals(1, entities.size());
+            assertEquals("Auto#1|Automobil#1|Wagen#3|---n", entities.iterator().next().getId());
+
+            entities = resource.getEntity("Wagen", PoS.n, "1");
+            assertEquals(1, entities.size());
+            assertEquals("Wagen#1|---n", entities.iterator().next().getId());
+
+            assertEquals(0, resource.getEntity("Wagen", PoS.n, "2").size());
+            assertEquals(0, resource.getEntity("Wagen", PoS.v, "3").size());
+            assertEquals(ignoreCase ? 1 : 0, resource.getEntity("wagen", PoS.n, "3").size());
+            assertEquals(ignoreCase ? 1 : 0, resource.getEntity("STRA\u00dfE", PoS.n, "1").size());
+            assertEquals(0, resource.getEntity("Strasse", PoS.n, "1").size());
+        }
+    }
+
+    private static Set<Integer> lookup(GermaNetLemmaIndex index, String lexeme,
+            boolean caseSensitive)
+    {
+        return ids(index.getSynsets(lexeme, Entity.UNKNOWN_POS, Entity.UNKNOWN_SENSE,
+                caseSensitive));
+    }
+
+    private static Set<Integer> ids(Set<Synset> synsets) {
+        Set<Integer> ids = new HashSet<Integer>();
+        for (Synset synset : synsets) {
+            ids.add(synset.getId());
+        }
+        return ids;
+    }
+
+    private static Set<Integer> ids(Integer... ids) {
+        return new HashSet<Integer>(Arrays.asList(ids));
+    }
+
 
 
 
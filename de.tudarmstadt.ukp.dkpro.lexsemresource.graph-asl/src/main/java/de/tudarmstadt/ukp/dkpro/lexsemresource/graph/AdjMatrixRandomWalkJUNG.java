@@ -17,17 +17,13 @@
  *******************************************************************************/
 package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
-import java.util.Set;
+import java.util.Collection;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
-import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
 import edu.uci.ics.jung.graph.DirectedGraph;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
@@ -45,6 +41,10 @@ import edu.uci.ics.jung.graph.DirectedSparseGraph;
  * starting node and repeat the procedure. In our experiments we run the random
  * walk for 100 * n steps. (Leskovec and Faloutsos, 2006)
  *
+ * The walk is performed by several walkers in parallel, see
+ * {@link RandomWalkSampler}. For a given seed and number of walkers, the
+ * sample is reproducible.
+ *
  * @author garoufi
  *
  */
@@ -54,14 +54,12 @@ public class AdjMatrixRandomWalkJUNG
 	private final Log logger = LogFactory.getLog(getClass());
 	public DirectedGraph<Entity, EntityGraphEdge> entityGraph;
 	PersistentAdjacencyMatrix adjMatrix;
-	private Entity startEntity;
-	private Entity startEntityVertex;
-//	private final Set<String> edgeSet = new HashSet<String>();
 	int resourceSize = 0;
 	int graphSize = 0;
 
 	/**
-	 * A random walk graph from a resource with a desired size
+	 * A random walk graph from a resource with a desired size, sampled from
+	 * random start nodes with one walker per processor.
 	 *
 	 * @param resource
 	 * @param size
@@ -75,6 +73,35 @@ public class AdjMatrixRandomWalkJUNG
 	public AdjMatrixRandomWalkJUNG(LexicalSemanticResource resource, double size)
 		throws LexicalSemanticResourceException
 	{
+		this(resource, size, null, RandomWalkSampler.DEFAULT_RESTART_PROBABILITY,
+				Runtime.getRuntime().availableProcessors(), System.nanoTime());
+	}
+
+	/**
+	 * A random walk graph from a resource with a desired size
+	 *
+	 * @param resource
+	 * @param size
+	 *            The size of the RW graph. It takes a double value from 0 to 1
+	 *            (exclusively) that corresponds to the fraction of the original
+	 *            graph's size that we want the sample to have.
+	 * @param startEntities
+	 *            The entities the walkers start from. If null or empty, random
+	 *            entities are used.
+	 * @param restartProbability
+	 *            The probability to fly back to the start node at each step.
+	 * @param numberOfWalkers
+	 *            The number of walkers running in parallel.
+	 * @param seed
+	 *            The random seed. The same seed and number of walkers yield
+	 *            the same sample.
+	 * @throws LexicalSemanticResourceException
+	 */
+	public AdjMatrixRandomWalkJUNG(LexicalSemanticResource resource, double size,
+			Collection<Entity> startEntities, double restartProbability,
+			int numberOfWalkers, long seed)
+		throws LexicalSemanticResourceException
+	{
 
 		// size of a sample must be between 0 and 1
 		if (size <= 0 || size >= 1) {
@@ -85,142 +112,43 @@ public class AdjMatrixRandomWalkJUNG
 		adjMatrix = new PersistentAdjacencyMatrix(resource);
 
 		this.resourceSize = adjMatrix.resourceSize;
-		this.entityGraph = createRWGraph(resource, size);
+		this.entityGraph = createRWGraph(size, startEntities,
+				restartProbability, numberOfWalkers, seed);
 	}
 
 	/**
-	 * Create a random walk graph from a resource with a desired size
+	 * Create a random walk graph from the adjacency matrix with a desired size
 	 *
-	 * @param resource
 	 * @param size
 	 *            The size of the RW graph
-	 * @throws LexicalSemanticResourceException
-	 * @throws UnsupportedOperationException
 	 */
-	private DirectedGraph<Entity, EntityGraphEdge> createRWGraph(
-			LexicalSemanticResource resource, double size)
-		throws LexicalSemanticResourceException
+	private DirectedGraph<Entity, EntityGraphEdge> createRWGraph(double size,
+			Collection<Entity> startEntities, double restartProbability,
+			int numberOfWalkers, long seed)
 	{
-
-		DirectedGraph<Entity, EntityGraphEdge> graph = new DirectedSparseGraph<Entity, EntityGraphEdge>();
-
-		// for Wikipedia-AG-DE: start with node "Weltfrieden":
-		Map<String, String> startEntityLexemes = new HashMap<String, String>();
-		startEntityLexemes.put("Weltfriede", "-");
-		startEntityLexemes.put("Weltfrieden", "-");
-		startEntity = resource.getEntity(startEntityLexemes, PoS.unk);
-
 		// output resource and sample size
 		int sampleSize = (int) (resourceSize * size);
 		logger.info("The size of the resource is " + resourceSize);
 		logger.info("The size of the desired sample is " + sampleSize);
 
-		graph.addVertex(startEntity);
-
-		logger.info("Starting the RW with node: " + startEntity);
-
-		// // pause for a few sec so that i read the output:
-		// Long stoptime = 5000L;
-		// try {
-		// Thread.sleep(stoptime);
-		// } catch (InterruptedException e) {
-		// e.printStackTrace();
-		// }
-
-		Entity JUNGEntityVertex = startEntityVertex;
-		int numIterations = 100 * resourceSize;
-		graphSize = 1;
-		int progress = 0;
-
-		// run the random walk:
-		for (int i = 0; i < numIterations; i++) {
-
-			progress = 100 * i / numIterations;
-			if (i % 10000 == 0) {
-				logger.info("Sample size progress: " + graphSize + " ("
-						+ (100 * graphSize / sampleSize)
-						+ "%). Iteration progress: " + progress + "%");
-			}
+		RandomWalkSampler sampler = new RandomWalkSampler(
+				adjMatrix.getAdjacency(), numberOfWalkers, seed);
+		sampler.setRestartProbability(restartProbability);
+		sampler.setStartNodes(adjMatrix.getIndices(startEntities));
+		RandomWalkSampler.Sample sample = sampler.sample(sampleSize);
 
-			// now pick a random number from 0 to 1 in order to implement
-			// nondeterminism:
-			double r = Math.random();
-
-			// check if you got enough nodes:
-			if (graphSize >= sampleSize) {
-				logger.info("Desired sample size reached! Breaking the loop.");
-				break;
-			}
-
-			// with probability 85% burn child and make it the current node:
-			else if (r > 0.15) {
-				JUNGEntityVertex = burnChild(JUNGEntityVertex, graph);
-			}
-
-			// with probability 15% fly back to start:
-			else {
-				JUNGEntityVertex = startEntityVertex;
-			}
-		}
-		return graph;
-	}
-
-	/**
-	 * Randomly picks a child of the given source node, and burns it, i.e. puts
-	 * it into the graph, along with the corresponding edge
-	 *
-	 * @param source
-	 * @param graph
-	 * @throws LexicalSemanticResourceException
-	 * @throws UnsupportedOperationException
-	 * @return The child burned, if the source has children. The source itself,
-	 *         otherwise.
-	 */
-	private Entity burnChild(Entity sourceVertex,
-			DirectedGraph<Entity, EntityGraphEdge> graph)
-		throws LexicalSemanticResourceException
-	{
-
-		// Set<Entity> children =
-		// lexSemResource.getChildren(sourceVertex.getVertexEntity());
-		Set<Entity> children = adjMatrix.getAdjacencies(sourceVertex);
-
-		int numChildren = children.size();
-		Entity child = null;
-		Random generator = new Random();
-
-		if (numChildren != 0) {
-
-			// randomly select one of the children:
-			int pickedChild = generator.nextInt(numChildren);
-			child = (Entity) children.toArray()[pickedChild];
-
-			// check if the child is already in the graph. If not, create it:
-			if (!graph.getVertices().contains(child)) {
-
-				graph.addVertex(child);
-				// logger.info("Burned " +
-				// childVertex.getVertexEntity().toString());
-
-				// graph.addEdge(new DirectedSparseEdge(sourceVertex,
-				// childVertex));
-				// edgeSet.add("(" + sourceVertex.getVertexEntity() + ", " +
-				// child + ")");
-				graphSize++;
-			}
-
-			// if the child is already in the graph, find it:
-
-			// now check for edge existence. if edge not there, add it
-			if (graph.findEdge(sourceVertex, child) == null) {
-				graph.addEdge(new EntityGraphEdge(sourceVertex, child),
-						sourceVertex, child);
-			}
-
-			return child;
+		DirectedGraph<Entity, EntityGraphEdge> graph = new DirectedSparseGraph<Entity, EntityGraphEdge>();
+		for (int node : sample.getNodes()) {
+			graph.addVertex(adjMatrix.getEntity(node));
 		}
-		else {
-			return sourceVertex;
+		for (int i = 0; i < sample.getNumberOfArcs(); i++) {
+			Entity source = adjMatrix.getEntity(sample.getArcSource(i));
+			Entity target = adjMatrix.getEntity(sample.getArcTarget(i));
+			graph.addEdge(new EntityGraphEdge(source, target), source, target);
 		}
+		graphSize = sample.getNodes().length;
+		logger.info("Sampled " + graphSize + " nodes.");
+
+		return graph;
 	}
 }
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Clustering coefficients (after Watts and Strogatz 1998) of the undirected simple graph
+ * underlying a {@link CompressedAdjacency}. Arc directions, duplicate arcs and self loops are
+ * ignored.
+ * <p>
+ * Triangles are counted by orienting each edge from the endpoint with the lower degree to the
+ * one with the higher degree (ties broken by id) and intersecting the sorted forward neighbor
+ * lists of both endpoints. Each triangle is found exactly once, and no forward list is longer
+ * than O(sqrt(E)), so counting takes O(E^1.5) time. Ranges of nodes are processed in parallel.
+ */
+public class ClusteringCoefficients {
+
+    // nodes per parallel task
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private final int[] degrees;
+    private final long[] triangles;
+    private final long numberOfTriangles;
+
+    /**
+     * @param adjacency The graph. Triangles are counted with one thread per processor.
+     */
+    public ClusteringCoefficients(CompressedAdjacency adjacency)
+    {
+        this(adjacency, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param adjacency The graph.
+     * @param parallelism The number of threads used for counting.
+     */
+    public ClusteringCoefficients(CompressedAdjacency adjacency, int parallelism)
+    {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        CompressedAdjacency undirected = adjacency.symmetrize();
+        int numberOfNodes = undirected.getNumberOfNodes();
+
+        degrees = new int[numberOfNodes];
+        for (int node = 0; node < numberOfNodes; node++) {
+            degrees[node] = undirected.getDegree(node);
+            if (undirected.containsArc(node, node)) {
+                degrees[node]--;
+            }
+        }
+
+        // keep only the arcs pointing to higher ranked nodes; rows stay sorted by id
+        int[] forwardOffsets = new int[numberOfNodes + 1];
+        int[] forwardTargets = new int[(undirected.getNumberOfArcs() + 1) / 2];
+        int arc = 0;
+        for (int node = 0; node < numberOfNodes; node++) {
+            forwardOffsets[node] = arc;
+            for (int i = undirected.getStart(node); i < undirected.getEnd(node); i++) {
+                int neighbor = undirected.getTarget(i);
+                if (precedes(node, neighbor)) {
+                    forwardTargets[arc++] = neighbor;
+                }
+            }
+        }
+        forwardOffsets[numberOfNodes] = arc;
+
+        triangles = new long[numberOfNodes];
+        numberOfTriangles = count(forwardOffsets, forwardTargets, parallelism);
+    }
+
+    private boolean precedes(int node, int other)
+    {
+        return degrees[node] < degrees[other] || (degrees[node] == degrees[other] && node < other);
+    }
+
+    private long count(final int[] offsets, final int[] targets, int parallelism)
+    {
+        final int numberOfNodes = degrees.length;
+        final AtomicLongArray counts = new AtomicLongArray(numberOfNodes);
+        int chunkSize = Math.max(MIN_CHUNK_SIZE,
+                (numberOfNodes + 4 * parallelism - 1) / (4 * parallelism));
+
+        long sum = 0;
+        if (parallelism == 1 || numberOfNodes <= chunkSize) {
+            sum = count(offsets, targets, counts, 0, numberOfNodes);
+        }
+        else {
+            List<Callable<Long>> chunks = new ArrayList<Callable<Long>>();
+            for (int start = 0; start < numberOfNodes; start += chunkSize) {
+                final int from = start;
+                final int to = Math.min(numberOfNodes, start + chunkSize);
+                chunks.add(new Callable<Long>() {
+                    @Override
+                    public Long call()
+                    {
+                        return count(offsets, targets, counts, from, to);
+                    }
+                });
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                for (Future<Long> future : executor.invokeAll(chunks)) {
+                    sum += future.get();
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Triangle counting was interrupted.", e);
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException("Triangle counting failed.", e.getCause());
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+
+        for (int node = 0; node < numberOfNodes; node++) {
+            triangles[node] = counts.get(node);
+        }
+        return sum;
+    }
+
+    /**
+     * Counts the triangles whose lowest ranked node lies in the given range, and adds them to
+     * the triangle counts of all three nodes.
+     */
+    private static long count(int[] offsets, int[] targets, AtomicLongArray counts, int from,
+            int to)
+    {
+        long found = 0;
+        for (int node = from; node < to; node++) {
+            int nodeFound = 0;
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int neighbor = targets[i];
+                int a = offsets[node];
+                int aEnd = offsets[node + 1];
+                int b = offsets[neighbor];
+                int bEnd = offsets[neighbor + 1];
+                int common = 0;
+                while (a < aEnd && b < bEnd) {
+                    if (targets[a] < targets[b]) {
+                        a++;
+                    }
+                    else if (targets[a] > targets[b]) {
+                        b++;
+                    }
+                    else {
+                        counts.incrementAndGet(targets[a]);
+                        common++;
+                        a++;
+                        b++;
+                    }
+                }
+                if (common > 0) {
+                    counts.addAndGet(neighbor, common);
+                    nodeFound += common;
+                }
+            }
+            if (nodeFound > 0) {
+                counts.addAndGet(node, nodeFound);
+                found += nodeFound;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return The number of nodes.
+     */
+    public int getNumberOfNodes()
+    {
+        return degrees.length;
+    }
+
+    /**
+     * @return The number of triangles in the graph.
+     */
+    public long getNumberOfTriangles()
+    {
+        return numberOfTriangles;
+    }
+
+    /**
+     * @param node A node id.
+     * @return The number of triangles the node is part of, i.e. the number of edges between its
+     *         neighbors.
+     */
+    public long getNumberOfTriangles(int node)
+    {
+        return triangles[node];
+    }
+
+    /**
+     * @return The number of connected triples, i.e. paths of length two.
+     */
+    public long getNumberOfConnectedTriples()
+    {
+        long triples = 0;
+        for (int degree : degrees) {
+            triples += (long) degree * (degree - 1) / 2;
+        }
+        return triples;
+    }
+
+    /**
+     * @return The global clustering coefficient (transitivity): three times the number of
+     *         triangles divided by the number of connected triples, or 0 if there are no triples.
+     */
+    public double getGlobalCoefficient()
+    {
+        long triples = getNumberOfConnectedTriples();
+        return triples == 0 ? 0.0 : 3.0 * numberOfTriangles / triples;
+    }
+
+    /**
+     * @param node A node id.
+     * @return The local clustering coefficient C_v = 2 * t_v / (k_v * (k_v - 1)) of the node,
+     *         where t_v is the number of edges between its k_v neighbors. Nodes with less than
+     *         two neighbors have a coefficient of 0.
+     */
+    public double getLocalCoefficient(int node)
+    {
+        long degree = degrees[node];
+        return degree < 2 ? 0.0 : 2.0 * triangles[node] / (degree * (degree - 1));
+    }
+
+    /**
+     * @return The local clustering coefficient of each node, indexed by node id.
+     */
+    public double[] getLocalCoefficients()
+    {
+        double[] coefficients = new double[degrees.length];
+        for (int node = 0; node < degrees.length; node++) {
+            coefficients[node] = getLocalCoefficient(node);
+        }
+        return coefficients;
+    }
+
+    /**
+     * @return The average of the local clustering coefficients over all nodes, as used by
+     *         {@link EntityGraph#getClusterCoefficient()}. Nodes with less than two neighbors
+     *         count as 0.
+     */
+    public double getAverageLocalCoefficient()
+    {
+        if (degrees.length == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int node = 0; node < degrees.length; node++) {
+            sum += getLocalCoefficient(node);
+        }
+        return sum / degrees.length;
+    }
+}
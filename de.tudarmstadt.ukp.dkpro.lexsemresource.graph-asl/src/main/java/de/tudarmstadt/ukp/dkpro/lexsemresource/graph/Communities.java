@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+/**
+ * A partition of the entities of a graph into communities, e.g. as computed by
+ * {@link CommunityDetection}. Communities are numbered from 0 to
+ * {@link #getNumberOfCommunities()}-1.
+ */
+public class Communities {
+
+    private final EntityAdjacency entities;
+    private final int[] communities;
+    private final int[] sizes;
+    private final double modularity;
+
+    /**
+     * @param entities The entity id table.
+     * @param communities The community of each entity, indexed by entity id. Community ids must
+     *            run from 0 to the number of communities-1.
+     * @param modularity The modularity of the partition.
+     */
+    public Communities(EntityAdjacency entities, int[] communities, double modularity)
+    {
+        if (entities.getNumberOfNodes() != communities.length) {
+            throw new IllegalArgumentException("Expected " + entities.getNumberOfNodes()
+                    + " community ids, but got " + communities.length);
+        }
+        int numberOfCommunities = 0;
+        for (int c : communities) {
+            numberOfCommunities = Math.max(numberOfCommunities, c + 1);
+        }
+        this.sizes = new int[numberOfCommunities];
+        for (int c : communities) {
+            sizes[c]++;
+        }
+        this.entities = entities;
+        this.communities = communities;
+        this.modularity = modularity;
+    }
+
+    /**
+     * @return The number of communities.
+     */
+    public int getNumberOfCommunities()
+    {
+        return sizes.length;
+    }
+
+    /**
+     * @param id An entity id.
+     * @return The community of the entity.
+     */
+    public int getCommunity(int id)
+    {
+        return communities[id];
+    }
+
+    /**
+     * @param entity An entity.
+     * @return The community of the entity, or -1 if the entity is not in the graph.
+     */
+    public int getCommunity(Entity entity)
+    {
+        int id = entities.getId(entity);
+        return id < 0 ? -1 : communities[id];
+    }
+
+    /**
+     * @return A copy of the community ids, indexed by entity id.
+     */
+    public int[] getCommunities()
+    {
+        return communities.clone();
+    }
+
+    /**
+     * @param community A community id.
+     * @return The number of entities in the community.
+     */
+    public int getSize(int community)
+    {
+        return sizes[community];
+    }
+
+    /**
+     * @return A copy of the community sizes, indexed by community id.
+     */
+    public int[] getSizes()
+    {
+        return sizes.clone();
+    }
+
+    /**
+     * @return The id of the largest community, the smallest one on ties, or -1 if the graph
+     *         is empty.
+     */
+    public int getLargestCommunity()
+    {
+        int largest = -1;
+        for (int c = 0; c < sizes.length; c++) {
+            if (largest < 0 || sizes[c] > sizes[largest]) {
+                largest = c;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * @param community A community id.
+     * @return The entities in the community.
+     */
+    public Set<Entity> getEntities(int community)
+    {
+        Set<Entity> members = new HashSet<Entity>(2 * sizes[community]);
+        for (int id = 0; id < communities.length; id++) {
+            if (communities[id] == community) {
+                members.add(entities.getEntity(id));
+            }
+        }
+        return members;
+    }
+
+    /**
+     * @return The modularity of the partition of the graph treated as undirected.
+     */
+    public double getModularity()
+    {
+        return modularity;
+    }
+
+    @Override
+    public String toString()
+    {
+        int largest = getLargestCommunity();
+        return getNumberOfCommunities() + " communities, largest has "
+                + (largest < 0 ? 0 : sizes[largest]) + " entities, modularity " + modularity;
+    }
+}
@@ -0,0 +1,711 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Community detection on the undirected graph underlying a {@link CompressedAdjacency}. Arc
+ * directions, duplicate arcs and self loops are ignored.
+ * <p>
+ * Two algorithms are provided, both running in near-linear time per iteration:
+ * <ul>
+ * <li>Label propagation (Raghavan et al. 2007): each node repeatedly adopts the most frequent
+ * label among its neighbors.</li>
+ * <li>Louvain modularity optimization (Blondel et al. 2008): nodes move to the neighboring
+ * community with the largest modularity gain, then communities are merged into single nodes and
+ * the process is repeated on the smaller graph.</li>
+ * </ul>
+ * In both, the moves of an iteration are decided for ranges of nodes in parallel against the
+ * state of the previous iteration, and then applied together. To avoid oscillation, label
+ * propagation only updates a pseudo-random half of the nodes per iteration, and Louvain does not
+ * swap two singleton communities and rolls back an iteration that lowers the modularity. The
+ * result only depends on the seed, not on thread scheduling.
+ * <p>
+ * Communities are returned as an array holding the community id of each node. Ids run from 0 to
+ * the number of communities-1, in the order of the smallest node id in each community.
+ */
+public class CommunityDetection {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    public enum Algorithm
+    {
+        LabelPropagation, Louvain
+    }
+
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    // nodes per parallel task
+    private static final int MIN_CHUNK_SIZE = 4096;
+    // Louvain stops improving a level when an iteration gains less modularity than this
+    private static final double MIN_MODULARITY_GAIN = 1e-7;
+
+    private final CompressedAdjacency undirected;
+    private final int parallelism;
+    private long seed;
+    private int maxIterations = DEFAULT_MAX_ITERATIONS;
+
+    /**
+     * @param adjacency The graph. Communities are computed with one thread per processor.
+     */
+    public CommunityDetection(CompressedAdjacency adjacency)
+    {
+        this(adjacency, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param adjacency The graph.
+     * @param parallelism The number of threads used for each iteration.
+     */
+    public CommunityDetection(CompressedAdjacency adjacency, int parallelism)
+    {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.undirected = withoutSelfLoops(adjacency.symmetrize());
+        this.parallelism = parallelism;
+    }
+
+    private static CompressedAdjacency withoutSelfLoops(CompressedAdjacency adjacency)
+    {
+        int numberOfNodes = adjacency.getNumberOfNodes();
+        int[] offsets = new int[numberOfNodes + 1];
+        int[] targets = new int[adjacency.getNumberOfArcs()];
+        int arc = 0;
+        for (int node = 0; node < numberOfNodes; node++) {
+            offsets[node] = arc;
+            for (int i = adjacency.getStart(node); i < adjacency.getEnd(node); i++) {
+                if (adjacency.getTarget(i) != node) {
+                    targets[arc++] = adjacency.getTarget(i);
+                }
+            }
+        }
+        offsets[numberOfNodes] = arc;
+        return new CompressedAdjacency(offsets, Arrays.copyOf(targets, arc));
+    }
+
+    /**
+     * @param seed The seed for breaking ties and choosing the nodes updated by label
+     *            propagation.
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * @param maxIterations The maximum number of iterations of label propagation, and of each
+     *            Louvain level.
+     */
+    public void setMaxIterations(int maxIterations)
+    {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * @param algorithm The algorithm to use.
+     * @return The community id of each node.
+     */
+    public int[] detect(Algorithm algorithm)
+    {
+        return algorithm == Algorithm.Louvain ? louvain() : labelPropagation();
+    }
+
+    /**
+     * Runs label propagation until every node carries one of the most frequent labels among its
+     * neighbors, or the maximum number of iterations is reached.
+     *
+     * @return The community id of each node.
+     */
+    public int[] labelPropagation()
+    {
+        final int numberOfNodes = undirected.getNumberOfNodes();
+        int[] current = new int[numberOfNodes];
+        for (int node = 0; node < numberOfNodes; node++) {
+            current[node] = node;
+        }
+        int[] next = new int[numberOfNodes];
+
+        Sweeper sweeper = new Sweeper(numberOfNodes);
+        try {
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                final int[] labels = current;
+                final int[] updated = next;
+                final int round = iteration;
+                double unstable = sweeper.sweep(new RangeTask() {
+                    @Override
+                    public double run(int from, int to)
+                    {
+                        return propagate(labels, updated, round, from, to);
+                    }
+                });
+                current = updated;
+                next = labels;
+                if (unstable == 0) {
+                    logger.debug("Label propagation converged after " + (iteration + 1)
+                            + " iterations.");
+                    break;
+                }
+            }
+        }
+        finally {
+            sweeper.shutdown();
+        }
+        return renumber(current);
+    }
+
+    /**
+     * Decides the new label of each node in the range.
+     *
+     * @return The number of nodes whose label is not among the most frequent ones.
+     */
+    private double propagate(int[] labels, int[] updated, int round, int from, int to)
+    {
+        WeightMap counts = new WeightMap();
+        int unstable = 0;
+        for (int node = from; node < to; node++) {
+            int label = labels[node];
+            updated[node] = label;
+            if (undirected.getDegree(node) == 0) {
+                continue;
+            }
+
+            counts.clear();
+            for (int i = undirected.getStart(node); i < undirected.getEnd(node); i++) {
+                counts.add(labels[undirected.getTarget(i)], 1.0);
+            }
+            double maxCount = 0;
+            for (int k = 0; k < counts.size(); k++) {
+                maxCount = Math.max(maxCount, counts.getWeight(k));
+            }
+            if (counts.get(label) == maxCount) {
+                continue;
+            }
+            unstable++;
+
+            // only about half of the nodes move per round, which prevents oscillation
+            if ((mix(seed, node, round) & 1) == 0) {
+                continue;
+            }
+            long bestHash = Long.MAX_VALUE;
+            for (int k = 0; k < counts.size(); k++) {
+                if (counts.getWeight(k) == maxCount) {
+                    long hash = mix(seed ^ round, node, counts.getKey(k));
+                    if (hash < bestHash) {
+                        bestHash = hash;
+                        updated[node] = counts.getKey(k);
+                    }
+                }
+            }
+        }
+        return unstable;
+    }
+
+    /**
+     * Runs the Louvain method until merging communities no longer increases the modularity.
+     *
+     * @return The community id of each node.
+     */
+    public int[] louvain()
+    {
+        int numberOfNodes = undirected.getNumberOfNodes();
+        int[] membership = new int[numberOfNodes];
+        for (int node = 0; node < numberOfNodes; node++) {
+            membership[node] = node;
+        }
+
+        double[] weights = new double[undirected.getNumberOfArcs()];
+        Arrays.fill(weights, 1.0);
+        Level level = new Level(undirected.getOffsets(), undirected.getTargets(), weights,
+                new double[numberOfNodes]);
+        if (level.totalWeight == 0) {
+            return membership;
+        }
+
+        Sweeper sweeper = new Sweeper(numberOfNodes);
+        try {
+            for (int depth = 0;; depth++) {
+                int[] community = level.moveNodes(sweeper);
+                int numberOfCommunities = 0;
+                for (int c : community) {
+                    numberOfCommunities = Math.max(numberOfCommunities, c + 1);
+                }
+                logger.debug("Louvain level " + depth + ": " + level.numberOfNodes
+                        + " nodes in " + numberOfCommunities + " communities.");
+                if (numberOfCommunities == level.numberOfNodes) {
+                    break;
+                }
+                for (int node = 0; node < numberOfNodes; node++) {
+                    membership[node] = community[membership[node]];
+                }
+                level = level.aggregate(community, numberOfCommunities);
+            }
+        }
+        finally {
+            sweeper.shutdown();
+        }
+        return renumber(membership);
+    }
+
+    /**
+     * @param communities The community id of each node.
+     * @return The modularity of the partition of the undirected graph, between -1/2 and 1.
+     */
+    public double modularity(int[] communities)
+    {
+        int numberOfNodes = undirected.getNumberOfNodes();
+        double totalWeight = undirected.getNumberOfArcs();
+        if (totalWeight == 0) {
+            return 0.0;
+        }
+        int numberOfCommunities = 0;
+        for (int c : communities) {
+            numberOfCommunities = Math.max(numberOfCommunities, c + 1);
+        }
+        double[] total = new double[numberOfCommunities];
+        double internal = 0;
+        for (int node = 0; node < numberOfNodes; node++) {
+            total[communities[node]] += undirected.getDegree(node);
+            for (int i = undirected.getStart(node); i < undirected.getEnd(node); i++) {
+                if (communities[undirected.getTarget(i)] == communities[node]) {
+                    internal++;
+                }
+            }
+        }
+        double expected = 0;
+        for (double t : total) {
+            expected += (t / totalWeight) * (t / totalWeight);
+        }
+        return internal / totalWeight - expected;
+    }
+
+    /**
+     * Renumbers labels to consecutive ids in the order of the smallest node with each label.
+     */
+    private static int[] renumber(int[] labels)
+    {
+        int[] ids = new int[labels.length];
+        Arrays.fill(ids, -1);
+        int[] result = new int[labels.length];
+        int count = 0;
+        for (int node = 0; node < labels.length; node++) {
+            if (ids[labels[node]] < 0) {
+                ids[labels[node]] = count++;
+            }
+            result[node] = ids[labels[node]];
+        }
+        return result;
+    }
+
+    private static long mix(long seed, int a, int b)
+    {
+        long h = seed * 0x9E3779B97F4A7C15L + a;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL + b;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (h ^ (h >>> 33)) & Long.MAX_VALUE;
+    }
+
+    /**
+     * A weighted undirected graph of one Louvain level. The weight of the arcs inside a node,
+     * i.e. inside a community of the previous level, is kept separately.
+     */
+    private class Level {
+
+        private final int numberOfNodes;
+        private final int[] offsets;
+        private final int[] targets;
+        private final double[] weights;
+        private final double[] internalWeights;
+        private final double[] degrees;
+        private final double totalWeight;
+
+        public Level(int[] offsets, int[] targets, double[] weights, double[] internalWeights)
+        {
+            this.numberOfNodes = offsets.length - 1;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.internalWeights = internalWeights;
+            this.degrees = new double[numberOfNodes];
+            double sum = 0;
+            for (int node = 0; node < numberOfNodes; node++) {
+                degrees[node] = internalWeights[node];
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    degrees[node] += weights[i];
+                }
+                sum += degrees[node];
+            }
+            this.totalWeight = sum;
+        }
+
+        /**
+         * Moves nodes between communities until the modularity no longer increases.
+         *
+         * @return The community of each node, numbered consecutively.
+         */
+        public int[] moveNodes(Sweeper sweeper)
+        {
+            int[] current = new int[numberOfNodes];
+            for (int node = 0; node < numberOfNodes; node++) {
+                current[node] = node;
+            }
+            int[] next = new int[numberOfNodes];
+            double[] total = degrees.clone();
+            int[] size = new int[numberOfNodes];
+            Arrays.fill(size, 1);
+            double modularity = modularity(sweeper, current, total);
+
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                final int[] community = current;
+                final int[] moved = next;
+                final double[] communityTotal = total;
+                final int[] communitySize = size;
+                double moves = sweeper.sweep(new RangeTask() {
+                    @Override
+                    public double run(int from, int to)
+                    {
+                        return move(community, communityTotal, communitySize, moved, from, to);
+                    }
+                }, numberOfNodes);
+                if (moves == 0) {
+                    break;
+                }
+
+                double[] updatedTotal = new double[numberOfNodes];
+                int[] updatedSize = new int[numberOfNodes];
+                for (int node = 0; node < numberOfNodes; node++) {
+                    updatedTotal[moved[node]] += degrees[node];
+                    updatedSize[moved[node]]++;
+                }
+                double updatedModularity = modularity(sweeper, moved, updatedTotal);
+                if (updatedModularity < modularity) {
+                    // moves decided on the same stale state can work against each other
+                    break;
+                }
+                current = moved;
+                next = community;
+                total = updatedTotal;
+                size = updatedSize;
+                if (updatedModularity - modularity < MIN_MODULARITY_GAIN) {
+                    break;
+                }
+                modularity = updatedModularity;
+            }
+            return renumber(current);
+        }
+
+        /**
+         * Decides the best community for each node in the range.
+         *
+         * @return The number of nodes that change their community.
+         */
+        private double move(int[] community, double[] total, int[] size, int[] moved, int from,
+                int to)
+        {
+            WeightMap links = new WeightMap();
+            int moves = 0;
+            for (int node = from; node < to; node++) {
+                int own = community[node];
+                moved[node] = own;
+                if (offsets[node] == offsets[node + 1]) {
+                    continue;
+                }
+
+                links.clear();
+                for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                    links.add(community[targets[i]], weights[i]);
+                }
+
+                // gain of joining a community, up to terms that are equal for all communities
+                double degree = degrees[node];
+                int best = own;
+                double bestGain = links.get(own) - (total[own] - degree) * degree / totalWeight;
+                for (int k = 0; k < links.size(); k++) {
+                    int candidate = links.getKey(k);
+                    if (candidate == own) {
+                        continue;
+                    }
+                    // two singletons would just swap places, let only one of them move
+                    if (size[own] == 1 && size[candidate] == 1 && candidate > own) {
+                        continue;
+                    }
+                    double gain = links.getWeight(k) - total[candidate] * degree / totalWeight;
+                    if (gain > bestGain || (gain == bestGain && best != own && candidate < best)) {
+                        best = candidate;
+                        bestGain = gain;
+                    }
+                }
+                if (best != own) {
+                    moved[node] = best;
+                    moves++;
+                }
+            }
+            return moves;
+        }
+
+        private double modularity(Sweeper sweeper, final int[] community, double[] total)
+        {
+            double internal = sweeper.sweep(new RangeTask() {
+                @Override
+                public double run(int from, int to)
+                {
+                    double sum = 0;
+                    for (int node = from; node < to; node++) {
+                        sum += internalWeights[node];
+                        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                            if (community[targets[i]] == community[node]) {
+                                sum += weights[i];
+                            }
+                        }
+                    }
+                    return sum;
+                }
+            }, numberOfNodes);
+            double expected = 0;
+            for (double t : total) {
+                expected += (t / totalWeight) * (t / totalWeight);
+            }
+            return internal / totalWeight - expected;
+        }
+
+        /**
+         * @return The graph with one node per community.
+         */
+        public Level aggregate(int[] community, int numberOfCommunities)
+        {
+            // list the members of each community
+            int[] memberOffsets = new int[numberOfCommunities + 1];
+            for (int node = 0; node < numberOfNodes; node++) {
+                memberOffsets[community[node] + 1]++;
+            }
+            for (int c = 0; c < numberOfCommunities; c++) {
+                memberOffsets[c + 1] += memberOffsets[c];
+            }
+            int[] members = new int[numberOfNodes];
+            int[] fill = Arrays.copyOf(memberOffsets, numberOfCommunities);
+            for (int node = 0; node < numberOfNodes; node++) {
+                members[fill[community[node]]++] = node;
+            }
+
+            int[] newOffsets = new int[numberOfCommunities + 1];
+            int[] newTargets = new int[targets.length];
+            double[] newWeights = new double[targets.length];
+            double[] newInternalWeights = new double[numberOfCommunities];
+            double[] accumulated = new double[numberOfCommunities];
+            int[] lastSeen = new int[numberOfCommunities];
+            Arrays.fill(lastSeen, -1);
+            int[] touched = new int[numberOfCommunities];
+            int arc = 0;
+            for (int c = 0; c < numberOfCommunities; c++) {
+                newOffsets[c] = arc;
+                int numberOfTouched = 0;
+                for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                    int node = members[m];
+                    newInternalWeights[c] += internalWeights[node];
+                    for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                        int other = community[targets[i]];
+                        if (other == c) {
+                            newInternalWeights[c] += weights[i];
+                        }
+                        else {
+                            if (lastSeen[other] != c) {
+                                lastSeen[other] = c;
+                                accumulated[other] = 0;
+                                touched[numberOfTouched++] = other;
+                            }
+                            accumulated[other] += weights[i];
+                        }
+                    }
+                }
+                Arrays.sort(touched, 0, numberOfTouched);
+                for (int k = 0; k < numberOfTouched; k++) {
+                    newTargets[arc] = touched[k];
+                    newWeights[arc++] = accumulated[touched[k]];
+                }
+            }
+            newOffsets[numberOfCommunities] = arc;
+            return new Level(newOffsets, Arrays.copyOf(newTargets, arc),
+                    Arrays.copyOf(newWeights, arc), newInternalWeights);
+        }
+    }
+
+    /**
+     * A small open addressing map from int keys to summed weights, reused from node to node.
+     */
+    private static class WeightMap {
+
+        private int[] table = new int[16];
+        private int[] keys = new int[8];
+        private int[] slots = new int[8];
+        private double[] weights = new double[8];
+        private int size;
+
+        public void clear()
+        {
+            for (int k = 0; k < size; k++) {
+                table[slots[k]] = 0;
+            }
+            size = 0;
+        }
+
+        public void add(int key, double weight)
+        {
+            int slot = slot(key);
+            if (table[slot] == 0) {
+                if (2 * (size + 1) > table.length) {
+                    grow();
+                    slot = slot(key);
+                }
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, 2 * size);
+                    slots = Arrays.copyOf(slots, 2 * size);
+                    weights = Arrays.copyOf(weights, 2 * size);
+                }
+                keys[size] = key;
+                slots[size] = slot;
+                weights[size] = 0;
+                table[slot] = ++size;
+            }
+            weights[table[slot] - 1] += weight;
+        }
+
+        public double get(int key)
+        {
+            int entry = table[slot(key)];
+            return entry == 0 ? 0.0 : weights[entry - 1];
+        }
+
+        public int size()
+        {
+            return size;
+        }
+
+        public int getKey(int k)
+        {
+            return keys[k];
+        }
+
+        public double getWeight(int k)
+        {
+            return weights[k];
+        }
+
+        /**
+         * @return The slot holding the key, or the empty slot where it would be inserted.
+         */
+        private int slot(int key)
+        {
+            int mask = table.length - 1;
+            int slot = (key * 0x9E3779B9) >>> 1 & mask;
+            while (table[slot] != 0 && keys[table[slot] - 1] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow()
+        {
+            table = new int[2 * table.length];
+            for (int k = 0; k < size; k++) {
+                slots[k] = slot(keys[k]);
+                table[slots[k]] = k + 1;
+            }
+        }
+    }
+
+    private interface RangeTask {
+        /**
+         * @return A partial result that is summed up over all ranges.
+         */
+        double run(int from, int to);
+    }
+
+    /**
+     * Splits the node ids into ranges that are processed in parallel.
+     */
+    private class Sweeper {
+
+        private final ExecutorService executor;
+        private final int numberOfNodes;
+
+        public Sweeper(int numberOfNodes)
+        {
+            this.numberOfNodes = numberOfNodes;
+            this.executor = parallelism > 1 && numberOfNodes > MIN_CHUNK_SIZE
+                    ? Executors.newFixedThreadPool(parallelism) : null;
+        }
+
+        public double sweep(RangeTask task)
+        {
+            return sweep(task, numberOfNodes);
+        }
+
+        public double sweep(final RangeTask task, int numberOfItems)
+        {
+            int chunkSize = Math.max(MIN_CHUNK_SIZE,
+                    (numberOfItems + 4 * parallelism - 1) / (4 * parallelism));
+            if (executor == null || numberOfItems <= chunkSize) {
+                return task.run(0, numberOfItems);
+            }
+            List<Callable<Double>> chunks = new ArrayList<Callable<Double>>();
+            for (int start = 0; start < numberOfItems; start += chunkSize) {
+                final int from = start;
+                final int to = Math.min(numberOfItems, start + chunkSize);
+                chunks.add(new Callable<Double>() {
+                    @Override
+                    public Double call()
+                    {
+                        return task.run(from, to);
+                    }
+                });
+            }
+            try {
+                double sum = 0;
+                for (Future<Double> future : executor.invokeAll(chunks)) {
+                    sum += future.get();
+                }
+                return sum;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Community detection was interrupted.", e);
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException("Community detection failed.", e.getCause());
+            }
+        }
+
+        public void shutdown()
+        {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An immutable adjacency structure over int node ids in compressed sparse row (CSR) layout.
+ * The neighbors of node <code>i</code> are stored in <code>targets[offsets[i]]</code> to
+ * <code>targets[offsets[i+1]-1]</code>, sorted ascending and without duplicates. Looking up
+ * the neighbors of a node thus costs O(degree) instead of a scan over all nodes.
+ */
+public class CompressedAdjacency {
+
+    private final int[] offsets;
+    private final int[] targets;
+
+    /**
+     * Creates the adjacency structure from a list of arcs. Duplicate arcs are merged.
+     *
+     * @param numberOfNodes The number of nodes. Node ids run from 0 to numberOfNodes-1.
+     * @param arcSources The source node of each arc.
+     * @param arcTargets The target node of each arc.
+     * @param numberOfArcs The number of valid entries in the arc arrays.
+     */
+    public CompressedAdjacency(int numberOfNodes, int[] arcSources, int[] arcTargets,
+            int numberOfArcs)
+    {
+        // counting sort of the arcs by their source node
+        int[] rowOffsets = new int[numberOfNodes + 1];
+        for (int i = 0; i < numberOfArcs; i++) {
+            rowOffsets[arcSources[i] + 1]++;
+        }
+        for (int node = 0; node < numberOfNodes; node++) {
+            rowOffsets[node + 1] += rowOffsets[node];
+        }
+
+        int[] rowTargets = new int[numberOfArcs];
+        int[] fill = Arrays.copyOf(rowOffsets, numberOfNodes);
+        for (int i = 0; i < numberOfArcs; i++) {
+            rowTargets[fill[arcSources[i]]++] = arcTargets[i];
+        }
+
+        // sort each row and squeeze out duplicate arcs
+        int write = 0;
+        int rowStart = 0;
+        for (int node = 0; node < numberOfNodes; node++) {
+            int rowEnd = rowOffsets[node + 1];
+            Arrays.sort(rowTargets, rowStart, rowEnd);
+            rowOffsets[node] = write;
+            for (int i = rowStart; i < rowEnd; i++) {
+                if (i == rowStart || rowTargets[i] != rowTargets[i - 1]) {
+                    rowTargets[write++] = rowTargets[i];
+                }
+            }
+            rowStart = rowEnd;
+        }
+        rowOffsets[numberOfNodes] = write;
+
+        this.offsets = rowOffsets;
+        this.targets = write == rowTargets.length ? rowTargets : Arrays.copyOf(rowTargets, write);
+    }
+
+    /**
+     * Wraps already compressed arrays. The caller must guarantee that the rows are sorted and
+     * free of duplicates.
+     *
+     * @param offsets The row offsets (length: number of nodes + 1).
+     * @param targets The column indices.
+     */
+    CompressedAdjacency(int[] offsets, int[] targets)
+    {
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * @return The number of nodes.
+     */
+    public int getNumberOfNodes()
+    {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return The number of arcs.
+     */
+    public int getNumberOfArcs()
+    {
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * @param node A node id.
+     * @return The number of neighbors of the node.
+     */
+    public int getDegree(int node)
+    {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    /**
+     * @param node A node id.
+     * @return The position of the first neighbor of the node, to be used with
+     *         {@link #getTarget(int)}.
+     */
+    public int getStart(int node)
+    {
+        return offsets[node];
+    }
+
+    /**
+     * @param node A node id.
+     * @return The position after the last neighbor of the node.
+     */
+    public int getEnd(int node)
+    {
+        return offsets[node + 1];
+    }
+
+    /**
+     * @param position A position between {@link #getStart(int)} and {@link #getEnd(int)} of
+     *            some node.
+     * @return The neighbor stored at that position.
+     */
+    public int getTarget(int position)
+    {
+        return targets[position];
+    }
+
+    /**
+     * @param node A node id.
+     * @return A copy of the sorted neighbor ids of the node.
+     */
+    public int[] getNeighbors(int node)
+    {
+        return Arrays.copyOfRange(targets, offsets[node], offsets[node + 1]);
+    }
+
+    /**
+     * @param source The source node id.
+     * @param target The target node id.
+     * @return True, if there is an arc from source to target.
+     */
+    public boolean containsArc(int source, int target)
+    {
+        return Arrays.binarySearch(targets, offsets[source], offsets[source + 1], target) >= 0;
+    }
+
+    /**
+     * Picks a neighbor uniformly at random without materializing the neighbor set.
+     *
+     * @param node A node id.
+     * @param random The random number generator to use.
+     * @return A random neighbor of the node, or -1 if the node has no neighbors.
+     */
+    public int getRandomNeighbor(int node, Random random)
+    {
+        int degree = getDegree(node);
+        if (degree == 0) {
+            return -1;
+        }
+        return targets[offsets[node] + random.nextInt(degree)];
+    }
+
+    /**
+     * @return A new adjacency structure with all arcs reversed.
+     */
+    public CompressedAdjacency transpose()
+    {
+        int numberOfNodes = getNumberOfNodes();
+        int[] reversedOffsets = new int[numberOfNodes + 1];
+        for (int i = 0; i < targets.length; i++) {
+            reversedOffsets[targets[i] + 1]++;
+        }
+        for (int node = 0; node < numberOfNodes; node++) {
+            reversedOffsets[node + 1] += reversedOffsets[node];
+        }
+
+        // sources are visited in ascending order, so each reversed row ends up sorted
+        int[] reversedTargets = new int[targets.length];
+        int[] fill = Arrays.copyOf(reversedOffsets, numberOfNodes);
+        for (int source = 0; source < numberOfNodes; source++) {
+            for (int i = offsets[source]; i < offsets[source + 1]; i++) {
+                reversedTargets[fill[targets[i]]++] = source;
+            }
+        }
+        return new CompressedAdjacency(reversedOffsets, reversedTargets);
+    }
+
+    /**
+     * @return A new adjacency structure containing each arc in both directions.
+     */
+    public CompressedAdjacency symmetrize()
+    {
+        int numberOfArcs = getNumberOfArcs();
+        int[] sources = new int[2 * numberOfArcs];
+        int[] reversed = new int[2 * numberOfArcs];
+        int arc = 0;
+        for (int node = 0; node < getNumberOfNodes(); node++) {
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                sources[arc] = node;
+                reversed[arc++] = targets[i];
+                sources[arc] = targets[i];
+                reversed[arc++] = node;
+            }
+        }
+        return new CompressedAdjacency(getNumberOfNodes(), sources, reversed, arc);
+    }
+
+    int[] getOffsets()
+    {
+        return offsets;
+    }
+
+    int[] getTargets()
+    {
+        return targets;
+    }
+}
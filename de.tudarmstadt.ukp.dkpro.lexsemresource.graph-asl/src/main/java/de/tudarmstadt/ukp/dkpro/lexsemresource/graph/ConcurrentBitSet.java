@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size bit set that can be updated by several threads without locking.
+ */
+class ConcurrentBitSet {
+
+    private final AtomicLongArray words;
+
+    /**
+     * @param size The number of bits.
+     */
+    public ConcurrentBitSet(int size)
+    {
+        words = new AtomicLongArray((size + 63) >>> 6);
+    }
+
+    /**
+     * Sets a bit.
+     *
+     * @param index The index of the bit.
+     * @return True, if this call changed the bit, false if it was already set.
+     */
+    public boolean set(int index)
+    {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param index The index of the bit.
+     * @return True, if the bit is set.
+     */
+    public boolean get(int index)
+    {
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+}
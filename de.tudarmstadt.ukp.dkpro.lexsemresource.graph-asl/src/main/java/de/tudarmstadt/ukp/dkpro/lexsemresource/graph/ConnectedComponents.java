@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+/**
+ * Labels the weakly connected components of a graph with union-find. Arc directions are
+ * ignored. Components are numbered in the order of their smallest node id.
+ */
+public class ConnectedComponents {
+
+    private final int[] component;
+    private final int[] sizes;
+
+    /**
+     * @param adjacency The graph.
+     */
+    public ConnectedComponents(CompressedAdjacency adjacency)
+    {
+        int numberOfNodes = adjacency.getNumberOfNodes();
+
+        // union by size with path halving
+        int[] parent = new int[numberOfNodes];
+        int[] treeSize = new int[numberOfNodes];
+        for (int node = 0; node < numberOfNodes; node++) {
+            parent[node] = node;
+            treeSize[node] = 1;
+        }
+        for (int node = 0; node < numberOfNodes; node++) {
+            for (int i = adjacency.getStart(node); i < adjacency.getEnd(node); i++) {
+                int a = find(parent, node);
+                int b = find(parent, adjacency.getTarget(i));
+                if (a == b) {
+                    continue;
+                }
+                if (treeSize[a] < treeSize[b]) {
+                    int swap = a;
+                    a = b;
+                    b = swap;
+                }
+                parent[b] = a;
+                treeSize[a] += treeSize[b];
+            }
+        }
+
+        // relabel the roots to consecutive component ids, reusing treeSize as label table
+        int numberOfComponents = 0;
+        component = new int[numberOfNodes];
+        for (int node = 0; node < numberOfNodes; node++) {
+            int root = find(parent, node);
+            if (root == node) {
+                treeSize[node] = -1;
+            }
+        }
+        for (int node = 0; node < numberOfNodes; node++) {
+            int root = find(parent, node);
+            if (treeSize[root] < 0) {
+                treeSize[root] = numberOfComponents++;
+            }
+            component[node] = treeSize[root];
+        }
+
+        sizes = new int[numberOfComponents];
+        for (int node = 0; node < numberOfNodes; node++) {
+            sizes[component[node]]++;
+        }
+    }
+
+    private static int find(int[] parent, int node)
+    {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * @return The number of components.
+     */
+    public int getNumberOfComponents()
+    {
+        return sizes.length;
+    }
+
+    /**
+     * @param node A node id.
+     * @return The id of the component containing the node.
+     */
+    public int getComponent(int node)
+    {
+        return component[node];
+    }
+
+    /**
+     * @param componentId A component id.
+     * @return The number of nodes in the component.
+     */
+    public int getSize(int componentId)
+    {
+        return sizes[componentId];
+    }
+
+    /**
+     * @return The id of the largest component, or -1 if the graph is empty. Ties are broken in
+     *         favor of the component with the smallest id.
+     */
+    public int getLargestComponent()
+    {
+        int largest = -1;
+        for (int c = 0; c < sizes.length; c++) {
+            if (largest < 0 || sizes[c] > sizes[largest]) {
+                largest = c;
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * @param componentId A component id.
+     * @return The ids of the nodes in the component in ascending order.
+     */
+    public int[] getNodes(int componentId)
+    {
+        int[] nodes = new int[sizes[componentId]];
+        int count = 0;
+        for (int node = 0; node < component.length; node++) {
+            if (component[node] == componentId) {
+                nodes[count++] = node;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return The component id of each node. The array must not be modified.
+     */
+    int[] getComponents()
+    {
+        return component;
+    }
+}
@@ -17,12 +17,15 @@
  *******************************************************************************/
 package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.jgrapht.DirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
@@ -38,8 +41,9 @@ public class CycleHandlerJGraphT {
 
     EntityGraphJGraphT entityGraph;
 
-    private enum Color {white, grey, black};
-    private Map<Entity, Color> colorMap;
+    private static final byte WHITE = 0;
+    private static final byte GREY = 1;
+    private static final byte BLACK = 2;
 
     /**
      * Creates a cycle handler object.
@@ -55,8 +59,9 @@ public class CycleHandlerJGraphT {
      * @return True, if the graph contains a cycle.
      */
     public boolean containsCycle() {
-        DefaultEdge edge = findCycle();
-        if (edge != null) {
+        List<DefaultEdge> backEdges = findBackEdges(entityGraph.directedGraph);
+        if (!backEdges.isEmpty()) {
+            DefaultEdge edge = backEdges.get(0);
             Entity sourceEntity = entityGraph.directedGraph.getEdgeSource(edge);
             Entity targetEntity = entityGraph.directedGraph.getEdgeTarget(edge);
 
@@ -70,53 +75,89 @@ public class CycleHandlerJGraphT {
 
     /**
      * Removes cycles from the graph that was used to construct the cycle handler.
+     * All back edges of a single depth-first search are removed, which leaves the graph acyclic.
+     * @return The number of removed edges.
      */
-    public void removeCycles() {
-        DefaultEdge edge = null;
-        while ((edge = findCycle()) != null) {
+    public int removeCycles() {
+        List<DefaultEdge> backEdges = findBackEdges(entityGraph.directedGraph);
+        for (DefaultEdge edge : backEdges) {
             Entity sourceEntity = entityGraph.directedGraph.getEdgeSource(edge);
             Entity targetEntity = entityGraph.directedGraph.getEdgeTarget(edge);
 
             logger.info("Removing cycle: " + sourceEntity.getId() + " - " + targetEntity.getId());
 
-            entityGraph.undirectedGraph.removeEdge(edge);
+            entityGraph.directedGraph.removeEdge(edge);
         }
+        return backEdges.size();
     }
 
-    private DefaultEdge findCycle() {
-        colorMap = new HashMap<Entity, Color>();
-        // initialize all nodes with white
-        for (Entity node : entityGraph.directedGraph.vertexSet()) {
-            colorMap.put(node, Color.white);
+    /**
+     * Finds all back edges of a depth-first search over the graph in a single pass.
+     * Every cycle contains at least one back edge, and removing all back edges leaves the graph acyclic.
+     * The search is iterative over int node ids, so that deep hierarchies do not overflow the stack.
+     * @param graph The graph to search.
+     * @return The back edges in the order in which they were found.
+     */
+    static List<DefaultEdge> findBackEdges(DirectedGraph<Entity, DefaultEdge> graph) {
+        Set<Entity> vertices = graph.vertexSet();
+        int numberOfNodes = vertices.size();
+
+        Map<Entity, Integer> index = new HashMap<Entity, Integer>(2 * numberOfNodes);
+        Entity[] nodes = vertices.toArray(new Entity[numberOfNodes]);
+        for (int i = 0; i < numberOfNodes; i++) {
+            index.put(nodes[i], i);
         }
 
-        for (Entity node : entityGraph.directedGraph.vertexSet()) {
-            if (colorMap.get(node).equals(Color.white)) {
-                DefaultEdge e = visit(node);
-                if (e != null) {
-                    return e;
-                }
+        // outgoing edges in adjacency array layout, in the order given by the graph
+        int[] offsets = new int[numberOfNodes + 1];
+        int numberOfEdges = graph.edgeSet().size();
+        int[] targets = new int[numberOfEdges];
+        DefaultEdge[] edges = new DefaultEdge[numberOfEdges];
+        int position = 0;
+        for (int i = 0; i < numberOfNodes; i++) {
+            for (DefaultEdge edge : graph.outgoingEdgesOf(nodes[i])) {
+                targets[position] = index.get(graph.getEdgeTarget(edge));
+                edges[position] = edge;
+                position++;
             }
+            offsets[i + 1] = position;
         }
-        return null;
-    }
 
-    private DefaultEdge visit(Entity node) {
-        colorMap.put(node, Color.grey);
-        Set<DefaultEdge> outgoingEdges = entityGraph.directedGraph.outgoingEdgesOf(node);
-        for (DefaultEdge edge : outgoingEdges) {
-            Entity outNode = entityGraph.directedGraph.getEdgeTarget(edge);
-            if (colorMap.get(outNode).equals(Color.grey)) {
-                return edge;
+        List<DefaultEdge> backEdges = new ArrayList<DefaultEdge>();
+        byte[] color = new byte[numberOfNodes];
+        int[] stack = new int[numberOfNodes];
+        int[] next = new int[numberOfNodes];
+
+        for (int root = 0; root < numberOfNodes; root++) {
+            if (color[root] != WHITE) {
+                continue;
             }
-            else if (colorMap.get(outNode).equals(Color.white)) {
-                DefaultEdge e = visit(outNode);
-                if (e != null) {
-                    return e;
+            int top = 0;
+            stack[0] = root;
+            next[0] = offsets[root];
+            color[root] = GREY;
+
+            while (top >= 0) {
+                int node = stack[top];
+                if (next[top] < offsets[node + 1]) {
+                    int edge = next[top]++;
+                    int target = targets[edge];
+                    if (color[target] == GREY) {
+                        backEdges.add(edges[edge]);
+                    }
+                    else if (color[target] == WHITE) {
+                        color[target] = GREY;
+                        top++;
+                        stack[top] = target;
+                        next[top] = offsets[target];
+                    }
+                }
+                else {
+                    color[node] = BLACK;
+                    top--;
                 }
             }
         }
-        colorMap.put(node, Color.black);
-        return null;
+        return backEdges;
     }
-}
\ No newline at end of file
+}
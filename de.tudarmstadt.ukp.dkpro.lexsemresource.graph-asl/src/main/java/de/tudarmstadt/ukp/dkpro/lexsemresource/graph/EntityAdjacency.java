@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+/**
+ * An entity id table together with a {@link CompressedAdjacency} over the ids. Entities are
+ * numbered from 0 to {@link #getNumberOfNodes()}-1.
+ */
+public class EntityAdjacency {
+
+    private final Entity[] entities;
+    private final Map<Entity, Integer> ids;
+    private final CompressedAdjacency adjacency;
+
+    /**
+     * @param entities The entities, indexed by their id.
+     * @param adjacency The adjacency over the entity ids.
+     */
+    public EntityAdjacency(Entity[] entities, CompressedAdjacency adjacency)
+    {
+        if (entities.length != adjacency.getNumberOfNodes()) {
+            throw new IllegalArgumentException("Entity table has " + entities.length
+                    + " entries, but the adjacency has " + adjacency.getNumberOfNodes()
+                    + " nodes.");
+        }
+        this.entities = entities;
+        this.adjacency = adjacency;
+        this.ids = new HashMap<Entity, Integer>(2 * entities.length);
+        for (int id = 0; id < entities.length; id++) {
+            ids.put(entities[id], id);
+        }
+    }
+
+    private EntityAdjacency(Entity[] entities, Map<Entity, Integer> ids,
+            CompressedAdjacency adjacency)
+    {
+        this.entities = entities;
+        this.ids = ids;
+        this.adjacency = adjacency;
+    }
+
+    /**
+     * Creates an entity id table without any arcs. This is useful to resolve entity ids while
+     * the arcs are collected, see {@link #withAdjacency(CompressedAdjacency)}.
+     *
+     * @param entities The entities, indexed by their id.
+     * @return An adjacency without arcs.
+     */
+    public static EntityAdjacency withoutArcs(Entity[] entities)
+    {
+        return new EntityAdjacency(entities,
+                new CompressedAdjacency(entities.length, new int[0], new int[0], 0));
+    }
+
+    /**
+     * @param other An adjacency over the same node ids.
+     * @return An adjacency sharing the entity id table of this one, but with the given arcs.
+     */
+    public EntityAdjacency withAdjacency(CompressedAdjacency other)
+    {
+        if (entities.length != other.getNumberOfNodes()) {
+            throw new IllegalArgumentException("Entity table has " + entities.length
+                    + " entries, but the adjacency has " + other.getNumberOfNodes()
+                    + " nodes.");
+        }
+        return new EntityAdjacency(entities, ids, other);
+    }
+
+    /**
+     * @return The number of nodes.
+     */
+    public int getNumberOfNodes()
+    {
+        return entities.length;
+    }
+
+    /**
+     * @param entity An entity.
+     * @return The id of the entity, or -1 if the entity is unknown.
+     */
+    public int getId(Entity entity)
+    {
+        Integer id = ids.get(entity);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id An entity id.
+     * @return The entity with the given id.
+     */
+    public Entity getEntity(int id)
+    {
+        return entities[id];
+    }
+
+    /**
+     * @return The adjacency over the entity ids.
+     */
+    public CompressedAdjacency getAdjacency()
+    {
+        return adjacency;
+    }
+
+    Entity[] getEntities()
+    {
+        return entities;
+    }
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+
+/**
+ * Reads and writes an {@link EntityAdjacency} as a single versioned binary file. The file holds
+ * a header, the CSR offsets and targets as big-endian ints, and the entity table. It is written
+ * through a buffered file channel and read back by memory mapping, so loading costs little more
+ * than copying the arrays out of the page cache.
+ * <p>
+ * Layout (version 1):
+ * <pre>
+ * int    magic ("LSRA")
+ * int    version
+ * int    number of nodes n
+ * int    number of arcs m
+ * int[]  offsets (n+1)
+ * int[]  targets (m)
+ * n times: byte PoS ordinal, int number of lexemes, (string lexeme, string sense)*
+ * </pre>
+ * Strings are stored as an int byte length followed by UTF-8 bytes.
+ */
+public final class EntityAdjacencyFile {
+
+    private static final int MAGIC = 0x4C535241;
+    private static final int VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // large files are mapped piecewise, as a single mapping cannot exceed 2GB
+    private static final int MAX_MAPPED_BYTES = 1 << 28;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    /**
+     * This class cannot be instantiated.
+     */
+    private EntityAdjacencyFile() {}
+
+    /**
+     * Writes the adjacency to the given file. The data is written to a temporary file first,
+     * which then replaces the target file, so that readers never see a partially written file.
+     *
+     * @param entityAdjacency The adjacency to write.
+     * @param file The target file.
+     * @throws IOException
+     */
+    public static void save(EntityAdjacency entityAdjacency, File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+            CompressedAdjacency adjacency = entityAdjacency.getAdjacency();
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(adjacency.getNumberOfNodes());
+            buffer.putInt(adjacency.getNumberOfArcs());
+            writeInts(channel, buffer, adjacency.getOffsets(), adjacency.getNumberOfNodes() + 1);
+            writeInts(channel, buffer, adjacency.getTargets(), adjacency.getNumberOfArcs());
+
+            for (Entity entity : entityAdjacency.getEntities()) {
+                ensureRemaining(channel, buffer, 5);
+                buffer.put((byte) entity.getPos().ordinal());
+                buffer.putInt(entity.getLexemes().size());
+                for (String lexeme : entity.getLexemes()) {
+                    writeString(channel, buffer, lexeme);
+                    String sense = entity.getSense(lexeme);
+                    writeString(channel, buffer, sense != null ? sense : Entity.UNKNOWN_SENSE);
+                }
+            }
+
+            flush(channel, buffer);
+            channel.force(false);
+        }
+        finally {
+            channel.close();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Loads an adjacency from the given file.
+     *
+     * @param file The file to read.
+     * @return The adjacency stored in the file.
+     * @throws IOException If the file cannot be read or is not a valid adjacency file of the
+     *             supported version.
+     */
+    public static EntityAdjacency load(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 16) {
+                throw new IOException("File is too short to be an adjacency file: " + file);
+            }
+            MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0, 16);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not an adjacency file: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported adjacency file version " + version + " in "
+                        + file + " (expected " + VERSION + ")");
+            }
+            int numberOfNodes = header.getInt();
+            int numberOfArcs = header.getInt();
+
+            long position = 16;
+            int[] offsets = new int[numberOfNodes + 1];
+            position = readInts(channel, position, offsets);
+            int[] targets = new int[numberOfArcs];
+            position = readInts(channel, position, targets);
+
+            Entity[] entities = new Entity[numberOfNodes];
+            PoS[] posValues = PoS.values();
+            MappedSection section = new MappedSection(channel, position);
+            for (int id = 0; id < numberOfNodes; id++) {
+                ByteBuffer record = section.get(5);
+                PoS pos = posValues[record.get()];
+                int numberOfLexemes = record.getInt();
+                Map<String, String> lexemes = new TreeMap<String, String>();
+                for (int i = 0; i < numberOfLexemes; i++) {
+                    String lexeme = section.getString();
+                    lexemes.put(lexeme, section.getString());
+                }
+                entities[id] = new Entity(lexemes, pos);
+            }
+
+            return new EntityAdjacency(entities, new CompressedAdjacency(offsets, targets));
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values,
+            int length)
+        throws IOException
+    {
+        int i = 0;
+        while (i < length) {
+            ensureRemaining(channel, buffer, 4);
+            int chunk = Math.min(length - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, i, chunk);
+            buffer.position(buffer.position() + 4 * chunk);
+            i += chunk;
+        }
+    }
+
+    private static void writeString(FileChannel channel, ByteBuffer buffer, String value)
+        throws IOException
+    {
+        byte[] bytes = value.getBytes(UTF8);
+        ensureRemaining(channel, buffer, 4);
+        buffer.putInt(bytes.length);
+        int i = 0;
+        while (i < bytes.length) {
+            ensureRemaining(channel, buffer, 1);
+            int chunk = Math.min(bytes.length - i, buffer.remaining());
+            buffer.put(bytes, i, chunk);
+            i += chunk;
+        }
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes)
+        throws IOException
+    {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] values)
+        throws IOException
+    {
+        int i = 0;
+        while (i < values.length) {
+            int chunk = Math.min(values.length - i, MAX_MAPPED_BYTES / 4);
+            MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, position, 4L * chunk);
+            mapped.asIntBuffer().get(values, i, chunk);
+            position += 4L * chunk;
+            i += chunk;
+        }
+        return position;
+    }
+
+    /**
+     * A read-only window on the file that is re-mapped when a read crosses its end.
+     */
+    private static class MappedSection {
+
+        private final FileChannel channel;
+        private final long size;
+        private long start;
+        private MappedByteBuffer buffer;
+
+        public MappedSection(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(position);
+        }
+
+        private void map(long position) throws IOException {
+            start = position;
+            buffer = channel.map(MapMode.READ_ONLY, position,
+                    Math.min(MAX_MAPPED_BYTES, size - position));
+        }
+
+        public ByteBuffer get(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                long position = start + buffer.position();
+                if (size - position < bytes) {
+                    throw new IOException("Unexpected end of adjacency file.");
+                }
+                map(position);
+            }
+            return buffer;
+        }
+
+        public String getString() throws IOException {
+            int length = get(4).getInt();
+            if (length > MAX_MAPPED_BYTES) {
+                throw new IOException("Corrupt string length in adjacency file: " + length);
+            }
+            byte[] bytes = new byte[length];
+            get(length).get(bytes);
+            return new String(bytes, UTF8);
+        }
+    }
+}
@@ -104,6 +104,24 @@ public interface EntityGraph {
 	    public double getRadius();
 	    public double getClusterCoefficient();
 
+	    /**
+	     * @return The global clustering coefficient (transitivity) of the graph treated as undirected,
+	     * i.e. three times the number of triangles divided by the number of connected triples.
+	     */
+	    public double getGlobalClusterCoefficient();
+
+	    /**
+	     * @return The local clustering coefficient of each node of the graph treated as undirected.
+	     */
+	    public EntityScores getLocalClusterCoefficients();
+
+	    /**
+	     * Partitions the graph treated as undirected into densely connected communities.
+	     * @param algorithm The community detection algorithm to use.
+	     * @return The community of each node together with the community sizes.
+	     */
+	    public Communities getCommunities(CommunityDetection.Algorithm algorithm);
+
 
 	    public boolean containsCycles() throws LexicalSemanticResourceException;
         public void removeCycles() throws LexicalSemanticResourceException;
@@ -111,6 +129,34 @@ public interface EntityGraph {
 	    public List<String> getPageRank();
 	    public List<String> getHITS();
 
+	    /**
+	     * @return The PageRank of each node.
+	     */
+	    public EntityScores getPageRankScores();
+
+	    /**
+	     * @return The HITS hub and authority scores of each node.
+	     */
+	    public HubsAndAuthorities getHITSScores();
+
+	    /**
+	     * Sets when the power iteration behind PageRank and HITS stops. The default is
+	     * {@link LinkAnalysis#DEFAULT_TOLERANCE} and {@link LinkAnalysis#DEFAULT_MAX_ITERATIONS}.
+	     * @param tolerance The iteration stops when the L1 distance between two successive score vectors falls below this value.
+	     * @param maxIterations The maximum number of iterations.
+	     */
+	    public void setLinkAnalysisConvergence(double tolerance, int maxIterations);
+
+	    /**
+	     * Approximates personalized PageRank around the seed entities. Only the neighborhood of
+	     * the seeds is explored, and concurrent calls are supported.
+	     * @param seeds The seed entities with their non-negative weights.
+	     * @param k The maximum number of entities to return.
+	     * @param mode Whether the random walk follows edges only in their direction or in both directions.
+	     * @return The k entities with the highest scores, in descending order of score.
+	     */
+	    public Map<Entity, Double> getPersonalizedPageRank(Map<Entity, Double> seeds, int k, DirectionMode mode);
+
 	    public Set<Set<Entity>> getStructuralEquivalences();
 
 	}
\ No newline at end of file
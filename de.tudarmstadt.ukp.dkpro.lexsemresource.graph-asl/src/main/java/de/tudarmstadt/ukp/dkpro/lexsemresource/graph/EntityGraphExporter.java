@@ -0,0 +1,580 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraph.DirectionMode;
+
+/**
+ * Writes an entity graph, an induced subgraph or the neighborhood of an entity to files that
+ * external graph analysis tools can read. Nodes and arcs are streamed from the int view of the
+ * graph through buffered file channels, so no second copy of the graph is built. Exported node
+ * ids run from 0 to the number of exported nodes-1, in the order of the entity ids.
+ * <p>
+ * Supported formats:
+ * <ul>
+ * <li>{@link Format#EdgeList}: one <code>source&lt;TAB&gt;target</code> line per arc, preceded
+ * by <code>#</code> comment lines mapping node ids to entities.</li>
+ * <li>{@link Format#GraphML}: a directed GraphML graph with the entity and its part of speech
+ * as node attributes.</li>
+ * <li>{@link Format#BV}: the compressed BVGraph format of the WebGraph framework, without
+ * reference and interval compression. It consists of <code>.graph</code>,
+ * <code>.offsets</code> and <code>.properties</code> files, plus an <code>.ids</code> file
+ * with one entity per line.</li>
+ * </ul>
+ * The text formats can be written gzip compressed, see {@link #setCompressed(boolean)}.
+ */
+public class EntityGraphExporter {
+
+    public enum Format
+    {
+        EdgeList, GraphML, BV
+    }
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    // parameter of the zeta code used for BV residuals, the WebGraph default
+    private static final int ZETA_K = 3;
+
+    private final EntityAdjacency graph;
+    private boolean compressed;
+
+    /**
+     * @param entityGraph A graph created by {@link EntityGraphManager}.
+     */
+    public EntityGraphExporter(EntityGraph entityGraph)
+    {
+        this(getEntityAdjacency(entityGraph));
+    }
+
+    /**
+     * @param graph The graph to export.
+     */
+    public EntityGraphExporter(EntityAdjacency graph)
+    {
+        this.graph = graph;
+    }
+
+    private static EntityAdjacency getEntityAdjacency(EntityGraph entityGraph)
+    {
+        if (entityGraph instanceof EntityGraphJGraphT) {
+            return ((EntityGraphJGraphT) entityGraph).getEntityAdjacency();
+        }
+        if (entityGraph instanceof EntityGraphJUNG) {
+            return ((EntityGraphJUNG) entityGraph).getEntityAdjacency();
+        }
+        throw new IllegalArgumentException("Unsupported entity graph implementation: "
+                + entityGraph.getClass().getName());
+    }
+
+    /**
+     * @param compressed If true, edge lists and GraphML files are written gzip compressed. The
+     *            BV format is always compressed.
+     */
+    public void setCompressed(boolean compressed)
+    {
+        this.compressed = compressed;
+    }
+
+    /**
+     * Exports the whole graph.
+     *
+     * @param format The output format.
+     * @param file The target file, or the base name of the target files for {@link Format#BV}.
+     * @throws IOException
+     */
+    public void export(Format format, File file) throws IOException
+    {
+        export(format, new Selection(null), file);
+    }
+
+    /**
+     * Exports the subgraph induced by the given entities, i.e. the entities and all arcs
+     * between them. Entities that are not in the graph are ignored.
+     *
+     * @param format The output format.
+     * @param entities The entities to export.
+     * @param file The target file, or the base name of the target files for {@link Format#BV}.
+     * @throws IOException
+     */
+    public void exportSubgraph(Format format, Collection<Entity> entities, File file)
+        throws IOException
+    {
+        BitSet selected = new BitSet(graph.getNumberOfNodes());
+        for (Entity entity : entities) {
+            int id = graph.getId(entity);
+            if (id >= 0) {
+                selected.set(id);
+            }
+        }
+        export(format, new Selection(selected), file);
+    }
+
+    /**
+     * Exports the subgraph induced by all entities within the given number of arcs from the
+     * center entity.
+     *
+     * @param format The output format.
+     * @param center The center entity.
+     * @param radius The maximum distance from the center in arcs.
+     * @param mode Whether arcs are only followed in their direction or in both directions.
+     * @param file The target file, or the base name of the target files for {@link Format#BV}.
+     * @throws IOException
+     */
+    public void exportNeighborhood(Format format, Entity center, int radius, DirectionMode mode,
+            File file)
+        throws IOException
+    {
+        int source = graph.getId(center);
+        if (source < 0) {
+            throw new IllegalArgumentException("Entity is not in the graph: " + center);
+        }
+        CompressedAdjacency successors = graph.getAdjacency();
+        CompressedAdjacency predecessors = mode == DirectionMode.undirected ? successors
+                .transpose() : null;
+
+        // breadth first search up to the radius
+        BitSet selected = new BitSet(graph.getNumberOfNodes());
+        selected.set(source);
+        int[] queue = new int[graph.getNumberOfNodes()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        for (int distance = 0; distance < radius && head < tail; distance++) {
+            int levelEnd = tail;
+            while (head < levelEnd) {
+                int node = queue[head++];
+                tail = visit(successors, node, selected, queue, tail);
+                if (predecessors != null) {
+                    tail = visit(predecessors, node, selected, queue, tail);
+                }
+            }
+        }
+        export(format, new Selection(selected), file);
+    }
+
+    private static int visit(CompressedAdjacency adjacency, int node, BitSet selected,
+            int[] queue, int tail)
+    {
+        for (int i = adjacency.getStart(node); i < adjacency.getEnd(node); i++) {
+            int neighbor = adjacency.getTarget(i);
+            if (!selected.get(neighbor)) {
+                selected.set(neighbor);
+                queue[tail++] = neighbor;
+            }
+        }
+        return tail;
+    }
+
+    private void export(Format format, Selection selection, File file) throws IOException
+    {
+        switch (format) {
+        case EdgeList:
+            writeEdgeList(selection, file);
+            break;
+        case GraphML:
+            writeGraphML(selection, file);
+            break;
+        case BV:
+            writeBV(selection, file);
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+    }
+
+    private void writeEdgeList(Selection selection, File file) throws IOException
+    {
+        Writer writer = openWriter(file, compressed);
+        try {
+            writer.write("# nodes " + selection.getNumberOfNodes() + " arcs "
+                    + selection.getNumberOfArcs() + "\n");
+            for (int node = 0; node < selection.getNumberOfNodes(); node++) {
+                writer.write("# " + node + "\t" + selection.getEntity(node).getId() + "\n");
+            }
+            int[] successors = new int[selection.getMaximumDegree()];
+            for (int node = 0; node < selection.getNumberOfNodes(); node++) {
+                int degree = selection.getSuccessors(node, successors);
+                for (int i = 0; i < degree; i++) {
+                    writer.write(node + "\t" + successors[i] + "\n");
+                }
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private void writeGraphML(Selection selection, File file) throws IOException
+    {
+        Writer writer = openWriter(file, compressed);
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+            writer.write("  <key id=\"entity\" for=\"node\" attr.name=\"entity\""
+                    + " attr.type=\"string\"/>\n");
+            writer.write("  <key id=\"pos\" for=\"node\" attr.name=\"pos\""
+                    + " attr.type=\"string\"/>\n");
+            writer.write("  <graph id=\"G\" edgedefault=\"directed\">\n");
+            for (int node = 0; node < selection.getNumberOfNodes(); node++) {
+                Entity entity = selection.getEntity(node);
+                writer.write("    <node id=\"n" + node + "\"><data key=\"entity\">");
+                writer.write(escapeXml(entity.getId()));
+                writer.write("</data><data key=\"pos\">" + entity.getPos().name()
+                        + "</data></node>\n");
+            }
+            int[] successors = new int[selection.getMaximumDegree()];
+            for (int node = 0; node < selection.getNumberOfNodes(); node++) {
+                int degree = selection.getSuccessors(node, successors);
+                for (int i = 0; i < degree; i++) {
+                    writer.write("    <edge source=\"n" + node + "\" target=\"n" + successors[i]
+                            + "\"/>\n");
+                }
+            }
+            writer.write("  </graph>\n");
+            writer.write("</graphml>\n");
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    static String escapeXml(String value)
+    {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '&':
+                escaped.append("&amp;");
+                break;
+            case '<':
+                escaped.append("&lt;");
+                break;
+            case '>':
+                escaped.append("&gt;");
+                break;
+            case '"':
+                escaped.append("&quot;");
+                break;
+            default:
+                // control characters are not allowed in XML 1.0
+                if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static Writer openWriter(File file, boolean gzip) throws IOException
+    {
+        WritableByteChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (gzip) {
+            channel = Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel),
+                    WRITE_BUFFER_BYTES));
+        }
+        return new BufferedWriter(Channels.newWriter(channel, UTF8.newEncoder(), -1),
+                WRITE_BUFFER_BYTES);
+    }
+
+    /**
+     * Writes the BVGraph files with a window size and minimum interval length of 0: for each
+     * node the gamma coded outdegree, followed by the zeta coded gaps between successors. The
+     * first successor is coded relative to the node itself.
+     */
+    private void writeBV(Selection selection, File basename) throws IOException
+    {
+        String path = basename.getPath();
+        BitWriter graphBits = new BitWriter(new File(path + ".graph"));
+        BitWriter offsetBits = new BitWriter(new File(path + ".offsets"));
+        long numberOfArcs = 0;
+        try {
+            int[] successors = new int[selection.getMaximumDegree()];
+            long lastOffset = 0;
+            for (int node = 0; node < selection.getNumberOfNodes(); node++) {
+                offsetBits.writeGamma(graphBits.getWrittenBits() - lastOffset);
+                lastOffset = graphBits.getWrittenBits();
+
+                int degree = selection.getSuccessors(node, successors);
+                graphBits.writeGamma(degree);
+                if (degree > 0) {
+                    graphBits.writeZeta(int2nat((long) successors[0] - node), ZETA_K);
+                    for (int i = 1; i < degree; i++) {
+                        graphBits.writeZeta(successors[i] - successors[i - 1] - 1, ZETA_K);
+                    }
+                }
+                numberOfArcs += degree;
+            }
+            offsetBits.writeGamma(graphBits.getWrittenBits() - lastOffset);
+        }
+        finally {
+            graphBits.close();
+            offsetBits.close();
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("version", "0");
+        properties.setProperty("graphclass", "it.unimi.dsi.webgraph.BVGraph");
+        properties.setProperty("nodes", Integer.toString(selection.getNumberOfNodes()));
+        properties.setProperty("arcs", Long.toString(numberOfArcs));
+        properties.setProperty("windowsize", "0");
+        properties.setProperty("maxrefcount", "0");
+        properties.setProperty("minintervallength", "0");
+        properties.setProperty("zetak", Integer.toString(ZETA_K));
+        properties.setProperty("compressionflags", "");
+        Writer writer = openWriter(new File(path + ".properties"), false);
+        try {
+            properties.store(writer, "BVGraph properties");
+        }
+        finally {
+            writer.close();
+        }
+
+        writer = openWriter(new File(path + ".ids"), false);
+        try {
+            for (int node = 0; node < selection.getNumberOfNodes(); node++) {
+                writer.write(selection.getEntity(node).getId());
+                writer.write('\n');
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private static long int2nat(long x)
+    {
+        return (x << 1) ^ (x >> 63);
+    }
+
+    /**
+     * The exported nodes, numbered by ascending entity id. Since the numbering preserves the
+     * order, successor lists stay sorted.
+     */
+    private class Selection {
+
+        private final int[] nodes;
+        private final int[] newIds;
+
+        /**
+         * @param selected The selected entity ids, or null to select all entities.
+         */
+        public Selection(BitSet selected)
+        {
+            if (selected == null) {
+                nodes = null;
+                newIds = null;
+                return;
+            }
+            nodes = new int[selected.cardinality()];
+            newIds = new int[graph.getNumberOfNodes()];
+            Arrays.fill(newIds, -1);
+            int count = 0;
+            for (int id = selected.nextSetBit(0); id >= 0; id = selected.nextSetBit(id + 1)) {
+                newIds[id] = count;
+                nodes[count++] = id;
+            }
+        }
+
+        public int getNumberOfNodes()
+        {
+            return nodes == null ? graph.getNumberOfNodes() : nodes.length;
+        }
+
+        public Entity getEntity(int node)
+        {
+            return graph.getEntity(nodes == null ? node : nodes[node]);
+        }
+
+        public int getMaximumDegree()
+        {
+            CompressedAdjacency adjacency = graph.getAdjacency();
+            int maximum = 0;
+            for (int node = 0; node < getNumberOfNodes(); node++) {
+                maximum = Math.max(maximum,
+                        adjacency.getDegree(nodes == null ? node : nodes[node]));
+            }
+            return maximum;
+        }
+
+        public long getNumberOfArcs()
+        {
+            if (nodes == null) {
+                return graph.getAdjacency().getNumberOfArcs();
+            }
+            int[] successors = new int[getMaximumDegree()];
+            long numberOfArcs = 0;
+            for (int node = 0; node < nodes.length; node++) {
+                numberOfArcs += getSuccessors(node, successors);
+            }
+            return numberOfArcs;
+        }
+
+        /**
+         * @param node An exported node id.
+         * @param successors Receives the exported ids of the successors in ascending order.
+         * @return The number of successors.
+         */
+        public int getSuccessors(int node, int[] successors)
+        {
+            CompressedAdjacency adjacency = graph.getAdjacency();
+            int id = nodes == null ? node : nodes[node];
+            int degree = 0;
+            for (int i = adjacency.getStart(id); i < adjacency.getEnd(id); i++) {
+                int target = nodes == null ? adjacency.getTarget(i)
+                        : newIds[adjacency.getTarget(i)];
+                if (target >= 0) {
+                    successors[degree++] = target;
+                }
+            }
+            return degree;
+        }
+    }
+
+    /**
+     * Writes a bit stream, most significant bit first, through a buffered file channel.
+     * The codes follow the definitions of WebGraph's <code>OutputBitStream</code>.
+     */
+    private static class BitWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+        private int current;
+        private int free = 8;
+        private long writtenBits;
+
+        public BitWriter(File file) throws IOException
+        {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        }
+
+        public long getWrittenBits()
+        {
+            return writtenBits;
+        }
+
+        /**
+         * Writes the lowest bits of the value.
+         */
+        public void writeBits(long value, int length) throws IOException
+        {
+            writtenBits += length;
+            while (length > 0) {
+                int n = Math.min(free, length);
+                int bits = (int) (value >>> (length - n)) & ((1 << n) - 1);
+                current = (current << n) | bits;
+                free -= n;
+                length -= n;
+                if (free == 0) {
+                    writeByte();
+                }
+            }
+        }
+
+        /**
+         * Writes x zeros followed by a one.
+         */
+        public void writeUnary(long x) throws IOException
+        {
+            while (x > 0) {
+                int n = (int) Math.min(x, 32);
+                writeBits(0, n);
+                x -= n;
+            }
+            writeBits(1, 1);
+        }
+
+        public void writeGamma(long x) throws IOException
+        {
+            x++;
+            int msb = 63 - Long.numberOfLeadingZeros(x);
+            writeUnary(msb);
+            writeBits(x, msb);
+        }
+
+        public void writeZeta(long x, int k) throws IOException
+        {
+            x++;
+            int msb = 63 - Long.numberOfLeadingZeros(x);
+            int h = msb / k;
+            writeUnary(h);
+            long left = 1L << (h * k);
+            if (x - left < left) {
+                writeBits(x - left, h * k + k - 1);
+            }
+            else {
+                writeBits(x, h * k + k);
+            }
+        }
+
+        private void writeByte() throws IOException
+        {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) current);
+            current = 0;
+            free = 8;
+        }
+
+        private void flush() throws IOException
+        {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Pads the last byte with zeros and closes the file.
+         */
+        public void close() throws IOException
+        {
+            try {
+                if (free < 8) {
+                    current <<= free;
+                    writeByte();
+                }
+                flush();
+            }
+            finally {
+                channel.close();
+            }
+        }
+    }
+}
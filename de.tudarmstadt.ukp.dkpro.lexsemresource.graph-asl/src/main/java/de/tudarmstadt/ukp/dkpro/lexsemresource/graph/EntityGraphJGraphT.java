@@ -19,9 +19,8 @@ package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
 
 import java.io.File;
 import java.io.IOException;
-import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -36,7 +35,6 @@ import org.apache.commons.logging.LogFactory;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.Graph;
 import org.jgrapht.UndirectedGraph;
-import org.jgrapht.alg.ConnectivityInspector;
 import org.jgrapht.alg.DijkstraShortestPath;
 import org.jgrapht.graph.AsUndirectedGraph;
 import org.jgrapht.graph.DefaultDirectedGraph;
@@ -45,7 +43,6 @@ import org.jgrapht.graph.DefaultEdge;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LSRFramework;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
-import de.tudarmstadt.ukp.dkpro.lexsemresource.core.util.LoggingUtils;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.core.util.ProgressMeter;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
 
@@ -68,12 +65,6 @@ public class EntityGraphJGraphT
 	protected DirectedGraph<Entity, DefaultEdge> directedGraph;
 	protected UndirectedGraph<Entity, DefaultEdge> undirectedGraph;
 
-	// a map holding the degree distribution of the graph
-	private final Map<Integer, Integer> degreeDistribution = new HashMap<Integer, Integer>();
-
-	// a map from nodes to their eccentricity values
-	private final Map<Entity, Integer> eccentricityMap = new HashMap<Entity, Integer>();
-
 	// A map holding the (recursive) number of hyponyms for each node.
 	// Recursive means that the hyponyms of hyponyms are also taken into account.
 	private Map<String, Integer> hyponymCountMap;
@@ -84,15 +75,38 @@ public class EntityGraphJGraphT
 	private Map<String, List<String>> rootPathMap = null;
 	private final String rootPathMapFilename = "rootPathMap";
 
+	// degrees, leaves, roots, isolated nodes and symmetric links, stored with the serialized graph
+	private StructuralIndex structuralIndex;
+	private final String adjacencyFilename = "adjacency";
+	private final String structuralIndexFilename = "structure";
+
+	// degree, triangle and path statistics, each computed on first use
+	private GraphStatistics graphStatistics;
+	private final String graphStatisticsFilename = "graphStats";
+
 	private File graphDirectory;
 	private File serializedGraphFile;
 	private String graphId;
+	private boolean loadedFromFile;
+
+	// the changes since the previous version of the graph, if it was built incrementally
+	private boolean incrementalUpdate = false;
+	private String previousGraphId;
+	private GraphDiff graphDiff;
+	// the endpoints of the arcs removed to make the hyponym count graph acyclic
+	private final String cycleNodesFilename = "cycleNodes";
 
 	private CycleHandlerJGraphT cycleHandler;
 
-	private double averageShortestPathLength = Double.NEGATIVE_INFINITY;
-	private double diameter = Double.NEGATIVE_INFINITY;
-	private double clusterCoefficient = Double.NEGATIVE_INFINITY;
+	// the graph over int node ids, built on first use and discarded when edges are removed
+	private EntityAdjacency entityAdjacency;
+	private LinkAnalysis linkAnalysis;
+	private double linkAnalysisTolerance = LinkAnalysis.DEFAULT_TOLERANCE;
+	private int linkAnalysisMaxIterations = LinkAnalysis.DEFAULT_MAX_ITERATIONS;
+	private PersonalizedPageRank directedPersonalizedPageRank;
+	private PersonalizedPageRank undirectedPersonalizedPageRank;
+	private EntityGraphJGraphT largestConnectedComponent;
+
 	private double depth = Double.NEGATIVE_INFINITY;
 
 	private LexicalSemanticResource lexSemRes;
@@ -127,18 +141,14 @@ public class EntityGraphJGraphT
 		throws LexicalSemanticResourceException
 	{
 
-		lexSemRes = lexSemResource;
-		cycleHandler = new CycleHandlerJGraphT(this);
+		setGraphId(lexSemResource, nameSuffix);
 
-		graphId = "graphSer_" + lexSemResource.getResourceName() + nameSuffix + "_"
-				+ lexSemResource.getResourceVersion();
-
-        serializedGraphFile = new File(graphDirectory, graphId);
 		if (serializedGraphFile.exists()) {
 			try {
 				logger.info("Loading entity graph: " + serializedGraphFile.getAbsolutePath());
 				directedGraph = GraphSerialization.loadGraph(serializedGraphFile.getAbsolutePath());
 				undirectedGraph = new AsUndirectedGraph<Entity, DefaultEdge>(directedGraph);
+				loadedFromFile = true;
 				logger.info("Finished loading entity graph.");
 			}
 			catch (IOException e) {
@@ -149,6 +159,9 @@ public class EntityGraphJGraphT
 			}
 		}
 		else {
+			EntityAdjacency previous = incrementalUpdate ? loadPreviousAdjacency(lexSemResource,
+					nameSuffix) : null;
+
 			logger.info("Creating entity graph.");
 			directedGraph = createGraph(lexSemResource, nodesToConsider, numEntities);
 			undirectedGraph = new AsUndirectedGraph<Entity, DefaultEdge>(directedGraph);
@@ -160,13 +173,224 @@ public class EntityGraphJGraphT
 			catch (IOException e) {
 				throw new LexicalSemanticResourceException(e);
 			}
+
+			if (previous != null) {
+				graphDiff = new GraphDiff(previous, getEntityAdjacency());
+				logger.info("Changes since " + previousGraphId + ": " + graphDiff);
+			}
 		}
 
+		initStructuralIndex();
 		containsCycles();
 
 		return this;
 	}
 
+	/**
+	 * Enables the incremental update mode. If the graph has to be built because no snapshot
+	 * exists for the current resource version, it is compared with the newest snapshot of
+	 * another version of the same resource in the graph directory. The hyponym counts and the
+	 * root paths of the previous version are then reused for all nodes whose descendants or
+	 * ancestors, respectively, did not change, and only the affected nodes are recomputed.
+	 *
+	 * @param incremental True, to enable the incremental update mode.
+	 */
+	public void setIncrementalUpdate(boolean incremental)
+	{
+		incrementalUpdate = incremental;
+	}
+
+	/**
+	 * @return The changes since the previous version, or null if the graph was not built
+	 *         incrementally.
+	 */
+	public GraphDiff getGraphDiff()
+	{
+		return graphDiff;
+	}
+
+	/**
+	 * Finds the most recently written int view of another version of this graph.
+	 *
+	 * @return The previous version of the graph, or null if there is none.
+	 */
+	private EntityAdjacency loadPreviousAdjacency(LexicalSemanticResource lexSemResource,
+			String nameSuffix)
+	{
+		String prefix = "graphSer_" + lexSemResource.getResourceName() + nameSuffix + "_";
+		String suffix = "_" + adjacencyFilename;
+		File previousFile = null;
+		File[] files = graphDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.startsWith(prefix) && name.endsWith(suffix)
+						&& !name.equals(graphId + suffix)
+						&& (previousFile == null || file.lastModified() > previousFile
+								.lastModified())) {
+					previousFile = file;
+				}
+			}
+		}
+		if (previousFile == null) {
+			logger.info("No previous version of " + graphId + " found, building it from scratch.");
+			return null;
+		}
+
+		try {
+			logger.info("Loading previous version: " + previousFile.getAbsolutePath());
+			EntityAdjacency previous = EntityAdjacencyFile.load(previousFile);
+			String name = previousFile.getName();
+			previousGraphId = name.substring(0, name.length() - suffix.length());
+			return previous;
+		}
+		catch (IOException e) {
+			logger.warn("Could not load previous version, building from scratch: "
+					+ e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Loads the int view of the graph and its structural index from the files next to the
+	 * serialized graph, or builds and saves them if they are missing or outdated.
+	 */
+	private void initStructuralIndex()
+	{
+		File adjacencyFile = new File(graphDirectory, graphId + "_" + adjacencyFilename);
+		File indexFile = new File(graphDirectory, graphId + "_" + structuralIndexFilename);
+		if (adjacencyFile.exists() && indexFile.exists()) {
+			try {
+				EntityAdjacency adjacency = EntityAdjacencyFile.load(adjacencyFile);
+				StructuralIndex index = StructuralIndex.load(indexFile);
+				if (adjacency.getNumberOfNodes() == getNumberOfNodes()
+						&& adjacency.getAdjacency().getNumberOfArcs() == getNumberOfEdges()
+						&& index.getNumberOfNodes() == getNumberOfNodes()
+						&& index.getNumberOfArcs() == getNumberOfEdges()) {
+					synchronized (this) {
+						entityAdjacency = adjacency;
+						structuralIndex = index;
+					}
+					return;
+				}
+				logger.info("Structural index does not match the graph, rebuilding it.");
+			}
+			catch (IOException e) {
+				logger.warn("Could not load structural index, rebuilding it: " + e.getMessage());
+			}
+		}
+		saveStructuralIndex();
+	}
+
+	private void saveStructuralIndex()
+	{
+		try {
+			EntityAdjacencyFile.save(getEntityAdjacency(), new File(graphDirectory, graphId + "_"
+					+ adjacencyFilename));
+			getStructuralIndex().save(new File(graphDirectory, graphId + "_"
+					+ structuralIndexFilename));
+		}
+		catch (IOException e) {
+			logger.warn("Could not save structural index: " + e.getMessage());
+		}
+	}
+
+	private void setGraphId(LexicalSemanticResource lexSemResource, String nameSuffix)
+	{
+		lexSemRes = lexSemResource;
+		cycleHandler = new CycleHandlerJGraphT(this);
+
+		graphId = "graphSer_" + lexSemResource.getResourceName() + nameSuffix + "_"
+				+ lexSemResource.getResourceVersion();
+
+        serializedGraphFile = new File(graphDirectory, graphId);
+	}
+
+	/**
+	 * @return The graph over int node ids. It is built on first use from the in-memory graph.
+	 */
+	synchronized EntityAdjacency getEntityAdjacency()
+	{
+		if (entityAdjacency == null) {
+			int numberOfNodes = getNumberOfNodes();
+			EntityAdjacency index = EntityAdjacency.withoutArcs(
+					directedGraph.vertexSet().toArray(new Entity[numberOfNodes]));
+
+			int numberOfArcs = getNumberOfEdges();
+			int[] sources = new int[numberOfArcs];
+			int[] targets = new int[numberOfArcs];
+			int i = 0;
+			for (DefaultEdge edge : directedGraph.edgeSet()) {
+				sources[i] = index.getId(directedGraph.getEdgeSource(edge));
+				targets[i] = index.getId(directedGraph.getEdgeTarget(edge));
+				i++;
+			}
+			entityAdjacency = index.withAdjacency(
+					new CompressedAdjacency(numberOfNodes, sources, targets, numberOfArcs));
+		}
+		return entityAdjacency;
+	}
+
+	/**
+	 * Discards everything that was derived from the graph, after the graph was modified.
+	 */
+	private synchronized void clearDerivedStructures()
+	{
+		entityAdjacency = null;
+		linkAnalysis = null;
+		structuralIndex = null;
+		graphStatistics = null;
+		directedPersonalizedPageRank = null;
+		undirectedPersonalizedPageRank = null;
+		largestConnectedComponent = null;
+	}
+
+	/**
+	 * @return The degrees, leaves, roots, isolated nodes and symmetric links of the graph over
+	 *         the ids of {@link #getEntityAdjacency()}.
+	 */
+	synchronized StructuralIndex getStructuralIndex()
+	{
+		if (structuralIndex == null) {
+			structuralIndex = new StructuralIndex(getEntityAdjacency().getAdjacency());
+		}
+		return structuralIndex;
+	}
+
+	/**
+	 * @return The entities with the ids in the given set.
+	 */
+	private Set<Entity> getEntities(BitSet ids)
+	{
+		EntityAdjacency adjacency = getEntityAdjacency();
+		Set<Entity> entities = new HashSet<Entity>(2 * ids.cardinality());
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			entities.add(adjacency.getEntity(id));
+		}
+		return entities;
+	}
+
+	private synchronized LinkAnalysis getLinkAnalysis()
+	{
+		if (linkAnalysis == null) {
+			linkAnalysis = new LinkAnalysis(getEntityAdjacency().getAdjacency());
+			linkAnalysis.setTolerance(linkAnalysisTolerance);
+			linkAnalysis.setMaxIterations(linkAnalysisMaxIterations);
+		}
+		return linkAnalysis;
+	}
+
+	@Override
+	public synchronized void setLinkAnalysisConvergence(double tolerance, int maxIterations)
+	{
+		linkAnalysisTolerance = tolerance;
+		linkAnalysisMaxIterations = maxIterations;
+		if (linkAnalysis != null) {
+			linkAnalysis.setTolerance(tolerance);
+			linkAnalysis.setMaxIterations(maxIterations);
+		}
+	}
+
 	/**
 	 * Create a graph representation of the lexical semantic resource. The graph may contain
 	 * vertices that do not represent an entity in Wiktionary, but tokens that are linked in an
@@ -342,52 +566,31 @@ public class EntityGraphJGraphT
 	@Override
 	public double getAverageDegree()
 	{
-		// implementation without JGraphT:
-		double degreeSum = 0.0;
-
-		// iterate over all node pairs
-		Set<Entity> nodes = directedGraph.vertexSet();
-		for (Entity node : nodes) {
-			degreeSum += getDegree(node);
-		}
-
-		return degreeSum / getNumberOfNodes();
+		return getGraphStatistics().getAverageDegree();
 	}
 
 	@Override
 	public Set<Entity> getLeaves()
 	{
-		Set<Entity> leafNodes = new HashSet<Entity>();
-		for (Entity node : directedGraph.vertexSet()) {
-			if (getOutDegree(node) == 0) {
-				leafNodes.add(node);
-			}
-		}
-		return leafNodes;
+		return getEntities(getStructuralIndex().getLeaves());
 	}
 
 	@Override
 	public int getNumberOfLeaves()
 	{
-		return getLeaves().size();
+		return getStructuralIndex().getLeaves().cardinality();
 	}
 
 	@Override
 	public Set<Entity> getRoots()
 	{
-		Set<Entity> rootNodes = new HashSet<Entity>();
-		for (Entity node : directedGraph.vertexSet()) {
-			if (getInDegree(node) == 0) {
-				rootNodes.add(node);
-			}
-		}
-		return rootNodes;
+		return getEntities(getStructuralIndex().getRoots());
 	}
 
 	@Override
 	public int getNumberOfRoots()
 	{
-		return getRoots().size();
+		return getStructuralIndex().getRoots().cardinality();
 	}
 
 	@Override
@@ -478,324 +681,60 @@ public class EntityGraphJGraphT
 	@Override
 	public int getNumberOfSymmetricLinks()
 	{
-		int symLinksSum = 0;
-
-		// this can be done still more efficiently if i put the nodes in a list and remove from the
-		// list current node as well as its children after each loop
-//		int progress = 0;
-
-		Set<Entity> nodes = directedGraph.vertexSet();
-		for (Entity source : nodes) {
-			for (Entity target : getChildren(source)) {
-//				progress++;
-				// ApiUtilities.printProgressInfo(progress, max, 100,
-				// ApiUtilities.ProgressInfoMode.TEXT, "Counting symmetric links");
-
-				if (isSymmetricLink(source, target)) {
-					symLinksSum++;
-				}
-			}
-		}
-		return symLinksSum / 2;
+		return getStructuralIndex().getNumberOfSymmetricLinks();
 	}
 
 	@Override
 	public Set<Entity> getIsolatedNodes()
 	{
-		Set<Entity> isolatedNodes = new HashSet<Entity>();
-		for (Entity node : directedGraph.vertexSet()) {
-			if (getDegree(node) == 0) {
-				isolatedNodes.add(node);
-			}
-		}
-		return isolatedNodes;
+		return getEntities(getStructuralIndex().getIsolatedNodes());
 	}
 
 	@Override
 	public int getNumberOfIsolatedNodes()
 	{
-		return getIsolatedNodes().size();
+		return getStructuralIndex().getIsolatedNodes().cardinality();
 	}
 
 	/**
-	 * Computes the shortest path from node to all other nodes. Paths to nodes that have already
-	 * been the source of the shortest path computation are omitted (the path was already added to
-	 * the path sum). Updates the sum of shortest path lengths and the diameter of the graph. As the
-	 * JGraphT BreadthFirstIterator does not provide information about the distance to the start
-	 * node in each step, we will use our own BFS implementation.
-	 *
-	 * @param pStartNode
-	 *            The start node of the search.
-	 * @param pShortestPathLengthSum
-	 *            The sum of the shortest path lengths.
-	 * @param pMaxPathLength
-	 *            The maximum path length found so far.
-	 * @param pWasSource
-	 *            A set of nodes which have been the start node of the computation process. For such
-	 *            nodes all path lengths have been already computed.
-	 * @return An array of double values. The first value is the shortestPathLengthSum The second
-	 *         value is the maxPathLength They are returned as an array for performance reasons. I
-	 *         do not want to create an object, as this function is called *very* often.
+	 * @return The statistics of the graph. Each group of statistics is computed on first use and
+	 *         stored next to the serialized graph.
 	 */
-	private BigInteger[] computeShortestPathLengths(Entity pStartNode,
-			BigInteger pBigShortestPathLengthSum, BigInteger pBigMaxPathLength,
-			Set<Entity> pWasSource)
+	public synchronized GraphStatistics getGraphStatistics()
 	{
-
-		int pStartNodeMaxPathLength = 0;
-
-		// a set of nodes that have already been expanded -> algorithm should expand nodes
-		// monotonically and not go back
-		Set<Entity> alreadyExpanded = new HashSet<Entity>();
-
-		// a queue holding the newly discovered nodes and their distance to the start node
-		List<Entity[]> queue = new ArrayList<Entity[]>();
-
-		// initialize queue with start node
-		Entity[] innerList = new Entity[2];
-		innerList[0] = pStartNode; // the node
-		innerList[1] = new Entity("0"); // the distance to the start node
-		queue.add(innerList);
-
-		// while the queue is not empty
-		while (!queue.isEmpty()) {
-			// remove first element from queue
-			Entity[] queueElement = queue.get(0);
-			Entity currentNode = queueElement[0];
-			Entity distance = queueElement[1];
-			queue.remove(0);
-
-			// if the node was not already expanded
-			if (!alreadyExpanded.contains(currentNode)) {
-
-				// the node gets expanded now
-				alreadyExpanded.add(currentNode);
-
-				// if the node was a source node in a previous run, we already have added this path
-				if (!pWasSource.contains(currentNode)) {
-					// add the distance of this node to shortestPathLengthSum
-					// check if maxPathLength must be updated
-					int tmpDistance = new Integer(distance.getFirstLexeme());
-					pBigShortestPathLengthSum = pBigShortestPathLengthSum.add(BigInteger
-							.valueOf(tmpDistance));
-
-					if (pBigMaxPathLength.compareTo(BigInteger.valueOf(tmpDistance)) == -1) {
-						pBigMaxPathLength = BigInteger.valueOf(tmpDistance);
-
-						// logger.info("*TEST TRUE:* pBigShortestPathLengthSum = " +
-						// pBigShortestPathLengthSum);
-					}
-					//
-				}
-				// even if the node was a source node in a previous run there can be a path to other
-				// nodes over this node, so go on
-
-				// get the neighbors of the queue element
-				Set<Entity> neighbors = getNeighbors(currentNode);
-
-				// iterate over all neighbors
-				for (Entity neighbor : neighbors) {
-					// if the node was not already expanded
-					if (!alreadyExpanded.contains(neighbor)) {
-						// add the node to the queue, increase node distance by one
-						Entity[] tmpList = new Entity[2];
-						tmpList[0] = neighbor;
-						Integer tmpDistance = new Integer(distance.getFirstLexeme()) + 1;
-						tmpList[1] = new Entity(tmpDistance.toString());
-						queue.add(tmpList);
-					}
-				}
-			}
-			pStartNodeMaxPathLength = new Integer(distance.getFirstLexeme());
+		if (graphStatistics == null) {
+			File statisticsFile = graphId == null ? null : new File(graphDirectory, graphId
+					+ "_" + graphStatisticsFilename);
+			graphStatistics = new GraphStatistics(getEntityAdjacency(), statisticsFile);
 		}
-		eccentricityMap.put(pStartNode, pStartNodeMaxPathLength);
-
-		BigInteger returnArray[] = { pBigShortestPathLengthSum, pBigMaxPathLength };
-		return returnArray;
-	}
-
-	/**
-	 * Computes and sets the diameter, the average degree and the average shortest path length of
-	 * the graph. Do not call this in the constructor. May run a while. It is called in the getters,
-	 * if parameters are not yet initialized when retrieved.
-	 */
-	private void setGraphParameters()
-	{
-
-		logger.info("Setting graph parameters.");
-		// The directed graph is treated as an undirected graph to compute these parameters.
-		// UndirectedGraph<String, DefaultEdge> undirectedGraph = new AsUndirectedGraph<String,
-		// DefaultEdge>(directedGraph);
-		logger.info("Treating the graph as undirected.");
-
-		// Diameter is the maximum of all shortest path lengths
-		// Average shortest path length is (as the name says) the average of the shortest path
-		// length between all node pairs
-
-		BigInteger bigMaxPathLength = BigInteger.valueOf(0);
-		BigInteger bigShortestPathLengthSum = BigInteger.valueOf(0);
-		double degreeSum = 0.0;
-		double clusterCoefficientSum = 0.0;
-
-		// iterate over all node pairs
-		Set<Entity> nodes = undirectedGraph.vertexSet();
-
-		// a hashset of the nodes which have been the start node of the computation process
-		// for such nodes all path lengths have been already computed
-		Set<Entity> wasSource = new HashSet<Entity>();
-
-		int progress = 0;
-		double percent = 0.0;
-		for (Entity node : nodes) {
-
-			progress++;
-			percent = (double) progress / nodes.size() * 100;
-
-			if (percent % 10 == 0) {
-				logger.info("Progress: " + percent);
-			}
-			LoggingUtils.printProgressInfo(progress, nodes.size(), 100,
-					LoggingUtils.ProgressInfoMode.TEXT, "Getting graph parameters");
-
-			int nodeDegree = undirectedGraph.degreeOf(node);
-			degreeSum += nodeDegree;
-
-			// logger.info("Updating degree distribution.");
-			updateDegreeDistribution(nodeDegree);
-
-			// cluster coefficient C_v of a node v is the fraction of the connections that exist
-			// between the
-			// neighbor nodes (k_v) of this node and all allowable connections between the neighbors
-			// (k_v(k_v -1)/2)
-			// for degrees 0 or 1 there is no cluster coefficient, as there can be no connections
-			// between neighbors
-			if (nodeDegree > 1) {
-				double numberOfNeighborConnections = getNumberOfNeighborConnections(node);
-				clusterCoefficientSum += (numberOfNeighborConnections / (nodeDegree * (nodeDegree - 1)));
-			}
-
-			// Returns the new shortestPathLengthSum and the new maxPathLength.
-			// They are returned as an double array for performance reasons.
-			// I do not want to create an object, as this function is called *very* often
-			// logger.info("Computing shortest path lengths.");
-			BigInteger[] returnValues = computeShortestPathLengths(node, bigShortestPathLengthSum,
-					bigMaxPathLength, wasSource);
-			bigShortestPathLengthSum = returnValues[0];
-			bigMaxPathLength = returnValues[1];
-
-			// save the info that the node was already used as the source of path computation
-			wasSource.add(node);
-		}
-
-		if (nodes.size() > 1) {
-			long denominator = nodes.size() * (nodes.size() - 1) / 2;
-			this.averageShortestPathLength = bigShortestPathLengthSum.divide(
-					BigInteger.valueOf(denominator)).doubleValue();
-			// sum of path lengths / (number of node pairs)
-		}
-		else {
-			this.averageShortestPathLength = 0; // there is only one node
-		}
-		this.diameter = bigMaxPathLength.doubleValue();
-		this.clusterCoefficient = clusterCoefficientSum / nodes.size();
-	}
-
-	private void updateDegreeDistribution(int nodeDegree)
-	{
-		if (degreeDistribution.containsKey(nodeDegree)) {
-			// logger.info("Updating existing key in degree distribution map.");
-			degreeDistribution.put(nodeDegree, (degreeDistribution.get(nodeDegree) + 1));
-		}
-		else {
-			// logger.info("Creating new key in degree distribution map.");
-			degreeDistribution.put(nodeDegree, 1);
-		}
-
-	}
-
-	/**
-	 * Get the number of connections that exist between the neighbors of a node.
-	 *
-	 * @param node
-	 *            The node under consideration.
-	 * @return The number of connections that exist between the neighbors of node.
-	 */
-	private int getNumberOfNeighborConnections(Entity node)
-	{
-
-		// The directed graph is treated as a undirected graph to compute these parameters.
-		// UndirectedGraph<String, DefaultEdge> undirectedGraph = new AsUndirectedGraph<String,
-		// DefaultEdge>(directedGraph);
-
-		int numberOfConnections = 0;
-
-		// get the set of neighbors
-		Set<Entity> neighbors = getNeighbors(node);
-
-		if (neighbors.size() > 0) {
-			// for each pair of neighbors, test if there is a connection
-			Object[] nodeArray = neighbors.toArray();
-			// sort the Array so we can use a simple iteration with two for loops to access all
-			// pairs
-			Arrays.sort(nodeArray);
-
-			for (int i = 0; i < neighbors.size(); i++) {
-				Entity outerNode = (Entity) nodeArray[i];
-				for (int j = i + 1; j < neighbors.size(); j++) {
-					Entity innerNode = (Entity) nodeArray[j];
-					// in case of a connection increase connection counter
-					// order of the nodes doesn't matter for undirected graphs
-
-					if (undirectedGraph.containsEdge(innerNode, outerNode)) {
-						// logger.info("There is a connection between the neighbors");
-						numberOfConnections++;
-					}
-				}
-			}
-		}
-
-		// logger.info(neighbors.size() + " - " + numberOfConnections);
-
-		return numberOfConnections;
+		return graphStatistics;
 	}
 
 	/**
 	 * Computes the average of the path lengths of all node pairs The graph is treated as an
-	 * undirected graph. Computing graph parameters requires touching all node pairs. Therefore, if
-	 * one parameter is called the others are computed as well and stored for later retrieval.
+	 * undirected graph. Computing the path lengths requires a search from every node, the result
+	 * is stored together with the diameter and the radius.
 	 *
 	 * @return The average of the shortest path lengths between all pairs of nodes.
 	 */
 	@Override
 	public double getAverageShortestPathLength()
 	{
-
-		if (averageShortestPathLength < 0) { // has not been initialized
-			logger.debug("Calling setGraphParameters");
-			setGraphParameters();
-			// logger.info("Sum = " + (averageShortestPathLength * (getNumberOfNodes() *
-			// (getNumberOfNodes()-1) / 2)));
-		}
-		return averageShortestPathLength;
-
+		return getGraphStatistics().getAverageShortestPathLength();
 	}
 
 	/**
 	 * Computes the diameter of the graph (the maximum of the shortest path length between all pairs
-	 * of nodes) The graph is treated as an undirected graph. Computing graph parameters requires
-	 * touching all node pairs. Therefore, if one parameter is called the others are computed as
-	 * well and stored for later retrieval.
+	 * of nodes) The graph is treated as an undirected graph. Computing the path lengths requires a
+	 * search from every node, the result is stored together with the average shortest path
+	 * length and the radius.
 	 *
 	 * @return The diameter of the graph.
 	 */
 	@Override
 	public double getDiameter()
 	{
-		if (diameter < 0) { // has not been initialized
-			logger.debug("Calling setGraphParameters");
-			setGraphParameters();
-		}
-		return diameter;
+		return getGraphStatistics().getDiameter();
 	}
 
 	// The eccentricity of the vertex v is the maximum distance from v to any vertex.
@@ -803,18 +742,11 @@ public class EntityGraphJGraphT
 	@Override
 	public double getEccentricity(Entity node)
 	{
-		if (eccentricityMap == null) {
-			logger.debug("Calling setGraphParameters");
-			setGraphParameters();
-			return eccentricityMap.get(node);
-		}
-		else if (!eccentricityMap.containsKey(node)) {
+		int id = getEntityAdjacency().getId(node);
+		if (id < 0) {
 			return Double.NaN;
 		}
-		else {
-			return eccentricityMap.get(node);
-		}
-
+		return getGraphStatistics().getPathStatistics().getEccentricity(id);
 	}
 
 	// The radius of G is the minimum eccentricity among the vertices of G.
@@ -822,16 +754,7 @@ public class EntityGraphJGraphT
 	@Override
 	public double getRadius()
 	{
-		double currEcc = Double.POSITIVE_INFINITY;
-		double minEcc = Double.POSITIVE_INFINITY;
-
-		for (Entity node : getNodes()) {
-			currEcc = getEccentricity(node);
-			if (currEcc < minEcc) {
-				minEcc = currEcc;
-			}
-		}
-		return minEcc;
+		return getGraphStatistics().getRadius();
 	}
 
 	// The center of G is the set of vertices of eccentricity equal to the radius.
@@ -840,11 +763,13 @@ public class EntityGraphJGraphT
 	public Set<Entity> getCenter()
 	{
 		Set<Entity> center = new HashSet<Entity>();
-		double radius = getRadius();
+		EntityAdjacency adjacency = getEntityAdjacency();
+		PathStatistics pathStatistics = getGraphStatistics().getPathStatistics();
+		int radius = pathStatistics.getRadius();
 
-		for (Entity node : getNodes()) {
-			if (getEccentricity(node) == radius) {
-				center.add(node);
+		for (int id = 0; id < adjacency.getNumberOfNodes(); id++) {
+			if (pathStatistics.getEccentricity(id) == radius) {
+				center.add(adjacency.getEntity(id));
 			}
 		}
 		return center;
@@ -852,40 +777,53 @@ public class EntityGraphJGraphT
 
 	/**
 	 * Compute the cluster coefficient of the graph (after Watts and Strogatz 1998) Cluster
-	 * coefficient C is defined as the average of C_v over all edges. C_v is the fraction of the
+	 * coefficient C is defined as the average of C_v over all nodes. C_v is the fraction of the
 	 * connections that exist between the neighbor nodes (k_v) of a vertex v and all allowable
 	 * connections between the neighbors (k_v(k_v -1)/2). C_v = 2 * number of connections between /
-	 * k_v*(k_v -1)
+	 * k_v*(k_v -1). The graph is treated as an undirected graph. Unlike the path based
+	 * parameters, this only needs a triangle count.
 	 *
 	 * @return The cluster coefficient.
 	 */
 	@Override
 	public double getClusterCoefficient()
 	{
-		if (clusterCoefficient < 0) { // has not been initialized
-			logger.debug("Calling setGraphParameters");
-			setGraphParameters();
-		}
-		return clusterCoefficient;
+		return getGraphStatistics().getAverageClusterCoefficient();
+	}
+
+	@Override
+	public double getGlobalClusterCoefficient()
+	{
+		return getGraphStatistics().getGlobalClusterCoefficient();
+	}
+
+	@Override
+	public EntityScores getLocalClusterCoefficients()
+	{
+		return new EntityScores(getEntityAdjacency(),
+				getGraphStatistics().getClusteringCoefficients().getLocalCoefficients());
+	}
+
+	@Override
+	public Communities getCommunities(CommunityDetection.Algorithm algorithm)
+	{
+		EntityAdjacency entityAdjacency = getEntityAdjacency();
+		CommunityDetection detection = new CommunityDetection(entityAdjacency.getAdjacency());
+		int[] communities = detection.detect(algorithm);
+		return new Communities(entityAdjacency, communities, detection.modularity(communities));
 	}
 
 	/**
 	 * Computes the degree distribution. The degree of a node is the number of edges that it is
-	 * connected with. The graph is treated as an undirected graph. Computing graph parameters
-	 * requires touching all node pairs. Therefore, if one is called the others are computed as well
-	 * and stored for later retrieval.
+	 * connected with. The graph is treated as an undirected graph. This only needs a pass over
+	 * the edges and does not compute any path based parameters.
 	 *
-	 * @return A map with the degree distribution of the graph.
+	 * @return A map with the degree distribution of the graph, ordered by degree.
 	 */
 	@Override
 	public Map<Integer, Integer> getDegreeDistribution()
 	{
-		if (degreeDistribution == null || degreeDistribution.size() == 0) { // has not been
-																			// initialized
-			logger.debug("Calling setGraphParameters");
-			setGraphParameters();
-		}
-		return degreeDistribution;
+		return getGraphStatistics().getDegreeDistribution();
 	}
 
 	/**
@@ -898,38 +836,51 @@ public class EntityGraphJGraphT
 	public EntityGraphJGraphT getLargestConnectedComponent()
 		throws LexicalSemanticResourceException
 	{
+		if (largestConnectedComponent != null) {
+			return largestConnectedComponent;
+		}
 
-		ConnectivityInspector<Entity, DefaultEdge> connectInspect = new ConnectivityInspector<Entity, DefaultEdge>(
-				directedGraph);
+		EntityAdjacency adjacency = getEntityAdjacency();
+		ConnectedComponents components = new ConnectedComponents(adjacency.getAdjacency());
 
 		// if the graph is connected, simply return the whole graph
-		if (connectInspect.isGraphConnected()) {
+		if (components.getNumberOfComponents() <= 1) {
 			logger.info("The original graph is connected. Returning this as the LCC.");
 			return this;
 		}
 
 		// else, get the largest connected component
-		List<Set<Entity>> connectedComponentList = connectInspect.connectedSets();
-
-		logger.info(connectedComponentList.size() + " connected components.");
-
-		int i = 0;
-		int maxSize = 0;
-		Set<Entity> largestComponent = new HashSet<Entity>();
-		for (Set<Entity> connectedComponent : connectedComponentList) {
-			i++;
-			if (connectedComponent.size() > maxSize) {
-				maxSize = connectedComponent.size();
-				largestComponent = connectedComponent;
-			}
-		}
+		logger.info(components.getNumberOfComponents() + " connected components.");
+
+		int largest = components.getLargestComponent();
+		int[] largestComponent = components.getNodes(largest);
 
-		double largestComponentRatio = largestComponent.size() * 100 / this.getNumberOfNodes();
+		double largestComponentRatio = largestComponent.length * 100 / this.getNumberOfNodes();
 		logger.info("Largest connected component contains " + largestComponentRatio + "% ("
-				+ largestComponent.size() + "/" + this.getNumberOfNodes()
+				+ largestComponent.length + "/" + this.getNumberOfNodes()
 				+ ") of the nodes in the graph.");
 
-		return getEntityGraphJGraphT(lexSemRes, largestComponent, "lcc", largestComponent.size());
+		// copy the induced subgraph from the in-memory adjacency
+		DirectedGraph<Entity, DefaultEdge> lccGraph = new DefaultDirectedGraph<Entity, DefaultEdge>(
+				DefaultEdge.class);
+		for (int node : largestComponent) {
+			lccGraph.addVertex(adjacency.getEntity(node));
+		}
+		CompressedAdjacency arcs = adjacency.getAdjacency();
+		for (int node : largestComponent) {
+			Entity source = adjacency.getEntity(node);
+			for (int i = arcs.getStart(node); i < arcs.getEnd(node); i++) {
+				// all neighbors of a node are in its component
+				lccGraph.addEdge(source, adjacency.getEntity(arcs.getTarget(i)));
+			}
+		}
+
+		EntityGraphJGraphT lcc = new EntityGraphJGraphT(graphDirectory);
+		lcc.setGraphId(lexSemRes, "lcc");
+		lcc.directedGraph = lccGraph;
+		lcc.undirectedGraph = new AsUndirectedGraph<Entity, DefaultEdge>(lccGraph);
+		largestConnectedComponent = lcc;
+		return lcc;
 	}
 
 	/**
@@ -977,18 +928,15 @@ public class EntityGraphJGraphT
 		}
 
 		Entity root = roots.get(0);
-		BigInteger bigMaxPathLength = BigInteger.valueOf(0);
-		BigInteger[] returnValues = computeShortestPathLengths(root, BigInteger.ZERO,
-				bigMaxPathLength, new HashSet<Entity>());
-		bigMaxPathLength = returnValues[1];
-		return bigMaxPathLength.doubleValue();
+		EntityAdjacency adjacency = getEntityAdjacency();
+		return PathStatistics.getEccentricity(adjacency.getAdjacency(), adjacency.getId(root));
 
 	}
 
 	/**
 	 * This parameter is already set in the constructor as it is needed for computation of
-	 * relatedness values. Therefore its computation does not trigger setGraphParameters (it is too
-	 * slow), even if the depth is implicitly determined there, too.
+	 * relatedness values. Therefore its computation does not trigger the computation of all path
+	 * lengths (it is too slow), even if the depth is implicitly determined there, too.
 	 *
 	 * @return The depth of the graph, i.e. the maximum path length starting with the root node (if
 	 *         a single one exists).
@@ -1125,7 +1073,7 @@ public class EntityGraphJGraphT
 	 * @throws UnsupportedOperationException
 	 * @throws LexicalSemanticResourceException
 	 */
-	private Map<String, Integer> getHyponymCountMap()
+	Map<String, Integer> getHyponymCountMap()
 		throws LexicalSemanticResourceException
 	{
 		// do only create hyponymMap, if it was not already computed
@@ -1136,12 +1084,13 @@ public class EntityGraphJGraphT
 		// work on the lcc, otherwise this is not going to work
 		// EntityGraphJGraphT lcc = this;
 		EntityGraphJGraphT lcc = this.getLargestConnectedComponent();
+		EntityAdjacency lccWithCycles = lcc.getEntityAdjacency();
 		lcc.removeCycles();
 		int nrOfNodes = lcc.getNumberOfNodes();
 
-        File hyponymCountMapSerializedFile = new File(graphDirectory,
-                getGraphId() + "_" + hyponymCountMapFilename
-                        + (lexSemRes.getIsCaseSensitive() ? "-cs" : "-cis"));
+		String fileSuffix = "_" + hyponymCountMapFilename
+				+ (lexSemRes.getIsCaseSensitive() ? "-cs" : "-cis");
+        File hyponymCountMapSerializedFile = new File(graphDirectory, getGraphId() + fileSuffix);
 		hyponymCountMap = new HashMap<String, Integer>();
 
 		if (hyponymCountMapSerializedFile.exists()) {
@@ -1158,6 +1107,10 @@ public class EntityGraphJGraphT
 
 		hyponymCountMap = new HashMap<String, Integer>();
 
+		// the endpoints of the arcs that were removed to break cycles
+		Set<Entity> cycleNodes = new GraphDiff(lccWithCycles, lcc.getEntityAdjacency())
+				.getChangedEntities();
+
 		// a queue holding the nodes to process
 		Queue<String> queue = new LinkedList<String>();
 
@@ -1166,14 +1119,32 @@ public class EntityGraphJGraphT
 		// Then, it is not expanded again.
 		Set<String> visited = new HashSet<String>();
 
-		// initialize the queue with all leaf nodes
-		Set<String> leafNodes = new HashSet<String>();
-		for (Entity leaf : lcc.getLeaves()) {
-			leafNodes.add(leaf.getId());
+		Map<String, Integer> reusableCounts = getReusableHyponymCounts(fileSuffix, cycleNodes);
+		if (reusableCounts != null) {
+			// start from the counts of the previous version and only process the other nodes
+			for (Entity node : lcc.getNodes()) {
+				Integer count = reusableCounts.get(node.getId());
+				if (count != null) {
+					hyponymCountMap.put(node.getId(), count);
+					visited.add(node.getId());
+				}
+				else {
+					queue.add(node.getId());
+				}
+			}
+			logger.info("Reusing the hyponym counts of " + visited.size()
+					+ " nodes, recomputing " + queue.size() + " nodes.");
 		}
-		queue.addAll(leafNodes);
+		else {
+			// initialize the queue with all leaf nodes
+			Set<String> leafNodes = new HashSet<String>();
+			for (Entity leaf : lcc.getLeaves()) {
+				leafNodes.add(leaf.getId());
+			}
+			queue.addAll(leafNodes);
 
-		logger.info(leafNodes.size() + " leaf nodes.");
+			logger.info(leafNodes.size() + " leaf nodes.");
+		}
 
 		ProgressMeter progress = new ProgressMeter(getNumberOfNodes());
 		// while the queue is not empty
@@ -1287,11 +1258,77 @@ public class EntityGraphJGraphT
 
 		logger.info("Computed hyponymCountMap");
 		EntityGraphUtils.serializeMap(hyponymCountMap, hyponymCountMapSerializedFile);
+		Map<String, Boolean> cycleNodeMap = new HashMap<String, Boolean>();
+		for (Entity node : cycleNodes) {
+			cycleNodeMap.put(node.getId(), Boolean.TRUE);
+		}
+		EntityGraphUtils.serializeMap(cycleNodeMap, new File(graphDirectory, getGraphId()
+				+ fileSuffix + "_" + cycleNodesFilename));
 		logger.info("Serialized hyponymCountMap");
 
 		return hyponymCountMap;
 	}
 
+	/**
+	 * The hyponym count of a node only depends on its descendants, so the counts of the
+	 * previous version stay valid for all nodes that are no ancestors of a changed node. Nodes
+	 * where different arcs were removed to break cycles count as changed, and so do nodes whose
+	 * count was capped to the size of the previous map.
+	 *
+	 * @param fileSuffix The suffix of the hyponym count map files.
+	 * @param cycleNodes The endpoints of the arcs removed to break cycles in this version.
+	 * @return The reusable hyponym counts of the previous version, or null if there are none.
+	 */
+	private Map<String, Integer> getReusableHyponymCounts(String fileSuffix,
+			Set<Entity> cycleNodes)
+	{
+		if (graphDiff == null) {
+			return null;
+		}
+		File countsFile = new File(graphDirectory, previousGraphId + fileSuffix);
+		File cycleNodesFile = new File(graphDirectory, previousGraphId + fileSuffix + "_"
+				+ cycleNodesFilename);
+		if (!countsFile.exists() || !cycleNodesFile.exists()) {
+			logger.info("No hyponym counts of the previous version to reuse.");
+			return null;
+		}
+		Map<String, Integer> counts = EntityGraphUtils.deserializeMap(countsFile);
+		Map<String, Boolean> previousCycleNodes = EntityGraphUtils.deserializeMap(cycleNodesFile);
+
+		EntityAdjacency current = graphDiff.getCurrent();
+		Map<String, Integer> ids = new HashMap<String, Integer>(2 * current.getNumberOfNodes());
+		for (int id = 0; id < current.getNumberOfNodes(); id++) {
+			ids.put(current.getEntity(id).getId(), id);
+		}
+
+		BitSet changed = graphDiff.getChangedNodes();
+		for (Entity node : cycleNodes) {
+			int id = current.getId(node);
+			if (id >= 0) {
+				changed.set(id);
+			}
+		}
+		for (String node : previousCycleNodes.keySet()) {
+			Integer id = ids.get(node);
+			if (id != null) {
+				changed.set(id);
+			}
+		}
+		int cap = counts.size() - 1;
+		for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+			Integer id = ids.get(entry.getKey());
+			if (id != null && entry.getValue() >= cap) {
+				changed.set(id);
+			}
+		}
+
+		BitSet affected = graphDiff.getAncestorClosure(changed);
+		for (int id = affected.nextSetBit(0); id >= 0; id = affected.nextSetBit(id + 1)) {
+			counts.remove(current.getEntity(id).getId());
+		}
+		return counts;
+	}
+
 	/**
 	 * Computes the paths from each entity node to the root. Computing n paths will take some time.
 	 * Thus, efficient computing is based on the assumption that all subpaths in the shortest path
@@ -1310,8 +1347,8 @@ public class EntityGraphJGraphT
 			return;
 		}
 
-		File rootPathFile = new File(this.getGraphId() + "_" + this.rootPathMapFilename
-				+ (lexSemRes.getIsCaseSensitive() ? "-cs" : "-cis"));
+		File rootPathFile = new File(graphDirectory, this.getGraphId() + "_"
+				+ this.rootPathMapFilename + (lexSemRes.getIsCaseSensitive() ? "-cs" : "-cis"));
 
 		// try to load rootPathMap from precomputed file
 		if (rootPathFile.exists()) {
@@ -1323,6 +1360,7 @@ public class EntityGraphJGraphT
 
 		logger.info("Computing rootPathMap");
 		rootPathMap = new HashMap<String, List<String>>();
+		reusePreviousRootPaths(lexSemRes.getIsCaseSensitive() ? "-cs" : "-cis");
 
 		// a queue holding the nodes to process
 		List<Entity> queue = new ArrayList<Entity>();
@@ -1361,6 +1399,48 @@ public class EntityGraphJGraphT
 		EntityGraphUtils.serializeMap(rootPathMap, rootPathFile);
 	}
 
+	/**
+	 * The path from a node to the root only depends on its ancestors, so the paths of the
+	 * previous version stay valid for all nodes that are no descendants of a changed node.
+	 *
+	 * @param fileSuffix The suffix of the root path map files.
+	 */
+	private void reusePreviousRootPaths(String fileSuffix)
+		throws LexicalSemanticResourceException
+	{
+		if (graphDiff == null) {
+			return;
+		}
+		File previousFile = new File(graphDirectory, previousGraphId + "_" + rootPathMapFilename
+				+ fileSuffix);
+		if (!previousFile.exists()) {
+			logger.info("No root paths of the previous version to reuse.");
+			return;
+		}
+		Map<String, List<String>> previousPaths = EntityGraphUtils.deserializeMap(previousFile);
+		Entity root = lexSemRes.getRoot();
+		if (root == null) {
+			return;
+		}
+
+		EntityAdjacency current = graphDiff.getCurrent();
+		BitSet affected = graphDiff.getDescendantClosure(graphDiff.getChangedNodes());
+		int reused = 0;
+		for (int id = affected.nextClearBit(0); id < current.getNumberOfNodes(); id = affected
+				.nextClearBit(id + 1)) {
+			String nodeId = current.getEntity(id).getId();
+			List<String> path = previousPaths.get(nodeId);
+			// paths to a former root are useless
+			if (path != null
+					&& (path.isEmpty() || path.get(path.size() - 1).equals(root.getId()))) {
+				rootPathMap.put(nodeId, path);
+				reused++;
+			}
+		}
+		logger.info("Reusing the root paths of " + reused + " nodes, "
+				+ affected.cardinality() + " nodes are affected by changes.");
+	}
+
 	private void fillRootPathMap(List<Entity> queue)
 		throws LexicalSemanticResourceException
 	{
@@ -1429,8 +1509,8 @@ public class EntityGraphJGraphT
 
 	/**
 	 * This parameter is already set in the constructor as it is needed for computation of
-	 * relatedness values. Therefore its computation does not trigger setGraphParameters (it is too
-	 * slow), even if the depth is implicitly determined there, too.
+	 * relatedness values. Therefore its computation does not trigger the computation of all path
+	 * lengths (it is too slow), even if the depth is implicitly determined there, too.
 	 *
 	 * @return The depth of the category graph, i.e. the maximum path length starting with the root
 	 *         node.
@@ -1554,16 +1634,61 @@ public class EntityGraphJGraphT
 		return this.rootPathMap;
 	}
 
+	/**
+	 * @return A list of nodes with their PageRank rankings in descending order.
+	 */
 	@Override
 	public List<String> getPageRank()
 	{
-		throw new UnsupportedOperationException();
+		return getPageRankScores().toRankingList();
 	}
 
+	/**
+	 * @return A list of nodes with their HITS rankings in descending order of hub score.
+	 */
 	@Override
 	public List<String> getHITS()
 	{
-		throw new UnsupportedOperationException();
+		return getHITSScores().toRankingList();
+	}
+
+	@Override
+	public EntityScores getPageRankScores()
+	{
+		return new EntityScores(getEntityAdjacency(), getLinkAnalysis().pageRank());
+	}
+
+	@Override
+	public Map<Entity, Double> getPersonalizedPageRank(Map<Entity, Double> seeds, int k,
+			DirectionMode mode)
+	{
+		return getPersonalizedPageRank(mode).compute(seeds, k);
+	}
+
+	private synchronized PersonalizedPageRank getPersonalizedPageRank(DirectionMode mode)
+	{
+		if (mode == DirectionMode.undirected) {
+			if (undirectedPersonalizedPageRank == null) {
+				EntityAdjacency adjacency = getEntityAdjacency();
+				undirectedPersonalizedPageRank = new PersonalizedPageRank(
+						adjacency.withAdjacency(adjacency.getAdjacency().symmetrize()));
+			}
+			return undirectedPersonalizedPageRank;
+		}
+		else {
+			if (directedPersonalizedPageRank == null) {
+				directedPersonalizedPageRank = new PersonalizedPageRank(getEntityAdjacency());
+			}
+			return directedPersonalizedPageRank;
+		}
+	}
+
+	@Override
+	public HubsAndAuthorities getHITSScores()
+	{
+		double[][] scores = getLinkAnalysis().hits();
+		return new HubsAndAuthorities(new EntityScores(getEntityAdjacency(), scores[0]),
+				new EntityScores(getEntityAdjacency(), scores[1]));
 	}
 
 	@Override
@@ -1579,8 +1704,10 @@ public class EntityGraphJGraphT
 	public void removeCycles()
 		throws LexicalSemanticResourceException
 	{
-		if (cycleHandler.containsCycle()) {
-			cycleHandler.removeCycles();
+		int removedEdges = cycleHandler.removeCycles();
+		if (removedEdges > 0) {
+			clearDerivedStructures();
+			logger.info("Removed " + removedEdges + " cycle-closing edges.");
 			logger.info("Overwriting serialized graph file with cycle-free version.");
 			try {
 				GraphSerialization.saveGraph(directedGraph, serializedGraphFile);
@@ -1588,7 +1715,7 @@ public class EntityGraphJGraphT
 			catch (IOException e) {
 				throw new LexicalSemanticResourceException(e);
 			}
-
+			saveStructuralIndex();
 		}
 	}
 
@@ -1598,10 +1725,27 @@ public class EntityGraphJGraphT
 		return this.graphId;
 	}
 
+	/**
+	 * @return True, if the graph was loaded from its serialized file instead of being created
+	 *         from the resource.
+	 */
+	boolean isLoadedFromFile()
+	{
+		return loadedFromFile;
+	}
+
+	/**
+	 * Finds the sets of structurally equivalent nodes, i.e. nodes with the same predecessors
+	 * and successors apart from each other. See {@link StructuralEquivalence}.
+	 *
+	 * @return A set of structurally equivalent node sets.
+	 */
 	@Override
 	public Set<Set<Entity>> getStructuralEquivalences()
 	{
-		throw new UnsupportedOperationException();
+		EntityAdjacency entityAdjacency = getEntityAdjacency();
+		return new StructuralEquivalence(entityAdjacency.getAdjacency())
+				.getEntitySets(entityAdjacency);
 	}
 
 	public void setHyponymCountMapUseLcc(boolean aHyponymCountMapUseLcc)
@@ -17,10 +17,7 @@
  *******************************************************************************/
 package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
 
-import java.text.DecimalFormat;
-import java.text.Format;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -40,14 +37,11 @@ import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.core.util.LoggingUtils;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
-import edu.uci.ics.jung.algorithms.blockmodel.StructurallyEquivalent;
 import edu.uci.ics.jung.algorithms.blockmodel.VertexPartition;
 import edu.uci.ics.jung.algorithms.cluster.EdgeBetweennessClusterer;
 import edu.uci.ics.jung.algorithms.cluster.WeakComponentClusterer;
 import edu.uci.ics.jung.algorithms.metrics.Metrics;
 import edu.uci.ics.jung.algorithms.scoring.HITS;
-import edu.uci.ics.jung.algorithms.scoring.HITSWithPriors;
-import edu.uci.ics.jung.algorithms.scoring.PageRank;
 import edu.uci.ics.jung.algorithms.shortestpath.DijkstraDistance;
 import edu.uci.ics.jung.algorithms.shortestpath.DijkstraShortestPath;
 import edu.uci.ics.jung.algorithms.shortestpath.DistanceStatistics;
@@ -83,10 +77,18 @@ public class EntityGraphJUNG
 
 	private String graphId;
 
+	// the graph over int node ids, built on first use
+	private EntityAdjacency entityAdjacency;
+	private LinkAnalysis linkAnalysis;
+	private double linkAnalysisTolerance = LinkAnalysis.DEFAULT_TOLERANCE;
+	private int linkAnalysisMaxIterations = LinkAnalysis.DEFAULT_MAX_ITERATIONS;
+	private ClusteringCoefficients clusteringCoefficients;
+	private PersonalizedPageRank directedPersonalizedPageRank;
+	private PersonalizedPageRank undirectedPersonalizedPageRank;
+
 	private double averageShortestPathLength = Double.NEGATIVE_INFINITY;
 	private double diameter = Double.NEGATIVE_INFINITY;
 	private double averageDegree = Double.NEGATIVE_INFINITY;
-	private double clusterCoefficient = Double.NEGATIVE_INFINITY;
 	private final double depth = Double.NEGATIVE_INFINITY;
 
 	private LexicalSemanticResource lexSemRes;
@@ -138,6 +140,75 @@ public class EntityGraphJUNG
 		return this;
 	}
 
+	/**
+	 * @return The graph over int node ids. It is built on first use from the
+	 *         in-memory graph.
+	 */
+	synchronized EntityAdjacency getEntityAdjacency()
+	{
+		if (entityAdjacency == null) {
+			int numberOfNodes = getNumberOfNodes();
+			EntityAdjacency index = EntityAdjacency.withoutArcs(directedGraph
+					.getVertices().toArray(new Entity[numberOfNodes]));
+
+			int numberOfArcs = getNumberOfEdges();
+			int[] sources = new int[numberOfArcs];
+			int[] targets = new int[numberOfArcs];
+			int i = 0;
+			for (EntityGraphEdge edge : directedGraph.getEdges()) {
+				sources[i] = index.getId(directedGraph.getSource(edge));
+				targets[i] = index.getId(directedGraph.getDest(edge));
+				i++;
+			}
+			entityAdjacency = index.withAdjacency(new CompressedAdjacency(
+					numberOfNodes, sources, targets, numberOfArcs));
+		}
+		return entityAdjacency;
+	}
+
+	/**
+	 * Discards everything that was derived from the graph, after the graph was
+	 * modified.
+	 */
+	private synchronized void clearDerivedStructures()
+	{
+		entityAdjacency = null;
+		linkAnalysis = null;
+		clusteringCoefficients = null;
+		directedPersonalizedPageRank = null;
+		undirectedPersonalizedPageRank = null;
+	}
+
+	private synchronized LinkAnalysis getLinkAnalysis()
+	{
+		if (linkAnalysis == null) {
+			linkAnalysis = new LinkAnalysis(getEntityAdjacency().getAdjacency());
+			linkAnalysis.setTolerance(linkAnalysisTolerance);
+			linkAnalysis.setMaxIterations(linkAnalysisMaxIterations);
+		}
+		return linkAnalysis;
+	}
+
+	@Override
+	public synchronized void setLinkAnalysisConvergence(double tolerance, int maxIterations)
+	{
+		linkAnalysisTolerance = tolerance;
+		linkAnalysisMaxIterations = maxIterations;
+		if (linkAnalysis != null) {
+			linkAnalysis.setTolerance(tolerance);
+			linkAnalysis.setMaxIterations(maxIterations);
+		}
+	}
+
+	private synchronized ClusteringCoefficients getClusteringCoefficients()
+	{
+		if (clusteringCoefficients == null) {
+			clusteringCoefficients = new ClusteringCoefficients(
+					getEntityAdjacency().getAdjacency());
+		}
+		return clusteringCoefficients;
+	}
+
 	/**
 	 * This algorithm measures the importance of a node in terms of the fraction
 	 * of time spent at that node relative to all other nodes.
@@ -147,32 +218,15 @@ public class EntityGraphJUNG
 	@Override
 	public List<String> getPageRank()
 	{
+		return getPageRankScores().toRankingList();
+	}
 
+	@Override
+	public EntityScores getPageRankScores()
+	{
 		logger.info("Getting PageRank...");
-		PageRank<Entity, EntityGraphEdge> ranker = new PageRank<Entity, EntityGraphEdge>(
-				directedGraph, 0.15);
-		logger.info("Ranker was created.");
-		logger.info("Evaluating...");
-		ranker.evaluate();
-
-		logger.info("Got PageRank.");
-		Collection<Entity> vertices = directedGraph.getVertices();
-		List<String> rankingList = new ArrayList<String>();
-		Format formatter = new DecimalFormat("%7.6f");
-
-		for (Entity vertex : vertices) {
-			rankingList.add(formatter.format(ranker.getVertexScore(vertex))
-					+ " " + vertex);
-			// logger.info("PageRanking for " + vertex.getVertexEntity() + " : "
-			// + ranker.getRankScore(vertex));
-		}
-
-		Collections.sort(rankingList);
-		Collections.reverse(rankingList);
-		// logger.info("Sorted PageRankings: " + rankingList);
-		// ranker.printRankings(false, true);
-
-		return rankingList;
+		return new EntityScores(getEntityAdjacency(), getLinkAnalysis()
+				.pageRank());
 	}
 
 	/**
@@ -182,40 +236,47 @@ public class EntityGraphJUNG
 	 * important authorities 2. The *authoritativeness* of a node is the degree
 	 * to which a node is pointed to by important hubs
 	 *
-	 * @return A list of nodes with their HITS rankings in descending order.
+	 * @return A list of nodes with their HITS rankings in descending order of
+	 *         hub score.
 	 */
 	@Override
 	public List<String> getHITS()
 	{
+		return getHITSScores().toRankingList();
+	}
 
-		logger.info("Getting HITS...");
-		HITS<Entity, EntityGraphEdge> ranker = new HITS<Entity, EntityGraphEdge>(
-				directedGraph);
-		logger.info("Ranker was created.");
-		logger.info("Evaluating...");
-		ranker.evaluate();
-
-		logger.info("Got HITS.");
-		Collection<Entity> vertices = directedGraph.getVertices();
-		List<String> rankingList = new ArrayList<String>();
-		Format formatter = new DecimalFormat("%7.6f");
+	@Override
+	public Map<Entity, Double> getPersonalizedPageRank(Map<Entity, Double> seeds, int k,
+			DirectionMode mode)
+	{
+		return getPersonalizedPageRank(mode).compute(seeds, k);
+	}
 
-		for (Entity vertex : vertices) {
-			rankingList.add("hub="
-					+ formatter.format(ranker.getVertexScore(vertex).hub)
-					+ " authority="
-					+ formatter.format(ranker.getVertexScore(vertex).authority)
-					+ " " + vertex);
-			// logger.info("HITS ranking for " + vertex.getVertexEntity() +
-			// " : " + ranker.getRankScore(vertex));
+	private synchronized PersonalizedPageRank getPersonalizedPageRank(DirectionMode mode)
+	{
+		if (mode == DirectionMode.undirected) {
+			if (undirectedPersonalizedPageRank == null) {
+				EntityAdjacency adjacency = getEntityAdjacency();
+				undirectedPersonalizedPageRank = new PersonalizedPageRank(
+						adjacency.withAdjacency(adjacency.getAdjacency().symmetrize()));
+			}
+			return undirectedPersonalizedPageRank;
 		}
+		else {
+			if (directedPersonalizedPageRank == null) {
+				directedPersonalizedPageRank = new PersonalizedPageRank(getEntityAdjacency());
+			}
+			return directedPersonalizedPageRank;
+		}
+	}
 
-		Collections.sort(rankingList);
-		Collections.reverse(rankingList);
-		// logger.info("Sorted PageRankings: " + rankingList);
-		// ranker.printRankings(false, true);
-
-		return rankingList;
+	@Override
+	public HubsAndAuthorities getHITSScores()
+	{
+		logger.info("Getting HITS...");
+		double[][] scores = getLinkAnalysis().hits();
+		return new HubsAndAuthorities(new EntityScores(getEntityAdjacency(),
+				scores[0]), new EntityScores(getEntityAdjacency(), scores[1]));
 	}
 
 	/**
@@ -224,36 +285,32 @@ public class EntityGraphJUNG
 	public List<String> getHITSWithPriors(
 			Transformer<Entity, HITS.Scores> priors)
 	{
+		return getHITSWithPriorsScores(priors).toRankingList();
+	}
 
+	/**
+	 * HITS with priors. Query-specific!
+	 *
+	 * @param priors
+	 *            The prior hub and authority scores of each node.
+	 * @return The hub and authority scores of each node.
+	 */
+	public HubsAndAuthorities getHITSWithPriorsScores(
+			Transformer<Entity, HITS.Scores> priors)
+	{
 		logger.info("Getting HITS with priors...");
-		HITSWithPriors<Entity, EntityGraphEdge> ranker = new HITSWithPriors<Entity, EntityGraphEdge>(
-				directedGraph, priors, 0.3);
-		logger.info("Ranker was created.");
-		logger.info("Evaluating...");
-		ranker.evaluate();
-		// ranker.printRankings(true, true);
-
-		logger.info("Got HITS with priors.");
-		Collection<Entity> vertices = directedGraph.getVertices();
-		List<String> rankingList = new ArrayList<String>();
-		Format formatter = new DecimalFormat("%7.6f");
-
-		for (Entity vertex : vertices) {
-			rankingList.add("hub="
-					+ formatter.format(ranker.getVertexScore(vertex).hub)
-					+ " authority="
-					+ formatter.format(ranker.getVertexScore(vertex).authority)
-					+ " " + vertex);
-			// logger.info("HITS with priors ranking for " +
-			// vertex.getVertexEntity() + " : " + ranker.getRankScore(vertex));
+		EntityAdjacency adjacency = getEntityAdjacency();
+		double[] hubPriors = new double[adjacency.getNumberOfNodes()];
+		double[] authorityPriors = new double[adjacency.getNumberOfNodes()];
+		for (int id = 0; id < hubPriors.length; id++) {
+			HITS.Scores prior = priors.transform(adjacency.getEntity(id));
+			hubPriors[id] = prior.hub;
+			authorityPriors[id] = prior.authority;
 		}
-
-		Collections.sort(rankingList);
-		Collections.reverse(rankingList);
-		// logger.info("Sorted PageRankings: " + rankingList);
-		// ranker.printRankings(false, true);
-
-		return rankingList;
+		double[][] scores = getLinkAnalysis().hits(0.3, hubPriors,
+				authorityPriors);
+		return new HubsAndAuthorities(new EntityScores(adjacency, scores[0]),
+				new EntityScores(adjacency, scores[1]));
 	}
 
 	/**
@@ -276,6 +333,7 @@ public class EntityGraphJUNG
 
 		directedGraph = new DirectedSparseGraph<Entity, EntityGraphEdge>();
 		undirectedGraph = new UndirectedSparseGraph<Entity, EntityGraphEdge>();
+		clearDerivedStructures();
 		Iterator<Entity> entityIter = lexSemResource.getEntities().iterator();
 
 		while (entityIter.hasNext()) {
@@ -330,6 +388,7 @@ public class EntityGraphJUNG
 		directedGraph = (DirectedGraph<Entity, EntityGraphEdge>) new VertexPartition<Entity, EntityGraphEdge>(
 				directedGraph, vertexCluster).getGraph();
 		undirectedGraph = new UndirectedSparseGraph<Entity, EntityGraphEdge>();
+		clearDerivedStructures();
 		Entity dirStart, dirEnd;
 
 		// logger.info("A new directed graph " + directedGraph +
@@ -445,19 +504,36 @@ public class EntityGraphJUNG
 	 * edges. C_v is the fraction of the connections that exist between the
 	 * neighbor nodes (k_v) of a vertex v and all allowable connections between
 	 * the neighbors (k_v(k_v -1)/2). C_v = 2 * number of connections between /
-	 * k_v*(k_v -1)
+	 * k_v*(k_v -1). The graph is treated as an undirected graph.
 	 *
 	 * @return The cluster coefficient.
 	 */
 	@Override
 	public double getClusterCoefficient()
 	{
-		if (clusterCoefficient < 0) { // has not been initialized
-			logger.debug("Calling setGraphParameters");
-			setGraphParameters();
-		}
+		return getClusteringCoefficients().getAverageLocalCoefficient();
+	}
 
-		return clusterCoefficient;
+	@Override
+	public double getGlobalClusterCoefficient()
+	{
+		return getClusteringCoefficients().getGlobalCoefficient();
+	}
+
+	@Override
+	public EntityScores getLocalClusterCoefficients()
+	{
+		return new EntityScores(getEntityAdjacency(),
+				getClusteringCoefficients().getLocalCoefficients());
+	}
+
+	@Override
+	public Communities getCommunities(CommunityDetection.Algorithm algorithm)
+	{
+		EntityAdjacency entityAdjacency = getEntityAdjacency();
+		CommunityDetection detection = new CommunityDetection(entityAdjacency.getAdjacency());
+		int[] communities = detection.detect(algorithm);
+		return new Communities(entityAdjacency, communities, detection.modularity(communities));
 	}
 
 	public double getClusterCoefficientJUNG()
@@ -1121,7 +1197,6 @@ public class EntityGraphJUNG
 		double maxPathLength = 0.0;
 		double shortestPathLengthSum = 0.0;
 		double degreeSum = 0.0;
-		double clusterCoefficientSum = 0.0;
 
 		// iterate over all node pairs
 		Collection<Entity> nodes = undirectedGraph.getVertices();
@@ -1139,23 +1214,11 @@ public class EntityGraphJUNG
 					LoggingUtils.ProgressInfoMode.TEXT,
 					"Getting graph parameters");
 
-			int nodeDegree = getDegree(node);
 			// degreeSum += nodeDegree;
 
 			// logger.info("Updating degree distribution.");
 			// updateDegreeDistribution(nodeDegree);
 
-			// cluster coefficient C_v of a node v is the fraction of the
-			// connections that exist between the
-			// neighbor nodes (k_v) of this node and all allowable connections
-			// between the neighbors (k_v(k_v -1)/2)
-			// for degrees 0 or 1 there is no cluster coefficient, as there can
-			// be no connections between neighbors
-			if (nodeDegree > 1) {
-				double numberOfNeighborConnections = getNumberOfNeighborConnections(node);
-				clusterCoefficientSum += (numberOfNeighborConnections / (nodeDegree * (nodeDegree - 1)));
-			}
-
 			// Returns the new shortestPathLengthSum and the new maxPathLength.
 			// They are returned as an double array for performance reasons.
 			// I do not want to create an object, as this function is called
@@ -1181,57 +1244,6 @@ public class EntityGraphJUNG
 		}
 		this.diameter = maxPathLength;
 		this.averageDegree = degreeSum / nodes.size();
-		this.clusterCoefficient = clusterCoefficientSum / nodes.size();
-	}
-
-	/**
-	 * Get the number of connections that exist between the neighbors of a node.
-	 *
-	 * @param node
-	 *            The node under consideration.
-	 * @return The number of connections that exist between the neighbors of
-	 *         node.
-	 */
-	private int getNumberOfNeighborConnections(Entity node)
-	{
-
-		// The directed graph is treated as a undirected graph to compute these
-		// parameters.
-		// UndirectedGraph<String, DefaultEdge> undirectedGraph = new
-		// AsUndirectedGraph<String, DefaultEdge>(directedGraph);
-
-		int numberOfConnections = 0;
-
-		// get the set of neighbors
-		Set<Entity> neighbors = getNeighbors(node);
-
-		if (neighbors.size() > 0) {
-			// for each pair of neighbors, test if there is a connection
-			Object[] nodeArray = neighbors.toArray();
-			// sort the Array so we can use a simple iteration with two for
-			// loops to access all pairs
-			Arrays.sort(nodeArray);
-
-			for (int i = 0; i < neighbors.size(); i++) {
-				Entity outerNode = (Entity) nodeArray[i];
-				for (int j = i + 1; j < neighbors.size(); j++) {
-					Entity innerNode = (Entity) nodeArray[j];
-					// in case of a connection increase connection counter
-					// order of the nodes doesn't matter for undirected graphs
-
-					// check if the neighbors are connected:
-					if (containsEdge(innerNode, outerNode)
-							|| containsEdge(outerNode, innerNode)) {
-						// logger.info("There is a connection between the neighbors");
-						numberOfConnections++;
-					}
-				}
-			}
-		}
-
-		// logger.info(neighbors.size() + " - " + numberOfConnections);
-
-		return numberOfConnections;
 	}
 
 	public Set<Entity> getHyponyms(Entity vertex)
@@ -1245,19 +1257,18 @@ public class EntityGraphJUNG
 	 * that share all the same edges. Specifically, In order for a pair of
 	 * vertices i and j to be structurally equivalent, the set of i 's neighbors
 	 * must be identical to the set of j 's neighbors, with the exception of i
-	 * and j themselves. This algorithm finds all sets of equivalent vertices in
-	 * O(V^2) time.
+	 * and j themselves. Candidates are found by hashing the neighbor lists,
+	 * see {@link StructuralEquivalence}, which takes linear instead of O(V^2)
+	 * time.
 	 *
 	 * @return A set of structurally equivalent node sets.
 	 */
 	@Override
 	public Set<Set<Entity>> getStructuralEquivalences()
 	{
-		StructurallyEquivalent<Entity, EntityGraphEdge> equivalent = new StructurallyEquivalent<Entity, EntityGraphEdge>();
-		VertexPartition<Entity, EntityGraphEdge> vertexPartition = equivalent
-				.transform(directedGraph);
-
-		return new HashSet<Set<Entity>>(vertexPartition.getVertexPartitions());
+		EntityAdjacency entityAdjacency = getEntityAdjacency();
+		return new StructuralEquivalence(entityAdjacency.getAdjacency())
+				.getEntitySets(entityAdjacency);
 	}
 
 	/**
@@ -1271,7 +1282,11 @@ public class EntityGraphJUNG
 	 *            The ratio of the total number of edges that we want to remove.
 	 *            E.g., 0.2 for removing 20% of all edges in the graph.
 	 * @return
+	 * @deprecated Edge betweenness clustering recomputes all shortest paths for each removed
+	 *             edge, which does not scale beyond small graphs. Use
+	 *             {@link #getCommunities(CommunityDetection.Algorithm)} instead.
 	 */
+	@Deprecated
 	public Set<Set<Entity>> getEdgeBetweennessClusters(double ratioEdgesToRemove)
 	{
 		int numEdgesToRemove = (int) (getNumberOfEdges() * ratioEdgesToRemove);
@@ -18,8 +18,16 @@
 package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
@@ -28,14 +36,33 @@ import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResource
 /**
  * The entity graph manager implements real singletons for entity graphs. There should be no way to
  * construct an entity graph that circumvents the manager.
+ * <p>
+ * Graphs are identified by resource name, resource version, name suffix, graph type and graph
+ * directory. The manager is thread-safe: if several threads ask for the same graph, it is loaded
+ * or built only once, and the other threads wait for it.
+ * <p>
+ * Each call to one of the <code>getEntityGraph</code> methods acquires a reference to the graph,
+ * which should be given back by {@link #release(EntityGraph)} when the graph is no longer needed.
+ * If a memory budget is set, the least recently used graphs without references are dropped
+ * whenever the estimated memory held by all graphs exceeds the budget.
  *
  * @author zesch
  *
  */
 public class EntityGraphManager
 {
+	private static final Log logger = LogFactory.getLog(EntityGraphManager.class);
+
+	// rough heap cost of a node and an edge of an in-memory graph, including the int views
+	private static final long BYTES_PER_NODE = 200;
+	private static final long BYTES_PER_EDGE = 150;
+
+	// all access is guarded by the map itself
+	private static final Map<GraphKey, ManagedGraph> entityGraphMap = new HashMap<GraphKey, ManagedGraph>();
 
-	private static Map<String, EntityGraph> entityGraphMap = new HashMap<String, EntityGraph>();
+	private static long memoryBudget = Long.MAX_VALUE;
+
+	private static volatile boolean incrementalUpdate = false;
 
 	public enum EntityGraphType
 	{
@@ -48,58 +75,435 @@ public class EntityGraphManager
         return getEntityGraph(lsr, type, null);
     }
 
-    public static EntityGraph getEntityGraph(LexicalSemanticResource lsr, EntityGraphType type,
-            File aGraphDirectory)
+    public static EntityGraph getEntityGraph(final LexicalSemanticResource lsr,
+            final EntityGraphType type, final File aGraphDirectory)
         throws LexicalSemanticResourceException
     {
-		String graphID = getGraphID(lsr, "");
-		if (!entityGraphMap.containsKey(graphID)) {
-			EntityGraph entityGraph = null;
-			if (type.equals(EntityGraphType.JGraphT)) {
-				EntityGraphJGraphT entityGraphJGraphT = new EntityGraphJGraphT(aGraphDirectory);
-				entityGraph = entityGraphJGraphT.getEntityGraphJGraphT(lsr, lsr.getEntities(),
-						"", lsr.getNumberOfEntities());
+		return acquire(new GraphKey(lsr, "", type, aGraphDirectory), new Callable<EntityGraph>()
+		{
+			@Override
+			public EntityGraph call()
+				throws LexicalSemanticResourceException
+			{
+				if (type.equals(EntityGraphType.JGraphT)) {
+					EntityGraphJGraphT entityGraphJGraphT = new EntityGraphJGraphT(aGraphDirectory);
+					entityGraphJGraphT.setIncrementalUpdate(incrementalUpdate);
+					return entityGraphJGraphT.getEntityGraphJGraphT(lsr, lsr.getEntities(), "",
+							lsr.getNumberOfEntities());
+				}
+				else {
+					// TODO JUNG graphes have different factory methods - that should not be the case -
+					// JUNG factoy methods should be modelled after JGraphT
+					EntityGraphJUNG entityGraphJung = new EntityGraphJUNG();
+					return entityGraphJung.getEntityGraphJUNG(lsr);
+				}
+			}
+		});
+	}
+
+	public static EntityGraph getEntityGraph(final LexicalSemanticResource lsr,
+			final Iterable<Entity> nodesToConsider, final String nameSuffix,
+			final EntityGraphType type)
+		throws LexicalSemanticResourceException
+	{
+		return acquire(new GraphKey(lsr, nameSuffix, type, null), new Callable<EntityGraph>()
+		{
+			@Override
+			public EntityGraph call()
+				throws LexicalSemanticResourceException
+			{
+				if (type.equals(EntityGraphType.JGraphT)) {
+					EntityGraphJGraphT entityGraphJGraphT = new EntityGraphJGraphT();
+					entityGraphJGraphT.setIncrementalUpdate(incrementalUpdate);
+					return entityGraphJGraphT.getEntityGraphJGraphT(lsr, nodesToConsider,
+							nameSuffix, -1);
+				}
+				else {
+					// TODO JUNG graphes have different factory methods - that should not be the case -
+					// JUNG factoy methods should be modelled after JGraphT
+					EntityGraphJUNG entityGraphJung = new EntityGraphJUNG();
+					return entityGraphJung.getEntityGraphJUNG(lsr);
+				}
 			}
-			else if (type.equals(EntityGraphType.JUNG)) {
-				// TODO JUNG graphes have different factory methods - that should not be the case -
-				// JUNG factoy methods should be modelled after JGraphT
-				EntityGraphJUNG entityGraphJung = new EntityGraphJUNG();
-				entityGraph = entityGraphJung.getEntityGraphJUNG(lsr);
+		});
+	}
+
+	/**
+	 * Gives back a reference acquired by one of the <code>getEntityGraph</code> methods. Once a
+	 * graph has no references left, it may be dropped to stay within the memory budget.
+	 *
+	 * @param graph A graph returned by the manager.
+	 * @return True, if the graph is managed and was referenced.
+	 */
+	public static boolean release(EntityGraph graph)
+	{
+		synchronized (entityGraphMap) {
+			for (ManagedGraph managed : entityGraphMap.values()) {
+				if (managed.graph == graph && managed.referenceCount > 0) {
+					managed.referenceCount--;
+					evictIfNecessary();
+					return true;
+				}
 			}
+			return false;
+		}
+	}
 
-			entityGraphMap.put(graphID, entityGraph);
+	/**
+	 * @param budget The estimated number of bytes all managed graphs may hold. Unreferenced
+	 *            graphs are dropped, least recently used first, while the budget is exceeded.
+	 */
+	public static void setMemoryBudget(long budget)
+	{
+		synchronized (entityGraphMap) {
+			memoryBudget = budget;
+			evictIfNecessary();
 		}
+	}
+
+	/**
+	 * @param incremental If true, JGraphT graphs that have to be built for a new resource version
+	 *            reuse the derived data of the previous version where the graph did not change.
+	 *            See {@link EntityGraphJGraphT#setIncrementalUpdate(boolean)}.
+	 */
+	public static void setIncrementalUpdate(boolean incremental)
+	{
+		incrementalUpdate = incremental;
+	}
+
+	/**
+	 * @return True, if graphs of new resource versions are updated incrementally.
+	 */
+	public static boolean isIncrementalUpdate()
+	{
+		return incrementalUpdate;
+	}
 
-		return entityGraphMap.get(graphID);
+	/**
+	 * @return The memory budget in bytes, {@link Long#MAX_VALUE} if there is none.
+	 */
+	public static long getMemoryBudget()
+	{
+		synchronized (entityGraphMap) {
+			return memoryBudget;
+		}
 	}
 
-	public static EntityGraph getEntityGraph(LexicalSemanticResource lsr,
-			Iterable<Entity> nodesToConsider, String nameSuffix, EntityGraphType type)
+	/**
+	 * @return The estimated number of bytes held by all managed graphs.
+	 */
+	public static long getEstimatedMemoryUsage()
+	{
+		synchronized (entityGraphMap) {
+			long usage = 0;
+			for (ManagedGraph managed : entityGraphMap.values()) {
+				usage += managed.estimatedBytes;
+			}
+			return usage;
+		}
+	}
+
+	/**
+	 * Drops all graphs that have no references, regardless of the memory budget.
+	 *
+	 * @return The number of dropped graphs.
+	 */
+	public static int evictUnreferenced()
+	{
+		synchronized (entityGraphMap) {
+			List<GraphKey> unreferenced = new ArrayList<GraphKey>();
+			for (ManagedGraph managed : entityGraphMap.values()) {
+				if (managed.graph != null && managed.referenceCount == 0) {
+					unreferenced.add(managed.key);
+				}
+			}
+			for (GraphKey key : unreferenced) {
+				logger.info("Dropping entity graph " + key);
+				entityGraphMap.remove(key);
+			}
+			return unreferenced.size();
+		}
+	}
+
+	/**
+	 * @return The state and the load or build time of every graph that is managed, including
+	 *         graphs that are still being built.
+	 */
+	public static List<GraphInfo> getGraphInfos()
+	{
+		synchronized (entityGraphMap) {
+			List<GraphInfo> infos = new ArrayList<GraphInfo>();
+			for (ManagedGraph managed : entityGraphMap.values()) {
+				infos.add(new GraphInfo(managed));
+			}
+			return infos;
+		}
+	}
+
+	private static EntityGraph acquire(GraphKey key, Callable<EntityGraph> builder)
 		throws LexicalSemanticResourceException
 	{
-		String graphID = getGraphID(lsr, nameSuffix);
-		if (!entityGraphMap.containsKey(graphID)) {
-			EntityGraph entityGraph = null;
-			if (type.equals(EntityGraphType.JGraphT)) {
-				EntityGraphJGraphT entityGraphJGraphT = new EntityGraphJGraphT();
-				entityGraph = entityGraphJGraphT.getEntityGraphJGraphT(lsr, nodesToConsider,
-						nameSuffix, -1);
+		ManagedGraph managed;
+		boolean build = false;
+		synchronized (entityGraphMap) {
+			managed = entityGraphMap.get(key);
+			if (managed == null) {
+				managed = new ManagedGraph(key, builder);
+				entityGraphMap.put(key, managed);
+				build = true;
 			}
-			else if (type.equals(EntityGraphType.JUNG)) {
-				// TODO JUNG graphes have different factory methods - that should not be the case -
-				// JUNG factoy methods should be modelled after JGraphT
-				EntityGraphJUNG entityGraphJung = new EntityGraphJUNG();
-				entityGraph = entityGraphJung.getEntityGraphJUNG(lsr);
+			managed.referenceCount++;
+			managed.lastAccess = System.nanoTime();
+		}
+
+		// the first caller builds the graph in its own thread, all others wait for it
+		if (build) {
+			managed.task.run();
+		}
+		try {
+			EntityGraph graph = managed.task.get();
+			if (build) {
+				synchronized (entityGraphMap) {
+					evictIfNecessary();
+				}
 			}
+			return graph;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			releaseFailed(managed);
+			throw new LexicalSemanticResourceException("Interrupted while waiting for entity graph "
+					+ key, e);
+		}
+		catch (ExecutionException e) {
+			// forget the failed attempt, so that the next caller tries again
+			releaseFailed(managed);
+			if (e.getCause() instanceof LexicalSemanticResourceException) {
+				throw (LexicalSemanticResourceException) e.getCause();
+			}
+			throw new LexicalSemanticResourceException(e.getCause());
+		}
+	}
+
+	private static void releaseFailed(ManagedGraph managed)
+	{
+		synchronized (entityGraphMap) {
+			managed.referenceCount--;
+			if (managed.graph == null && entityGraphMap.get(managed.key) == managed
+					&& managed.task.isDone()) {
+				entityGraphMap.remove(managed.key);
+			}
+		}
+	}
+
+	/**
+	 * Drops the least recently used unreferenced graphs while the budget is exceeded. Must be
+	 * called while holding the lock on the graph map.
+	 */
+	private static void evictIfNecessary()
+	{
+		long usage = 0;
+		for (ManagedGraph managed : entityGraphMap.values()) {
+			usage += managed.estimatedBytes;
+		}
+		while (usage > memoryBudget) {
+			ManagedGraph leastRecentlyUsed = null;
+			for (ManagedGraph managed : entityGraphMap.values()) {
+				if (managed.graph != null && managed.referenceCount == 0
+						&& (leastRecentlyUsed == null
+								|| managed.lastAccess < leastRecentlyUsed.lastAccess)) {
+					leastRecentlyUsed = managed;
+				}
+			}
+			if (leastRecentlyUsed == null) {
+				logger.warn("Entity graphs hold an estimated " + usage + " bytes, which exceeds "
+						+ "the budget of " + memoryBudget + " bytes, but all graphs are in use.");
+				return;
+			}
+			logger.info("Dropping least recently used entity graph " + leastRecentlyUsed.key);
+			entityGraphMap.remove(leastRecentlyUsed.key);
+			usage -= leastRecentlyUsed.estimatedBytes;
+		}
+	}
+
+	/**
+	 * Identifies a graph.
+	 */
+	private static final class GraphKey
+	{
+		private final String resourceName;
+		private final String resourceVersion;
+		private final String nameSuffix;
+		private final EntityGraphType type;
+		private final String graphDirectory;
+
+		public GraphKey(LexicalSemanticResource lsr, String nameSuffix, EntityGraphType type,
+				File graphDirectory)
+		{
+			this.resourceName = lsr.getResourceName();
+			this.resourceVersion = lsr.getResourceVersion();
+			this.nameSuffix = nameSuffix;
+			this.type = type;
+			this.graphDirectory = graphDirectory != null ? graphDirectory.getAbsolutePath() : null;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof GraphKey)) {
+				return false;
+			}
+			GraphKey other = (GraphKey) obj;
+			return equal(resourceName, other.resourceName)
+					&& equal(resourceVersion, other.resourceVersion)
+					&& equal(nameSuffix, other.nameSuffix) && type == other.type
+					&& equal(graphDirectory, other.graphDirectory);
+		}
+
+		private static boolean equal(String a, String b)
+		{
+			return a == null ? b == null : a.equals(b);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return toString().hashCode();
+		}
 
-			entityGraphMap.put(graphID, entityGraph);
+		@Override
+		public String toString()
+		{
+			return resourceName + resourceVersion + nameSuffix + " (" + type
+					+ (graphDirectory != null ? ", " + graphDirectory : "") + ")";
 		}
+	}
+
+	/**
+	 * A graph together with its references and load statistics. Fields other than the task are
+	 * guarded by the lock on the graph map.
+	 */
+	private static final class ManagedGraph
+	{
+		private final GraphKey key;
+		private final FutureTask<EntityGraph> task;
+		private EntityGraph graph;
+		private int referenceCount;
+		private long lastAccess;
+		private long estimatedBytes;
+		private long loadTimeMillis = -1;
+		private boolean loadedFromFile;
 
-		return entityGraphMap.get(graphID);
+		public ManagedGraph(final GraphKey key, final Callable<EntityGraph> builder)
+		{
+			this.key = key;
+			this.task = new FutureTask<EntityGraph>(new Callable<EntityGraph>()
+			{
+				@Override
+				public EntityGraph call()
+					throws Exception
+				{
+					long start = System.currentTimeMillis();
+					EntityGraph built = builder.call();
+					long time = System.currentTimeMillis() - start;
+					boolean fromFile = built instanceof EntityGraphJGraphT
+							&& ((EntityGraphJGraphT) built).isLoadedFromFile();
+					logger.info((fromFile ? "Loaded" : "Built") + " entity graph " + key
+							+ " in " + time + " ms.");
+					synchronized (entityGraphMap) {
+						graph = built;
+						loadTimeMillis = time;
+						loadedFromFile = fromFile;
+						estimatedBytes = BYTES_PER_NODE * built.getNumberOfNodes()
+								+ BYTES_PER_EDGE * built.getNumberOfEdges();
+					}
+					return built;
+				}
+			});
+		}
 	}
 
-	private static String getGraphID(LexicalSemanticResource lsr, String nameSuffix)
+	/**
+	 * A snapshot of the state of a managed graph.
+	 */
+	public static final class GraphInfo
 	{
-		return lsr.getResourceName() + lsr.getResourceVersion() + nameSuffix;
+		private final String name;
+		private final EntityGraphType type;
+		private final boolean available;
+		private final int referenceCount;
+		private final long estimatedBytes;
+		private final long loadTimeMillis;
+		private final boolean loadedFromFile;
+
+		private GraphInfo(ManagedGraph managed)
+		{
+			name = managed.key.toString();
+			type = managed.key.type;
+			available = managed.graph != null;
+			referenceCount = managed.referenceCount;
+			estimatedBytes = managed.estimatedBytes;
+			loadTimeMillis = managed.loadTimeMillis;
+			loadedFromFile = managed.loadedFromFile;
+		}
+
+		/**
+		 * @return A description of the graph key.
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		public EntityGraphType getType()
+		{
+			return type;
+		}
+
+		/**
+		 * @return False, if the graph is still being loaded or built.
+		 */
+		public boolean isAvailable()
+		{
+			return available;
+		}
+
+		public int getReferenceCount()
+		{
+			return referenceCount;
+		}
+
+		/**
+		 * @return The estimated number of bytes held by the graph.
+		 */
+		public long getEstimatedBytes()
+		{
+			return estimatedBytes;
+		}
+
+		/**
+		 * @return The time it took to load or build the graph, or -1 if it is not available yet.
+		 */
+		public long getLoadTimeMillis()
+		{
+			return loadTimeMillis;
+		}
+
+		/**
+		 * @return True, if the graph was loaded from a serialized file, false if it was built
+		 *         from the resource.
+		 */
+		public boolean isLoadedFromFile()
+		{
+			return loadedFromFile;
+		}
+
+		@Override
+		public String toString()
+		{
+			return name + ": " + (available ? (loadedFromFile ? "loaded" : "built") + " in "
+					+ loadTimeMillis + " ms, ~" + estimatedBytes + " bytes, " + referenceCount
+					+ " references" : "in progress");
+		}
 	}
 }
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+/**
+ * A score for each entity of a graph, e.g. its PageRank.
+ */
+public class EntityScores {
+
+    private final EntityAdjacency entities;
+    private final double[] scores;
+
+    /**
+     * @param entities The entity id table.
+     * @param scores The score of each entity, indexed by entity id.
+     */
+    public EntityScores(EntityAdjacency entities, double[] scores)
+    {
+        if (entities.getNumberOfNodes() != scores.length) {
+            throw new IllegalArgumentException("Expected " + entities.getNumberOfNodes()
+                    + " scores, but got " + scores.length);
+        }
+        this.entities = entities;
+        this.scores = scores;
+    }
+
+    /**
+     * @return The number of scored entities.
+     */
+    public int size()
+    {
+        return scores.length;
+    }
+
+    /**
+     * @param entity An entity.
+     * @return The score of the entity, or {@link Double#NaN} if the entity is not in the graph.
+     */
+    public double getScore(Entity entity)
+    {
+        int id = entities.getId(entity);
+        return id < 0 ? Double.NaN : scores[id];
+    }
+
+    /**
+     * @return A new map from all entities to their scores.
+     */
+    public Map<Entity, Double> asMap()
+    {
+        Map<Entity, Double> map = new HashMap<Entity, Double>(2 * scores.length);
+        for (int id = 0; id < scores.length; id++) {
+            map.put(entities.getEntity(id), scores[id]);
+        }
+        return map;
+    }
+
+    /**
+     * Selects the k best scored entities in O(n log k).
+     *
+     * @param k The number of entities to select.
+     * @return The k best scored entities with their scores, in descending order of score.
+     *         Ties are broken by entity id.
+     */
+    public Map<Entity, Double> getTop(int k)
+    {
+        Map<Entity, Double> top = new LinkedHashMap<Entity, Double>();
+        for (int id : getTopIds(k)) {
+            top.put(entities.getEntity(id), scores[id]);
+        }
+        return top;
+    }
+
+    private int[] getTopIds(int k)
+    {
+        k = Math.min(k, scores.length);
+        if (k <= 0) {
+            return new int[0];
+        }
+
+        // min-heap holding the k best ids seen so far
+        PriorityQueue<Integer> heap = new PriorityQueue<Integer>(k, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b)
+            {
+                return compareIds(a, b);
+            }
+        });
+        for (int id = 0; id < scores.length; id++) {
+            if (heap.size() < k) {
+                heap.add(id);
+            }
+            else if (compareIds(id, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(id);
+            }
+        }
+
+        int[] ids = new int[heap.size()];
+        for (int i = ids.length - 1; i >= 0; i--) {
+            ids[i] = heap.poll();
+        }
+        return ids;
+    }
+
+    // orders by score, and by descending id on ties, so that the smaller id ranks higher
+    private int compareIds(int a, int b)
+    {
+        int comparison = Double.compare(scores[a], scores[b]);
+        return comparison != 0 ? comparison : Integer.compare(b, a);
+    }
+
+    /**
+     * @return All entities with their formatted scores, in descending order of score.
+     */
+    List<String> toRankingList()
+    {
+        List<String> rankingList = new ArrayList<String>(scores.length);
+        for (int id : getTopIds(scores.length)) {
+            rankingList.add(String.format(Locale.US, "%7.6f %s", scores[id],
+                    entities.getEntity(id)));
+        }
+        return rankingList;
+    }
+}
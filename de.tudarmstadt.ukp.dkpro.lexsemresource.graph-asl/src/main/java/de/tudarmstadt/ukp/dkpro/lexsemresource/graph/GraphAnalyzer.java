@@ -278,6 +278,28 @@ public class GraphAnalyzer {
     	return entityGraph.getClusterCoefficient();
     }
 
+    /**
+     * @return The global clustering coefficient (transitivity) of the graph
+     */
+    public double getGlobalClusterCoefficient() {
+    	return entityGraph.getGlobalClusterCoefficient();
+    }
+
+    /**
+     * @return The local clustering coefficient of each node
+     */
+    public EntityScores getLocalClusterCoefficients() {
+    	return entityGraph.getLocalClusterCoefficients();
+    }
+
+    /**
+     * @param algorithm The community detection algorithm to use.
+     * @return The communities of the graph treated as undirected
+     */
+    public Communities getCommunities(CommunityDetection.Algorithm algorithm) {
+    	return entityGraph.getCommunities(algorithm);
+    }
+
     /**
      * @return A map with the degree distribution of the graph.
      */
@@ -321,13 +343,49 @@ public class GraphAnalyzer {
     	return entityGraph.getHITS();
     }
 
+    /**
+     * Get the PageRank of each node.
+     * @return The PageRank scores, which can be looked up per entity or as a top-k selection.
+     */
+    public EntityScores getPageRankScores() {
+    	return entityGraph.getPageRankScores();
+    }
+
+    /**
+     * Get the HITS hub and authority scores of each node.
+     * @return The hub and authority scores.
+     */
+    public HubsAndAuthorities getHITSScores() {
+    	return entityGraph.getHITSScores();
+    }
+
+    /**
+     * Set when the power iteration behind PageRank and HITS stops.
+     * @param tolerance The iteration stops when the L1 distance between two successive score vectors falls below this value.
+     * @param maxIterations The maximum number of iterations.
+     */
+    public void setLinkAnalysisConvergence(double tolerance, int maxIterations) {
+    	entityGraph.setLinkAnalysisConvergence(tolerance, maxIterations);
+    }
+
+    /**
+     * Approximate personalized PageRank around a set of seed entities, e.g. for random-walk based
+     * relatedness or word sense disambiguation.
+     * @param seeds The seed entities with their non-negative weights.
+     * @param k The maximum number of entities to return.
+     * @param mode Whether the random walk follows edges only in their direction or in both directions.
+     * @return The k entities with the highest scores, in descending order of score.
+     */
+    public Map<Entity, Double> getPersonalizedPageRank(Map<Entity, Double> seeds, int k, DirectionMode mode) {
+    	return entityGraph.getPersonalizedPageRank(seeds, k, mode);
+    }
+
  	/**
 	 * Checks a graph for sets of structurally equivalent vertices: vertices that share all the same edges.
 	 * Specifically, In order for a pair of vertices  i  and j  to be structurally equivalent, the set of
 	 * i 's neighbors must be identical to the set of j 's neighbors, with the exception of i  and j
-	 * themselves. This algorithm finds all sets of equivalent vertices in O(V^2) time.
+	 * themselves. The sets are found by hashing the neighbor lists in linear time.
 	 * @return A set of structurally equivalent node sets.
-	 * @throws UnsupportedOperationException
 	 */
 	public Set<Set<Entity>> getStructuralEquivalences() {
 		return entityGraph.getStructuralEquivalences();
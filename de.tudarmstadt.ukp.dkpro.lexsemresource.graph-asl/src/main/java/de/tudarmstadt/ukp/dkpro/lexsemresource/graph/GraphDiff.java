@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+/**
+ * The differences between two versions of an entity graph. Nodes are matched by entity, and for
+ * each node of the current version the successors are compared with those of the same entity in
+ * the previous version.
+ * <p>
+ * A node is changed if its entity was added, or if it gained or lost an arc in either direction.
+ * Nodes whose entity was removed are not part of the current version, but their former
+ * neighbors are changed. Derived data that only depends on the descendants of a node, like
+ * hyponym counts, can be kept for all nodes outside {@link #getAncestorClosure(BitSet)} of the
+ * changed nodes. Data that only depends on the ancestors, like paths to the root, can be kept
+ * outside {@link #getDescendantClosure(BitSet)}.
+ */
+public class GraphDiff {
+
+    private final EntityAdjacency current;
+    private final BitSet changedNodes;
+    private final int numberOfAddedEntities;
+    private final int numberOfRemovedEntities;
+    private final int numberOfAddedArcs;
+    private final int numberOfRemovedArcs;
+
+    /**
+     * @param previous The previous version of the graph.
+     * @param current The current version of the graph.
+     */
+    public GraphDiff(EntityAdjacency previous, EntityAdjacency current)
+    {
+        this.current = current;
+        int numberOfNodes = current.getNumberOfNodes();
+        changedNodes = new BitSet(numberOfNodes);
+
+        // map the previous ids to the current ones, -1 for removed entities
+        int[] currentIds = new int[previous.getNumberOfNodes()];
+        int[] previousIds = new int[numberOfNodes];
+        Arrays.fill(previousIds, -1);
+        int removed = 0;
+        for (int id = 0; id < currentIds.length; id++) {
+            currentIds[id] = current.getId(previous.getEntity(id));
+            if (currentIds[id] < 0) {
+                removed++;
+            }
+            else {
+                previousIds[currentIds[id]] = id;
+            }
+        }
+
+        CompressedAdjacency before = previous.getAdjacency();
+        CompressedAdjacency after = current.getAdjacency();
+        int added = 0;
+        int addedArcs = 0;
+        int removedArcs = 0;
+        int[] mapped = new int[0];
+        for (int node = 0; node < numberOfNodes; node++) {
+            int previousNode = previousIds[node];
+            if (previousNode < 0) {
+                added++;
+                changedNodes.set(node);
+                addedArcs += after.getDegree(node);
+                for (int i = after.getStart(node); i < after.getEnd(node); i++) {
+                    changedNodes.set(after.getTarget(i));
+                }
+                continue;
+            }
+
+            // the previous successors in current ids, sorted like the current row
+            if (mapped.length < before.getDegree(previousNode)) {
+                mapped = new int[2 * before.getDegree(previousNode)];
+            }
+            int degree = 0;
+            for (int i = before.getStart(previousNode); i < before.getEnd(previousNode); i++) {
+                int target = currentIds[before.getTarget(i)];
+                if (target >= 0) {
+                    mapped[degree++] = target;
+                }
+                else {
+                    // the arc to a removed entity is gone
+                    removedArcs++;
+                    changedNodes.set(node);
+                }
+            }
+            Arrays.sort(mapped, 0, degree);
+
+            // merge both sorted rows and mark the endpoints of differing arcs
+            int i = 0;
+            int j = after.getStart(node);
+            while (i < degree || j < after.getEnd(node)) {
+                if (j == after.getEnd(node) || (i < degree && mapped[i] < after.getTarget(j))) {
+                    removedArcs++;
+                    changedNodes.set(node);
+                    changedNodes.set(mapped[i++]);
+                }
+                else if (i == degree || after.getTarget(j) < mapped[i]) {
+                    addedArcs++;
+                    changedNodes.set(node);
+                    changedNodes.set(after.getTarget(j++));
+                }
+                else {
+                    i++;
+                    j++;
+                }
+            }
+        }
+
+        // arcs from removed entities
+        for (int id = 0; id < currentIds.length; id++) {
+            if (currentIds[id] < 0) {
+                for (int i = before.getStart(id); i < before.getEnd(id); i++) {
+                    int target = currentIds[before.getTarget(i)];
+                    if (target >= 0) {
+                        changedNodes.set(target);
+                    }
+                    removedArcs++;
+                }
+            }
+        }
+
+        this.numberOfAddedEntities = added;
+        this.numberOfRemovedEntities = removed;
+        this.numberOfAddedArcs = addedArcs;
+        this.numberOfRemovedArcs = removedArcs;
+    }
+
+    /**
+     * @return True, if both versions contain the same entities and arcs.
+     */
+    public boolean isEmpty()
+    {
+        return numberOfAddedEntities == 0 && numberOfRemovedEntities == 0
+                && numberOfAddedArcs == 0 && numberOfRemovedArcs == 0;
+    }
+
+    public int getNumberOfAddedEntities()
+    {
+        return numberOfAddedEntities;
+    }
+
+    public int getNumberOfRemovedEntities()
+    {
+        return numberOfRemovedEntities;
+    }
+
+    public int getNumberOfAddedArcs()
+    {
+        return numberOfAddedArcs;
+    }
+
+    public int getNumberOfRemovedArcs()
+    {
+        return numberOfRemovedArcs;
+    }
+
+    /**
+     * @return The current version of the graph, whose ids are used by this diff.
+     */
+    public EntityAdjacency getCurrent()
+    {
+        return current;
+    }
+
+    /**
+     * @return The entities of the changed nodes.
+     */
+    public Set<Entity> getChangedEntities()
+    {
+        Set<Entity> entities = new HashSet<Entity>(2 * changedNodes.cardinality());
+        for (int id = changedNodes.nextSetBit(0); id >= 0; id = changedNodes.nextSetBit(id + 1)) {
+            entities.add(current.getEntity(id));
+        }
+        return entities;
+    }
+
+    /**
+     * @return A copy of the ids of the changed nodes in the current version.
+     */
+    public BitSet getChangedNodes()
+    {
+        return (BitSet) changedNodes.clone();
+    }
+
+    /**
+     * @param nodes Node ids of the current version.
+     * @return The nodes together with all nodes from which they can be reached.
+     */
+    public BitSet getAncestorClosure(BitSet nodes)
+    {
+        return getClosure(current.getAdjacency().transpose(), nodes);
+    }
+
+    /**
+     * @param nodes Node ids of the current version.
+     * @return The nodes together with all nodes that can be reached from them.
+     */
+    public BitSet getDescendantClosure(BitSet nodes)
+    {
+        return getClosure(current.getAdjacency(), nodes);
+    }
+
+    private static BitSet getClosure(CompressedAdjacency adjacency, BitSet nodes)
+    {
+        BitSet closure = (BitSet) nodes.clone();
+        int[] queue = new int[adjacency.getNumberOfNodes()];
+        int tail = 0;
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            queue[tail++] = node;
+        }
+        for (int head = 0; head < tail; head++) {
+            int node = queue[head];
+            for (int i = adjacency.getStart(node); i < adjacency.getEnd(node); i++) {
+                int neighbor = adjacency.getTarget(i);
+                if (!closure.get(neighbor)) {
+                    closure.set(neighbor);
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return closure;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "+" + numberOfAddedEntities + "/-" + numberOfRemovedEntities + " entities, +"
+                + numberOfAddedArcs + "/-" + numberOfRemovedArcs + " arcs, "
+                + changedNodes.cardinality() + " changed nodes";
+    }
+}
@@ -0,0 +1,377 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Graph statistics grouped by cost, so that asking for a cheap statistic never triggers an
+ * expensive computation:
+ * <ul>
+ * <li>degree statistics, O(V+E): degree distribution, average and maximum degree,</li>
+ * <li>triangle statistics, O(E^1.5): clustering coefficients, see
+ * {@link ClusteringCoefficients},</li>
+ * <li>path statistics, O(V*E): diameter, radius and average shortest path length, see
+ * {@link PathStatistics}.</li>
+ * </ul>
+ * Each group is computed on first use and memoized on its own. If a file is given, the scalar
+ * results of each group are stored in it as soon as they are computed and are read back by later
+ * instances for the same graph. The file records the number of nodes and arcs of the graph and is
+ * ignored if they do not match. Per-node values (eccentricities, local clustering coefficients)
+ * are kept in memory only.
+ * <p>
+ * Degrees count arcs in both directions, the other statistics treat the graph as undirected.
+ */
+public class GraphStatistics {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    private static final String NODES = "graph.nodes";
+    private static final String ARCS = "graph.arcs";
+    private static final String DEGREE_AVERAGE = "degree.average";
+    private static final String DEGREE_MAXIMUM = "degree.maximum";
+    private static final String DEGREE_DISTRIBUTION = "degree.distribution";
+    private static final String TRIANGLE_COUNT = "triangles.count";
+    private static final String TRIANGLE_GLOBAL = "triangles.globalClusterCoefficient";
+    private static final String TRIANGLE_AVERAGE = "triangles.averageClusterCoefficient";
+    private static final String PATH_DIAMETER = "paths.diameter";
+    private static final String PATH_RADIUS = "paths.radius";
+    private static final String PATH_AVERAGE = "paths.averageShortestPathLength";
+
+    private final EntityAdjacency graph;
+    private final File file;
+    private final Properties stored = new Properties();
+
+    private final Object degreeLock = new Object();
+    private final Object triangleLock = new Object();
+    private final Object pathLock = new Object();
+
+    private SortedMap<Integer, Integer> degreeDistribution;
+    private ClusteringCoefficients clusteringCoefficients;
+    private PathStatistics pathStatistics;
+
+    /**
+     * @param graph The graph.
+     * @param file The file to persist the statistics in, or null to keep them in memory only.
+     */
+    public GraphStatistics(EntityAdjacency graph, File file)
+    {
+        this.graph = graph;
+        this.file = file;
+        if (file != null && file.exists()) {
+            load();
+        }
+    }
+
+    /**
+     * @return The number of nodes with each degree, ordered by degree.
+     */
+    public SortedMap<Integer, Integer> getDegreeDistribution()
+    {
+        synchronized (degreeLock) {
+            if (degreeDistribution == null) {
+                String value = getStored(DEGREE_DISTRIBUTION);
+                if (value != null) {
+                    degreeDistribution = parseDistribution(value);
+                }
+                else {
+                    computeDegreeStatistics();
+                }
+            }
+            return degreeDistribution;
+        }
+    }
+
+    /**
+     * @return The average number of arcs a node is connected with.
+     */
+    public double getAverageDegree()
+    {
+        synchronized (degreeLock) {
+            if (getStored(DEGREE_AVERAGE) == null) {
+                computeDegreeStatistics();
+            }
+            return Double.parseDouble(getStored(DEGREE_AVERAGE));
+        }
+    }
+
+    /**
+     * @return The largest number of arcs a node is connected with.
+     */
+    public int getMaximumDegree()
+    {
+        synchronized (degreeLock) {
+            if (getStored(DEGREE_MAXIMUM) == null) {
+                computeDegreeStatistics();
+            }
+            return Integer.parseInt(getStored(DEGREE_MAXIMUM));
+        }
+    }
+
+    private void computeDegreeStatistics()
+    {
+        CompressedAdjacency adjacency = graph.getAdjacency();
+        int numberOfNodes = adjacency.getNumberOfNodes();
+        int[] degrees = new int[numberOfNodes];
+        for (int node = 0; node < numberOfNodes; node++) {
+            degrees[node] += adjacency.getDegree(node);
+            for (int i = adjacency.getStart(node); i < adjacency.getEnd(node); i++) {
+                degrees[adjacency.getTarget(i)]++;
+            }
+        }
+
+        SortedMap<Integer, Integer> distribution = new TreeMap<Integer, Integer>();
+        int maximum = 0;
+        for (int degree : degrees) {
+            Integer count = distribution.get(degree);
+            distribution.put(degree, count == null ? 1 : count + 1);
+            maximum = Math.max(maximum, degree);
+        }
+        degreeDistribution = Collections.unmodifiableSortedMap(distribution);
+
+        store(DEGREE_AVERAGE, numberOfNodes == 0 ? 0.0
+                : 2.0 * adjacency.getNumberOfArcs() / numberOfNodes);
+        store(DEGREE_MAXIMUM, maximum);
+        store(DEGREE_DISTRIBUTION, formatDistribution(distribution));
+        save();
+    }
+
+    /**
+     * @return The triangle counts and clustering coefficients of each node.
+     */
+    public ClusteringCoefficients getClusteringCoefficients()
+    {
+        synchronized (triangleLock) {
+            if (clusteringCoefficients == null) {
+                logger.info("Counting triangles.");
+                clusteringCoefficients = new ClusteringCoefficients(graph.getAdjacency());
+                store(TRIANGLE_COUNT, clusteringCoefficients.getNumberOfTriangles());
+                store(TRIANGLE_GLOBAL, clusteringCoefficients.getGlobalCoefficient());
+                store(TRIANGLE_AVERAGE, clusteringCoefficients.getAverageLocalCoefficient());
+                save();
+            }
+            return clusteringCoefficients;
+        }
+    }
+
+    /**
+     * @return The number of triangles.
+     */
+    public long getNumberOfTriangles()
+    {
+        synchronized (triangleLock) {
+            if (getStored(TRIANGLE_COUNT) == null) {
+                getClusteringCoefficients();
+            }
+            return Long.parseLong(getStored(TRIANGLE_COUNT));
+        }
+    }
+
+    /**
+     * @return The global clustering coefficient (transitivity).
+     */
+    public double getGlobalClusterCoefficient()
+    {
+        synchronized (triangleLock) {
+            if (getStored(TRIANGLE_GLOBAL) == null) {
+                getClusteringCoefficients();
+            }
+            return Double.parseDouble(getStored(TRIANGLE_GLOBAL));
+        }
+    }
+
+    /**
+     * @return The average of the local clustering coefficients.
+     */
+    public double getAverageClusterCoefficient()
+    {
+        synchronized (triangleLock) {
+            if (getStored(TRIANGLE_AVERAGE) == null) {
+                getClusteringCoefficients();
+            }
+            return Double.parseDouble(getStored(TRIANGLE_AVERAGE));
+        }
+    }
+
+    /**
+     * @return The eccentricity of each node and the statistics derived from it.
+     */
+    public PathStatistics getPathStatistics()
+    {
+        synchronized (pathLock) {
+            if (pathStatistics == null) {
+                logger.info("Computing shortest path lengths between all nodes.");
+                pathStatistics = new PathStatistics(graph.getAdjacency());
+                store(PATH_DIAMETER, pathStatistics.getDiameter());
+                store(PATH_RADIUS, pathStatistics.getRadius());
+                store(PATH_AVERAGE, pathStatistics.getAverageShortestPathLength());
+                save();
+            }
+            return pathStatistics;
+        }
+    }
+
+    /**
+     * @return The largest distance between any two connected nodes.
+     */
+    public int getDiameter()
+    {
+        synchronized (pathLock) {
+            if (getStored(PATH_DIAMETER) == null) {
+                getPathStatistics();
+            }
+            return Integer.parseInt(getStored(PATH_DIAMETER));
+        }
+    }
+
+    /**
+     * @return The smallest eccentricity of any node.
+     */
+    public int getRadius()
+    {
+        synchronized (pathLock) {
+            if (getStored(PATH_RADIUS) == null) {
+                getPathStatistics();
+            }
+            return Integer.parseInt(getStored(PATH_RADIUS));
+        }
+    }
+
+    /**
+     * @return The average shortest path length, see
+     *         {@link PathStatistics#getAverageShortestPathLength()}.
+     */
+    public double getAverageShortestPathLength()
+    {
+        synchronized (pathLock) {
+            if (getStored(PATH_AVERAGE) == null) {
+                getPathStatistics();
+            }
+            return Double.parseDouble(getStored(PATH_AVERAGE));
+        }
+    }
+
+    private String getStored(String key)
+    {
+        synchronized (stored) {
+            return stored.getProperty(key);
+        }
+    }
+
+    private void store(String key, Object value)
+    {
+        synchronized (stored) {
+            stored.setProperty(key, String.valueOf(value));
+        }
+    }
+
+    private void load()
+    {
+        Properties properties = new Properties();
+        try {
+            InputStream is = new FileInputStream(file);
+            try {
+                properties.load(is);
+            }
+            finally {
+                is.close();
+            }
+        }
+        catch (IOException e) {
+            logger.warn("Could not read graph statistics from " + file + ": " + e.getMessage());
+            return;
+        }
+
+        CompressedAdjacency adjacency = graph.getAdjacency();
+        if (!String.valueOf(adjacency.getNumberOfNodes()).equals(properties.getProperty(NODES))
+                || !String.valueOf(adjacency.getNumberOfArcs()).equals(
+                        properties.getProperty(ARCS))) {
+            logger.info("Ignoring graph statistics of a different graph in " + file);
+            return;
+        }
+        synchronized (stored) {
+            stored.putAll(properties);
+        }
+    }
+
+    private void save()
+    {
+        if (file == null) {
+            return;
+        }
+        synchronized (stored) {
+            stored.setProperty(NODES, String.valueOf(graph.getAdjacency().getNumberOfNodes()));
+            stored.setProperty(ARCS, String.valueOf(graph.getAdjacency().getNumberOfArcs()));
+            File tmpFile = new File(file.getPath() + ".tmp");
+            try {
+                OutputStream os = new FileOutputStream(tmpFile);
+                try {
+                    stored.store(os, "Graph statistics");
+                }
+                finally {
+                    os.close();
+                }
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (IOException e) {
+                logger.warn("Could not write graph statistics to " + file + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    private static String formatDistribution(Map<Integer, Integer> distribution)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Integer, Integer> entry : distribution.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(entry.getKey()).append(':').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    private static SortedMap<Integer, Integer> parseDistribution(String value)
+    {
+        SortedMap<Integer, Integer> distribution = new TreeMap<Integer, Integer>();
+        if (value.length() > 0) {
+            for (String entry : value.split(",")) {
+                int separator = entry.indexOf(':');
+                distribution.put(Integer.parseInt(entry.substring(0, separator)),
+                        Integer.parseInt(entry.substring(separator + 1)));
+            }
+        }
+        return Collections.unmodifiableSortedMap(distribution);
+    }
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+/**
+ * The hub and authority scores computed by HITS.
+ */
+public class HubsAndAuthorities {
+
+    private final EntityScores hubScores;
+    private final EntityScores authorityScores;
+
+    public HubsAndAuthorities(EntityScores hubScores, EntityScores authorityScores)
+    {
+        this.hubScores = hubScores;
+        this.authorityScores = authorityScores;
+    }
+
+    /**
+     * @return The degree to which each entity links to important authorities.
+     */
+    public EntityScores getHubScores()
+    {
+        return hubScores;
+    }
+
+    /**
+     * @return The degree to which each entity is pointed to by important hubs.
+     */
+    public EntityScores getAuthorityScores()
+    {
+        return authorityScores;
+    }
+
+    /**
+     * @return All entities with their formatted hub and authority scores, in descending order
+     *         of hub score.
+     */
+    List<String> toRankingList()
+    {
+        List<String> rankingList = new ArrayList<String>(hubScores.size());
+        for (Entity entity : hubScores.getTop(hubScores.size()).keySet()) {
+            rankingList.add(String.format(Locale.US, "hub=%7.6f authority=%7.6f %s",
+                    hubScores.getScore(entity), authorityScores.getScore(entity), entity));
+        }
+        return rankingList;
+    }
+}
@@ -0,0 +1,727 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics.MethodMetrics;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics.MetricsRegistry;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+
+/**
+ * Wraps an {@link EntityGraph} and records the latency, the result size and the failures of
+ * each call in a {@link MetricsRegistry}, like
+ * {@link de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics.InstrumentedResource} does for
+ * resources. The largest connected component is instrumented as well, in the same scope.
+ */
+public class InstrumentedEntityGraph implements EntityGraph {
+
+    private final EntityGraph delegate;
+    private final MetricsRegistry registry;
+    private final String scope;
+    private final MethodMetrics getNodes;
+    private final MethodMetrics getEdges;
+    private final MethodMetrics getNumberOfNodes;
+    private final MethodMetrics getNumberOfEdges;
+    private final MethodMetrics containsVertex;
+    private final MethodMetrics containsEdge;
+    private final MethodMetrics isSymmetricLink;
+    private final MethodMetrics getLargestConnectedComponent;
+    private final MethodMetrics getChildren;
+    private final MethodMetrics getParents;
+    private final MethodMetrics getNeighbors;
+    private final MethodMetrics getLCS;
+    private final MethodMetrics getIntrinsicInformationContent;
+    private final MethodMetrics getLeaves;
+    private final MethodMetrics getRoots;
+    private final MethodMetrics getIsolatedNodes;
+    private final MethodMetrics getCenter;
+    private final MethodMetrics getNumberOfLeaves;
+    private final MethodMetrics getNumberOfRoots;
+    private final MethodMetrics getNumberOfSymmetricLinks;
+    private final MethodMetrics getNumberOfIsolatedNodes;
+    private final MethodMetrics getDepth;
+    private final MethodMetrics getInDegree;
+    private final MethodMetrics getOutDegree;
+    private final MethodMetrics getDegree;
+    private final MethodMetrics getEccentricity;
+    private final MethodMetrics getAverageDegree;
+    private final MethodMetrics getDegreeDistribution;
+    private final MethodMetrics getShortestPath;
+    private final MethodMetrics getShortestPathLength;
+    private final MethodMetrics getAverageShortestPathLength;
+    private final MethodMetrics getDiameter;
+    private final MethodMetrics getRadius;
+    private final MethodMetrics getClusterCoefficient;
+    private final MethodMetrics getGlobalClusterCoefficient;
+    private final MethodMetrics getLocalClusterCoefficients;
+    private final MethodMetrics getCommunities;
+    private final MethodMetrics containsCycles;
+    private final MethodMetrics removeCycles;
+    private final MethodMetrics getPageRank;
+    private final MethodMetrics getHITS;
+    private final MethodMetrics getPageRankScores;
+    private final MethodMetrics getHITSScores;
+    private final MethodMetrics getPersonalizedPageRank;
+    private final MethodMetrics getStructuralEquivalences;
+
+    /**
+     * Records the calls in the {@link MetricsRegistry#getDefault() default registry}, with the
+     * scope <code>EntityGraph</code>.
+     *
+     * @param delegate The graph to instrument.
+     */
+    public InstrumentedEntityGraph(EntityGraph delegate) {
+        this(delegate, MetricsRegistry.getDefault(), "EntityGraph");
+    }
+
+    /**
+     * @param delegate The graph to instrument.
+     * @param registry The registry to record the calls in.
+     * @param scope The prefix of the metrics names.
+     */
+    public InstrumentedEntityGraph(EntityGraph delegate, MetricsRegistry registry, String scope)
+    {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.scope = scope;
+        getNodes = registry.getMethod(scope + ".getNodes");
+        getEdges = registry.getMethod(scope + ".getEdges");
+        getNumberOfNodes = registry.getMethod(scope + ".getNumberOfNodes");
+        getNumberOfEdges = registry.getMethod(scope + ".getNumberOfEdges");
+        containsVertex = registry.getMethod(scope + ".containsVertex");
+        containsEdge = registry.getMethod(scope + ".containsEdge");
+        isSymmetricLink = registry.getMethod(scope + ".isSymmetricLink");
+        getLargestConnectedComponent = registry.getMethod(scope + ".getLargestConnectedComponent");
+        getChildren = registry.getMethod(scope + ".getChildren");
+        getParents = registry.getMethod(scope + ".getParents");
+        getNeighbors = registry.getMethod(scope + ".getNeighbors");
+        getLCS = registry.getMethod(scope + ".getLCS");
+        getIntrinsicInformationContent = registry.getMethod(scope
+                + ".getIntrinsicInformationContent");
+        getLeaves = registry.getMethod(scope + ".getLeaves");
+        getRoots = registry.getMethod(scope + ".getRoots");
+        getIsolatedNodes = registry.getMethod(scope + ".getIsolatedNodes");
+        getCenter = registry.getMethod(scope + ".getCenter");
+        getNumberOfLeaves = registry.getMethod(scope + ".getNumberOfLeaves");
+        getNumberOfRoots = registry.getMethod(scope + ".getNumberOfRoots");
+        getNumberOfSymmetricLinks = registry.getMethod(scope + ".getNumberOfSymmetricLinks");
+        getNumberOfIsolatedNodes = registry.getMethod(scope + ".getNumberOfIsolatedNodes");
+        getDepth = registry.getMethod(scope + ".getDepth");
+        getInDegree = registry.getMethod(scope + ".getInDegree");
+        getOutDegree = registry.getMethod(scope + ".getOutDegree");
+        getDegree = registry.getMethod(scope + ".getDegree");
+        getEccentricity = registry.getMethod(scope + ".getEccentricity");
+        getAverageDegree = registry.getMethod(scope + ".getAverageDegree");
+        getDegreeDistribution = registry.getMethod(scope + ".getDegreeDistribution");
+        getShortestPath = registry.getMethod(scope + ".getShortestPath");
+        getShortestPathLength = registry.getMethod(scope + ".getShortestPathLength");
+        getAverageShortestPathLength = registry.getMethod(scope + ".getAverageShortestPathLength");
+        getDiameter = registry.getMethod(scope + ".getDiameter");
+        getRadius = registry.getMethod(scope + ".getRadius");
+        getClusterCoefficient = registry.getMethod(scope + ".getClusterCoefficient");
+        getGlobalClusterCoefficient = registry.getMethod(scope + ".getGlobalClusterCoefficient");
+        getLocalClusterCoefficients = registry.getMethod(scope + ".getLocalClusterCoefficients");
+        getCommunities = registry.getMethod(scope + ".getCommunities");
+        containsCycles = registry.getMethod(scope + ".containsCycles");
+        removeCycles = registry.getMethod(scope + ".removeCycles");
+        getPageRank = registry.getMethod(scope + ".getPageRank");
+        getHITS = registry.getMethod(scope + ".getHITS");
+        getPageRankScores = registry.getMethod(scope + ".getPageRankScores");
+        getHITSScores = registry.getMethod(scope + ".getHITSScores");
+        getPersonalizedPageRank = registry.getMethod(scope + ".getPersonalizedPageRank");
+        getStructuralEquivalences = registry.getMethod(scope + ".getStructuralEquivalences");
+    }
+
+    /**
+     * @return The instrumented graph.
+     */
+    public EntityGraph getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getGraphId() {
+        return delegate.getGraphId();
+    }
+
+    @Override
+    public Iterable<Entity> getNodes() {
+        long start = getNodes.start();
+        try {
+            return getNodes.stop(start, delegate.getNodes());
+        }
+        catch (Throwable e) {
+            getNodes.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Iterable<EntityGraphEdge> getEdges() {
+        long start = getEdges.start();
+        try {
+            return getEdges.stop(start, delegate.getEdges());
+        }
+        catch (Throwable e) {
+            getEdges.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+        long start = getNumberOfNodes.start();
+        try {
+            return getNumberOfNodes.stop(start, delegate.getNumberOfNodes());
+        }
+        catch (Throwable e) {
+            getNumberOfNodes.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        long start = getNumberOfEdges.start();
+        try {
+            return getNumberOfEdges.stop(start, delegate.getNumberOfEdges());
+        }
+        catch (Throwable e) {
+            getNumberOfEdges.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean containsVertex(Entity vertex) {
+        long start = containsVertex.start();
+        try {
+            return containsVertex.stop(start, delegate.containsVertex(vertex));
+        }
+        catch (Throwable e) {
+            containsVertex.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean containsEdge(Entity source, Entity target) {
+        long start = containsEdge.start();
+        try {
+            return containsEdge.stop(start, delegate.containsEdge(source, target));
+        }
+        catch (Throwable e) {
+            containsEdge.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean isSymmetricLink(Entity source, Entity target) {
+        long start = isSymmetricLink.start();
+        try {
+            return isSymmetricLink.stop(start, delegate.isSymmetricLink(source, target));
+        }
+        catch (Throwable e) {
+            isSymmetricLink.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public EntityGraph getLargestConnectedComponent() throws LexicalSemanticResourceException {
+        long start = getLargestConnectedComponent.start();
+        try {
+            return new InstrumentedEntityGraph(getLargestConnectedComponent.stop(start,
+                    delegate.getLargestConnectedComponent()), registry, scope);
+        }
+        catch (Throwable e) {
+            getLargestConnectedComponent.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getChildren(Entity vertex) {
+        long start = getChildren.start();
+        try {
+            return getChildren.stop(start, delegate.getChildren(vertex));
+        }
+        catch (Throwable e) {
+            getChildren.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getParents(Entity vertex) {
+        long start = getParents.start();
+        try {
+            return getParents.stop(start, delegate.getParents(vertex));
+        }
+        catch (Throwable e) {
+            getParents.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getNeighbors(Entity vertex) {
+        long start = getNeighbors.start();
+        try {
+            return getNeighbors.stop(start, delegate.getNeighbors(vertex));
+        }
+        catch (Throwable e) {
+            getNeighbors.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Entity getLCS(Entity root, Entity e1, Entity e2)
+        throws LexicalSemanticResourceException
+    {
+        long start = getLCS.start();
+        try {
+            return getLCS.stop(start, delegate.getLCS(root, e1, e2));
+        }
+        catch (Throwable e) {
+            getLCS.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getIntrinsicInformationContent(Entity entity)
+        throws LexicalSemanticResourceException
+    {
+        long start = getIntrinsicInformationContent.start();
+        try {
+            return getIntrinsicInformationContent.stop(start,
+                    delegate.getIntrinsicInformationContent(entity));
+        }
+        catch (Throwable e) {
+            getIntrinsicInformationContent.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getLeaves() {
+        long start = getLeaves.start();
+        try {
+            return getLeaves.stop(start, delegate.getLeaves());
+        }
+        catch (Throwable e) {
+            getLeaves.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getRoots() {
+        long start = getRoots.start();
+        try {
+            return getRoots.stop(start, delegate.getRoots());
+        }
+        catch (Throwable e) {
+            getRoots.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getIsolatedNodes() {
+        long start = getIsolatedNodes.start();
+        try {
+            return getIsolatedNodes.stop(start, delegate.getIsolatedNodes());
+        }
+        catch (Throwable e) {
+            getIsolatedNodes.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Entity> getCenter() {
+        long start = getCenter.start();
+        try {
+            return getCenter.stop(start, delegate.getCenter());
+        }
+        catch (Throwable e) {
+            getCenter.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNumberOfLeaves() {
+        long start = getNumberOfLeaves.start();
+        try {
+            return getNumberOfLeaves.stop(start, delegate.getNumberOfLeaves());
+        }
+        catch (Throwable e) {
+            getNumberOfLeaves.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNumberOfRoots() {
+        long start = getNumberOfRoots.start();
+        try {
+            return getNumberOfRoots.stop(start, delegate.getNumberOfRoots());
+        }
+        catch (Throwable e) {
+            getNumberOfRoots.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNumberOfSymmetricLinks() {
+        long start = getNumberOfSymmetricLinks.start();
+        try {
+            return getNumberOfSymmetricLinks.stop(start, delegate.getNumberOfSymmetricLinks());
+        }
+        catch (Throwable e) {
+            getNumberOfSymmetricLinks.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getNumberOfIsolatedNodes() {
+        long start = getNumberOfIsolatedNodes.start();
+        try {
+            return getNumberOfIsolatedNodes.stop(start, delegate.getNumberOfIsolatedNodes());
+        }
+        catch (Throwable e) {
+            getNumberOfIsolatedNodes.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getDepth() throws LexicalSemanticResourceException {
+        long start = getDepth.start();
+        try {
+            return getDepth.stop(start, delegate.getDepth());
+        }
+        catch (Throwable e) {
+            getDepth.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getInDegree(Entity vertex) {
+        long start = getInDegree.start();
+        try {
+            return getInDegree.stop(start, delegate.getInDegree(vertex));
+        }
+        catch (Throwable e) {
+            getInDegree.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getOutDegree(Entity vertex) {
+        long start = getOutDegree.start();
+        try {
+            return getOutDegree.stop(start, delegate.getOutDegree(vertex));
+        }
+        catch (Throwable e) {
+            getOutDegree.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public int getDegree(Entity vertex) {
+        long start = getDegree.start();
+        try {
+            return getDegree.stop(start, delegate.getDegree(vertex));
+        }
+        catch (Throwable e) {
+            getDegree.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getEccentricity(Entity vertex) {
+        long start = getEccentricity.start();
+        try {
+            return getEccentricity.stop(start, delegate.getEccentricity(vertex));
+        }
+        catch (Throwable e) {
+            getEccentricity.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getAverageDegree() {
+        long start = getAverageDegree.start();
+        try {
+            return getAverageDegree.stop(start, delegate.getAverageDegree());
+        }
+        catch (Throwable e) {
+            getAverageDegree.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> getDegreeDistribution() {
+        long start = getDegreeDistribution.start();
+        try {
+            return getDegreeDistribution.stop(start, delegate.getDegreeDistribution());
+        }
+        catch (Throwable e) {
+            getDegreeDistribution.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Entity> getShortestPath(Entity source, Entity target, DirectionMode mode) {
+        long start = getShortestPath.start();
+        try {
+            return getShortestPath.stop(start, delegate.getShortestPath(source, target, mode));
+        }
+        catch (Throwable e) {
+            getShortestPath.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getShortestPathLength(Entity source, Entity target, DirectionMode mode) {
+        long start = getShortestPathLength.start();
+        try {
+            return getShortestPathLength.stop(start,
+                    delegate.getShortestPathLength(source, target, mode));
+        }
+        catch (Throwable e) {
+            getShortestPathLength.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getAverageShortestPathLength() {
+        long start = getAverageShortestPathLength.start();
+        try {
+            return getAverageShortestPathLength.stop(start,
+                    delegate.getAverageShortestPathLength());
+        }
+        catch (Throwable e) {
+            getAverageShortestPathLength.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getDiameter() {
+        long start = getDiameter.start();
+        try {
+            return getDiameter.stop(start, delegate.getDiameter());
+        }
+        catch (Throwable e) {
+            getDiameter.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getRadius() {
+        long start = getRadius.start();
+        try {
+            return getRadius.stop(start, delegate.getRadius());
+        }
+        catch (Throwable e) {
+            getRadius.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getClusterCoefficient() {
+        long start = getClusterCoefficient.start();
+        try {
+            return getClusterCoefficient.stop(start, delegate.getClusterCoefficient());
+        }
+        catch (Throwable e) {
+            getClusterCoefficient.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public double getGlobalClusterCoefficient() {
+        long start = getGlobalClusterCoefficient.start();
+        try {
+            return getGlobalClusterCoefficient.stop(start, delegate.getGlobalClusterCoefficient());
+        }
+        catch (Throwable e) {
+            getGlobalClusterCoefficient.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public EntityScores getLocalClusterCoefficients() {
+        long start = getLocalClusterCoefficients.start();
+        try {
+            return getLocalClusterCoefficients.stop(start, delegate.getLocalClusterCoefficients());
+        }
+        catch (Throwable e) {
+            getLocalClusterCoefficients.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Communities getCommunities(CommunityDetection.Algorithm algorithm) {
+        long start = getCommunities.start();
+        try {
+            return getCommunities.stop(start, delegate.getCommunities(algorithm));
+        }
+        catch (Throwable e) {
+            getCommunities.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean containsCycles() throws LexicalSemanticResourceException {
+        long start = containsCycles.start();
+        try {
+            return containsCycles.stop(start, delegate.containsCycles());
+        }
+        catch (Throwable e) {
+            containsCycles.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void removeCycles() throws LexicalSemanticResourceException {
+        long start = removeCycles.start();
+        try {
+            delegate.removeCycles();
+            removeCycles.stop(start);
+        }
+        catch (Throwable e) {
+            removeCycles.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getPageRank() {
+        long start = getPageRank.start();
+        try {
+            return getPageRank.stop(start, delegate.getPageRank());
+        }
+        catch (Throwable e) {
+            getPageRank.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getHITS() {
+        long start = getHITS.start();
+        try {
+            return getHITS.stop(start, delegate.getHITS());
+        }
+        catch (Throwable e) {
+            getHITS.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public EntityScores getPageRankScores() {
+        long start = getPageRankScores.start();
+        try {
+            return getPageRankScores.stop(start, delegate.getPageRankScores());
+        }
+        catch (Throwable e) {
+            getPageRankScores.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public HubsAndAuthorities getHITSScores() {
+        long start = getHITSScores.start();
+        try {
+            return getHITSScores.stop(start, delegate.getHITSScores());
+        }
+        catch (Throwable e) {
+            getHITSScores.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setLinkAnalysisConvergence(double tolerance, int maxIterations) {
+        delegate.setLinkAnalysisConvergence(tolerance, maxIterations);
+    }
+
+    @Override
+    public Map<Entity, Double> getPersonalizedPageRank(Map<Entity, Double> seeds, int k,
+            DirectionMode mode)
+    {
+        long start = getPersonalizedPageRank.start();
+        try {
+            return getPersonalizedPageRank.stop(start,
+                    delegate.getPersonalizedPageRank(seeds, k, mode));
+        }
+        catch (Throwable e) {
+            getPersonalizedPageRank.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public Set<Set<Entity>> getStructuralEquivalences() {
+        long start = getStructuralEquivalences.start();
+        try {
+            return getStructuralEquivalences.stop(start, delegate.getStructuralEquivalences());
+        }
+        catch (Throwable e) {
+            getStructuralEquivalences.fail(start, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
@@ -0,0 +1,427 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * PageRank and HITS computed by power iteration over a {@link CompressedAdjacency}.
+ * <p>
+ * Scores are kept in <code>double[]</code> vectors indexed by node id. Each iteration is a
+ * pull over the in-links of each node, so that ranges of nodes can be swept in parallel without
+ * synchronization. Partial sums are combined in a fixed order, so the results do not depend on
+ * thread scheduling. An instance can be shared by several threads.
+ */
+public class LinkAnalysis {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    /** The probability of a random jump used by PageRank, as in JUNG. */
+    public static final double DEFAULT_JUMP_PROBABILITY = 0.15;
+    /** The L1 distance between two iterations at which the iteration stops. */
+    public static final double DEFAULT_TOLERANCE = 1e-6;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+    // nodes per parallel task
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private final CompressedAdjacency outLinks;
+    private final CompressedAdjacency inLinks;
+    private final int parallelism;
+    private volatile double tolerance = DEFAULT_TOLERANCE;
+    private volatile int maxIterations = DEFAULT_MAX_ITERATIONS;
+
+    /**
+     * @param adjacency The graph. Scores are computed with one thread per processor.
+     */
+    public LinkAnalysis(CompressedAdjacency adjacency)
+    {
+        this(adjacency, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param adjacency The graph.
+     * @param parallelism The number of threads used for each iteration.
+     */
+    public LinkAnalysis(CompressedAdjacency adjacency, int parallelism)
+    {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.outLinks = adjacency;
+        this.inLinks = adjacency.transpose();
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param tolerance The iteration stops when the L1 distance between two successive score
+     *            vectors falls below this value.
+     */
+    public void setTolerance(double tolerance)
+    {
+        if (tolerance < 0) {
+            throw new IllegalArgumentException("Tolerance must not be negative.");
+        }
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @param maxIterations The maximum number of iterations.
+     */
+    public void setMaxIterations(int maxIterations)
+    {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("Maximum number of iterations must be positive.");
+        }
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Computes PageRank with uniform random jumps.
+     *
+     * @return The PageRank of each node. The scores sum up to 1.
+     */
+    public double[] pageRank()
+    {
+        return pageRank(DEFAULT_JUMP_PROBABILITY, null);
+    }
+
+    /**
+     * Computes PageRank. If a jump vector is given, random jumps (and the rank of dangling
+     * nodes) are distributed according to it, which yields personalized PageRank.
+     *
+     * @param jumpProbability The probability of a random jump at each step.
+     * @param jumpVector The non-negative jump weight of each node, or null for uniform jumps.
+     *            It is normalized to sum up to 1.
+     * @return The PageRank of each node. The scores sum up to 1.
+     */
+    public double[] pageRank(final double jumpProbability, double[] jumpVector)
+    {
+        final int numberOfNodes = outLinks.getNumberOfNodes();
+        if (numberOfNodes == 0) {
+            return new double[0];
+        }
+        final double[] jump = jumpVector == null ? uniform(numberOfNodes)
+                : normalizeL1(checkLength(jumpVector));
+
+        final double[] rank = Arrays.copyOf(jump, numberOfNodes);
+        final double[] next = new double[numberOfNodes];
+        final double[] contribution = new double[numberOfNodes];
+
+        Sweeper sweeper = new Sweeper(numberOfNodes);
+        try {
+            int iteration = 0;
+            double delta = Double.POSITIVE_INFINITY;
+            while (iteration < maxIterations && delta >= tolerance) {
+                // spread the rank of each node over its out-links, collect the dangling rank
+                final double dangling = sweeper.sweep(new RangeTask() {
+                    @Override
+                    public double run(int from, int to)
+                    {
+                        double danglingRank = 0;
+                        for (int node = from; node < to; node++) {
+                            int degree = outLinks.getDegree(node);
+                            if (degree == 0) {
+                                danglingRank += rank[node];
+                                contribution[node] = 0;
+                            }
+                            else {
+                                contribution[node] = rank[node] / degree;
+                            }
+                        }
+                        return danglingRank;
+                    }
+                });
+
+                delta = sweeper.sweep(new RangeTask() {
+                    @Override
+                    public double run(int from, int to)
+                    {
+                        double distance = 0;
+                        for (int node = from; node < to; node++) {
+                            double sum = 0;
+                            for (int i = inLinks.getStart(node); i < inLinks.getEnd(node); i++) {
+                                sum += contribution[inLinks.getTarget(i)];
+                            }
+                            next[node] = jumpProbability * jump[node]
+                                    + (1 - jumpProbability) * (sum + dangling * jump[node]);
+                            distance += Math.abs(next[node] - rank[node]);
+                        }
+                        return distance;
+                    }
+                });
+                System.arraycopy(next, 0, rank, 0, numberOfNodes);
+                iteration++;
+            }
+            logIterations("PageRank", iteration, delta);
+        }
+        finally {
+            sweeper.shutdown();
+        }
+        return rank;
+    }
+
+    /**
+     * Computes hub and authority scores (Kleinberg's HITS).
+     *
+     * @return The hub scores at index 0 and the authority scores at index 1. Each vector has
+     *         unit length.
+     */
+    public double[][] hits()
+    {
+        return hits(0, null, null);
+    }
+
+    /**
+     * Computes hub and authority scores. In each iteration, the new scores are mixed with the
+     * given prior scores, which makes the result query specific (HITS with priors).
+     *
+     * @param alpha The weight of the priors, between 0 and 1. Ignored if no priors are given.
+     * @param hubPriors The non-negative prior hub score of each node, or null.
+     * @param authorityPriors The non-negative prior authority score of each node, or null.
+     * @return The hub scores at index 0 and the authority scores at index 1. Each vector has
+     *         unit length.
+     */
+    public double[][] hits(double alpha, double[] hubPriors, double[] authorityPriors)
+    {
+        final int numberOfNodes = outLinks.getNumberOfNodes();
+        final double[] hubPrior = hubPriors == null ? null : normalizeL2(checkLength(hubPriors));
+        final double[] authorityPrior = authorityPriors == null ? null
+                : normalizeL2(checkLength(authorityPriors));
+
+        double[] hub = normalizeL2(filled(numberOfNodes, 1));
+        double[] authority = normalizeL2(filled(numberOfNodes, 1));
+        double[] nextHub = new double[numberOfNodes];
+        double[] nextAuthority = new double[numberOfNodes];
+
+        Sweeper sweeper = new Sweeper(numberOfNodes);
+        try {
+            int iteration = 0;
+            double delta = Double.POSITIVE_INFINITY;
+            while (iteration < maxIterations && delta >= tolerance) {
+                // authorities are pointed to by good hubs, hubs point to good authorities
+                multiply(sweeper, inLinks, hub, nextAuthority);
+                mix(nextAuthority, alpha, authorityPrior);
+                multiply(sweeper, outLinks, nextAuthority, nextHub);
+                mix(nextHub, alpha, hubPrior);
+
+                delta = distance(hub, nextHub) + distance(authority, nextAuthority);
+
+                double[] swap = hub;
+                hub = nextHub;
+                nextHub = swap;
+                swap = authority;
+                authority = nextAuthority;
+                nextAuthority = swap;
+                iteration++;
+            }
+            logIterations("HITS", iteration, delta);
+        }
+        finally {
+            sweeper.shutdown();
+        }
+        return new double[][] { hub, authority };
+    }
+
+    /**
+     * target[node] = sum of source over the links of the node.
+     */
+    private static void multiply(Sweeper sweeper, final CompressedAdjacency links,
+            final double[] source, final double[] target)
+    {
+        sweeper.sweep(new RangeTask() {
+            @Override
+            public double run(int from, int to)
+            {
+                for (int node = from; node < to; node++) {
+                    double sum = 0;
+                    for (int i = links.getStart(node); i < links.getEnd(node); i++) {
+                        sum += source[links.getTarget(i)];
+                    }
+                    target[node] = sum;
+                }
+                return 0;
+            }
+        });
+    }
+
+    private static void mix(double[] scores, double alpha, double[] priors)
+    {
+        normalizeL2(scores);
+        if (priors != null) {
+            for (int node = 0; node < scores.length; node++) {
+                scores[node] = (1 - alpha) * scores[node] + alpha * priors[node];
+            }
+            normalizeL2(scores);
+        }
+    }
+
+    private void logIterations(String algorithm, int iterations, double delta)
+    {
+        if (delta >= tolerance) {
+            logger.warn(algorithm + " did not converge within " + iterations
+                    + " iterations (distance " + delta + ").");
+        }
+        else {
+            logger.info(algorithm + " converged after " + iterations + " iterations.");
+        }
+    }
+
+    private double[] checkLength(double[] vector)
+    {
+        if (vector.length != outLinks.getNumberOfNodes()) {
+            throw new IllegalArgumentException("Expected a vector of length "
+                    + outLinks.getNumberOfNodes() + ", but got " + vector.length);
+        }
+        return vector;
+    }
+
+    private static double[] filled(int length, double value)
+    {
+        double[] vector = new double[length];
+        Arrays.fill(vector, value);
+        return vector;
+    }
+
+    private static double[] uniform(int length)
+    {
+        return filled(length, 1.0 / length);
+    }
+
+    private static double[] normalizeL1(double[] vector)
+    {
+        double sum = 0;
+        for (double value : vector) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Weights must not be negative.");
+            }
+            sum += value;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("Weights must not all be zero.");
+        }
+        double[] normalized = new double[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] / sum;
+        }
+        return normalized;
+    }
+
+    private static double[] normalizeL2(double[] vector)
+    {
+        double sum = 0;
+        for (double value : vector) {
+            sum += value * value;
+        }
+        if (sum > 0) {
+            double norm = Math.sqrt(sum);
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] /= norm;
+            }
+        }
+        return vector;
+    }
+
+    private static double distance(double[] a, double[] b)
+    {
+        double distance = 0;
+        for (int i = 0; i < a.length; i++) {
+            distance += Math.abs(a[i] - b[i]);
+        }
+        return distance;
+    }
+
+    /**
+     * Work on a range of node ids.
+     */
+    private interface RangeTask {
+        /**
+         * @return A partial result that is summed up over all ranges.
+         */
+        double run(int from, int to);
+    }
+
+    /**
+     * Splits the node ids into ranges that are processed in parallel.
+     */
+    private class Sweeper {
+
+        private final int numberOfNodes;
+        private final int chunkSize;
+        private final ExecutorService executor;
+
+        public Sweeper(int numberOfNodes)
+        {
+            this.numberOfNodes = numberOfNodes;
+            this.chunkSize = Math.max(MIN_CHUNK_SIZE,
+                    (numberOfNodes + 4 * parallelism - 1) / (4 * parallelism));
+            this.executor = parallelism > 1 && numberOfNodes > chunkSize
+                    ? Executors.newFixedThreadPool(parallelism) : null;
+        }
+
+        public double sweep(final RangeTask task)
+        {
+            if (executor == null) {
+                return task.run(0, numberOfNodes);
+            }
+            List<Callable<Double>> chunks = new ArrayList<Callable<Double>>();
+            for (int start = 0; start < numberOfNodes; start += chunkSize) {
+                final int from = start;
+                final int to = Math.min(numberOfNodes, start + chunkSize);
+                chunks.add(new Callable<Double>() {
+                    @Override
+                    public Double call()
+                    {
+                        return task.run(from, to);
+                    }
+                });
+            }
+            try {
+                double sum = 0;
+                for (Future<Double> future : executor.invokeAll(chunks)) {
+                    sum += future.get();
+                }
+                return sum;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Link analysis was interrupted.", e);
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException("Link analysis failed.", e.getCause());
+            }
+        }
+
+        public void shutdown()
+        {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Shortest path statistics of the undirected graph underlying a {@link CompressedAdjacency}:
+ * the eccentricity of each node, the diameter, the radius and the average shortest path length.
+ * <p>
+ * A breadth-first search is run from every node, so computing the statistics takes O(V*E) time.
+ * Ranges of source nodes are searched in parallel, each with its own O(V) distance array and
+ * queue.
+ */
+public class PathStatistics {
+
+    // source nodes per parallel task
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    private final int[] eccentricities;
+    private final long shortestPathLengthSum;
+    private final int diameter;
+
+    /**
+     * @param adjacency The graph. The searches use one thread per processor.
+     */
+    public PathStatistics(CompressedAdjacency adjacency)
+    {
+        this(adjacency, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param adjacency The graph.
+     * @param parallelism The number of threads used for the searches.
+     */
+    public PathStatistics(CompressedAdjacency adjacency, int parallelism)
+    {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        final CompressedAdjacency undirected = adjacency.symmetrize();
+        final int numberOfNodes = undirected.getNumberOfNodes();
+        eccentricities = new int[numberOfNodes];
+
+        int chunkSize = Math.max(MIN_CHUNK_SIZE,
+                (numberOfNodes + 4 * parallelism - 1) / (4 * parallelism));
+        long sum = 0;
+        int max = 0;
+        if (parallelism == 1 || numberOfNodes <= chunkSize) {
+            long[] result = search(undirected, 0, numberOfNodes);
+            sum = result[0];
+            max = (int) result[1];
+        }
+        else {
+            List<Callable<long[]>> chunks = new ArrayList<Callable<long[]>>();
+            for (int start = 0; start < numberOfNodes; start += chunkSize) {
+                final int from = start;
+                final int to = Math.min(numberOfNodes, start + chunkSize);
+                chunks.add(new Callable<long[]>() {
+                    @Override
+                    public long[] call()
+                    {
+                        return search(undirected, from, to);
+                    }
+                });
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+            try {
+                for (Future<long[]> future : executor.invokeAll(chunks)) {
+                    long[] result = future.get();
+                    sum += result[0];
+                    max = Math.max(max, (int) result[1]);
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Path statistics were interrupted.", e);
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException("Path statistics failed.", e.getCause());
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+        // every unordered pair was reached from both ends
+        this.shortestPathLengthSum = sum / 2;
+        this.diameter = max;
+    }
+
+    /**
+     * Runs a breadth-first search from each source in the range and records its eccentricity.
+     *
+     * @return The sum of all distances found and the largest distance found.
+     */
+    private long[] search(CompressedAdjacency undirected, int from, int to)
+    {
+        int[] distances = new int[undirected.getNumberOfNodes()];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[undirected.getNumberOfNodes()];
+
+        long sum = 0;
+        int max = 0;
+        for (int source = from; source < to; source++) {
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            distances[source] = 0;
+            while (head < tail) {
+                int node = queue[head++];
+                int distance = distances[node] + 1;
+                for (int i = undirected.getStart(node); i < undirected.getEnd(node); i++) {
+                    int neighbor = undirected.getTarget(i);
+                    if (distances[neighbor] < 0) {
+                        distances[neighbor] = distance;
+                        queue[tail++] = neighbor;
+                        sum += distance;
+                    }
+                }
+            }
+            // the queue is ordered by distance, so the last node is the farthest
+            int eccentricity = distances[queue[tail - 1]];
+            eccentricities[source] = eccentricity;
+            max = Math.max(max, eccentricity);
+            for (int i = 0; i < tail; i++) {
+                distances[queue[i]] = -1;
+            }
+        }
+        return new long[] { sum, max };
+    }
+
+    /**
+     * Runs a single breadth-first search, e.g. to find the depth of a hierarchy below its root.
+     *
+     * @param adjacency The graph.
+     * @param source A node id.
+     * @return The eccentricity of the node in the undirected graph underlying the adjacency.
+     */
+    public static int getEccentricity(CompressedAdjacency adjacency, int source)
+    {
+        CompressedAdjacency undirected = adjacency.symmetrize();
+        int[] distances = new int[undirected.getNumberOfNodes()];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[undirected.getNumberOfNodes()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        distances[source] = 0;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = undirected.getStart(node); i < undirected.getEnd(node); i++) {
+                int neighbor = undirected.getTarget(i);
+                if (distances[neighbor] < 0) {
+                    distances[neighbor] = distances[node] + 1;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return distances[queue[tail - 1]];
+    }
+
+    /**
+     * @param node A node id.
+     * @return The largest distance from the node to any node reachable from it.
+     */
+    public int getEccentricity(int node)
+    {
+        return eccentricities[node];
+    }
+
+    /**
+     * @return The largest distance between any two connected nodes.
+     */
+    public int getDiameter()
+    {
+        return diameter;
+    }
+
+    /**
+     * @return The smallest eccentricity of any node, or 0 for an empty graph.
+     */
+    public int getRadius()
+    {
+        if (eccentricities.length == 0) {
+            return 0;
+        }
+        int radius = Integer.MAX_VALUE;
+        for (int eccentricity : eccentricities) {
+            radius = Math.min(radius, eccentricity);
+        }
+        return radius;
+    }
+
+    /**
+     * @return The sum of the shortest path lengths between all connected pairs of nodes, each
+     *         unordered pair counted once.
+     */
+    public long getShortestPathLengthSum()
+    {
+        return shortestPathLengthSum;
+    }
+
+    /**
+     * @return The sum of the shortest path lengths divided by the number of node pairs, or 0 if
+     *         there are less than two nodes. As in the original definition, pairs of
+     *         disconnected nodes count in the denominator only.
+     */
+    public double getAverageShortestPathLength()
+    {
+        long numberOfNodes = eccentricities.length;
+        if (numberOfNodes < 2) {
+            return 0.0;
+        }
+        return shortestPathLengthSum / (numberOfNodes * (numberOfNodes - 1) / 2.0);
+    }
+}
@@ -17,41 +17,34 @@
  *******************************************************************************/
 package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
-import no.uib.cipr.matrix.sparse.FlexCompRowMatrix;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LSRFramework;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
 
 /**
  * A matrix holding the parenthood relations in the resource.
- * It uses the Matrix Toolkits for Java (MTJ) library for efficiency.
+ * It is stored as a {@link CompressedAdjacency}, so that the children of an entity are found in
+ * O(number of children) instead of scanning a whole matrix row.
  * The Random Walks then read this matrix for finding and burning children of entities.
- * It supports persistence, i.e., when it first runs, it creates a file holding the essential
- * adjacency information, from which an adjacency matrix object will be quickly loaded on
- * the next runs
+ * It supports persistence, i.e., when it first runs, it creates a binary file in the workspace
+ * holding the entity index and the adjacencies (see {@link EntityAdjacencyFile}), from which the
+ * matrix is quickly loaded on the next runs.
  *
  * @author garoufi
  *
@@ -62,48 +55,62 @@ public class PersistentAdjacencyMatrix {
 	private LexicalSemanticResource lexSemResource;
 	int resourceSize;
 	String resourceName;
-	FlexCompRowMatrix flexAdjMatrix;
-
-	Map<Entity, Integer> entityIndex;
-	Map<Integer, Entity> indexToEntity;
+	EntityAdjacency entityAdjacency;
+	CompressedAdjacency adjacency;
 
 	public PersistentAdjacencyMatrix(LexicalSemanticResource resource)
+	throws LexicalSemanticResourceException {
+		this(resource, null);
+	}
+
+	/**
+	 * @param resource The resource whose parenthood relations are stored.
+	 * @param aDirectory The directory holding the adjacency file. If null, a directory in the
+	 * LSR workspace is used.
+	 * @throws LexicalSemanticResourceException
+	 */
+	public PersistentAdjacencyMatrix(LexicalSemanticResource resource, File aDirectory)
 	throws LexicalSemanticResourceException {
 
 		this.lexSemResource = resource;
 		this.resourceName = resource.getResourceName();
 
-		// check if indexing of entities has already been done; if not, do it now
-		File persistentEntIndex = new File("EntityIndexSer" + "_" + resourceName);
-		File persistentIndexToEnt = new File("IndexToEntitySer" + "_" + resourceName);
-		if (!persistentEntIndex.canRead() || !persistentIndexToEnt.canRead()) {
-			indexEntities();
-		}
-		else {
-			loadIndices();
+		File directory = aDirectory != null ? aDirectory : getWorkspace();
+		if (!directory.exists()) {
+			directory.mkdirs();
 		}
+		File persistentAdj = new File(directory, "PersistentAdjacencies" + "_" + resourceName
+				+ "_" + resource.getResourceVersion());
 
-		this.resourceSize = entityIndex.size();
-		logger.info("Resource size: " + resourceSize + "\n");
-
-		// check if adjacency data have already been saved; if not, save them now
-		File persistentAdj = new File("PersistentAdjacencies" + "_" + resourceName);
-		if (!persistentAdj.canRead()) {
-			saveAdjacencies();
+		// check if adjacency data have already been saved; if not, create and save them now
+		try {
+			if (persistentAdj.canRead()) {
+				logger.info("Loading the adjacency matrix from " + persistentAdj.getAbsolutePath());
+				entityAdjacency = EntityAdjacencyFile.load(persistentAdj);
+				logger.info("Adjacency matrix loaded from file.");
+			}
+			else {
+				entityAdjacency = createAdjacencies(indexEntities());
+				EntityAdjacencyFile.save(entityAdjacency, persistentAdj);
+				logger.info("Adjacencies saved to " + persistentAdj.getAbsolutePath());
+			}
+		}
+		catch (IOException e) {
+			throw new LexicalSemanticResourceException(e);
 		}
 
-		// finally load the adjacency matrix as an object
-		loadAdjMatrix();
+		this.adjacency = entityAdjacency.getAdjacency();
+		this.resourceSize = entityAdjacency.getNumberOfNodes();
+		logger.info("Resource size: " + resourceSize + "\n");
 	}
 
 	// index entities
 	// this has to be done as a separate step and cannot be performed on the fly,
 	// since at the moment we have no other way to determine the size of the resource
 	// (lexSemResource.getNumberOfEntities() is not reliable and gives wrong number for Wiktionary)
-	private void indexEntities() throws LexicalSemanticResourceException {
+	private Entity[] indexEntities() throws LexicalSemanticResourceException {
 
-		entityIndex = new HashMap<Entity, Integer>();
-		indexToEntity = new HashMap<Integer, Entity>();
+		Map<Entity, Integer> entityIndex = new LinkedHashMap<Entity, Integer>();
 
 		logger.info("Indexing entities.");
 		Iterator<Entity> entityIter = lexSemResource.getEntities().iterator();
@@ -112,197 +119,140 @@ public class PersistentAdjacencyMatrix {
 			Entity entity = entityIter.next();
 
 			// check whether the entity has already been indexed. if not, index it now.
-			if (!entityIndex.keySet().contains(entity)) {
+			if (!entityIndex.containsKey(entity)) {
 				index ++;
 				entityIndex.put(entity, index);
-				indexToEntity.put(index, entity);
-			}
 
-			// print progress:
-			if (index % 10000 == 0) {
-				logger.info("Index at " + index);
+				// print progress:
+				if (index % 10000 == 0) {
+					logger.info("Index at " + index);
+				}
 			}
 		}
 		logger.info("Indexing complete. Index runs from 0 to " + index);
 
-		// now save the index maps:
-
-		logger.info("Serializing the indices...");
-
-		FileOutputStream fosEntIndex = null;
-		ObjectOutputStream outEntIndex = null;
-
-		FileOutputStream fosIndexEnt = null;
-		ObjectOutputStream outIndexEnt = null;
-
-		try
-		{
-			fosEntIndex = new FileOutputStream("EntityIndexSer" + "_" + resourceName);
-			outEntIndex = new ObjectOutputStream(fosEntIndex);
-			outEntIndex.writeObject(entityIndex);
-			outEntIndex.close();
-
-			fosIndexEnt = new FileOutputStream("IndexToEntitySer" + "_" + resourceName);
-			outIndexEnt = new ObjectOutputStream(fosIndexEnt);
-			outIndexEnt.writeObject(indexToEntity);
-			outIndexEnt.close();
-		}
-		catch(IOException ex)
-		{
-			ex.printStackTrace();
-		}
-
-		logger.info("Indices serialized.");
+		return entityIndex.keySet().toArray(new Entity[entityIndex.size()]);
 	}
 
 	/**
-	 * Saves the adjacency data into a file.
-	 * Each line contains the indices of the children of the entity whose index corresponds
-	 * to the line's number (starting from 0)
+	 * Collects the children of each entity from the resource.
+	 * Children that are not among the indexed entities are skipped.
 	 */
-	private void saveAdjacencies() {
+	private EntityAdjacency createAdjacencies(Entity[] entities)
+	throws LexicalSemanticResourceException {
 
-		logger.info("Saving adjacencies...");
+		logger.info("Collecting adjacencies...");
 
-		try{
-			// Create file
-			FileWriter fstream = new FileWriter("PersistentAdjacencies" + "_" + resourceName);
-			BufferedWriter out = new BufferedWriter(fstream);
+		// the ids are needed to resolve the children, so build an index without arcs first
+		EntityAdjacency index = EntityAdjacency.withoutArcs(entities);
 
-			for (int row = 0; row < resourceSize; row ++) {
+		int[] arcSources = new int[Math.max(16, entities.length)];
+		int[] arcTargets = new int[arcSources.length];
+		int numberOfArcs = 0;
+		int skipped = 0;
 
-				// find which entity has the current index:
-				Entity entity = indexToEntity.get(row);
+		for (int row = 0; row < entities.length; row ++) {
 
-				Set<Entity> children = lexSemResource.getChildren(entity);
+			Set<Entity> children = lexSemResource.getChildren(entities[row]);
 
-				// if the entity has children, find their indices and write them down:
-				if (children.size() != 0) {
-					for (Entity child : children) {
-						int childIndex = entityIndex.get(child);
-						out.write(childIndex + " ");
+			if (children != null) {
+				for (Entity child : children) {
+					int childIndex = index.getId(child);
+					if (childIndex < 0) {
+						skipped ++;
+						continue;
 					}
-				}
-
-				// the next entity will come in the next line:
-				out.newLine();
-
-				// print progress
-				if (row % 10000 == 0) {
-					logger.info("Progress: " + (100 * row / resourceSize) + "%");
-				}
-			}
-			//Close the output stream
-			out.close();
-		}
-		catch (Exception e){//Catch exception if any
-			System.err.println("Error: " + e.getMessage());
-		}
-		logger.info("Adjacencies saved to file.\n");
-
-	}
-
-	/**
-	  * Read the file with the adjacencies and load it into a sparse matrix object
-	  */
-	public FlexCompRowMatrix loadAdjMatrix() {
-
-		logger.info("Loading the adjacency matrix...");
-
-		// initialize adjacency matrix
-		flexAdjMatrix = new FlexCompRowMatrix(resourceSize, resourceSize);
-		int row = 0;
-
-		try {
-			// Open the file
-			FileInputStream fstream = new FileInputStream("PersistentAdjacencies" + "_" + resourceName);
-			// Get the object of DataInputStream
-			DataInputStream in = new DataInputStream(fstream);
-			BufferedReader br = new BufferedReader(new InputStreamReader(in));
-			String strLine;
-
-			//Read File Line By Line
-			while ((strLine = br.readLine()) != null)   {
-
-				// if the line is not empty, read it and fill the corresponding adjacency matrix entries:
-				if (!strLine.equals("")) {
-					String[] adjacencies = strLine.split(" ");
-					for (String adjacency : adjacencies) {
-						int col = Integer.parseInt(adjacency);
-						flexAdjMatrix.set(row, col, 1);
+					if (numberOfArcs == arcSources.length) {
+						arcSources = Arrays.copyOf(arcSources, 2 * numberOfArcs);
+						arcTargets = Arrays.copyOf(arcTargets, 2 * numberOfArcs);
 					}
-				}
-				row ++;
-
-				// print progress
-				if (row % 10000 == 0) {
-					logger.info("Progress: " + (100 * row / resourceSize) + "%");
+					arcSources[numberOfArcs] = row;
+					arcTargets[numberOfArcs] = childIndex;
+					numberOfArcs ++;
 				}
 			}
 
-			//Close the input stream
-			in.close();
-
-		//Catch exception if any
-		}catch (Exception e){
-			System.err.println("Error: " + e.getMessage());
+			// print progress
+			if (row % 10000 == 0) {
+				logger.info("Progress: " + (100L * row / entities.length) + "%");
+			}
 		}
 
-		logger.info("Adjacency matrix loaded from file.\n");
-		return flexAdjMatrix;
-	}
-
-	// deserialize the index maps:
-	@SuppressWarnings("unchecked")
-    public void loadIndices() {
-
-		logger.info("Loading the indices...");
-
-		FileInputStream finEntIndex = null;
-		ObjectInputStream inEntIndex = null;
-
-		FileInputStream finIndexEnt = null;
-		ObjectInputStream inIndexEnt = null;
-
-		try
-		{
-			finEntIndex = new FileInputStream("EntityIndexSer" + "_" + resourceName);
-			inEntIndex = new ObjectInputStream(finEntIndex);
-			entityIndex = (Map<Entity, Integer>) inEntIndex.readObject();
-			inEntIndex.close();
-
-			finIndexEnt = new FileInputStream("IndexToEntitySer" + "_" + resourceName);
-			inIndexEnt = new ObjectInputStream(finIndexEnt);
-			indexToEntity = (Map<Integer, Entity>) inIndexEnt.readObject();
-			inIndexEnt.close();
+		if (skipped > 0) {
+			logger.warn(skipped + " children were not among the indexed entities and were skipped.");
 		}
-		catch(IOException ex)
-		{
-			ex.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
-
-		logger.info("Indices loaded.");
 
+		return index.withAdjacency(
+				new CompressedAdjacency(entities.length, arcSources, arcTargets, numberOfArcs));
 	}
 
 	// read the matrix and find the children of the source:
 	public Set<Entity> getAdjacencies(Entity source) {
 
 		Set<Entity> childrenSet = new HashSet<Entity>();
-		int sourceIndex = entityIndex.get(source);
+		int sourceIndex = entityAdjacency.getId(source);
+		if (sourceIndex < 0) {
+			return childrenSet;
+		}
 
-		for (int col = 0; col < resourceSize; col ++) {
-			if (flexAdjMatrix.get(sourceIndex, col) == 1) {
-				Entity child = indexToEntity.get(col);
-				childrenSet.add(child);
-			}
+		for (int i = adjacency.getStart(sourceIndex); i < adjacency.getEnd(sourceIndex); i ++) {
+			Entity child = entityAdjacency.getEntity(adjacency.getTarget(i));
+			childrenSet.add(child);
 		}
 		return childrenSet;
 	}
 
+	/**
+	 * @return The adjacency structure over the entity indices.
+	 */
+	public CompressedAdjacency getAdjacency() {
+		return adjacency;
+	}
+
+	/**
+	 * @param entity An entity.
+	 * @return The index of the entity, or -1 if the entity is not indexed.
+	 */
+	public int getIndex(Entity entity) {
+		return entityAdjacency.getId(entity);
+	}
 
-}
+	/**
+	 * @param entities A collection of entities, may be null.
+	 * @return The indices of the entities. Entities that are not indexed are skipped. Null, if
+	 * the collection is null.
+	 */
+	public int[] getIndices(Collection<Entity> entities) {
+		if (entities == null) {
+			return null;
+		}
+		int[] indices = new int[entities.size()];
+		int count = 0;
+		for (Entity entity : entities) {
+			int index = entityAdjacency.getId(entity);
+			if (index < 0) {
+				logger.warn("Entity " + entity + " is not contained in the adjacency matrix.");
+				continue;
+			}
+			indices[count ++] = index;
+		}
+		return Arrays.copyOf(indices, count);
+	}
 
+	/**
+	 * @param index An entity index.
+	 * @return The entity with the given index.
+	 */
+	public Entity getEntity(int index) {
+		return entityAdjacency.getEntity(index);
+	}
 
+	/**
+	 * Get the workspace directory.
+	 *
+	 * @return the workspace directory.
+	 */
+	private static File getWorkspace() {
+		return new File(LSRFramework.getWorkspace(), PersistentAdjacencyMatrix.class.getName());
+	}
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+/**
+ * Approximates personalized PageRank with the forward push algorithm (Andersen, Chung and
+ * Lang, 2006).
+ * <p>
+ * Starting from the seed weights as residual mass, each push moves a fraction of a node's
+ * residual into its score and spreads the rest over its neighbors. Nodes are only pushed while
+ * their residual exceeds epsilon times their degree, so a query only touches the neighborhood
+ * of the seeds and its cost does not depend on the size of the graph. The residual mass of
+ * nodes without neighbors is returned to the seeds.
+ * <p>
+ * The adjacency is only read, so any number of queries can run concurrently on one instance.
+ */
+public class PersonalizedPageRank {
+
+    /** The probability of jumping back to the seeds at each step. */
+    public static final double DEFAULT_JUMP_PROBABILITY = 0.15;
+    /** The residual per unit of degree below which a node is not pushed. */
+    public static final double DEFAULT_EPSILON = 1e-6;
+
+    private final EntityAdjacency graph;
+    private final CompressedAdjacency adjacency;
+
+    /**
+     * @param graph The graph. For a walk that ignores edge directions, pass an adjacency
+     *            that is {@link CompressedAdjacency#symmetrize() symmetrized}.
+     */
+    public PersonalizedPageRank(EntityAdjacency graph)
+    {
+        this.graph = graph;
+        this.adjacency = graph.getAdjacency();
+    }
+
+    /**
+     * Computes personalized PageRank with the default jump probability and epsilon.
+     *
+     * @param seeds The seed entities with their non-negative weights. Entities that are not in
+     *            the graph are ignored.
+     * @param k The maximum number of entities to return.
+     * @return The (at most) k entities with the highest scores, in descending order of score.
+     */
+    public Map<Entity, Double> compute(Map<Entity, Double> seeds, int k)
+    {
+        int[] seedIds = new int[seeds.size()];
+        double[] weights = new double[seeds.size()];
+        int count = 0;
+        for (Entry<Entity, Double> seed : seeds.entrySet()) {
+            int id = graph.getId(seed.getKey());
+            if (id >= 0) {
+                seedIds[count] = id;
+                weights[count] = seed.getValue();
+                count++;
+            }
+        }
+
+        Result result = compute(Arrays.copyOf(seedIds, count), Arrays.copyOf(weights, count),
+                DEFAULT_JUMP_PROBABILITY, DEFAULT_EPSILON, k);
+
+        Map<Entity, Double> top = new LinkedHashMap<Entity, Double>();
+        for (int i = 0; i < result.getNodes().length; i++) {
+            top.put(graph.getEntity(result.getNodes()[i]), result.getScores()[i]);
+        }
+        return top;
+    }
+
+    /**
+     * @param seeds The seed node ids.
+     * @param weights The non-negative weight of each seed. They are normalized to sum up to 1.
+     * @param jumpProbability The probability of jumping back to the seeds at each step.
+     * @param epsilon The approximation threshold. The score of each node is underestimated by
+     *            at most epsilon times its degree.
+     * @param k The maximum number of nodes to return.
+     * @return The (at most) k nodes with the highest scores.
+     */
+    public Result compute(int[] seeds, double[] weights, double jumpProbability, double epsilon,
+            int k)
+    {
+        if (seeds.length != weights.length) {
+            throw new IllegalArgumentException("Expected one weight per seed.");
+        }
+        double totalWeight = 0;
+        for (double weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Seed weights must not be negative.");
+            }
+            totalWeight += weight;
+        }
+        if (totalWeight == 0) {
+            return new Result(new int[0], new double[0]);
+        }
+
+        SparseVector score = new SparseVector();
+        SparseVector residual = new SparseVector();
+        IntQueue queue = new IntQueue();
+
+        for (int i = 0; i < seeds.length; i++) {
+            addResidual(residual, queue, seeds[i], weights[i] / totalWeight, epsilon);
+        }
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            double mass = residual.get(node);
+            residual.put(node, 0);
+            score.add(node, jumpProbability * mass);
+
+            double spread = (1 - jumpProbability) * mass;
+            int degree = adjacency.getDegree(node);
+            if (degree == 0) {
+                // a dead end, the walk jumps back to the seeds
+                for (int i = 0; i < seeds.length; i++) {
+                    addResidual(residual, queue, seeds[i], spread * weights[i] / totalWeight,
+                            epsilon);
+                }
+            }
+            else {
+                double share = spread / degree;
+                for (int i = adjacency.getStart(node); i < adjacency.getEnd(node); i++) {
+                    addResidual(residual, queue, adjacency.getTarget(i), share, epsilon);
+                }
+            }
+        }
+
+        return score.top(k);
+    }
+
+    private void addResidual(SparseVector residual, IntQueue queue, int node, double mass,
+            double epsilon)
+    {
+        double threshold = epsilon * Math.max(1, adjacency.getDegree(node));
+        double before = residual.get(node);
+        double after = residual.add(node, mass);
+        // enqueue when crossing the threshold, so that a node is queued at most once
+        if (before < threshold && after >= threshold) {
+            queue.add(node);
+        }
+    }
+
+    /**
+     * The best scored node ids with their scores.
+     */
+    public static class Result {
+
+        private final int[] nodes;
+        private final double[] scores;
+
+        Result(int[] nodes, double[] scores)
+        {
+            this.nodes = nodes;
+            this.scores = scores;
+        }
+
+        /**
+         * @return The node ids in descending order of score.
+         */
+        public int[] getNodes()
+        {
+            return nodes;
+        }
+
+        /**
+         * @return The scores of the nodes.
+         */
+        public double[] getScores()
+        {
+            return scores;
+        }
+    }
+
+    /**
+     * A map from int keys to double values with open addressing. Missing keys have the value 0.
+     */
+    private static class SparseVector {
+
+        private int[] keys = new int[64];
+        private double[] values = new double[64];
+        private boolean[] used = new boolean[64];
+        private int size;
+
+        private int slot(int key)
+        {
+            int mask = keys.length - 1;
+            int hash = key * 0x9E3779B9;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        public double get(int key)
+        {
+            int slot = slot(key);
+            return used[slot] ? values[slot] : 0;
+        }
+
+        public void put(int key, double value)
+        {
+            int slot = slot(key);
+            if (!used[slot]) {
+                insert(slot, key);
+                slot = slot(key);
+            }
+            values[slot] = value;
+        }
+
+        public double add(int key, double delta)
+        {
+            int slot = slot(key);
+            if (!used[slot]) {
+                insert(slot, key);
+                slot = slot(key);
+            }
+            values[slot] += delta;
+            return values[slot];
+        }
+
+        private void insert(int slot, int key)
+        {
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = 0;
+            if (++size > keys.length / 2) {
+                int[] oldKeys = keys;
+                double[] oldValues = values;
+                boolean[] oldUsed = used;
+                keys = new int[2 * oldKeys.length];
+                values = new double[keys.length];
+                used = new boolean[keys.length];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldUsed[i]) {
+                        int newSlot = slot(oldKeys[i]);
+                        used[newSlot] = true;
+                        keys[newSlot] = oldKeys[i];
+                        values[newSlot] = oldValues[i];
+                    }
+                }
+            }
+        }
+
+        public Result top(int k)
+        {
+            Integer[] order = new Integer[size];
+            int count = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i] && values[i] > 0) {
+                    order[count++] = i;
+                }
+            }
+            // sort slots by descending value, then ascending key
+            Arrays.sort(order, 0, count, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b)
+                {
+                    int comparison = Double.compare(values[b], values[a]);
+                    return comparison != 0 ? comparison : Integer.compare(keys[a], keys[b]);
+                }
+            });
+            int length = Math.min(Math.max(k, 0), count);
+            int[] nodes = new int[length];
+            double[] scores = new double[length];
+            for (int i = 0; i < length; i++) {
+                nodes[i] = keys[order[i]];
+                scores[i] = values[order[i]];
+            }
+            return new Result(nodes, scores);
+        }
+    }
+
+    /**
+     * A growable FIFO queue of ints.
+     */
+    private static class IntQueue {
+
+        private int[] elements = new int[64];
+        private int head;
+        private int tail;
+
+        public boolean isEmpty()
+        {
+            return head == tail;
+        }
+
+        public void add(int element)
+        {
+            if (tail == elements.length) {
+                if (head > elements.length / 2) {
+                    System.arraycopy(elements, head, elements, 0, tail - head);
+                }
+                else {
+                    elements = Arrays.copyOf(elements, 2 * elements.length);
+                    System.arraycopy(elements, head, elements, 0, tail - head);
+                }
+                tail -= head;
+                head = 0;
+            }
+            elements[tail++] = element;
+        }
+
+        public int poll()
+        {
+            return elements[head++];
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Samples a graph by running several random walkers in parallel (Leskovec and Faloutsos, 2006).
+ * <p>
+ * Each walker starts at a node from the start set (or at a random node if no start set is
+ * given), follows a random arc at every step, and with the restart probability flies back to
+ * its start node. Walkers at a sink restart immediately. If a whole round of steps does not add
+ * any node to the sample, every walker is moved to a new random start node, so that walkers
+ * cannot get stuck in a small component.
+ * <p>
+ * Visited nodes and traversed arcs are recorded in shared bit sets, so the walkers merge their
+ * results without locking. Each walker draws from its own {@link SplittableRandom} split off a
+ * generator seeded with the user seed, and its path never depends on the other walkers. The
+ * walkers advance in rounds whose length only depends on the sample size reached so far.
+ * Therefore, the same seed and number of walkers always yield the same sample, independently of
+ * thread scheduling. The sample may exceed the requested size by at most
+ * {@link #MIN_ROUND_STEPS} nodes per walker.
+ */
+public class RandomWalkSampler {
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    /** The restart probability commonly used in the literature. */
+    public static final double DEFAULT_RESTART_PROBABILITY = 0.15;
+
+    /** The walk is aborted after this many steps per node of the graph. */
+    public static final int STEPS_PER_NODE = 100;
+
+    static final int MIN_ROUND_STEPS = 256;
+    static final int MAX_ROUND_STEPS = 1 << 16;
+
+    private final CompressedAdjacency adjacency;
+    private final int numberOfWalkers;
+    private final long seed;
+    private double restartProbability = DEFAULT_RESTART_PROBABILITY;
+    private int[] startNodes;
+
+    /**
+     * @param adjacency The graph to sample.
+     * @param numberOfWalkers The number of walkers. Walkers run on a thread pool with at most
+     *            as many threads as there are processors.
+     * @param seed The seed from which the random number generators of all walkers are derived.
+     */
+    public RandomWalkSampler(CompressedAdjacency adjacency, int numberOfWalkers, long seed)
+    {
+        if (numberOfWalkers < 1) {
+            throw new IllegalArgumentException("At least one walker is required.");
+        }
+        this.adjacency = adjacency;
+        this.numberOfWalkers = numberOfWalkers;
+        this.seed = seed;
+    }
+
+    /**
+     * @param restartProbability The probability to fly back to the start node at each step.
+     *            Must be in [0, 1).
+     */
+    public void setRestartProbability(double restartProbability)
+    {
+        if (restartProbability < 0 || restartProbability >= 1) {
+            throw new IllegalArgumentException("Restart probability must be in [0, 1), but is "
+                    + restartProbability);
+        }
+        this.restartProbability = restartProbability;
+    }
+
+    /**
+     * @param startNodes The nodes the walkers start from. Walker <code>i</code> starts at
+     *            <code>startNodes[i % startNodes.length]</code>. If null or empty, each walker
+     *            starts at a random node.
+     */
+    public void setStartNodes(int[] startNodes)
+    {
+        if (startNodes != null) {
+            for (int node : startNodes) {
+                if (node < 0 || node >= adjacency.getNumberOfNodes()) {
+                    throw new IllegalArgumentException("Invalid start node " + node);
+                }
+            }
+        }
+        this.startNodes = startNodes;
+    }
+
+    /**
+     * Runs the walkers until the sample contains at least the given number of nodes, or until
+     * {@link #STEPS_PER_NODE} times the number of nodes steps have been taken.
+     *
+     * @param sampleSize The desired number of nodes in the sample.
+     * @return The sample.
+     */
+    public Sample sample(int sampleSize)
+    {
+        int numberOfNodes = adjacency.getNumberOfNodes();
+        ConcurrentBitSet visitedNodes = new ConcurrentBitSet(numberOfNodes);
+        ConcurrentBitSet visitedArcs = new ConcurrentBitSet(adjacency.getNumberOfArcs());
+        AtomicInteger visitedCount = new AtomicInteger();
+
+        if (numberOfNodes == 0) {
+            return new Sample(adjacency, visitedNodes, visitedArcs);
+        }
+
+        SplittableRandom root = new SplittableRandom(seed);
+        long stepsPerWalker = (STEPS_PER_NODE * (long) numberOfNodes + numberOfWalkers - 1)
+                / numberOfWalkers;
+        List<Walker> walkers = new ArrayList<Walker>(numberOfWalkers);
+        for (int i = 0; i < numberOfWalkers; i++) {
+            SplittableRandom random = root.split();
+            int start = startNodes != null && startNodes.length > 0
+                    ? startNodes[i % startNodes.length] : random.nextInt(numberOfNodes);
+            walkers.add(new Walker(start, random, visitedNodes, visitedArcs, visitedCount));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(numberOfWalkers, Runtime.getRuntime().availableProcessors()));
+        try {
+            long steps = 0;
+            int previousCount = visitedCount.get();
+            while (previousCount < sampleSize && steps < stepsPerWalker) {
+                int roundSteps = (int) Math.min(stepsPerWalker - steps, Math.max(MIN_ROUND_STEPS,
+                        Math.min(MAX_ROUND_STEPS, (sampleSize - previousCount) / numberOfWalkers)));
+                for (Walker walker : walkers) {
+                    walker.roundSteps = roundSteps;
+                }
+                for (Future<Void> future : executor.invokeAll(walkers)) {
+                    future.get();
+                }
+                steps += roundSteps;
+
+                int count = visitedCount.get();
+                if (count == previousCount) {
+                    // no progress in this round, the walkers are probably stuck
+                    for (Walker walker : walkers) {
+                        walker.jump();
+                    }
+                    count = visitedCount.get();
+                }
+                previousCount = count;
+                logger.info("Sample size progress: " + count + " of " + sampleSize
+                        + ". Iteration progress: " + (100 * steps / stepsPerWalker) + "%");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Random walk sampling was interrupted.", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Random walker failed.", e.getCause());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        return new Sample(adjacency, visitedNodes, visitedArcs);
+    }
+
+    /**
+     * A single walker. Its path only depends on its own random number generator.
+     */
+    private class Walker
+        implements Callable<Void>
+    {
+        private final SplittableRandom random;
+        private final ConcurrentBitSet visitedNodes;
+        private final ConcurrentBitSet visitedArcs;
+        private final AtomicInteger visitedCount;
+        private int start;
+        private int current;
+        int roundSteps;
+
+        public Walker(int start, SplittableRandom random, ConcurrentBitSet visitedNodes,
+                ConcurrentBitSet visitedArcs, AtomicInteger visitedCount)
+        {
+            this.random = random;
+            this.visitedNodes = visitedNodes;
+            this.visitedArcs = visitedArcs;
+            this.visitedCount = visitedCount;
+            moveTo(start);
+        }
+
+        private void moveTo(int node)
+        {
+            start = node;
+            current = node;
+            visit(node);
+        }
+
+        private void visit(int node)
+        {
+            if (visitedNodes.set(node)) {
+                visitedCount.incrementAndGet();
+            }
+        }
+
+        public void jump()
+        {
+            moveTo(random.nextInt(adjacency.getNumberOfNodes()));
+        }
+
+        @Override
+        public Void call()
+        {
+            for (int step = 0; step < roundSteps; step++) {
+                if (random.nextDouble() < restartProbability) {
+                    current = start;
+                    continue;
+                }
+                int degree = adjacency.getDegree(current);
+                if (degree == 0) {
+                    current = start;
+                    continue;
+                }
+                int position = adjacency.getStart(current) + random.nextInt(degree);
+                visitedArcs.set(position);
+                current = adjacency.getTarget(position);
+                visit(current);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The nodes and arcs visited by the walkers. Node ids are those of the sampled graph.
+     */
+    public static class Sample {
+
+        private final int[] nodes;
+        private final int[] arcSources;
+        private final int[] arcTargets;
+
+        Sample(CompressedAdjacency adjacency, ConcurrentBitSet visitedNodes,
+                ConcurrentBitSet visitedArcs)
+        {
+            int numberOfNodes = adjacency.getNumberOfNodes();
+            int[] sampledNodes = new int[16];
+            int[] sources = new int[16];
+            int[] targets = new int[16];
+            int nodeCount = 0;
+            int arcCount = 0;
+            for (int node = 0; node < numberOfNodes; node++) {
+                if (!visitedNodes.get(node)) {
+                    continue;
+                }
+                if (nodeCount == sampledNodes.length) {
+                    sampledNodes = Arrays.copyOf(sampledNodes, 2 * nodeCount);
+                }
+                sampledNodes[nodeCount++] = node;
+                for (int i = adjacency.getStart(node); i < adjacency.getEnd(node); i++) {
+                    if (visitedArcs.get(i)) {
+                        if (arcCount == sources.length) {
+                            sources = Arrays.copyOf(sources, 2 * arcCount);
+                            targets = Arrays.copyOf(targets, 2 * arcCount);
+                        }
+                        sources[arcCount] = node;
+                        targets[arcCount] = adjacency.getTarget(i);
+                        arcCount++;
+                    }
+                }
+            }
+            this.nodes = Arrays.copyOf(sampledNodes, nodeCount);
+            this.arcSources = Arrays.copyOf(sources, arcCount);
+            this.arcTargets = Arrays.copyOf(targets, arcCount);
+        }
+
+        /**
+         * @return The ids of the sampled nodes in ascending order.
+         */
+        public int[] getNodes()
+        {
+            return nodes;
+        }
+
+        /**
+         * @return The number of sampled arcs.
+         */
+        public int getNumberOfArcs()
+        {
+            return arcSources.length;
+        }
+
+        /**
+         * @param i An arc index between 0 and {@link #getNumberOfArcs()}-1.
+         * @return The source node of the arc.
+         */
+        public int getArcSource(int i)
+        {
+            return arcSources[i];
+        }
+
+        /**
+         * @param i An arc index between 0 and {@link #getNumberOfArcs()}-1.
+         * @return The target node of the arc.
+         */
+        public int getArcTarget(int i)
+        {
+            return arcTargets[i];
+        }
+    }
+}
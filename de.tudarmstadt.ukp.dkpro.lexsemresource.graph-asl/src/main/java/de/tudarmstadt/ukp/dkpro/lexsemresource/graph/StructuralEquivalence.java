@@ -0,0 +1,380 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+/**
+ * Classes of structurally equivalent nodes of a directed graph. Two nodes i and j are
+ * structurally equivalent if they have the same predecessors and the same successors apart
+ * from i and j themselves, either both or none of the arcs between them, and either both or
+ * none of them a self loop. This is the definition used by JUNG's
+ * <code>StructurallyEquivalent</code>, which compares the neighbor sets of all pairs of nodes.
+ * <p>
+ * Here, each node gets a signature: an order independent hash of its predecessor and
+ * successor ids. Equivalent nodes without arcs between them have equal signatures, and
+ * equivalent nodes with arcs in both directions have equal signatures once each node is added
+ * to its own neighbor sets. Nodes are bucketed by both signatures, candidates in a bucket are
+ * verified by comparing their sorted neighbor lists, and the matches are merged into classes.
+ * Hashing and verification run in parallel, and the expected total time is linear in the size
+ * of the graph.
+ * <p>
+ * Classes are numbered in the order of their smallest node id. Nodes without an equivalent
+ * node form a class of their own.
+ */
+public class StructuralEquivalence {
+
+    // nodes or buckets per parallel task
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private final CompressedAdjacency successors;
+    private final CompressedAdjacency predecessors;
+    private final int parallelism;
+    private final int[] classes;
+    private final int[] sizes;
+
+    /**
+     * @param adjacency The graph. Classes are computed with one thread per processor.
+     */
+    public StructuralEquivalence(CompressedAdjacency adjacency)
+    {
+        this(adjacency, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param adjacency The graph.
+     * @param parallelism The number of threads used for hashing and verification.
+     */
+    public StructuralEquivalence(CompressedAdjacency adjacency, int parallelism)
+    {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.successors = adjacency;
+        this.predecessors = adjacency.transpose();
+        this.parallelism = parallelism;
+
+        int numberOfNodes = adjacency.getNumberOfNodes();
+        int[] parents = new int[numberOfNodes];
+        ExecutorService executor = parallelism > 1 && numberOfNodes > MIN_CHUNK_SIZE
+                ? Executors.newFixedThreadPool(parallelism) : null;
+        try {
+            long[] openKeys = new long[numberOfNodes];
+            long[] closedKeys = new long[numberOfNodes];
+            computeKeys(executor, openKeys, closedKeys);
+
+            int[] openRepresentatives = group(executor, openKeys, false);
+            int[] closedRepresentatives = group(executor, closedKeys, true);
+            for (int node = 0; node < numberOfNodes; node++) {
+                parents[node] = node;
+                union(parents, node, openRepresentatives[node]);
+                union(parents, node, closedRepresentatives[node]);
+            }
+        }
+        finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        // roots are the smallest node of their class, so classes come out in that order
+        classes = new int[numberOfNodes];
+        int numberOfClasses = 0;
+        for (int node = 0; node < numberOfNodes; node++) {
+            int root = find(parents, node);
+            classes[node] = root == node ? numberOfClasses++ : classes[root];
+        }
+        sizes = new int[numberOfClasses];
+        for (int c : classes) {
+            sizes[c]++;
+        }
+    }
+
+    /**
+     * Computes the signature of each node, once with the open and once with the closed
+     * neighbor sets, i.e. without and with the node itself.
+     */
+    private void computeKeys(ExecutorService executor, final long[] openKeys,
+            final long[] closedKeys)
+    {
+        run(executor, openKeys.length, new RangeTask() {
+            @Override
+            public void run(int from, int to)
+            {
+                for (int node = from; node < to; node++) {
+                    long out = sumOfHashes(successors, node);
+                    long in = sumOfHashes(predecessors, node);
+                    boolean loop = successors.containsArc(node, node);
+                    openKeys[node] = key(out, in, loop);
+                    closedKeys[node] = key(out + hash(node), in + hash(node), loop);
+                }
+            }
+        });
+    }
+
+    private static long sumOfHashes(CompressedAdjacency adjacency, int node)
+    {
+        long sum = 0;
+        for (int i = adjacency.getStart(node); i < adjacency.getEnd(node); i++) {
+            if (adjacency.getTarget(i) != node) {
+                sum += hash(adjacency.getTarget(i));
+            }
+        }
+        return sum;
+    }
+
+    private static long hash(int node)
+    {
+        return mix(node + 0x9E3779B97F4A7C15L);
+    }
+
+    private static long key(long out, long in, boolean loop)
+    {
+        return mix(out ^ mix(in) ^ (loop ? 0x5DEECE66DL : 0));
+    }
+
+    private static long mix(long h)
+    {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Buckets the nodes by key and verifies the candidates in each bucket.
+     *
+     * @return For each node the smallest node it was found equivalent to, possibly itself.
+     */
+    private int[] group(ExecutorService executor, final long[] keys, final boolean closed)
+    {
+        int numberOfNodes = keys.length;
+        int numberOfBuckets = Integer.highestOneBit(Math.max(1, numberOfNodes)) * 2;
+        final int mask = numberOfBuckets - 1;
+
+        // chain the nodes of each bucket in ascending order
+        final int[] heads = new int[numberOfBuckets];
+        Arrays.fill(heads, -1);
+        final int[] next = new int[numberOfNodes];
+        for (int node = numberOfNodes - 1; node >= 0; node--) {
+            int bucket = (int) keys[node] & mask;
+            next[node] = heads[bucket];
+            heads[bucket] = node;
+        }
+
+        // buckets are disjoint, so each task writes representatives of its own nodes only
+        final int[] representatives = new int[numberOfNodes];
+        Arrays.fill(representatives, -1);
+        run(executor, numberOfBuckets, new RangeTask() {
+            @Override
+            public void run(int from, int to)
+            {
+                for (int bucket = from; bucket < to; bucket++) {
+                    for (int node = heads[bucket]; node >= 0; node = next[node]) {
+                        if (representatives[node] >= 0) {
+                            continue;
+                        }
+                        representatives[node] = node;
+                        for (int other = next[node]; other >= 0; other = next[other]) {
+                            if (representatives[other] < 0 && keys[other] == keys[node]
+                                    && isEquivalent(node, other, closed)) {
+                                representatives[other] = node;
+                            }
+                        }
+                    }
+                }
+            }
+        });
+        return representatives;
+    }
+
+    private boolean isEquivalent(int node, int other, boolean closed)
+    {
+        return successors.containsArc(node, node) == successors.containsArc(other, other)
+                && Arrays.equals(getNeighborSet(successors, node, closed),
+                        getNeighborSet(successors, other, closed))
+                && Arrays.equals(getNeighborSet(predecessors, node, closed),
+                        getNeighborSet(predecessors, other, closed));
+    }
+
+    /**
+     * @return The sorted neighbors of the node, with the node itself added if closed and
+     *         removed otherwise.
+     */
+    private static int[] getNeighborSet(CompressedAdjacency adjacency, int node,
+            boolean closed)
+    {
+        int[] neighbors = adjacency.getNeighbors(node);
+        int position = Arrays.binarySearch(neighbors, node);
+        if (closed == (position >= 0)) {
+            return neighbors;
+        }
+        int[] result;
+        if (closed) {
+            position = -position - 1;
+            result = new int[neighbors.length + 1];
+            System.arraycopy(neighbors, 0, result, 0, position);
+            result[position] = node;
+            System.arraycopy(neighbors, position, result, position + 1,
+                    neighbors.length - position);
+        }
+        else {
+            result = new int[neighbors.length - 1];
+            System.arraycopy(neighbors, 0, result, 0, position);
+            System.arraycopy(neighbors, position + 1, result, position, result.length - position);
+        }
+        return result;
+    }
+
+    private static int find(int[] parents, int node)
+    {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+
+    // links the larger root below the smaller one, so that each root is its smallest node
+    private static void union(int[] parents, int a, int b)
+    {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if (rootA < rootB) {
+            parents[rootB] = rootA;
+        }
+        else if (rootB < rootA) {
+            parents[rootA] = rootB;
+        }
+    }
+
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    private void run(ExecutorService executor, int numberOfItems, final RangeTask task)
+    {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE,
+                (numberOfItems + 4 * parallelism - 1) / (4 * parallelism));
+        if (executor == null || numberOfItems <= chunkSize) {
+            task.run(0, numberOfItems);
+            return;
+        }
+        List<Callable<Void>> chunks = new ArrayList<Callable<Void>>();
+        for (int start = 0; start < numberOfItems; start += chunkSize) {
+            final int from = start;
+            final int to = Math.min(numberOfItems, start + chunkSize);
+            chunks.add(new Callable<Void>() {
+                @Override
+                public Void call()
+                {
+                    task.run(from, to);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(chunks)) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Structural equivalence was interrupted.", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Structural equivalence failed.", e.getCause());
+        }
+    }
+
+    /**
+     * @return The number of equivalence classes.
+     */
+    public int getNumberOfClasses()
+    {
+        return sizes.length;
+    }
+
+    /**
+     * @param node A node id.
+     * @return The equivalence class of the node.
+     */
+    public int getEquivalenceClass(int node)
+    {
+        return classes[node];
+    }
+
+    /**
+     * @param classId An equivalence class id.
+     * @return The number of nodes in the class.
+     */
+    public int getSize(int classId)
+    {
+        return sizes[classId];
+    }
+
+    /**
+     * @param classId An equivalence class id.
+     * @return The ids of the nodes in the class in ascending order.
+     */
+    public int[] getNodes(int classId)
+    {
+        int[] nodes = new int[sizes[classId]];
+        int count = 0;
+        for (int node = 0; node < classes.length; node++) {
+            if (classes[node] == classId) {
+                nodes[count++] = node;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return A copy of the equivalence class of each node.
+     */
+    public int[] getClasses()
+    {
+        return classes.clone();
+    }
+
+    /**
+     * @param entities The entity id table of the graph.
+     * @return The equivalence classes as sets of entities, including the single node classes.
+     */
+    public Set<Set<Entity>> getEntitySets(EntityAdjacency entities)
+    {
+        List<Set<Entity>> sets = new ArrayList<Set<Entity>>(sizes.length);
+        for (int c = 0; c < sizes.length; c++) {
+            sets.add(new HashSet<Entity>(2 * sizes[c]));
+        }
+        for (int node = 0; node < classes.length; node++) {
+            sets.get(classes[node]).add(entities.getEntity(node));
+        }
+        return new HashSet<Set<Entity>>(sets);
+    }
+}
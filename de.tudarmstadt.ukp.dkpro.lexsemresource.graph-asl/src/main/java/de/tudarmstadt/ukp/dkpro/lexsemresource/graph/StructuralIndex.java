@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+/**
+ * Structural indexes of a {@link CompressedAdjacency}: the in- and out-degree of each node, the
+ * leaves (no outgoing arcs), roots (no incoming arcs) and isolated nodes (neither), and the
+ * number of symmetric links. They are computed in a single pass over the arcs, so that the
+ * corresponding graph queries cost O(1) or O(result) afterwards.
+ * <p>
+ * The index can be saved next to a graph snapshot. Only the degrees and the number of symmetric
+ * links are stored; the node sets are derived from the degrees in O(V) on loading.
+ */
+public class StructuralIndex {
+
+    private static final int MAGIC = 0x4C535349;
+    private static final int VERSION = 1;
+
+    private final int numberOfArcs;
+    private final int[] inDegrees;
+    private final int[] outDegrees;
+    private final int numberOfSymmetricLinks;
+    private final BitSet leaves;
+    private final BitSet roots;
+    private final BitSet isolatedNodes;
+
+    /**
+     * @param adjacency The graph to index.
+     */
+    public StructuralIndex(CompressedAdjacency adjacency)
+    {
+        int numberOfNodes = adjacency.getNumberOfNodes();
+        numberOfArcs = adjacency.getNumberOfArcs();
+        inDegrees = new int[numberOfNodes];
+        outDegrees = new int[numberOfNodes];
+        int symmetricLinks = 0;
+        for (int source = 0; source < numberOfNodes; source++) {
+            outDegrees[source] = adjacency.getDegree(source);
+            for (int i = adjacency.getStart(source); i < adjacency.getEnd(source); i++) {
+                int target = adjacency.getTarget(i);
+                inDegrees[target]++;
+                // count each pair once, from its smaller end
+                if (source < target && adjacency.containsArc(target, source)) {
+                    symmetricLinks++;
+                }
+            }
+        }
+        numberOfSymmetricLinks = symmetricLinks;
+
+        leaves = new BitSet(numberOfNodes);
+        roots = new BitSet(numberOfNodes);
+        isolatedNodes = new BitSet(numberOfNodes);
+        indexNodes();
+    }
+
+    private StructuralIndex(int numberOfArcs, int[] inDegrees, int[] outDegrees,
+            int numberOfSymmetricLinks)
+    {
+        this.numberOfArcs = numberOfArcs;
+        this.inDegrees = inDegrees;
+        this.outDegrees = outDegrees;
+        this.numberOfSymmetricLinks = numberOfSymmetricLinks;
+        leaves = new BitSet(inDegrees.length);
+        roots = new BitSet(inDegrees.length);
+        isolatedNodes = new BitSet(inDegrees.length);
+        indexNodes();
+    }
+
+    private void indexNodes()
+    {
+        for (int node = 0; node < inDegrees.length; node++) {
+            if (outDegrees[node] == 0) {
+                leaves.set(node);
+            }
+            if (inDegrees[node] == 0) {
+                roots.set(node);
+            }
+            if (outDegrees[node] == 0 && inDegrees[node] == 0) {
+                isolatedNodes.set(node);
+            }
+        }
+    }
+
+    /**
+     * @return The number of indexed nodes.
+     */
+    public int getNumberOfNodes()
+    {
+        return inDegrees.length;
+    }
+
+    /**
+     * @return The number of arcs of the indexed graph.
+     */
+    public int getNumberOfArcs()
+    {
+        return numberOfArcs;
+    }
+
+    /**
+     * @param node A node id.
+     * @return The number of incoming arcs of the node.
+     */
+    public int getInDegree(int node)
+    {
+        return inDegrees[node];
+    }
+
+    /**
+     * @param node A node id.
+     * @return The number of outgoing arcs of the node.
+     */
+    public int getOutDegree(int node)
+    {
+        return outDegrees[node];
+    }
+
+    /**
+     * @return The number of node pairs that are linked in both directions.
+     */
+    public int getNumberOfSymmetricLinks()
+    {
+        return numberOfSymmetricLinks;
+    }
+
+    /**
+     * @return The nodes without outgoing arcs. The set must not be modified.
+     */
+    public BitSet getLeaves()
+    {
+        return leaves;
+    }
+
+    /**
+     * @return The nodes without incoming arcs. The set must not be modified.
+     */
+    public BitSet getRoots()
+    {
+        return roots;
+    }
+
+    /**
+     * @return The nodes without any arcs. The set must not be modified.
+     */
+    public BitSet getIsolatedNodes()
+    {
+        return isolatedNodes;
+    }
+
+    /**
+     * Writes the index to the given file. The data is written to a temporary file first, which
+     * then replaces the target file.
+     *
+     * @param file The target file.
+     * @throws IOException
+     */
+    public void save(File file) throws IOException
+    {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream os = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmpFile), 1 << 16));
+        try {
+            os.writeInt(MAGIC);
+            os.writeInt(VERSION);
+            os.writeInt(inDegrees.length);
+            os.writeInt(numberOfArcs);
+            os.writeInt(numberOfSymmetricLinks);
+            for (int degree : inDegrees) {
+                os.writeInt(degree);
+            }
+            for (int degree : outDegrees) {
+                os.writeInt(degree);
+            }
+        }
+        finally {
+            os.close();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Loads an index from the given file.
+     *
+     * @param file The file to read.
+     * @return The index stored in the file.
+     * @throws IOException If the file cannot be read or is not a valid index file of the
+     *             supported version.
+     */
+    public static StructuralIndex load(File file) throws IOException
+    {
+        DataInputStream is = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file), 1 << 16));
+        try {
+            if (is.readInt() != MAGIC) {
+                throw new IOException("Not a structural index file: " + file);
+            }
+            int version = is.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported structural index file version " + version
+                        + " in " + file + " (expected " + VERSION + ")");
+            }
+            int numberOfNodes = is.readInt();
+            int numberOfArcs = is.readInt();
+            int numberOfSymmetricLinks = is.readInt();
+            int[] inDegrees = new int[numberOfNodes];
+            for (int node = 0; node < numberOfNodes; node++) {
+                inDegrees[node] = is.readInt();
+            }
+            int[] outDegrees = new int[numberOfNodes];
+            for (int node = 0; node < numberOfNodes; node++) {
+                outDegrees[node] = is.readInt();
+            }
+            return new StructuralIndex(numberOfArcs, inDegrees, outDegrees,
+                    numberOfSymmetricLinks);
+        }
+        finally {
+            is.close();
+        }
+    }
+}
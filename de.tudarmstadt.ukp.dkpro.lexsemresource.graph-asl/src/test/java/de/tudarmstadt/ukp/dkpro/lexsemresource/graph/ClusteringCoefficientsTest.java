@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ClusteringCoefficientsTest
+{
+	@Test
+	public void testTriangleWithTail()
+	{
+		// triangle 0-1-2 with a tail 2 -> 3, arcs in mixed directions plus a self loop and a
+		// reciprocal arc that must not count twice
+		int[] sources = { 0, 2, 2, 1, 2, 3 };
+		int[] targets = { 1, 1, 0, 0, 3, 3 };
+		ClusteringCoefficients coefficients = new ClusteringCoefficients(
+				new CompressedAdjacency(5, sources, targets, 6));
+
+		assertEquals(1, coefficients.getNumberOfTriangles());
+		assertEquals(1, coefficients.getNumberOfTriangles(0));
+		assertEquals(0, coefficients.getNumberOfTriangles(3));
+		// triples: 1 + 1 + 3
+		assertEquals(5, coefficients.getNumberOfConnectedTriples());
+		assertEquals(3.0 / 5.0, coefficients.getGlobalCoefficient(), 1e-12);
+
+		assertEquals(1.0, coefficients.getLocalCoefficient(0), 1e-12);
+		assertEquals(1.0 / 3.0, coefficients.getLocalCoefficient(2), 1e-12);
+		assertEquals(0.0, coefficients.getLocalCoefficient(3), 1e-12);
+		assertEquals(0.0, coefficients.getLocalCoefficient(4), 1e-12);
+		assertEquals((2.0 + 1.0 / 3.0) / 5.0, coefficients.getAverageLocalCoefficient(), 1e-12);
+	}
+
+	@Test
+	public void testParallelMatchesBruteForce()
+	{
+		int numberOfNodes = 20000;
+		int numberOfArcs = 100000;
+		Random random = new Random(42);
+		int[] sources = new int[numberOfArcs];
+		int[] targets = new int[numberOfArcs];
+		for (int i = 0; i < numberOfArcs; i++) {
+			// a few hubs, so that the degree ordering matters
+			sources[i] = random.nextInt(10) == 0 ? random.nextInt(20) : random.nextInt(numberOfNodes);
+			targets[i] = random.nextInt(numberOfNodes);
+		}
+		CompressedAdjacency adjacency = new CompressedAdjacency(numberOfNodes, sources, targets,
+				numberOfArcs);
+		ClusteringCoefficients parallel = new ClusteringCoefficients(adjacency, 4);
+		ClusteringCoefficients sequential = new ClusteringCoefficients(adjacency, 1);
+
+		CompressedAdjacency undirected = adjacency.symmetrize();
+		long total = 0;
+		for (int node = 0; node < numberOfNodes; node++) {
+			long expected = 0;
+			int[] neighbors = undirected.getNeighbors(node);
+			for (int i = 0; i < neighbors.length; i++) {
+				for (int j = i + 1; j < neighbors.length; j++) {
+					if (neighbors[i] != node && neighbors[j] != node
+							&& undirected.containsArc(neighbors[i], neighbors[j])) {
+						expected++;
+					}
+				}
+			}
+			assertEquals(expected, parallel.getNumberOfTriangles(node));
+			assertEquals(expected, sequential.getNumberOfTriangles(node));
+			total += expected;
+		}
+		assertEquals(total / 3, parallel.getNumberOfTriangles());
+		assertEquals(sequential.getAverageLocalCoefficient(),
+				parallel.getAverageLocalCoefficient(), 0.0);
+	}
+}
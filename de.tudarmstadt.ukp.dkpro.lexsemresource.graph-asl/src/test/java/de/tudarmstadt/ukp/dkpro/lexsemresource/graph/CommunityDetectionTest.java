@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CommunityDetectionTest
+{
+	/**
+	 * Two cliques {0..3} and {4..7} joined by the arc 3 -> 4, a self loop at 0 and an
+	 * isolated node 8.
+	 */
+	private CompressedAdjacency createTwoCliques()
+	{
+		int[] sources = new int[14];
+		int[] targets = new int[14];
+		int arcs = 0;
+		for (int offset = 0; offset < 8; offset += 4) {
+			for (int i = 0; i < 4; i++) {
+				for (int j = i + 1; j < 4; j++) {
+					sources[arcs] = offset + i;
+					targets[arcs++] = offset + j;
+				}
+			}
+		}
+		sources[arcs] = 3;
+		targets[arcs++] = 4;
+		sources[arcs] = 0;
+		targets[arcs++] = 0;
+		return new CompressedAdjacency(9, sources, targets, arcs);
+	}
+
+	@Test
+	public void testTwoCliques()
+	{
+		CommunityDetection detection = new CommunityDetection(createTwoCliques(), 2);
+		int[] expected = { 0, 0, 0, 0, 1, 1, 1, 1, 2 };
+
+		assertArrayEquals(expected, detection.labelPropagation());
+		assertArrayEquals(expected, detection.louvain());
+
+		// 13 edges, each clique has 6 internal edges and a degree sum of 13
+		assertEquals(2 * (12.0 / 26 - 0.25), detection.modularity(expected), 1e-9);
+	}
+
+	@Test
+	public void testPlantedPartition()
+	{
+		// 50 groups of 100 nodes, dense inside the groups and sparse between them
+		int numberOfNodes = 5000;
+		int numberOfArcs = 30000;
+		int[] sources = new int[numberOfArcs];
+		int[] targets = new int[numberOfArcs];
+		Random random = new Random(1);
+		for (int i = 0; i < numberOfArcs; i++) {
+			sources[i] = random.nextInt(numberOfNodes);
+			targets[i] = random.nextInt(10) == 0 ? random.nextInt(numberOfNodes)
+					: sources[i] / 100 * 100 + random.nextInt(100);
+		}
+		CompressedAdjacency adjacency = new CompressedAdjacency(numberOfNodes, sources,
+				targets, numberOfArcs);
+
+		CommunityDetection sequential = new CommunityDetection(adjacency, 1);
+		CommunityDetection parallel = new CommunityDetection(adjacency, 4);
+
+		int[] louvain = parallel.louvain();
+		assertArrayEquals(sequential.louvain(), louvain);
+		assertTrue(parallel.modularity(louvain) > 0.7);
+
+		int[] labels = parallel.labelPropagation();
+		assertArrayEquals(sequential.labelPropagation(), labels);
+		assertTrue(parallel.modularity(labels) > 0.5);
+	}
+}
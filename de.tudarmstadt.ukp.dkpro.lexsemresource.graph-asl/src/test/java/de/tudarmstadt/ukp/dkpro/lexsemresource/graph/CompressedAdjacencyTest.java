@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompressedAdjacencyTest
+{
+	@Test
+	public void testNeighbors()
+	{
+		// arcs in arbitrary order, including one duplicate (0 -> 2)
+		int[] sources = { 2, 0, 0, 1, 0, 3 };
+		int[] targets = { 0, 2, 1, 3, 2, 1 };
+		CompressedAdjacency adjacency = new CompressedAdjacency(5, sources, targets, 6);
+
+		assertEquals(5, adjacency.getNumberOfNodes());
+		assertEquals(5, adjacency.getNumberOfArcs());
+
+		assertArrayEquals(new int[] { 1, 2 }, adjacency.getNeighbors(0));
+		assertArrayEquals(new int[] { 3 }, adjacency.getNeighbors(1));
+		assertArrayEquals(new int[] { 0 }, adjacency.getNeighbors(2));
+		assertArrayEquals(new int[] {}, adjacency.getNeighbors(4));
+
+		assertTrue(adjacency.containsArc(0, 2));
+		assertFalse(adjacency.containsArc(2, 1));
+		assertEquals(-1, adjacency.getRandomNeighbor(4, new Random(0)));
+	}
+
+	@Test
+	public void testTranspose()
+	{
+		int[] sources = { 0, 0, 1, 3 };
+		int[] targets = { 1, 2, 2, 2 };
+		CompressedAdjacency reversed = new CompressedAdjacency(4, sources, targets, 4).transpose();
+
+		assertEquals(4, reversed.getNumberOfArcs());
+		assertArrayEquals(new int[] {}, reversed.getNeighbors(0));
+		assertArrayEquals(new int[] { 0 }, reversed.getNeighbors(1));
+		assertArrayEquals(new int[] { 0, 1, 3 }, reversed.getNeighbors(2));
+	}
+}
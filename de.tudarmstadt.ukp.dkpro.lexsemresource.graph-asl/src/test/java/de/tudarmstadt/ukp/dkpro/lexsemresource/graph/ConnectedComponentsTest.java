@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ConnectedComponentsTest
+{
+	@Test
+	public void testComponents()
+	{
+		// components {0, 3}, {1, 2, 4, 5} (connected against arc direction) and {6}
+		int[] sources = { 0, 1, 4, 5 };
+		int[] targets = { 3, 2, 2, 4 };
+		ConnectedComponents components = new ConnectedComponents(
+				new CompressedAdjacency(7, sources, targets, 4));
+
+		assertEquals(3, components.getNumberOfComponents());
+		assertEquals(components.getComponent(0), components.getComponent(3));
+		assertEquals(components.getComponent(1), components.getComponent(5));
+		assertEquals(2, components.getComponent(6));
+
+		int largest = components.getLargestComponent();
+		assertEquals(4, components.getSize(largest));
+		assertArrayEquals(new int[] { 1, 2, 4, 5 }, components.getNodes(largest));
+	}
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+public class CycleHandlerJGraphTTest
+{
+	private static DirectedGraph<Entity, DefaultEdge> createChain(int length)
+	{
+		DirectedGraph<Entity, DefaultEdge> graph = new DefaultDirectedGraph<Entity, DefaultEdge>(
+				DefaultEdge.class);
+		for (int i = 0; i < length; i++) {
+			graph.addVertex(new Entity("n" + i));
+		}
+		for (int i = 1; i < length; i++) {
+			graph.addEdge(new Entity("n" + (i - 1)), new Entity("n" + i));
+		}
+		return graph;
+	}
+
+	@Test
+	public void testFindBackEdges()
+	{
+		// two cycles n0 -> n1 -> n2 -> n0 and n3 -> n4 -> n3, plus a self loop at n4
+		DirectedGraph<Entity, DefaultEdge> graph = createChain(5);
+		graph.addEdge(new Entity("n2"), new Entity("n0"));
+		graph.addEdge(new Entity("n4"), new Entity("n3"));
+		graph.addEdge(new Entity("n4"), new Entity("n4"));
+
+		List<DefaultEdge> backEdges = CycleHandlerJGraphT.findBackEdges(graph);
+		assertEquals(3, backEdges.size());
+
+		for (DefaultEdge edge : backEdges) {
+			graph.removeEdge(edge);
+		}
+		assertTrue(CycleHandlerJGraphT.findBackEdges(graph).isEmpty());
+		assertEquals(4, graph.edgeSet().size());
+	}
+
+	@Test
+	public void testDeepChain()
+	{
+		// deep enough to overflow the stack with a recursive search
+		DirectedGraph<Entity, DefaultEdge> graph = createChain(100000);
+		graph.addEdge(new Entity("n99999"), new Entity("n0"));
+
+		assertEquals(1, CycleHandlerJGraphT.findBackEdges(graph).size());
+	}
+}
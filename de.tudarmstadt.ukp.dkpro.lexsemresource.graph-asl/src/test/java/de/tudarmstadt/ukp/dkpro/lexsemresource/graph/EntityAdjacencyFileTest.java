@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+
+public class EntityAdjacencyFileTest
+{
+	@Test
+	public void testSaveLoad()
+		throws Exception
+	{
+		Entity[] entities = {
+				new Entity("Auto", PoS.n, "1"),
+				new Entity("fahren", PoS.v),
+				new Entity("Straße", PoS.n, "2") };
+		int[] sources = { 0, 1, 1 };
+		int[] targets = { 2, 0, 2 };
+		EntityAdjacency original = new EntityAdjacency(entities,
+				new CompressedAdjacency(3, sources, targets, 3));
+
+		File file = new File("target/test-output/EntityAdjacencyFileTest.bin");
+		file.getParentFile().mkdirs();
+		EntityAdjacencyFile.save(original, file);
+		EntityAdjacency loaded = EntityAdjacencyFile.load(file);
+
+		assertEquals(3, loaded.getNumberOfNodes());
+		assertEquals(3, loaded.getAdjacency().getNumberOfArcs());
+		for (int id = 0; id < entities.length; id++) {
+			assertEquals(entities[id].getId(), loaded.getEntity(id).getId());
+			assertEquals(id, loaded.getId(entities[id]));
+			assertArrayEquals(original.getAdjacency().getNeighbors(id),
+					loaded.getAdjacency().getNeighbors(id));
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraph.DirectionMode;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraphExporter.Format;
+
+public class EntityGraphExporterTest
+{
+	private EntityAdjacency graph;
+	private File directory;
+
+	@Before
+	public void setUp()
+	{
+		Entity[] entities = new Entity[5];
+		for (int i = 0; i < entities.length; i++) {
+			entities[i] = new Entity("n" + i, PoS.n);
+		}
+		entities[4] = new Entity("A&B <c>", PoS.v);
+		int[] sources = { 0, 0, 1, 3, 3, 4 };
+		int[] targets = { 1, 3, 2, 0, 4, 1 };
+		graph = new EntityAdjacency(entities, new CompressedAdjacency(5, sources, targets, 6));
+		directory = new File("target/test-output/EntityGraphExporterTest");
+		directory.mkdirs();
+	}
+
+	@Test
+	public void testCompressedEdgeList()
+		throws Exception
+	{
+		File file = new File(directory, "graph.tsv.gz");
+		EntityGraphExporter exporter = new EntityGraphExporter(graph);
+		exporter.setCompressed(true);
+		exporter.export(Format.EdgeList, file);
+
+		List<String> arcs = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(
+				new FileInputStream(file)), "UTF-8"));
+		try {
+			assertEquals("# nodes 5 arcs 6", reader.readLine());
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.startsWith("#")) {
+					arcs.add(line);
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+		assertEquals(Arrays.asList("0\t1", "0\t3", "1\t2", "3\t0", "3\t4", "4\t1"), arcs);
+	}
+
+	@Test
+	public void testNeighborhoodGraphML()
+		throws Exception
+	{
+		// the directed neighborhood of n3 is {n0, n3, n4}, exported as n0, n1, n2
+		File file = new File(directory, "neighborhood.graphml");
+		new EntityGraphExporter(graph).exportNeighborhood(Format.GraphML, graph.getEntity(3), 1,
+				DirectionMode.directed, file);
+
+		Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+		assertEquals(3, document.getElementsByTagName("node").getLength());
+		assertEquals(3, document.getElementsByTagName("edge").getLength());
+		assertEquals(graph.getEntity(4).getId(),
+				document.getElementsByTagName("data").item(4).getTextContent());
+	}
+
+	@Test
+	public void testBV()
+		throws Exception
+	{
+		File basename = new File(directory, "graph");
+		new EntityGraphExporter(graph).export(Format.BV, basename);
+
+		BitReader graphBits = new BitReader(Files.readAllBytes(new File(directory,
+				"graph.graph").toPath()));
+		BitReader offsetBits = new BitReader(Files.readAllBytes(new File(directory,
+				"graph.offsets").toPath()));
+		long offset = 0;
+		for (int node = 0; node < graph.getNumberOfNodes(); node++) {
+			offset += offsetBits.readGamma();
+			assertEquals(offset, graphBits.position);
+
+			int[] successors = new int[(int) graphBits.readGamma()];
+			for (int i = 0; i < successors.length; i++) {
+				long value = graphBits.readZeta(3);
+				successors[i] = (int) (i == 0 ? node + nat2int(value)
+						: successors[i - 1] + value + 1);
+			}
+			assertArrayEquals(graph.getAdjacency().getNeighbors(node), successors);
+		}
+		assertEquals(graphBits.position, offset + offsetBits.readGamma());
+		assertEquals(5, Files.readAllLines(new File(directory, "graph.ids").toPath()).size());
+	}
+
+	private static long nat2int(long x)
+	{
+		return (x >>> 1) ^ -(x & 1);
+	}
+
+	private static class BitReader
+	{
+		private final byte[] bytes;
+		private long position;
+
+		public BitReader(byte[] bytes)
+		{
+			this.bytes = bytes;
+		}
+
+		private long readBits(int length)
+		{
+			long value = 0;
+			for (int i = 0; i < length; i++) {
+				int bit = (bytes[(int) (position >>> 3)] >>> (7 - (position & 7))) & 1;
+				value = (value << 1) | bit;
+				position++;
+			}
+			return value;
+		}
+
+		private int readUnary()
+		{
+			int zeros = 0;
+			while (readBits(1) == 0) {
+				zeros++;
+			}
+			return zeros;
+		}
+
+		public long readGamma()
+		{
+			int msb = readUnary();
+			return ((1L << msb) | readBits(msb)) - 1;
+		}
+
+		public long readZeta(int k)
+		{
+			int h = readUnary();
+			long left = 1L << (h * k);
+			long m = readBits(h * k + k - 1);
+			if (m < left) {
+				return m + left - 1;
+			}
+			return (m << 1) + readBits(1) - 1;
+		}
+	}
+}
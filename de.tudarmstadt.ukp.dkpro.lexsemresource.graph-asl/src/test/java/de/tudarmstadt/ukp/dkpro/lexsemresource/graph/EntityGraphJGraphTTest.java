@@ -19,10 +19,15 @@ package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.Assume;
@@ -44,10 +49,8 @@ public class EntityGraphJGraphTTest
 	private static EntityGraph graph;
 
 	/**
-     * Made this static so that following tests don't run if assumption fails.
-     * (With AT_Before, tests also would not be executed but marked as passed)
-     * This could be changed back as soon as JUnit ignored tests after failed
-     * assumptions
+     * Connects to the Wikipedia test database once. If it cannot be reached, the tests that
+     * need it are skipped, while the tests on in-memory resources still run.
      *
 	 * @throws LexicalSemanticResourceException
 	 */
@@ -64,7 +67,7 @@ public class EntityGraphJGraphTTest
 					de.tudarmstadt.ukp.wikipedia.api.WikiConstants.Language._test);
 		}
 		catch (Exception e) {
-			Assume.assumeNoException(e);
+			return;
 		}
 		
 		File testOutput = new File("target/test-output/EntityGraphJGraphTTest");
@@ -77,6 +80,8 @@ public class EntityGraphJGraphTTest
 	@Test
 	public void testGraphIntegrity()
 	{
+		Assume.assumeNotNull(graph);
+
 		assertEquals(17, graph.getNumberOfNodes());
 
 		assertTrue(graph.containsVertex(new Entity("UKP")));
@@ -103,6 +108,8 @@ public class EntityGraphJGraphTTest
 	public void testIntrinsicInformationContent()
 		throws LexicalSemanticResourceException
 	{
+		Assume.assumeNotNull(graph);
+
 		Set<Entity> roots = graph.getLargestConnectedComponent().getRoots();
 		assertEquals(1, roots.size());
 
@@ -124,4 +131,75 @@ public class EntityGraphJGraphTTest
 				EPSILON);
 
 	}
+
+	@Test
+	public void testIncrementalUpdate()
+		throws LexicalSemanticResourceException
+	{
+		File incrementalDirectory = clear("target/test-output/EntityGraphJGraphTTest-incremental");
+		File fullDirectory = clear("target/test-output/EntityGraphJGraphTTest-full");
+
+		// version 1: r -> {a, b}, a -> {c, d}, b -> e
+		HierarchyResource previous = new HierarchyResource("1").add("r", "a").add("r", "b")
+				.add("a", "c").add("a", "d").add("b", "e");
+		EntityGraphJGraphT previousGraph = new EntityGraphJGraphT(incrementalDirectory)
+				.getEntityGraphJGraphT(previous);
+		previousGraph.getHyponymCountMap();
+		previousGraph.getRootPathMap();
+
+		// version 2 adds f below e, which changes the counts of e, b, r and the path of f only
+		HierarchyResource current = new HierarchyResource("2").add("r", "a").add("r", "b")
+				.add("a", "c").add("a", "d").add("b", "e").add("e", "f");
+		EntityGraphJGraphT incrementalGraph = new EntityGraphJGraphT(incrementalDirectory);
+		incrementalGraph.setIncrementalUpdate(true);
+		incrementalGraph.getEntityGraphJGraphT(current);
+
+		GraphDiff diff = incrementalGraph.getGraphDiff();
+		assertNotNull(diff);
+		assertEquals(1, diff.getNumberOfAddedEntities());
+		assertEquals(0, diff.getNumberOfRemovedEntities());
+		assertEquals(1, diff.getNumberOfAddedArcs());
+		assertEquals(0, diff.getNumberOfRemovedArcs());
+
+		// the same version built from scratch in a directory without a previous version
+		HierarchyResource currentCopy = new HierarchyResource("2").add("r", "a").add("r", "b")
+				.add("a", "c").add("a", "d").add("b", "e").add("e", "f");
+		EntityGraphJGraphT fullGraph = new EntityGraphJGraphT(fullDirectory);
+		fullGraph.setIncrementalUpdate(true);
+		fullGraph.getEntityGraphJGraphT(currentCopy);
+		assertNull(fullGraph.getGraphDiff());
+
+		Map<String, Integer> incrementalCounts = incrementalGraph.getHyponymCountMap();
+		Map<String, Integer> fullCounts = fullGraph.getHyponymCountMap();
+		assertEquals(7, fullCounts.size());
+		assertEquals(fullCounts, incrementalCounts);
+		assertEquals(Integer.valueOf(1), incrementalCounts.get(new Entity("e").getId()));
+		assertEquals(Integer.valueOf(2), incrementalCounts.get(new Entity("a").getId()));
+
+		// the unchanged subtree below a was taken over instead of being recomputed
+		assertTrue(currentCopy.getLookups().contains("c"));
+		assertFalse(current.getLookups().contains("a"));
+		assertFalse(current.getLookups().contains("c"));
+		assertFalse(current.getLookups().contains("d"));
+
+		Map<String, List<String>> fullPaths = fullGraph.getRootPathMap();
+		assertEquals(7, fullPaths.size());
+		assertEquals(fullPaths, incrementalGraph.getRootPathMap());
+		assertEquals(Arrays.asList(new Entity("f").getId(), new Entity("e").getId(),
+				new Entity("b").getId(), new Entity("r").getId()),
+				incrementalGraph.getRootPathMap().get(new Entity("f").getId()));
+	}
+
+	private static File clear(String path)
+	{
+		File directory = new File(path);
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		return directory;
+	}
 }
\ No newline at end of file
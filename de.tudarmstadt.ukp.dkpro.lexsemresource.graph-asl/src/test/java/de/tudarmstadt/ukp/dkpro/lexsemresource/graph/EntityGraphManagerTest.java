@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraphManager.EntityGraphType;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraphManager.GraphInfo;
+
+public class EntityGraphManagerTest
+{
+	private File directory;
+
+	@Before
+	public void setUp()
+	{
+		directory = new File("target/test-output/EntityGraphManagerTest");
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	@After
+	public void tearDown()
+	{
+		EntityGraphManager.setMemoryBudget(Long.MAX_VALUE);
+	}
+
+	private static HierarchyResource resource(String version)
+	{
+		// r -> {a, b}, a -> {c, d}, b -> e
+		return new HierarchyResource(version).add("r", "a").add("r", "b").add("a", "c")
+				.add("a", "d").add("b", "e");
+	}
+
+	@Test
+	public void testConcurrentAcquireBuildsOnce()
+		throws Exception
+	{
+		final HierarchyResource resource = resource("concurrent");
+		int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<EntityGraph>> futures = new ArrayList<Future<EntityGraph>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(new Callable<EntityGraph>()
+				{
+					@Override
+					public EntityGraph call()
+						throws Exception
+					{
+						start.await();
+						return EntityGraphManager.getEntityGraph(resource,
+								EntityGraphType.JGraphT, directory);
+					}
+				}));
+			}
+			start.countDown();
+
+			EntityGraph first = futures.get(0).get();
+			for (Future<EntityGraph> future : futures) {
+				assertSame(first, future.get());
+			}
+			assertEquals(1, resource.getEntityIterations());
+			assertEquals(6, first.getNumberOfNodes());
+			assertEquals(threads, getInfo(resource).getReferenceCount());
+
+			for (int i = 0; i < threads; i++) {
+				assertTrue(EntityGraphManager.release(first));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testReferenceCounting()
+		throws Exception
+	{
+		HierarchyResource resource = resource("references");
+		EntityGraph graph = EntityGraphManager.getEntityGraph(resource, EntityGraphType.JGraphT,
+				directory);
+		assertSame(graph, EntityGraphManager.getEntityGraph(resource, EntityGraphType.JGraphT,
+				directory));
+		assertEquals(1, resource.getEntityIterations());
+
+		GraphInfo info = getInfo(resource);
+		assertTrue(info.isAvailable());
+		assertEquals(2, info.getReferenceCount());
+		assertEquals(EntityGraphType.JGraphT, info.getType());
+		assertEquals(6 * 200 + 5 * 150, info.getEstimatedBytes());
+
+		assertTrue(EntityGraphManager.release(graph));
+		assertEquals(1, getInfo(resource).getReferenceCount());
+		assertTrue(EntityGraphManager.release(graph));
+		assertEquals(0, getInfo(resource).getReferenceCount());
+		// no references left to give back
+		assertFalse(EntityGraphManager.release(graph));
+
+		// an unreferenced graph stays cached until it is evicted
+		assertSame(graph, EntityGraphManager.getEntityGraph(resource, EntityGraphType.JGraphT,
+				directory));
+		assertTrue(EntityGraphManager.release(graph));
+		assertTrue(EntityGraphManager.evictUnreferenced() >= 1);
+		assertNull(getInfo(resource));
+	}
+
+	@Test
+	public void testEviction()
+		throws Exception
+	{
+		HierarchyResource first = resource("eviction1");
+		HierarchyResource second = resource("eviction2");
+
+		// room for one graph only
+		EntityGraphManager.evictUnreferenced();
+		EntityGraphManager.setMemoryBudget(6 * 200 + 5 * 150);
+
+		EntityGraph firstGraph = EntityGraphManager.getEntityGraph(first,
+				EntityGraphType.JGraphT, directory);
+		EntityGraph secondGraph = EntityGraphManager.getEntityGraph(second,
+				EntityGraphType.JGraphT, directory);
+
+		// both graphs are referenced, so none can be dropped
+		assertNotNull(getInfo(first));
+		assertNotNull(getInfo(second));
+
+		// the first graph is dropped as soon as it is released
+		assertTrue(EntityGraphManager.release(firstGraph));
+		assertNull(getInfo(first));
+		assertNotNull(getInfo(second));
+		assertEquals(6 * 200 + 5 * 150, EntityGraphManager.getEstimatedMemoryUsage());
+
+		// acquiring it again loads a new instance, which evicts the released second graph
+		assertTrue(EntityGraphManager.release(secondGraph));
+		EntityGraph reloaded = EntityGraphManager.getEntityGraph(first,
+				EntityGraphType.JGraphT, directory);
+		assertNotSame(firstGraph, reloaded);
+		assertTrue(getInfo(first).isLoadedFromFile());
+		assertNull(getInfo(second));
+		assertTrue(EntityGraphManager.release(reloaded));
+	}
+
+	private static GraphInfo getInfo(HierarchyResource resource)
+	{
+		String prefix = resource.getResourceName() + resource.getResourceVersion() + " (";
+		for (GraphInfo info : EntityGraphManager.getGraphInfos()) {
+			if (info.getName().startsWith(prefix)) {
+				return info;
+			}
+		}
+		return null;
+	}
+}
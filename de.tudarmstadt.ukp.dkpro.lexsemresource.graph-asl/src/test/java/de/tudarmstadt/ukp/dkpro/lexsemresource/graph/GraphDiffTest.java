@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+public class GraphDiffTest
+{
+	private static Entity entity(String lexeme)
+	{
+		return new Entity(lexeme);
+	}
+
+	@Test
+	public void testDiff()
+	{
+		// previous: r -> {a, b}, a -> c, b -> {d, x}
+		Entity[] previousEntities = { entity("x"), entity("r"), entity("a"), entity("b"),
+				entity("c"), entity("d") };
+		EntityAdjacency previous = new EntityAdjacency(previousEntities,
+				new CompressedAdjacency(6, new int[] { 1, 1, 2, 3, 3 },
+						new int[] { 2, 3, 4, 5, 0 }, 5));
+
+		// current: x was removed and y was added below d
+		Entity[] currentEntities = { entity("r"), entity("a"), entity("b"), entity("c"),
+				entity("d"), entity("y") };
+		EntityAdjacency current = new EntityAdjacency(currentEntities,
+				new CompressedAdjacency(6, new int[] { 0, 0, 1, 2, 4 },
+						new int[] { 1, 2, 3, 4, 5 }, 5));
+
+		GraphDiff diff = new GraphDiff(previous, current);
+		assertFalse(diff.isEmpty());
+		assertEquals(1, diff.getNumberOfAddedEntities());
+		assertEquals(1, diff.getNumberOfRemovedEntities());
+		assertEquals(1, diff.getNumberOfAddedArcs());
+		assertEquals(1, diff.getNumberOfRemovedArcs());
+
+		BitSet changed = diff.getChangedNodes();
+		assertEquals(bits(2, 4, 5), changed);
+		assertEquals(bits(0, 2, 4, 5), diff.getAncestorClosure(changed));
+		assertEquals(bits(2, 4, 5), diff.getDescendantClosure(changed));
+		assertTrue(diff.getChangedEntities().contains(entity("y")));
+	}
+
+	@Test
+	public void testUnchanged()
+	{
+		Entity[] entities = { entity("a"), entity("b"), entity("c") };
+		EntityAdjacency previous = new EntityAdjacency(entities,
+				new CompressedAdjacency(3, new int[] { 0, 1 }, new int[] { 1, 2 }, 2));
+
+		// same graph with a different id order
+		Entity[] reordered = { entity("c"), entity("b"), entity("a") };
+		EntityAdjacency current = new EntityAdjacency(reordered,
+				new CompressedAdjacency(3, new int[] { 2, 1 }, new int[] { 1, 0 }, 2));
+
+		GraphDiff diff = new GraphDiff(previous, current);
+		assertTrue(diff.isEmpty());
+		assertTrue(diff.getChangedNodes().isEmpty());
+	}
+
+	private static BitSet bits(int... ids)
+	{
+		BitSet bits = new BitSet();
+		for (int id : ids) {
+			bits.set(id);
+		}
+		return bits;
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+public class GraphStatisticsTest
+{
+	@Test
+	public void testPathStatistics()
+	{
+		// path 0 - 1 - 2 - 3 plus an isolated node 4
+		int[] sources = { 0, 2, 2 };
+		int[] targets = { 1, 1, 3 };
+		PathStatistics statistics = new PathStatistics(
+				new CompressedAdjacency(5, sources, targets, 3), 2);
+
+		assertEquals(3, statistics.getDiameter());
+		assertEquals(3, statistics.getEccentricity(0));
+		assertEquals(2, statistics.getEccentricity(1));
+		assertEquals(0, statistics.getEccentricity(4));
+		assertEquals(0, statistics.getRadius());
+		// 1+2+3 + 1+2 + 1 over 10 pairs
+		assertEquals(10, statistics.getShortestPathLengthSum());
+		assertEquals(1.0, statistics.getAverageShortestPathLength(), 1e-12);
+		assertEquals(3, PathStatistics.getEccentricity(
+				new CompressedAdjacency(5, sources, targets, 3), 3));
+	}
+
+	@Test
+	public void testPersistence()
+	{
+		Entity[] entities = new Entity[4];
+		for (int i = 0; i < entities.length; i++) {
+			entities[i] = new Entity("n" + i);
+		}
+		int[] sources = { 0, 0, 1, 2 };
+		int[] targets = { 1, 2, 2, 3 };
+		EntityAdjacency graph = new EntityAdjacency(entities,
+				new CompressedAdjacency(4, sources, targets, 4));
+
+		File file = new File("target/test-output/GraphStatisticsTest.properties");
+		file.getParentFile().mkdirs();
+		file.delete();
+
+		GraphStatistics statistics = new GraphStatistics(graph, file);
+		Map<Integer, Integer> distribution = statistics.getDegreeDistribution();
+		assertEquals(3, distribution.size());
+		assertEquals(Integer.valueOf(1), distribution.get(1));
+		assertEquals(Integer.valueOf(2), distribution.get(2));
+		assertEquals(Integer.valueOf(1), distribution.get(3));
+		assertNull(distribution.get(0));
+		assertEquals(2.0, statistics.getAverageDegree(), 1e-12);
+		assertEquals(1, statistics.getNumberOfTriangles());
+		assertEquals(2, statistics.getDiameter());
+
+		// a new instance answers from the file, without the per-node values
+		GraphStatistics reloaded = new GraphStatistics(graph, file);
+		assertEquals(distribution, reloaded.getDegreeDistribution());
+		assertEquals(statistics.getAverageClusterCoefficient(),
+				reloaded.getAverageClusterCoefficient(), 0.0);
+		assertEquals(statistics.getAverageShortestPathLength(),
+				reloaded.getAverageShortestPathLength(), 0.0);
+		assertEquals(1, reloaded.getRadius());
+
+		// statistics of a different graph are ignored
+		EntityAdjacency other = graph.withAdjacency(new CompressedAdjacency(4,
+				new int[] { 0, 1, 2 }, new int[] { 1, 2, 3 }, 3));
+		assertEquals(3, new GraphStatistics(other, file).getDiameter());
+	}
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.AbstractResource;
+
+/**
+ * A small in-memory resource whose entities form a hierarchy given by parent-child pairs. The
+ * first parent that is added is the root.
+ */
+class HierarchyResource
+	extends AbstractResource
+{
+	private final String version;
+	private final Map<String, Entity> entities = new LinkedHashMap<String, Entity>();
+	private final Map<Entity, Set<Entity>> children = new LinkedHashMap<Entity, Set<Entity>>();
+	private final Map<Entity, Set<Entity>> parents = new LinkedHashMap<Entity, Set<Entity>>();
+	private final AtomicInteger entityIterations = new AtomicInteger();
+	private final Set<String> lookups = Collections.synchronizedSet(new HashSet<String>());
+	private Entity root;
+
+	public HierarchyResource(String version)
+	{
+		this.version = version;
+	}
+
+	public HierarchyResource add(String parent, String child)
+	{
+		Entity parentEntity = entity(parent);
+		Entity childEntity = entity(child);
+		if (root == null) {
+			root = parentEntity;
+		}
+		children.get(parentEntity).add(childEntity);
+		parents.get(childEntity).add(parentEntity);
+		return this;
+	}
+
+	private Entity entity(String lexeme)
+	{
+		Entity entity = entities.get(lexeme);
+		if (entity == null) {
+			entity = new Entity(lexeme);
+			entities.put(lexeme, entity);
+			children.put(entity, new LinkedHashSet<Entity>());
+			parents.put(entity, new LinkedHashSet<Entity>());
+		}
+		return entity;
+	}
+
+	/**
+	 * @return How often {@link #getEntities()} was called, i.e. how often a graph was built.
+	 */
+	public int getEntityIterations()
+	{
+		return entityIterations.get();
+	}
+
+	/**
+	 * @return The lexemes that entities were looked up for, e.g. by their id.
+	 */
+	public Set<String> getLookups()
+	{
+		return lookups;
+	}
+
+	@Override
+	public String getResourceName()
+	{
+		return "Hierarchy";
+	}
+
+	@Override
+	public String getResourceVersion()
+	{
+		return version;
+	}
+
+	@Override
+	public boolean containsLexeme(String lexeme)
+	{
+		return entities.containsKey(lexeme);
+	}
+
+	@Override
+	public boolean containsEntity(Entity entity)
+	{
+		return children.containsKey(entity);
+	}
+
+	@Override
+	public Set<Entity> getEntity(String lexeme)
+	{
+		lookups.add(lexeme);
+		Entity entity = entities.get(lexeme);
+		if (entity == null) {
+			return Collections.emptySet();
+		}
+		return Collections.singleton(entity);
+	}
+
+	@Override
+	public Set<Entity> getEntity(String lexeme, PoS pos)
+	{
+		return getEntity(lexeme);
+	}
+
+	@Override
+	public Set<Entity> getEntity(String lexeme, PoS pos, String sense)
+	{
+		return getEntity(lexeme);
+	}
+
+	@Override
+	public Entity getMostFrequentEntity(String lexeme)
+	{
+		return entities.get(lexeme);
+	}
+
+	@Override
+	public Entity getMostFrequentEntity(String lexeme, PoS pos)
+	{
+		return entities.get(lexeme);
+	}
+
+	@Override
+	public String getGloss(Entity entity)
+	{
+		return "";
+	}
+
+	@Override
+	public int getNumberOfEntities()
+	{
+		return entities.size();
+	}
+
+	@Override
+	public Iterable<Entity> getEntities()
+	{
+		entityIterations.incrementAndGet();
+		return entities.values();
+	}
+
+	@Override
+	public Set<Entity> getParents(Entity entity)
+	{
+		Set<Entity> result = parents.get(entity);
+		return result != null ? new HashSet<Entity>(result) : new HashSet<Entity>();
+	}
+
+	@Override
+	public Set<Entity> getChildren(Entity entity)
+	{
+		Set<Entity> result = children.get(entity);
+		return result != null ? new HashSet<Entity>(result) : new HashSet<Entity>();
+	}
+
+	@Override
+	public Entity getRoot()
+	{
+		return root;
+	}
+
+	@Override
+	public Entity getRoot(PoS pos)
+	{
+		return root;
+	}
+
+	@Override
+	public Set<String> getRelatedLexemes(String lexeme, PoS pos, String sense,
+			LexicalRelation lexicalRelation)
+	{
+		return Collections.emptySet();
+	}
+
+	@Override
+	public Set<Entity> getRelatedEntities(Entity entity, SemanticRelation semanticRelation)
+	{
+		if (semanticRelation == SemanticRelation.hypernymy) {
+			return getParents(entity);
+		}
+		if (semanticRelation == SemanticRelation.hyponymy) {
+			return getChildren(entity);
+		}
+		return Collections.emptySet();
+	}
+
+	@Override
+	public int getShortestPathLength(Entity e1, Entity e2)
+	{
+		throw new UnsupportedOperationException();
+	}
+}
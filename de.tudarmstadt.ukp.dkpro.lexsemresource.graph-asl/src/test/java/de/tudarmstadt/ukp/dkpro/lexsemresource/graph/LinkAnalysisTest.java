@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LinkAnalysisTest
+{
+	@Test
+	public void testPageRank()
+	{
+		// a cycle 0 -> 1 -> 2 -> 0, where 3 and 4 also link to 0 and 4 is linked from nowhere
+		int[] sources = { 0, 1, 2, 3, 4 };
+		int[] targets = { 1, 2, 0, 0, 3 };
+		LinkAnalysis linkAnalysis = new LinkAnalysis(new CompressedAdjacency(5, sources, targets,
+				5), 1);
+		linkAnalysis.setTolerance(1e-12);
+		linkAnalysis.setMaxIterations(1000);
+		double[] rank = linkAnalysis.pageRank();
+
+		double sum = 0;
+		for (double score : rank) {
+			sum += score;
+		}
+		assertEquals(1.0, sum, 1e-9);
+		assertEquals(0.15 / 5, rank[4], 1e-9);
+		assertEquals(0.15 / 5 + 0.85 * rank[4], rank[3], 1e-9);
+		assertTrue(rank[0] > rank[1] && rank[1] > rank[2]);
+	}
+
+	@Test
+	public void testParallelEqualsSequential()
+	{
+		Random random = new Random(1);
+		int numberOfNodes = 20000;
+		int numberOfArcs = 100000;
+		int[] sources = new int[numberOfArcs];
+		int[] targets = new int[numberOfArcs];
+		for (int i = 0; i < numberOfArcs; i++) {
+			sources[i] = random.nextInt(numberOfNodes);
+			targets[i] = random.nextInt(numberOfNodes);
+		}
+		CompressedAdjacency adjacency = new CompressedAdjacency(numberOfNodes, sources, targets,
+				numberOfArcs);
+
+		double[] sequential = new LinkAnalysis(adjacency, 1).pageRank();
+		double[] parallel = new LinkAnalysis(adjacency, 4).pageRank();
+		assertArrayEquals(sequential, parallel, 1e-12);
+	}
+
+	@Test
+	public void testHITS()
+	{
+		// 0 and 1 are hubs pointing to the authorities 2 and 3
+		int[] sources = { 0, 0, 1, 1 };
+		int[] targets = { 2, 3, 2, 3 };
+		double[][] scores = new LinkAnalysis(new CompressedAdjacency(4, sources, targets, 4), 1)
+				.hits();
+
+		double h = Math.sqrt(0.5);
+		assertArrayEquals(new double[] { h, h, 0, 0 }, scores[0], 1e-9);
+		assertArrayEquals(new double[] { 0, 0, h, h }, scores[1], 1e-9);
+	}
+}
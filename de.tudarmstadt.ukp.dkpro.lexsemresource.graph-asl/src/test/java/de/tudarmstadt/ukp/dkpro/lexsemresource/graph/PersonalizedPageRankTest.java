@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+
+public class PersonalizedPageRankTest
+{
+	@Test
+	public void testAgreesWithPowerIteration()
+	{
+		Random random = new Random(3);
+		int numberOfNodes = 500;
+		int numberOfArcs = 2000;
+		int[] sources = new int[numberOfArcs];
+		int[] targets = new int[numberOfArcs];
+		for (int i = 0; i < numberOfArcs; i++) {
+			sources[i] = random.nextInt(numberOfNodes);
+			targets[i] = random.nextInt(numberOfNodes);
+		}
+		CompressedAdjacency adjacency = new CompressedAdjacency(numberOfNodes, sources, targets,
+				numberOfArcs);
+		Entity[] entities = new Entity[numberOfNodes];
+		for (int i = 0; i < numberOfNodes; i++) {
+			entities[i] = new Entity("n" + i);
+		}
+		EntityAdjacency graph = EntityAdjacency.withoutArcs(entities).withAdjacency(adjacency);
+
+		double[] jump = new double[numberOfNodes];
+		jump[7] = 2;
+		jump[42] = 1;
+		LinkAnalysis linkAnalysis = new LinkAnalysis(adjacency, 1);
+		linkAnalysis.setTolerance(1e-12);
+		linkAnalysis.setMaxIterations(1000);
+		double[] exact = linkAnalysis.pageRank(PersonalizedPageRank.DEFAULT_JUMP_PROBABILITY,
+				jump);
+
+		Map<Entity, Double> seeds = new HashMap<Entity, Double>();
+		seeds.put(entities[7], 2.0);
+		seeds.put(entities[42], 1.0);
+		Map<Entity, Double> top = new PersonalizedPageRank(graph).compute(seeds, 10);
+
+		assertEquals(10, top.size());
+		double previous = Double.POSITIVE_INFINITY;
+		for (Map.Entry<Entity, Double> entry : top.entrySet()) {
+			int id = graph.getId(entry.getKey());
+			assertEquals(exact[id], entry.getValue(), 1e-4);
+			assertTrue(entry.getValue() <= previous);
+			previous = entry.getValue();
+		}
+	}
+}
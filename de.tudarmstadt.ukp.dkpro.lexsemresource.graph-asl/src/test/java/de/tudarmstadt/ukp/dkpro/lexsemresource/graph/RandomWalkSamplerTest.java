@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RandomWalkSamplerTest
+{
+	private static CompressedAdjacency createGraph(int numberOfNodes, int numberOfArcs)
+	{
+		Random random = new Random(42);
+		int[] sources = new int[numberOfArcs];
+		int[] targets = new int[numberOfArcs];
+		for (int i = 0; i < numberOfArcs; i++) {
+			sources[i] = random.nextInt(numberOfNodes);
+			targets[i] = random.nextInt(numberOfNodes);
+		}
+		return new CompressedAdjacency(numberOfNodes, sources, targets, numberOfArcs);
+	}
+
+	@Test
+	public void testReproducible()
+	{
+		CompressedAdjacency adjacency = createGraph(5000, 20000);
+
+		RandomWalkSampler.Sample first = new RandomWalkSampler(adjacency, 4, 7).sample(750);
+		RandomWalkSampler.Sample second = new RandomWalkSampler(adjacency, 4, 7).sample(750);
+
+		assertTrue(first.getNodes().length >= 750);
+		assertArrayEquals(first.getNodes(), second.getNodes());
+		assertEquals(first.getNumberOfArcs(), second.getNumberOfArcs());
+		for (int i = 0; i < first.getNumberOfArcs(); i++) {
+			assertEquals(first.getArcSource(i), second.getArcSource(i));
+			assertEquals(first.getArcTarget(i), second.getArcTarget(i));
+			assertTrue(adjacency.containsArc(first.getArcSource(i), first.getArcTarget(i)));
+		}
+	}
+
+	@Test
+	public void testStartNodes()
+	{
+		// a chain 0 -> 1 -> 2 -> 3 and an isolated node 4
+		int[] sources = { 0, 1, 2 };
+		int[] targets = { 1, 2, 3 };
+		CompressedAdjacency adjacency = new CompressedAdjacency(5, sources, targets, 3);
+
+		RandomWalkSampler sampler = new RandomWalkSampler(adjacency, 2, 1);
+		sampler.setStartNodes(new int[] { 0 });
+		sampler.setRestartProbability(0.1);
+		RandomWalkSampler.Sample sample = sampler.sample(4);
+
+		assertArrayEquals(new int[] { 0, 1, 2, 3 }, sample.getNodes());
+		assertEquals(3, sample.getNumberOfArcs());
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class StructuralEquivalenceTest
+{
+	@Test
+	public void testClasses()
+	{
+		// a tree 0 -> {1, 2, 3}, 3 -> 4, a mutual pair 5 <-> 6 pointing to 7, and isolated 8, 9
+		int[] sources = { 0, 0, 0, 3, 5, 6, 5, 6 };
+		int[] targets = { 1, 2, 3, 4, 6, 5, 7, 7 };
+		StructuralEquivalence equivalence = new StructuralEquivalence(
+				new CompressedAdjacency(10, sources, targets, 8));
+
+		assertArrayEquals(new int[] { 0, 1, 1, 2, 3, 4, 4, 5, 6, 6 }, equivalence.getClasses());
+		assertEquals(7, equivalence.getNumberOfClasses());
+		assertArrayEquals(new int[] { 5, 6 }, equivalence.getNodes(4));
+	}
+
+	@Test
+	public void testAgainstPairwiseComparison()
+	{
+		// small dense graph, so that many pairs are equivalent, including self loops
+		Random random = new Random(3);
+		int numberOfNodes = 30;
+		int[] sources = new int[40];
+		int[] targets = new int[40];
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = random.nextInt(8);
+			targets[i] = 8 + random.nextInt(numberOfNodes - 8);
+			if (i % 10 == 0) {
+				targets[i] = sources[i];
+			}
+		}
+		CompressedAdjacency adjacency = new CompressedAdjacency(numberOfNodes, sources,
+				targets, sources.length);
+		StructuralEquivalence equivalence = new StructuralEquivalence(adjacency, 1);
+
+		for (int i = 0; i < numberOfNodes; i++) {
+			for (int j = i + 1; j < numberOfNodes; j++) {
+				if (isEquivalent(adjacency, i, j)) {
+					assertEquals(equivalence.getEquivalenceClass(i),
+							equivalence.getEquivalenceClass(j));
+				}
+				else {
+					assertNotEquals(i + " and " + j + " are not equivalent",
+							equivalence.getEquivalenceClass(i),
+							equivalence.getEquivalenceClass(j));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParallel()
+	{
+		Random random = new Random(5);
+		int numberOfNodes = 20000;
+		int numberOfArcs = 30000;
+		int[] sources = new int[numberOfArcs];
+		int[] targets = new int[numberOfArcs];
+		for (int i = 0; i < numberOfArcs; i++) {
+			sources[i] = random.nextInt(1000);
+			targets[i] = random.nextInt(numberOfNodes);
+		}
+		CompressedAdjacency adjacency = new CompressedAdjacency(numberOfNodes, sources,
+				targets, numberOfArcs);
+
+		assertArrayEquals(new StructuralEquivalence(adjacency, 1).getClasses(),
+				new StructuralEquivalence(adjacency, 4).getClasses());
+	}
+
+	// the definition of JUNG's StructurallyEquivalent
+	private boolean isEquivalent(CompressedAdjacency adjacency, int i, int j)
+	{
+		CompressedAdjacency reversed = adjacency.transpose();
+		return adjacency.containsArc(i, i) == adjacency.containsArc(j, j)
+				&& adjacency.containsArc(i, j) == adjacency.containsArc(j, i)
+				&& getOthers(adjacency, i, i, j).equals(getOthers(adjacency, j, i, j))
+				&& getOthers(reversed, i, i, j).equals(getOthers(reversed, j, i, j));
+	}
+
+	private Set<Integer> getOthers(CompressedAdjacency adjacency, int node, int i, int j)
+	{
+		Set<Integer> neighbors = new HashSet<Integer>();
+		for (int neighbor : adjacency.getNeighbors(node)) {
+			neighbors.add(neighbor);
+		}
+		neighbors.remove(i);
+		neighbors.remove(j);
+		return neighbors;
+	}
+}
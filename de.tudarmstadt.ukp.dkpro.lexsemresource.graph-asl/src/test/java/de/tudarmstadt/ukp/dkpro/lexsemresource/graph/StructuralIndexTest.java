@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+public class StructuralIndexTest
+{
+	@Test
+	public void testIndex()
+		throws Exception
+	{
+		// 0 -> 1, 0 -> 2, 1 <-> 2, 2 -> 3, node 4 isolated
+		int[] sources = { 0, 0, 1, 2, 2 };
+		int[] targets = { 1, 2, 2, 1, 3 };
+		StructuralIndex index = new StructuralIndex(
+				new CompressedAdjacency(5, sources, targets, 5));
+
+		assertEquals(1, index.getNumberOfSymmetricLinks());
+		assertEquals(2, index.getInDegree(2));
+		assertEquals(2, index.getOutDegree(2));
+		assertEquals(bits(3, 4), index.getLeaves());
+		assertEquals(bits(0, 4), index.getRoots());
+		assertEquals(bits(4), index.getIsolatedNodes());
+
+		File file = new File("target/test-output/StructuralIndexTest.bin");
+		file.getParentFile().mkdirs();
+		index.save(file);
+		StructuralIndex loaded = StructuralIndex.load(file);
+
+		assertEquals(5, loaded.getNumberOfNodes());
+		assertEquals(5, loaded.getNumberOfArcs());
+		assertEquals(1, loaded.getNumberOfSymmetricLinks());
+		assertEquals(index.getLeaves(), loaded.getLeaves());
+		assertEquals(index.getRoots(), loaded.getRoots());
+		assertEquals(index.getIsolatedNodes(), loaded.getIsolatedNodes());
+		for (int node = 0; node < 5; node++) {
+			assertEquals(index.getInDegree(node), loaded.getInDegree(node));
+			assertEquals(index.getOutDegree(node), loaded.getOutDegree(node));
+		}
+	}
+
+	private static BitSet bits(int... nodes)
+	{
+		BitSet set = new BitSet();
+		for (int node : nodes) {
+			set.set(node);
+		}
+		return set;
+	}
+}
@@ -17,17 +17,29 @@
  *******************************************************************************/
 package de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus;
 
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LSRFramework;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.core.AbstractResource;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.db.OpenThesaurusDatabase;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.util.OpenThesaurusEntityIterable;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.util.OpenThesaurusHypernymGraph;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.util.OpenThesaurusUtils;
 import de.tudarmstadt.ukp.openthesaurus.api.OTLanguage;
 import de.tudarmstadt.ukp.openthesaurus.api.OpenThesaurus;
@@ -45,13 +57,24 @@ import de.tudarmstadt.ukp.openthesaurus.exception.OpenThesaurusException;
  */
 public class OpenThesaurusResource extends AbstractResource {
 
+	private static final Log log = LogFactory.getLog(OpenThesaurusResource.class);
+
 	DatabaseConfiguration dbConfig;
 	OpenThesaurus openThesaurus;
+	/** Direct database access, if available it answers all queries. */
+	OpenThesaurusDatabase database;
+	/** The hypernymy links for path queries, loaded on first use. */
+	private OpenThesaurusHypernymGraph hypernymGraph;
+	private boolean persistHypernymGraph = false;
 	private final static String resourceName = "OpenThesaurus";
 	private final static String resourceVersion = "1.0";
 
+	/** The maximum number of database connections of a resource. */
+	private final static int connectionPoolSize = 4;
+
 	/**
-	 * Needs database configuration and language
+	 * Answers all queries with direct database access, over a pool of at most
+	 * {@value #connectionPoolSize} connections, without the OpenThesaurus API.
 	 * @param host
 	 * @param database
 	 * @param user
@@ -60,7 +83,22 @@ public class OpenThesaurusResource extends AbstractResource {
 	 * @throws LexicalSemanticResourceException
 	 */
 	public OpenThesaurusResource(String host, String database, String user, String password, String language) throws LexicalSemanticResourceException {
-	       this(new DatabaseConfiguration(host, database, user, password, resolveLanguage(language)));
+	       try {
+	           this.database = OpenThesaurusDatabase.connect(host, database, user, password,
+	                   resolveLanguage(language), connectionPoolSize);
+	           this.isCaseSensitive = false;
+	       } catch (SQLException e) {
+	           throw new LexicalSemanticResourceException("OpenThesaurus could not be initialized.",e);
+	       }
+	}
+
+	/**
+	 * Answers all queries with direct database access, without the OpenThesaurus API.
+	 * @param database The OpenThesaurus database.
+	 */
+	public OpenThesaurusResource(OpenThesaurusDatabase database) {
+		this.database = database;
+		this.isCaseSensitive = false;
 	}
 
 	public OpenThesaurusResource(DatabaseConfiguration dbConfig) throws LexicalSemanticResourceException {
@@ -74,6 +112,26 @@ public class OpenThesaurusResource extends AbstractResource {
         }
 	 }
 
+	/**
+	 * If set, the hypernymy graph used for path queries is saved in the LSR workspace and loaded
+	 * from there on the next start, unless the number of synsets or links in the database changed.
+	 * This only applies to resources with direct database access.
+	 * @param persistHypernymGraph Whether to persist the graph.
+	 */
+	public void setPersistHypernymGraph(boolean persistHypernymGraph) {
+		this.persistHypernymGraph = persistHypernymGraph;
+	}
+
+	/**
+	 * Closes the connection pool, if the resource has direct database access. The resource
+	 * cannot answer queries afterwards.
+	 */
+	public void close() {
+		if (database != null) {
+			database.close();
+		}
+	}
+
 	protected static int resolveLanguage(final String language) {
 		String l = language.toLowerCase().trim();
 		if ("de".equals(l)) {
@@ -87,6 +145,10 @@ public class OpenThesaurusResource extends AbstractResource {
 
 	@Override
 	public boolean containsEntity(Entity entity) throws LexicalSemanticResourceException  {
+		if (database != null) {
+			int synsetId = getSynsetId(entity);
+			return synsetId >= 0 && entity.equals(getEntities(Collections.singleton(synsetId)).get(synsetId));
+		}
 		try {
 
 			Synset synset = OpenThesaurusUtils.entityToSynset(openThesaurus, entity);
@@ -108,16 +170,33 @@ public class OpenThesaurusResource extends AbstractResource {
 	@Override
 	public boolean containsLexeme(String lexeme) throws LexicalSemanticResourceException {
 		try{
-			return openThesaurus.getTermsByWord(lexeme).isEmpty();
+			if (database != null) {
+				return database.containsWord(lexeme, isCaseSensitive);
+			}
+			return !openThesaurus.getTermsByWord(lexeme).isEmpty();
 
 		}catch(OpenThesaurusException e){
 			throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+		}catch(SQLException e){
+			throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
 		}
 	}
 
 
 	@Override
 	public Iterable<Entity> getEntities() throws LexicalSemanticResourceException {
+		if (database != null) {
+			return new Iterable<Entity>() {
+				@Override
+				public Iterator<Entity> iterator() {
+					try {
+						return database.scanEntities();
+					} catch (SQLException e) {
+						throw new IllegalStateException("OpenThesaurus Exception ", e);
+					}
+				}
+			};
+		}
 		try {
 			return new OpenThesaurusEntityIterable(openThesaurus);
 		} catch (OpenThesaurusException e) {
@@ -129,6 +208,14 @@ public class OpenThesaurusResource extends AbstractResource {
 	@Override
 	public Set<Entity> getEntity(String lexeme)	throws LexicalSemanticResourceException {
 
+		if (database != null) {
+			try {
+				return new HashSet<Entity>(getEntities(database.getSynsetIds(lexeme, isCaseSensitive)).values());
+			} catch (SQLException e) {
+				throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+			}
+		}
+
 		Set<Entity> result = new HashSet<Entity>();
 		try {
 			Set<Synset> synsets = openThesaurus.getSynsetsByWord(lexeme);
@@ -155,6 +242,17 @@ public class OpenThesaurusResource extends AbstractResource {
 	public Set<Entity> getEntity(String lexeme, PoS pos, String sense) throws LexicalSemanticResourceException {
 
 		Set<Entity> result =  new HashSet<Entity>();
+		if (database != null) {
+			try {
+				int synsetId = database.getSynsetId(Integer.parseInt(sense), lexeme, isCaseSensitive);
+				if (synsetId >= 0) {
+					result.addAll(getEntities(Collections.singleton(synsetId)).values());
+				}
+			} catch (SQLException e) {
+				throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+			}
+			return result;
+		}
 		try {
 			Term term = OpenThesaurusUtils.getTermBySense(openThesaurus, lexeme,
 													sense, isCaseSensitive);
@@ -184,9 +282,14 @@ public class OpenThesaurusResource extends AbstractResource {
 	@Override
 	public int getNumberOfEntities() throws LexicalSemanticResourceException {
 		try {
+			if (database != null) {
+				return database.getNumberOfSynsets();
+			}
 			return openThesaurus.getNumberOfSynsets();
 		} catch (OpenThesaurusException e) {
 			throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+		} catch (SQLException e) {
+			throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
 		}
 	}
 
@@ -195,6 +298,10 @@ public class OpenThesaurusResource extends AbstractResource {
 	public Set<Entity> getChildren(Entity entity)
 			throws LexicalSemanticResourceException {
 
+		if (database != null) {
+			return getLinkedEntities(entity, false);
+		}
+
 		Set<Entity> children = new HashSet<Entity>();
 		try {
 
@@ -215,6 +322,10 @@ public class OpenThesaurusResource extends AbstractResource {
 	@Override
 	public Set<Entity> getParents(Entity entity) throws LexicalSemanticResourceException {
 
+		if (database != null) {
+			return getLinkedEntities(entity, true);
+		}
+
 		Set<Entity> parents = new HashSet<Entity>();
 		try {
 
@@ -252,6 +363,18 @@ public class OpenThesaurusResource extends AbstractResource {
 			LexicalRelation lexicalRelation) throws LexicalSemanticResourceException {
 
 		Set<String> relatedLexemes = new HashSet<String>();
+		if (database != null) {
+			try {
+				int termId = Integer.parseInt(sense);
+				if (lexicalRelation.equals(LexicalRelation.antonymy)
+						&& database.getSynsetId(termId, lexeme, isCaseSensitive) >= 0) {
+					relatedLexemes.addAll(database.getAntonyms(termId));
+				}
+			} catch (SQLException e) {
+				throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+			}
+			return relatedLexemes;
+		}
 		try {
 			Term term = OpenThesaurusUtils.getTermBySense(openThesaurus, lexeme,
 					sense, isCaseSensitive);
@@ -314,6 +437,15 @@ public class OpenThesaurusResource extends AbstractResource {
 			return 0;
 		}
 
+		if (database != null) {
+			int s1 = getSynsetId(e1);
+			int s2 = getSynsetId(e2);
+			if (s1 < 0 || s2 < 0) {
+				return -1;
+			}
+			return getHypernymGraph().getShortestPathLength(s1, s2);
+		}
+
 		try{
 
 			Synset s1 = OpenThesaurusUtils.entityToSynset(openThesaurus, e1);
@@ -328,7 +460,8 @@ public class OpenThesaurusResource extends AbstractResource {
 			while(!queue.isEmpty()){
 				Synset synset = queue.pop();
 
-				Set<Synset> neighbors = synset.getSynsetLinks(SynsetLinkType.HYPERNYMY);
+				// copy, as the API may return its internal set
+				Set<Synset> neighbors = new HashSet<Synset>(synset.getSynsetLinks(SynsetLinkType.HYPERNYMY));
 				neighbors.addAll(synset.getSynsetLinksBackwards(SynsetLinkType.HYPERNYMY));
 
 				for(Synset neighbor : neighbors){
@@ -352,6 +485,9 @@ public class OpenThesaurusResource extends AbstractResource {
    @Override
 	public void setIsCaseSensitive(boolean isCaseSensitive){
         this.isCaseSensitive = isCaseSensitive;
+        if (openThesaurus == null) {
+            return;
+        }
         try {
 			openThesaurus.setIsCaseSensitive(isCaseSensitive);
 		} catch (OpenThesaurusException e) {
@@ -362,7 +498,7 @@ public class OpenThesaurusResource extends AbstractResource {
 
     @Override
 	public boolean getIsCaseSensitive(){
-        assert(openThesaurus.getIsCaseSensitive() == this.isCaseSensitive);
+        assert(openThesaurus == null || openThesaurus.getIsCaseSensitive() == this.isCaseSensitive);
         return isCaseSensitive;
     }
 
@@ -400,4 +536,90 @@ public class OpenThesaurusResource extends AbstractResource {
         throw new UnsupportedOperationException();
     }
 
+	/**
+	 * @return The id of the synset of the term in the sense of the first lexeme, -1 if there is none.
+	 */
+	private int getSynsetId(Entity entity) throws LexicalSemanticResourceException {
+		try {
+			return database.getSynsetId(Integer.parseInt(entity.getSense(entity.getFirstLexeme())));
+		} catch (NumberFormatException e) {
+			return -1;
+		} catch (SQLException e) {
+			throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+		}
+	}
+
+	private Map<Integer, Entity> getEntities(Collection<Integer> synsetIds) throws LexicalSemanticResourceException {
+		try {
+			return database.getEntities(synsetIds);
+		} catch (SQLException e) {
+			throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+		}
+	}
+
+	/**
+	 * @return The hypernyms or hyponyms of the entity, fetched with one batched query for the terms.
+	 */
+	private Set<Entity> getLinkedEntities(Entity entity, boolean hypernyms) throws LexicalSemanticResourceException {
+		int synsetId = getSynsetId(entity);
+		if (synsetId < 0) {
+			return new HashSet<Entity>();
+		}
+		try {
+			Map<Integer, Set<Integer>> links = hypernyms
+					? database.getHypernymIds(Collections.singleton(synsetId))
+					: database.getHyponymIds(Collections.singleton(synsetId));
+			Set<Integer> linked = links.get(synsetId);
+			if (linked == null) {
+				return new HashSet<Entity>();
+			}
+			return new HashSet<Entity>(database.getEntities(linked).values());
+		} catch (SQLException e) {
+			throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+		}
+	}
+
+	/**
+	 * Loads the hypernymy graph on first use, from the workspace if it is persisted and up to date,
+	 * otherwise with a single query over all links.
+	 */
+	private synchronized OpenThesaurusHypernymGraph getHypernymGraph() throws LexicalSemanticResourceException {
+		if (hypernymGraph != null) {
+			return hypernymGraph;
+		}
+		try {
+			int numberOfSynsets = database.getNumberOfSynsets();
+			File file = null;
+			if (persistHypernymGraph) {
+				File directory = new File(LSRFramework.getWorkspace(), OpenThesaurusHypernymGraph.class.getName());
+				if (!directory.exists()) {
+					directory.mkdirs();
+				}
+				file = new File(directory, "HypernymGraph_" + database.getName().replaceAll("[^A-Za-z0-9.-]", "_"));
+				if (file.canRead()) {
+					OpenThesaurusHypernymGraph graph = OpenThesaurusHypernymGraph.load(file);
+					if (graph.getNumberOfSynsets() == numberOfSynsets
+							&& graph.getNumberOfLinks() == database.getNumberOfHypernymLinks()) {
+						log.info("Hypernym graph loaded from " + file.getAbsolutePath());
+						hypernymGraph = graph;
+						return hypernymGraph;
+					}
+					log.info("Hypernym graph in " + file.getAbsolutePath() + " is outdated.");
+				}
+			}
+
+			int[][] links = database.getHypernymLinks();
+			hypernymGraph = OpenThesaurusHypernymGraph.build(numberOfSynsets, links[0], links[1]);
+			log.info("Hypernym graph built with " + hypernymGraph.getNumberOfNodes() + " synsets.");
+			if (file != null) {
+				hypernymGraph.save(file);
+				log.info("Hypernym graph saved to " + file.getAbsolutePath());
+			}
+			return hypernymGraph;
+		} catch (SQLException e) {
+			throw new LexicalSemanticResourceException("OpenThesaurus Exception ",e);
+		} catch (IOException e) {
+			throw new LexicalSemanticResourceException(e);
+		}
+	}
 }
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A small pool of JDBC connections. Each pooled connection caches its prepared statements, so
+ * that a statement is only prepared once per connection. At most <code>maxSize</code>
+ * connections are handed out at the same time, further callers wait until one is released.
+ * <p>
+ * Connections that were idle for a while are validated before they are handed out again, and
+ * connections that failed during use are closed instead of being returned to the pool.
+ */
+public class ConnectionPool {
+
+    private static final Log log = LogFactory.getLog(ConnectionPool.class);
+
+    /** Idle connections older than this are validated before use. */
+    private static final long VALIDATION_INTERVAL = 30 * 1000;
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new ArrayDeque<PooledConnection>();
+    private boolean closed = false;
+
+    /**
+     * @param url The JDBC URL.
+     * @param user The database user.
+     * @param password The password of the user.
+     * @param maxSize The maximum number of connections in use at the same time.
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The pool needs at least one connection.");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Takes a connection from the pool, opening a new one if no idle connection is left. Every
+     * acquired connection has to be given back with {@link #release(PooledConnection)}.
+     *
+     * @return A connection.
+     * @throws SQLException If a new connection cannot be opened.
+     */
+    public PooledConnection acquire() throws SQLException {
+        try {
+            permits.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection.", e);
+        }
+        try {
+            while (true) {
+                PooledConnection connection;
+                synchronized (idle) {
+                    if (closed) {
+                        throw new SQLException("The connection pool is closed.");
+                    }
+                    connection = idle.pollFirst();
+                }
+                if (connection == null) {
+                    return new PooledConnection(openConnection());
+                }
+                if (connection.isUsable()) {
+                    return connection;
+                }
+                connection.close();
+            }
+        }
+        catch (SQLException e) {
+            permits.release();
+            throw e;
+        }
+        catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a connection to the pool.
+     *
+     * @param connection A connection from {@link #acquire()}.
+     */
+    public void release(PooledConnection connection) {
+        try {
+            boolean keep;
+            synchronized (idle) {
+                keep = !closed && !connection.broken;
+                if (keep) {
+                    connection.lastUsed = System.currentTimeMillis();
+                    idle.addFirst(connection);
+                }
+            }
+            if (!keep) {
+                connection.close();
+            }
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return The JDBC URL of the connections.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Opens a connection that is not managed by the pool. The caller has to close it.
+     *
+     * @return A new connection.
+     * @throws SQLException
+     */
+    public Connection openConnection() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Closes all idle connections. Connections that are in use are closed when they are
+     * released.
+     */
+    public void close() {
+        synchronized (idle) {
+            closed = true;
+            for (PooledConnection connection : idle) {
+                connection.close();
+            }
+            idle.clear();
+        }
+    }
+
+    /**
+     * A connection of the pool with its cache of prepared statements.
+     */
+    public static class PooledConnection {
+
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements =
+                new HashMap<String, PreparedStatement>();
+        private long lastUsed = System.currentTimeMillis();
+        private boolean broken = false;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        /**
+         * @param sql An SQL statement with parameter placeholders.
+         * @return The prepared statement, prepared only on the first call for this SQL.
+         * @throws SQLException
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        /**
+         * @return The name of the database product, e.g. <code>MySQL</code>.
+         * @throws SQLException
+         */
+        public String getDatabaseProductName() throws SQLException {
+            return connection.getMetaData().getDatabaseProductName();
+        }
+
+        /**
+         * Marks the connection as broken, e.g. after an {@link SQLException}, so that the pool
+         * closes it instead of reusing it.
+         */
+        public void invalidate() {
+            broken = true;
+        }
+
+        private boolean isUsable() {
+            if (System.currentTimeMillis() - lastUsed < VALIDATION_INTERVAL) {
+                return true;
+            }
+            try {
+                return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            }
+            catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void close() {
+            try {
+                connection.close();
+            }
+            catch (SQLException e) {
+                log.warn("Could not close connection: " + e.getMessage());
+            }
+        }
+    }
+}
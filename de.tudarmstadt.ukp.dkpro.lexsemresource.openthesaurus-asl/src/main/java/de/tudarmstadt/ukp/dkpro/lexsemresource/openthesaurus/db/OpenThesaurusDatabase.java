@@ -0,0 +1,718 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.db;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.db.ConnectionPool.PooledConnection;
+
+/**
+ * Direct JDBC access to an OpenThesaurus database for {@code OpenThesaurusResource}.
+ * <p>
+ * All queries are prepared statements on pooled connections. Lookups for many synsets, e.g. the
+ * terms of all children of a synset, are answered with batched <code>IN (...)</code> queries
+ * instead of one query per synset. The number of placeholders is rounded up to a power of two, so
+ * that only a few statements per connection are prepared. A full scan reads the synsets in pages
+ * of {@link #BATCH_SIZE} ids, so that it holds a pooled connection only while a page is read.
+ * <p>
+ * Apart from word comparisons, only standard SQL is used, so that the class works on MySQL as
+ * well as on an embedded database with the same tables. On MySQL, words are compared with a
+ * plain <code>=</code>, which ignores case in the case insensitive collation of the word column
+ * and can use its index; case sensitive lookups add <code>BINARY</code>. Other databases compare
+ * lower case words if case is ignored.
+ * <p>
+ * Only visible synsets and terms of the configured language are returned. An entity of a synset
+ * maps the words of its terms to the term ids, like the entities built from the OpenThesaurus
+ * API.
+ */
+public class OpenThesaurusDatabase {
+
+    private static final Log log = LogFactory.getLog(OpenThesaurusDatabase.class);
+
+    /** The maximum number of ids in one <code>IN (...)</code> query. */
+    public static final int BATCH_SIZE = 256;
+
+    /** The name of the synset link type from a synset to its hypernym. */
+    public static final String HYPERNYM_LINK = "Oberbegriff";
+
+    /** The name of the term link type between antonyms. */
+    public static final String ANTONYM_LINK = "Antonym";
+
+    private static final String MYSQL = "MySQL";
+
+    private static final String VISIBLE_SYNSET = "s.is_visible = 1";
+
+    private static final String COUNT_SYNSETS =
+            "SELECT COUNT(*) FROM synset s WHERE " + VISIBLE_SYNSET;
+    private static final String LINK_TYPE = "SELECT id FROM link_type WHERE link_name = ?";
+    private static final String TERM_LINK_TYPE =
+            "SELECT id FROM term_link_type WHERE link_name = ?";
+    private static final String SYNSETS_BY_WORD =
+            "SELECT DISTINCT t.synset_id FROM term t JOIN synset s ON s.id = t.synset_id"
+            + " WHERE %s AND t.language_id = ? AND " + VISIBLE_SYNSET;
+    private static final String TERM_BY_ID =
+            "SELECT t.word, t.synset_id FROM term t JOIN synset s ON s.id = t.synset_id"
+            + " WHERE t.id = ? AND t.language_id = ? AND " + VISIBLE_SYNSET;
+    private static final String CONTAINS_WORD =
+            "SELECT t.id FROM term t WHERE %s AND t.language_id = ?";
+    private static final String WORD_EQUALS = "t.word = ?";
+    private static final String WORD_EQUALS_BINARY = "t.word = BINARY ?";
+    private static final String LOWER_WORD_EQUALS = "LOWER(t.word) = LOWER(?)";
+    private static final String LINKED_TERM_WORDS =
+            "SELECT t.word FROM term_link l JOIN term t ON t.id = l.target_term_id"
+            + " WHERE l.term_id = ? AND l.link_type_id = ?";
+    private static final String TERMS_OF_SYNSETS =
+            "SELECT t.synset_id, t.id, t.word FROM term t JOIN synset s ON s.id = t.synset_id"
+            + " WHERE t.language_id = ? AND " + VISIBLE_SYNSET + " AND t.synset_id IN ";
+    private static final String LINKED_SYNSETS =
+            "SELECT l.synset_id, l.target_synset_id FROM synset_link l"
+            + " JOIN synset s ON s.id = l.target_synset_id"
+            + " WHERE l.link_type_id = ? AND " + VISIBLE_SYNSET + " AND l.synset_id IN ";
+    private static final String LINKED_SYNSETS_BACKWARDS =
+            "SELECT l.target_synset_id, l.synset_id FROM synset_link l"
+            + " JOIN synset s ON s.id = l.synset_id"
+            + " WHERE l.link_type_id = ? AND " + VISIBLE_SYNSET + " AND l.target_synset_id IN ";
+    private static final String SCAN_SYNSET_IDS =
+            "SELECT s.id FROM synset s WHERE s.id > ? AND " + VISIBLE_SYNSET + " ORDER BY s.id";
+    private static final String HYPERNYM_LINKS =
+            " FROM synset_link l JOIN synset s ON s.id = l.synset_id"
+            + " JOIN synset p ON p.id = l.target_synset_id"
+            + " WHERE l.link_type_id = ? AND " + VISIBLE_SYNSET + " AND p.is_visible = 1";
+    private static final String COUNT_HYPERNYM_LINKS = "SELECT COUNT(*)" + HYPERNYM_LINKS;
+    private static final String SCAN_HYPERNYM_LINKS =
+            "SELECT l.synset_id, l.target_synset_id" + HYPERNYM_LINKS;
+
+    private final ConnectionPool pool;
+    private final int language;
+    private final int hypernymLinkType;
+    private final int antonymLinkType;
+    private final String containsWord;
+    private final String containsWordIgnoreCase;
+    private final String synsetsByWord;
+    private final String synsetsByWordIgnoreCase;
+
+    /**
+     * @param pool The connections to the OpenThesaurus database.
+     * @param language The id of the language of the terms.
+     * @throws SQLException If the link types cannot be read.
+     */
+    public OpenThesaurusDatabase(ConnectionPool pool, int language) throws SQLException {
+        this.pool = pool;
+        this.language = language;
+        this.hypernymLinkType = getLinkTypeId(LINK_TYPE, HYPERNYM_LINK);
+        this.antonymLinkType = getLinkTypeId(TERM_LINK_TYPE, ANTONYM_LINK);
+
+        boolean mysql = MYSQL.equals(getDatabaseProductName());
+        String wordEquals = mysql ? WORD_EQUALS_BINARY : WORD_EQUALS;
+        String wordEqualsIgnoreCase = mysql ? WORD_EQUALS : LOWER_WORD_EQUALS;
+        this.containsWord = String.format(CONTAINS_WORD, wordEquals);
+        this.containsWordIgnoreCase = String.format(CONTAINS_WORD, wordEqualsIgnoreCase);
+        this.synsetsByWord = String.format(SYNSETS_BY_WORD, wordEquals);
+        this.synsetsByWordIgnoreCase = String.format(SYNSETS_BY_WORD, wordEqualsIgnoreCase);
+    }
+
+    /**
+     * Connects to an OpenThesaurus MySQL database.
+     *
+     * @param host The database host.
+     * @param database The name of the database.
+     * @param user The database user.
+     * @param password The password of the user.
+     * @param language The id of the language of the terms.
+     * @param poolSize The maximum number of connections.
+     * @return The database.
+     * @throws SQLException
+     */
+    public static OpenThesaurusDatabase connect(String host, String database, String user,
+            String password, int language, int poolSize)
+        throws SQLException
+    {
+        String url = "jdbc:mysql://" + host + "/" + database
+                + "?useUnicode=true&characterEncoding=UTF-8";
+        return new OpenThesaurusDatabase(new ConnectionPool(url, user, password, poolSize),
+                language);
+    }
+
+    /**
+     * @return A name of the database and language, e.g. for files derived from the database.
+     */
+    public String getName() {
+        return pool.getUrl() + "#" + language;
+    }
+
+    /**
+     * Closes the pool. Idle connections are closed at once, connections in use when they are
+     * released.
+     */
+    public void close() {
+        pool.close();
+    }
+
+    public int getNumberOfSynsets() throws SQLException {
+        return count(COUNT_SYNSETS, false);
+    }
+
+    /**
+     * @return The number of hypernymy links between visible synsets.
+     * @throws SQLException
+     */
+    public int getNumberOfHypernymLinks() throws SQLException {
+        return count(COUNT_HYPERNYM_LINKS, true);
+    }
+
+    /**
+     * Reads all hypernymy links between visible synsets in a single query.
+     *
+     * @return Two arrays of the same length, the ids of the linked synsets and the ids of their
+     *         hypernyms.
+     * @throws SQLException
+     */
+    public int[][] getHypernymLinks() throws SQLException {
+        int[] synsetIds = new int[1024];
+        int[] hypernymIds = new int[1024];
+        int size = 0;
+        PooledConnection connection = pool.acquire();
+        try {
+            PreparedStatement statement = connection.prepare(SCAN_HYPERNYM_LINKS);
+            statement.setInt(1, hypernymLinkType);
+            ResultSet rs = statement.executeQuery();
+            try {
+                while (rs.next()) {
+                    if (size == synsetIds.length) {
+                        synsetIds = Arrays.copyOf(synsetIds, 2 * size);
+                        hypernymIds = Arrays.copyOf(hypernymIds, 2 * size);
+                    }
+                    synsetIds[size] = rs.getInt(1);
+                    hypernymIds[size] = rs.getInt(2);
+                    size++;
+                }
+            }
+            finally {
+                rs.close();
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+        return new int[][] { Arrays.copyOf(synsetIds, size), Arrays.copyOf(hypernymIds, size) };
+    }
+
+    /**
+     * @param word A word.
+     * @param caseSensitive Whether the word has to match in case.
+     * @return True, if there is a term with this word.
+     * @throws SQLException
+     */
+    public boolean containsWord(String word, boolean caseSensitive) throws SQLException {
+        PooledConnection connection = pool.acquire();
+        try {
+            PreparedStatement statement = connection.prepare(
+                    caseSensitive ? containsWord : containsWordIgnoreCase);
+            statement.setString(1, word);
+            statement.setInt(2, language);
+            statement.setMaxRows(1);
+            ResultSet rs = statement.executeQuery();
+            try {
+                return rs.next();
+            }
+            finally {
+                rs.close();
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * @param word A word.
+     * @param caseSensitive Whether the word has to match in case.
+     * @return The ids of the synsets with a term of this word.
+     * @throws SQLException
+     */
+    public Set<Integer> getSynsetIds(String word, boolean caseSensitive) throws SQLException {
+        Set<Integer> synsetIds = new HashSet<Integer>();
+        PooledConnection connection = pool.acquire();
+        try {
+            PreparedStatement statement = connection.prepare(
+                    caseSensitive ? synsetsByWord : synsetsByWordIgnoreCase);
+            statement.setString(1, word);
+            statement.setInt(2, language);
+            ResultSet rs = statement.executeQuery();
+            try {
+                while (rs.next()) {
+                    synsetIds.add(rs.getInt(1));
+                }
+            }
+            finally {
+                rs.close();
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+        return synsetIds;
+    }
+
+    /**
+     * @param termId The id of a term.
+     * @return The id of the synset of the term, or -1 if there is no such term.
+     * @throws SQLException
+     */
+    public int getSynsetId(int termId) throws SQLException {
+        TermRow term = getTerm(termId);
+        return term != null ? term.synsetId : -1;
+    }
+
+    /**
+     * @param termId The id of a term.
+     * @param word The expected word of the term.
+     * @param caseSensitive Whether the word has to match in case.
+     * @return The id of the synset of the term, or -1 if there is no such term or it has a
+     *         different word.
+     * @throws SQLException
+     */
+    public int getSynsetId(int termId, String word, boolean caseSensitive) throws SQLException {
+        TermRow term = getTerm(termId);
+        if (term == null || (caseSensitive ? !term.word.equals(word)
+                : !term.word.equalsIgnoreCase(word))) {
+            return -1;
+        }
+        return term.synsetId;
+    }
+
+    /**
+     * @param termId The id of a term.
+     * @return The words of the antonyms of the term.
+     * @throws SQLException
+     */
+    public Set<String> getAntonyms(int termId) throws SQLException {
+        Set<String> words = new HashSet<String>();
+        PooledConnection connection = pool.acquire();
+        try {
+            PreparedStatement statement = connection.prepare(LINKED_TERM_WORDS);
+            statement.setInt(1, termId);
+            statement.setInt(2, antonymLinkType);
+            ResultSet rs = statement.executeQuery();
+            try {
+                while (rs.next()) {
+                    words.add(rs.getString(1));
+                }
+            }
+            finally {
+                rs.close();
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+        return words;
+    }
+
+    /**
+     * Builds the entities of the given synsets with one query per {@link #BATCH_SIZE} synsets.
+     *
+     * @param synsetIds Synset ids.
+     * @return The entity of each synset that has terms.
+     * @throws SQLException
+     */
+    public Map<Integer, Entity> getEntities(Collection<Integer> synsetIds) throws SQLException {
+        Map<Integer, Map<String, String>> terms = new HashMap<Integer, Map<String, String>>();
+        PooledConnection connection = pool.acquire();
+        try {
+            for (List<Integer> batch : batches(synsetIds)) {
+                PreparedStatement statement = prepareBatch(connection, TERMS_OF_SYNSETS, 1,
+                        batch);
+                statement.setInt(1, language);
+                ResultSet rs = statement.executeQuery();
+                try {
+                    while (rs.next()) {
+                        addTerm(terms, rs.getInt(1), rs.getInt(2), rs.getString(3));
+                    }
+                }
+                finally {
+                    rs.close();
+                }
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+
+        Map<Integer, Entity> entities = new HashMap<Integer, Entity>();
+        for (Map.Entry<Integer, Map<String, String>> entry : terms.entrySet()) {
+            entities.put(entry.getKey(), new Entity(entry.getValue()));
+        }
+        return entities;
+    }
+
+    /**
+     * @param synsetIds Synset ids.
+     * @return The ids of the hypernyms of each given synset that has hypernyms.
+     * @throws SQLException
+     */
+    public Map<Integer, Set<Integer>> getHypernymIds(Collection<Integer> synsetIds)
+        throws SQLException
+    {
+        return getLinkedSynsetIds(LINKED_SYNSETS, synsetIds);
+    }
+
+    /**
+     * @param synsetIds Synset ids.
+     * @return The ids of the hyponyms of each given synset that has hyponyms.
+     * @throws SQLException
+     */
+    public Map<Integer, Set<Integer>> getHyponymIds(Collection<Integer> synsetIds)
+        throws SQLException
+    {
+        return getLinkedSynsetIds(LINKED_SYNSETS_BACKWARDS, synsetIds);
+    }
+
+    /**
+     * Iterates over the entities of all synsets. The synsets are read in pages of
+     * {@link #BATCH_SIZE} ids in ascending order, and the entities of each page with
+     * {@link #getEntities(Collection)}. Each page is read on a pooled connection that is released
+     * right away, so an iterator that is not exhausted does not hold a connection.
+     *
+     * @return An iterator over the entities of all synsets that have terms.
+     * @throws SQLException If the first page cannot be read.
+     */
+    public Iterator<Entity> scanEntities() throws SQLException {
+        return new EntityScan();
+    }
+
+    private int count(String sql, boolean hypernymLinks) throws SQLException {
+        PooledConnection connection = pool.acquire();
+        try {
+            PreparedStatement statement = connection.prepare(sql);
+            if (hypernymLinks) {
+                statement.setInt(1, hypernymLinkType);
+            }
+            ResultSet rs = statement.executeQuery();
+            try {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+            finally {
+                rs.close();
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * Reads the ids of the next visible synsets after the given id.
+     */
+    private List<Integer> getSynsetIdsAfter(int synsetId) throws SQLException {
+        List<Integer> synsetIds = new ArrayList<Integer>(BATCH_SIZE);
+        PooledConnection connection = pool.acquire();
+        try {
+            PreparedStatement statement = connection.prepare(SCAN_SYNSET_IDS);
+            statement.setInt(1, synsetId);
+            statement.setMaxRows(BATCH_SIZE);
+            ResultSet rs = statement.executeQuery();
+            try {
+                while (rs.next()) {
+                    synsetIds.add(rs.getInt(1));
+                }
+            }
+            finally {
+                rs.close();
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+        return synsetIds;
+    }
+
+    private String getDatabaseProductName() throws SQLException {
+        PooledConnection connection = pool.acquire();
+        try {
+            return connection.getDatabaseProductName();
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+    }
+
+    private TermRow getTerm(int termId) throws SQLException {
+        PooledConnection connection = pool.acquire();
+        try {
+            PreparedStatement statement = connection.prepare(TERM_BY_ID);
+            statement.setInt(1, termId);
+            statement.setInt(2, language);
+            ResultSet rs = statement.executeQuery();
+            try {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new TermRow(rs.getString(1), rs.getInt(2));
+            }
+            finally {
+                rs.close();
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+    }
+
+    private int getLinkTypeId(String sql, String name) throws SQLException {
+        PooledConnection connection = pool.acquire();
+        try {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setString(1, name);
+            ResultSet rs = statement.executeQuery();
+            try {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+                log.warn("OpenThesaurus database has no link type '" + name + "'.");
+                return -1;
+            }
+            finally {
+                rs.close();
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+    }
+
+    private Map<Integer, Set<Integer>> getLinkedSynsetIds(String sql,
+            Collection<Integer> synsetIds)
+        throws SQLException
+    {
+        Map<Integer, Set<Integer>> links = new HashMap<Integer, Set<Integer>>();
+        PooledConnection connection = pool.acquire();
+        try {
+            for (List<Integer> batch : batches(synsetIds)) {
+                PreparedStatement statement = prepareBatch(connection, sql, 1, batch);
+                statement.setInt(1, hypernymLinkType);
+                ResultSet rs = statement.executeQuery();
+                try {
+                    while (rs.next()) {
+                        Set<Integer> targets = links.get(rs.getInt(1));
+                        if (targets == null) {
+                            targets = new HashSet<Integer>();
+                            links.put(rs.getInt(1), targets);
+                        }
+                        targets.add(rs.getInt(2));
+                    }
+                }
+                finally {
+                    rs.close();
+                }
+            }
+        }
+        catch (SQLException e) {
+            connection.invalidate();
+            throw e;
+        }
+        finally {
+            pool.release(connection);
+        }
+        return links;
+    }
+
+    /**
+     * Splits the distinct ids into batches of at most {@link #BATCH_SIZE} ids.
+     */
+    private static List<List<Integer>> batches(Collection<Integer> ids) {
+        List<Integer> distinct = new ArrayList<Integer>(new LinkedHashSet<Integer>(ids));
+        List<List<Integer>> batches = new ArrayList<List<Integer>>();
+        for (int start = 0; start < distinct.size(); start += BATCH_SIZE) {
+            batches.add(distinct.subList(start, Math.min(distinct.size(), start + BATCH_SIZE)));
+        }
+        return batches;
+    }
+
+    /**
+     * Prepares the query with an <code>IN (...)</code> list appended and binds the ids after
+     * the given number of leading parameters. The list is padded to the next power of two by
+     * repeating the last id, which does not change the result.
+     */
+    private static PreparedStatement prepareBatch(PooledConnection connection, String sql,
+            int leadingParameters, List<Integer> ids)
+        throws SQLException
+    {
+        int size = Integer.highestOneBit(ids.size());
+        if (size < ids.size()) {
+            size <<= 1;
+        }
+        StringBuilder query = new StringBuilder(sql).append('(');
+        for (int i = 0; i < size; i++) {
+            query.append(i == 0 ? "?" : ",?");
+        }
+        query.append(')');
+
+        PreparedStatement statement = connection.prepare(query.toString());
+        for (int i = 0; i < size; i++) {
+            statement.setInt(leadingParameters + 1 + i, ids.get(Math.min(i, ids.size() - 1)));
+        }
+        return statement;
+    }
+
+    private static void addTerm(Map<Integer, Map<String, String>> terms, int synsetId,
+            int termId, String word)
+    {
+        Map<String, String> synsetTerms = terms.get(synsetId);
+        if (synsetTerms == null) {
+            synsetTerms = new TreeMap<String, String>();
+            terms.put(synsetId, synsetTerms);
+        }
+        synsetTerms.put(word, String.valueOf(termId));
+    }
+
+    private static class TermRow {
+
+        private final String word;
+        private final int synsetId;
+
+        public TermRow(String word, int synsetId) {
+            this.word = word;
+            this.synsetId = synsetId;
+        }
+    }
+
+    /**
+     * Reads the entities of all synsets page by page, continuing after the last synset id of the
+     * previous page.
+     */
+    private class EntityScan implements Iterator<Entity> {
+
+        private final Deque<Entity> page = new ArrayDeque<Entity>();
+        private int lastSynsetId = Integer.MIN_VALUE;
+        private boolean exhausted = false;
+
+        public EntityScan() throws SQLException {
+            fill();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (page.isEmpty() && !exhausted) {
+                try {
+                    fill();
+                }
+                catch (SQLException e) {
+                    throw new IllegalStateException("Scanning OpenThesaurus synsets failed.", e);
+                }
+            }
+            return !page.isEmpty();
+        }
+
+        @Override
+        public Entity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.removeFirst();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Reads pages until one has an entity or there are no synsets left.
+         */
+        private void fill() throws SQLException {
+            while (page.isEmpty() && !exhausted) {
+                List<Integer> synsetIds = getSynsetIdsAfter(lastSynsetId);
+                if (synsetIds.size() < BATCH_SIZE) {
+                    exhausted = true;
+                }
+                if (synsetIds.isEmpty()) {
+                    return;
+                }
+                lastSynsetId = synsetIds.get(synsetIds.size() - 1);
+                Map<Integer, Entity> entities = getEntities(synsetIds);
+                for (Integer synsetId : synsetIds) {
+                    Entity entity = entities.get(synsetId);
+                    if (entity != null) {
+                        page.addLast(entity);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The hypernymy links of OpenThesaurus as int arrays. Synsets are addressed by their database
+ * ids, which are mapped to dense node indexes by binary search over the sorted ids. The hypernyms
+ * and the hyponyms of each node are stored in compressed sparse row layout.
+ * <p>
+ * Only synsets with at least one link are nodes of the graph. The graph is immutable and can be
+ * shared by threads. It can be saved to a file, together with the number of synsets and links of
+ * the database it was built from, so that a stale file can be detected.
+ */
+public class OpenThesaurusHypernymGraph {
+
+    private static final int MAGIC = 0x4C53524F;
+    private static final int VERSION = 1;
+
+    private final int numberOfSynsets;
+    private final int numberOfLinks;
+    private final int[] synsetIds;
+    private final int[] hypernymOffsets;
+    private final int[] hypernyms;
+    private final int[] hyponymOffsets;
+    private final int[] hyponyms;
+
+    private OpenThesaurusHypernymGraph(int numberOfSynsets, int numberOfLinks, int[] synsetIds,
+            int[] hypernymOffsets, int[] hypernyms, int[] hyponymOffsets, int[] hyponyms)
+    {
+        this.numberOfSynsets = numberOfSynsets;
+        this.numberOfLinks = numberOfLinks;
+        this.synsetIds = synsetIds;
+        this.hypernymOffsets = hypernymOffsets;
+        this.hypernyms = hypernyms;
+        this.hyponymOffsets = hyponymOffsets;
+        this.hyponyms = hyponyms;
+    }
+
+    /**
+     * Builds the graph from a list of links.
+     *
+     * @param numberOfSynsets The number of synsets in the database, stored to detect changes.
+     * @param synsetIds The ids of the linked synsets.
+     * @param hypernymIds The ids of the hypernyms, at the same positions.
+     * @return The graph.
+     */
+    public static OpenThesaurusHypernymGraph build(int numberOfSynsets, int[] synsetIds,
+            int[] hypernymIds)
+    {
+        if (synsetIds.length != hypernymIds.length) {
+            throw new IllegalArgumentException("Each link needs a synset and a hypernym.");
+        }
+        int[] ids = new int[2 * synsetIds.length];
+        System.arraycopy(synsetIds, 0, ids, 0, synsetIds.length);
+        System.arraycopy(hypernymIds, 0, ids, synsetIds.length, hypernymIds.length);
+        Arrays.sort(ids);
+        int n = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[n++] = ids[i];
+            }
+        }
+        ids = Arrays.copyOf(ids, n);
+
+        int[] from = new int[synsetIds.length];
+        int[] to = new int[synsetIds.length];
+        for (int i = 0; i < synsetIds.length; i++) {
+            from[i] = Arrays.binarySearch(ids, synsetIds[i]);
+            to[i] = Arrays.binarySearch(ids, hypernymIds[i]);
+        }
+        int[] hypernymOffsets = new int[n + 1];
+        int[] hypernyms = toRows(n, from, to, hypernymOffsets);
+        int[] hyponymOffsets = new int[n + 1];
+        int[] hyponyms = toRows(n, to, from, hyponymOffsets);
+        return new OpenThesaurusHypernymGraph(numberOfSynsets, synsetIds.length, ids,
+                hypernymOffsets, hypernyms, hyponymOffsets, hyponyms);
+    }
+
+    /**
+     * @return The number of synsets in the database the graph was built from.
+     */
+    public int getNumberOfSynsets() {
+        return numberOfSynsets;
+    }
+
+    /**
+     * @return The number of hypernymy links the graph was built from.
+     */
+    public int getNumberOfLinks() {
+        return numberOfLinks;
+    }
+
+    /**
+     * @return The number of synsets with at least one link.
+     */
+    public int getNumberOfNodes() {
+        return synsetIds.length;
+    }
+
+    /**
+     * @param synsetId A synset id.
+     * @return The ids of the hypernyms of the synset.
+     */
+    public int[] getHypernyms(int synsetId) {
+        return toSynsetIds(Arrays.binarySearch(synsetIds, synsetId), hypernymOffsets, hypernyms);
+    }
+
+    /**
+     * @param synsetId A synset id.
+     * @return The ids of the hyponyms of the synset.
+     */
+    public int[] getHyponyms(int synsetId) {
+        return toSynsetIds(Arrays.binarySearch(synsetIds, synsetId), hyponymOffsets, hyponyms);
+    }
+
+    /**
+     * Computes the length of the shortest path over hypernymy links in either direction with a
+     * breadth-first search from both synsets. Each step expands the smaller frontier.
+     *
+     * @param first A synset id.
+     * @param second Another synset id.
+     * @return The number of links on the shortest path, 0 if both ids are equal, or -1 if there
+     *         is no path.
+     */
+    public int getShortestPathLength(int first, int second) {
+        if (first == second) {
+            return 0;
+        }
+        int source = Arrays.binarySearch(synsetIds, first);
+        int target = Arrays.binarySearch(synsetIds, second);
+        if (source < 0 || target < 0) {
+            return -1;
+        }
+
+        int[] sourceDistances = new int[synsetIds.length];
+        int[] targetDistances = new int[synsetIds.length];
+        Arrays.fill(sourceDistances, -1);
+        Arrays.fill(targetDistances, -1);
+        sourceDistances[source] = 0;
+        targetDistances[target] = 0;
+        int[] sourceFrontier = { source };
+        int[] targetFrontier = { target };
+        int sourceSize = 1;
+        int targetSize = 1;
+        // links are followed in both directions
+        int[][] offsetsByDirection = { hypernymOffsets, hyponymOffsets };
+        int[][] targetsByDirection = { hypernyms, hyponyms };
+
+        while (sourceSize > 0 && targetSize > 0) {
+            int[] next = new int[16];
+            int nextSize = 0;
+            int best = Integer.MAX_VALUE;
+            boolean expandSource = sourceSize <= targetSize;
+            int[] frontier = expandSource ? sourceFrontier : targetFrontier;
+            int frontierSize = expandSource ? sourceSize : targetSize;
+            int[] distances = expandSource ? sourceDistances : targetDistances;
+            int[] otherDistances = expandSource ? targetDistances : sourceDistances;
+
+            for (int i = 0; i < frontierSize; i++) {
+                int node = frontier[i];
+                for (int direction = 0; direction < 2; direction++) {
+                    int[] offsets = offsetsByDirection[direction];
+                    int[] targets = targetsByDirection[direction];
+                    for (int j = offsets[node]; j < offsets[node + 1]; j++) {
+                        int neighbor = targets[j];
+                        if (distances[neighbor] >= 0) {
+                            continue;
+                        }
+                        distances[neighbor] = distances[node] + 1;
+                        if (otherDistances[neighbor] >= 0) {
+                            best = Math.min(best, distances[neighbor] + otherDistances[neighbor]);
+                        }
+                        if (nextSize == next.length) {
+                            next = Arrays.copyOf(next, 2 * nextSize);
+                        }
+                        next[nextSize++] = neighbor;
+                    }
+                }
+            }
+            // the whole level is expanded, so the best meeting point is the shortest path
+            if (best != Integer.MAX_VALUE) {
+                return best;
+            }
+            if (expandSource) {
+                sourceFrontier = next;
+                sourceSize = nextSize;
+            }
+            else {
+                targetFrontier = next;
+                targetSize = nextSize;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the graph to a file. The data is written to a temporary file first, which then
+     * replaces the target file.
+     *
+     * @param file The target file.
+     * @throws IOException
+     */
+    public void save(File file) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmpFile), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(numberOfSynsets);
+            out.writeInt(numberOfLinks);
+            for (int[] array : new int[][] { synsetIds, hypernymOffsets, hypernyms,
+                    hyponymOffsets, hyponyms }) {
+                out.writeInt(array.length);
+                for (int value : array) {
+                    out.writeInt(value);
+                }
+            }
+        }
+        finally {
+            out.close();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a graph written by {@link #save(File)}.
+     *
+     * @param file The file.
+     * @return The graph.
+     * @throws IOException If the file cannot be read or has an unknown format.
+     */
+    public static OpenThesaurusHypernymGraph load(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        ByteBuffer buffer;
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Hypernym graph file is too large: " + file);
+            }
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read the whole file
+            }
+            buffer.flip();
+        }
+        finally {
+            channel.close();
+        }
+
+        IntBuffer ints = buffer.asIntBuffer();
+        if (ints.remaining() < 4 || ints.get() != MAGIC || ints.get() != VERSION) {
+            throw new IOException("Not a hypernym graph file of version " + VERSION + ": "
+                    + file);
+        }
+        int numberOfSynsets = ints.get();
+        int numberOfLinks = ints.get();
+        int[][] arrays = new int[5][];
+        for (int i = 0; i < arrays.length; i++) {
+            int length = ints.get();
+            if (length < 0 || length > ints.remaining()) {
+                throw new IOException("Truncated hypernym graph file: " + file);
+            }
+            arrays[i] = new int[length];
+            ints.get(arrays[i]);
+        }
+        return new OpenThesaurusHypernymGraph(numberOfSynsets, numberOfLinks, arrays[0],
+                arrays[1], arrays[2], arrays[3], arrays[4]);
+    }
+
+    private int[] toSynsetIds(int node, int[] offsets, int[] targets) {
+        if (node < 0) {
+            return new int[0];
+        }
+        int[] result = new int[offsets[node + 1] - offsets[node]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = synsetIds[targets[offsets[node] + i]];
+        }
+        return result;
+    }
+
+    /**
+     * Groups the targets by source in compressed sparse row layout, without duplicates.
+     */
+    private static int[] toRows(int n, int[] sources, int[] targets, int[] offsets) {
+        for (int source : sources) {
+            offsets[source + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] rows = new int[sources.length];
+        int[] fill = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < sources.length; i++) {
+            rows[fill[sources[i]]++] = targets[i];
+        }
+
+        // sort each row and drop duplicate links
+        int size = 0;
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            int end = offsets[i + 1];
+            Arrays.sort(rows, start, end);
+            offsets[i] = size;
+            for (int j = start; j < end; j++) {
+                if (j == start || rows[j] != rows[j - 1]) {
+                    rows[size++] = rows[j];
+                }
+            }
+            start = end;
+        }
+        offsets[n] = size;
+        return Arrays.copyOf(rows, size);
+    }
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.LexicalRelation;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.OpenThesaurusResource;
+
+/**
+ * Runs the database layer against an in-memory H2 database with the OpenThesaurus tables.
+ */
+public class OpenThesaurusDatabaseTest
+{
+	private static final int GERMAN = 1;
+
+	private ConnectionPool pool;
+	private Connection keepAlive;
+	private OpenThesaurusDatabase database;
+
+	@Before
+	public void setUp()
+		throws SQLException
+	{
+		String url = "jdbc:h2:mem:openthesaurus" + System.nanoTime();
+		pool = new ConnectionPool(url, "sa", "", 2);
+		// the in-memory database lives as long as a connection is open
+		keepAlive = pool.openConnection();
+		Statement statement = keepAlive.createStatement();
+		statement.execute("CREATE TABLE synset (id INT PRIMARY KEY, is_visible TINYINT)");
+		statement.execute("CREATE TABLE term (id INT PRIMARY KEY, synset_id INT, word VARCHAR(255), language_id INT)");
+		statement.execute("CREATE TABLE link_type (id INT PRIMARY KEY, link_name VARCHAR(255))");
+		statement.execute("CREATE TABLE synset_link (id INT PRIMARY KEY, synset_id INT, target_synset_id INT, link_type_id INT)");
+		statement.execute("CREATE TABLE term_link_type (id INT PRIMARY KEY, link_name VARCHAR(255))");
+		statement.execute("CREATE TABLE term_link (id INT PRIMARY KEY, term_id INT, target_term_id INT, link_type_id INT)");
+		statement.execute("INSERT INTO link_type VALUES (1, 'Oberbegriff'), (2, 'Assoziation')");
+		statement.execute("INSERT INTO term_link_type VALUES (1, 'Antonym')");
+
+		// Fahrzeug <- Auto, Fahrrad; Auto <- Sportwagen; 5 is hidden
+		statement.execute("INSERT INTO synset VALUES (1, 1), (2, 1), (3, 1), (4, 1), (5, 0), (6, 1)");
+		statement.execute("INSERT INTO term VALUES (10, 1, 'Fahrzeug', 1), (20, 2, 'Auto', 1),"
+				+ " (21, 2, 'Wagen', 1), (30, 3, 'Fahrrad', 1), (31, 3, 'Rad', 1),"
+				+ " (40, 4, 'Sportwagen', 1), (50, 5, 'Karre', 1), (51, 2, 'car', 2),"
+				+ " (60, 6, 'schnell', 1), (61, 6, 'langsam', 1)");
+		statement.execute("INSERT INTO synset_link VALUES (1, 2, 1, 1), (2, 3, 1, 1), (3, 4, 2, 1),"
+				+ " (4, 5, 1, 1), (5, 3, 2, 2)");
+		statement.execute("INSERT INTO term_link VALUES (1, 60, 61, 1)");
+		statement.close();
+
+		database = new OpenThesaurusDatabase(pool, GERMAN);
+	}
+
+	@After
+	public void tearDown()
+		throws SQLException
+	{
+		database.close();
+		keepAlive.close();
+	}
+
+	@Test
+	public void testLookups()
+		throws SQLException
+	{
+		assertEquals(5, database.getNumberOfSynsets());
+
+		assertTrue(database.containsWord("Auto", true));
+		assertFalse(database.containsWord("auto", true));
+		assertTrue(database.containsWord("auto", false));
+		assertFalse(database.containsWord("car", false));
+
+		assertEquals(Collections.singleton(2), database.getSynsetIds("wagen", false));
+		assertTrue(database.getSynsetIds("wagen", true).isEmpty());
+		assertTrue(database.getSynsetIds("Karre", true).isEmpty());
+
+		assertEquals(2, database.getSynsetId(21));
+		assertEquals(2, database.getSynsetId(21, "wagen", false));
+		assertEquals(-1, database.getSynsetId(21, "wagen", true));
+		assertEquals(-1, database.getSynsetId(50));
+
+		assertEquals(Collections.singleton("langsam"), database.getAntonyms(60));
+	}
+
+	@Test
+	public void testBatches()
+		throws SQLException
+	{
+		Map<Integer, Entity> entities = database.getEntities(Arrays.asList(1, 2, 3, 2, 99));
+		assertEquals(3, entities.size());
+		assertEquals(entity("Auto", "20", "Wagen", "21"), entities.get(2));
+
+		Map<Integer, Set<Integer>> hyponyms = database.getHyponymIds(Arrays.asList(1, 2, 3));
+		assertEquals(new HashSet<Integer>(Arrays.asList(2, 3)), hyponyms.get(1));
+		assertEquals(Collections.singleton(4), hyponyms.get(2));
+		assertEquals(2, hyponyms.size());
+
+		Map<Integer, Set<Integer>> hypernyms = database.getHypernymIds(Arrays.asList(2, 3, 4, 5));
+		assertEquals(Collections.singleton(1), hypernyms.get(2));
+		assertEquals(Collections.singleton(2), hypernyms.get(4));
+		assertEquals(4, hypernyms.size());
+
+		// more ids than fit into one batch
+		Integer[] ids = new Integer[OpenThesaurusDatabase.BATCH_SIZE * 2 + 3];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = i % 6 + 1 + (i / 6) * 100;
+		}
+		assertEquals(5, database.getEntities(Arrays.asList(ids)).size());
+	}
+
+	@Test
+	public void testScan()
+		throws SQLException
+	{
+		List<Entity> scanned = new ArrayList<Entity>();
+		Iterator<Entity> iterator = database.scanEntities();
+		while (iterator.hasNext()) {
+			scanned.add(iterator.next());
+		}
+		assertEquals(5, scanned.size());
+		assertEquals(new HashSet<Entity>(database.getEntities(Arrays.asList(1, 2, 3, 4, 6)).values()),
+				new HashSet<Entity>(scanned));
+	}
+
+	@Test(timeout = 10000)
+	public void testScanPages()
+		throws SQLException
+	{
+		// more synsets than fit into one page, each with one term
+		Statement statement = keepAlive.createStatement();
+		int synsets = OpenThesaurusDatabase.BATCH_SIZE * 2 + 3;
+		for (int i = 0; i < synsets; i++) {
+			statement.execute("INSERT INTO synset VALUES (" + (100 + i) + ", 1)");
+			statement.execute("INSERT INTO term VALUES (" + (1000 + i) + ", " + (100 + i)
+					+ ", 'w" + i + "', 1)");
+		}
+		statement.close();
+
+		List<Entity> scanned = new ArrayList<Entity>();
+		Iterator<Entity> iterator = database.scanEntities();
+		while (iterator.hasNext()) {
+			scanned.add(iterator.next());
+		}
+		assertEquals(5 + synsets, scanned.size());
+		// in the order of the synset ids
+		assertEquals(entity("Fahrzeug", "10"), scanned.get(0));
+		assertEquals(entity("w0", "1000"), scanned.get(5));
+		assertEquals(entity("w" + (synsets - 1), String.valueOf(1000 + synsets - 1)),
+				scanned.get(scanned.size() - 1));
+
+		// abandoned scans do not hold connections, more scans than the pool size
+		for (int i = 0; i < 3; i++) {
+			assertEquals(entity("Fahrzeug", "10"), database.scanEntities().next());
+		}
+		assertTrue(database.containsWord("Auto", true));
+	}
+
+	@Test
+	public void testResourceClose()
+		throws LexicalSemanticResourceException
+	{
+		OpenThesaurusResource resource = new OpenThesaurusResource(database);
+		assertTrue(resource.containsLexeme("Auto"));
+		resource.close();
+		try {
+			resource.containsLexeme("Auto");
+			fail("A closed resource should not answer queries.");
+		}
+		catch (LexicalSemanticResourceException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testResource()
+		throws LexicalSemanticResourceException
+	{
+		OpenThesaurusResource resource = new OpenThesaurusResource(database);
+		Entity auto = entity("Auto", "20", "Wagen", "21");
+
+		assertTrue(resource.containsLexeme("wagen"));
+		assertTrue(resource.containsEntity(auto));
+		assertFalse(resource.containsEntity(entity("Auto", "20")));
+		assertEquals(Collections.singleton(auto), resource.getEntity("Auto"));
+		assertEquals(Collections.singleton(auto), resource.getEntity("Wagen", null, "21"));
+		assertTrue(resource.getEntity("Wagen", null, "20").isEmpty());
+
+		assertEquals(Collections.singleton(entity("Fahrzeug", "10")), resource.getParents(auto));
+		assertEquals(Collections.singleton(entity("Sportwagen", "40")), resource.getChildren(auto));
+		assertEquals(Collections.singleton("langsam"),
+				resource.getRelatedLexemes("schnell", null, "60", LexicalRelation.antonymy));
+
+		assertEquals(2, resource.getShortestPathLength(entity("Sportwagen", "40"), entity("Fahrzeug", "10")));
+		assertEquals(3, resource.getShortestPathLength(entity("Sportwagen", "40"), entity("Rad", "31")));
+		assertEquals(-1, resource.getShortestPathLength(auto, entity("schnell", "60")));
+
+		int n = 0;
+		for (Entity entity : resource.getEntities()) {
+			assertTrue(entity.toString(), resource.containsEntity(entity));
+			n++;
+		}
+		assertEquals(resource.getNumberOfEntities(), n);
+	}
+
+	private static Entity entity(String... wordsAndTermIds)
+	{
+		Map<String, String> terms = new HashMap<String, String>();
+		for (int i = 0; i < wordsAndTermIds.length; i += 2) {
+			terms.put(wordsAndTermIds[i], wordsAndTermIds[i + 1]);
+		}
+		return new Entity(terms);
+	}
+}
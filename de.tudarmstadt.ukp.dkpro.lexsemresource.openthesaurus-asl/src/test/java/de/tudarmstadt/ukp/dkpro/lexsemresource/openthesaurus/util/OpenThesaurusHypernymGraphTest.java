@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.openthesaurus.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OpenThesaurusHypernymGraphTest
+{
+	@Test
+	public void testLinks()
+	{
+		// 20 and 30 are below 10, 40 is below 20 and 30, the link 20 -> 10 is duplicated
+		OpenThesaurusHypernymGraph graph = OpenThesaurusHypernymGraph.build(7,
+				new int[] { 20, 30, 40, 40, 20 }, new int[] { 10, 10, 20, 30, 10 });
+
+		assertEquals(4, graph.getNumberOfNodes());
+		assertEquals(5, graph.getNumberOfLinks());
+		assertEquals(7, graph.getNumberOfSynsets());
+		assertArrayEquals(new int[] { 10 }, graph.getHypernyms(20));
+		assertArrayEquals(new int[] { 20, 30 }, graph.getHyponyms(10));
+		assertArrayEquals(new int[] { 20, 30 }, graph.getHypernyms(40));
+		assertArrayEquals(new int[0], graph.getHyponyms(40));
+		assertArrayEquals(new int[0], graph.getHypernyms(99));
+
+		assertEquals(0, graph.getShortestPathLength(99, 99));
+		assertEquals(-1, graph.getShortestPathLength(10, 99));
+		assertEquals(2, graph.getShortestPathLength(40, 10));
+		assertEquals(2, graph.getShortestPathLength(20, 30));
+		assertEquals(1, graph.getShortestPathLength(10, 30));
+	}
+
+	@Test
+	public void testShortestPathsAgainstBreadthFirstSearch()
+	{
+		Random random = new Random(42);
+		int n = 300;
+		int[] synsets = new int[400];
+		int[] hypernyms = new int[synsets.length];
+		for (int i = 0; i < synsets.length; i++) {
+			// ids with gaps, and a few components
+			synsets[i] = 3 * (1 + random.nextInt(n));
+			hypernyms[i] = 3 * (1 + random.nextInt(n));
+		}
+		OpenThesaurusHypernymGraph graph = OpenThesaurusHypernymGraph.build(n, synsets,
+				hypernyms);
+
+		Map<Integer, List<Integer>> neighbors = new HashMap<Integer, List<Integer>>();
+		for (int i = 0; i < synsets.length; i++) {
+			addNeighbor(neighbors, synsets[i], hypernyms[i]);
+			addNeighbor(neighbors, hypernyms[i], synsets[i]);
+		}
+		for (int i = 0; i < 500; i++) {
+			int first = 3 * (1 + random.nextInt(n));
+			int second = 3 * (1 + random.nextInt(n));
+			assertEquals(first + " " + second, breadthFirstSearch(neighbors, first, second),
+					graph.getShortestPathLength(first, second));
+		}
+	}
+
+	@Test
+	public void testSaveAndLoad()
+		throws IOException
+	{
+		OpenThesaurusHypernymGraph graph = OpenThesaurusHypernymGraph.build(5,
+				new int[] { 2, 3, 4 }, new int[] { 1, 1, 2 });
+		File file = File.createTempFile("HypernymGraph", ".bin");
+		OpenThesaurusHypernymGraph loaded;
+		try {
+			graph.save(file);
+			loaded = OpenThesaurusHypernymGraph.load(file);
+		}
+		finally {
+			file.delete();
+		}
+		assertEquals(5, loaded.getNumberOfSynsets());
+		assertEquals(3, loaded.getNumberOfLinks());
+		assertEquals(4, loaded.getNumberOfNodes());
+		assertArrayEquals(new int[] { 2, 3 }, loaded.getHyponyms(1));
+		assertEquals(2, loaded.getShortestPathLength(4, 1));
+		assertEquals(3, loaded.getShortestPathLength(4, 3));
+	}
+
+	private static void addNeighbor(Map<Integer, List<Integer>> neighbors, int from, int to)
+	{
+		List<Integer> list = neighbors.get(from);
+		if (list == null) {
+			list = new ArrayList<Integer>();
+			neighbors.put(from, list);
+		}
+		list.add(to);
+	}
+
+	private static int breadthFirstSearch(Map<Integer, List<Integer>> neighbors, int from,
+			int to)
+	{
+		Map<Integer, Integer> distances = new HashMap<Integer, Integer>();
+		distances.put(from, 0);
+		Queue<Integer> queue = new ArrayDeque<Integer>();
+		queue.add(from);
+		while (!queue.isEmpty()) {
+			int node = queue.poll();
+			if (node == to) {
+				return distances.get(node);
+			}
+			if (neighbors.containsKey(node)) {
+				for (int neighbor : neighbors.get(node)) {
+					if (!distances.containsKey(neighbor)) {
+						distances.put(neighbor, distances.get(node) + 1);
+						queue.add(neighbor);
+					}
+				}
+			}
+		}
+		return -1;
+	}
+}
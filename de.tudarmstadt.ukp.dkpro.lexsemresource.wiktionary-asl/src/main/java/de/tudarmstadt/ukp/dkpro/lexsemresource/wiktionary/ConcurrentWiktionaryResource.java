@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sleepycat.je.DatabaseException;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.AbstractResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+import de.tudarmstadt.ukp.wiktionary.api.Language;
+import de.tudarmstadt.ukp.wiktionary.api.RelationType;
+import de.tudarmstadt.ukp.wiktionary.api.Wiktionary;
+
+/**
+ * A read-only view on a Wiktionary database that can be shared by any number of threads.
+ * <p>
+ * Unlike {@link WiktionaryResource}, this resource never touches the database after it was
+ * opened. The constructor loads, or builds once, the {@link WiktionaryRelationIndex} and the
+ * {@link WiktionaryGlossStore} of the database, and all queries are answered from these
+ * immutable structures. The case sensitivity is fixed per instance, so that threads cannot change
+ * it for each other. Use {@link #withCaseSensitivity(boolean)} to get a view with a different
+ * setting that shares the loaded data. Each call to {@link #getEntities()} returns an
+ * independent iterable.
+ * <p>
+ * The entities are the (word, PoS) pairs of the database. {@link WiktionaryResource} instead
+ * iterates and counts one entity per word entry, so a word with several entries of the same PoS
+ * is returned and counted several times there, but only once here.
+ */
+public class ConcurrentWiktionaryResource extends AbstractResource {
+
+    private static final Log log = LogFactory.getLog(ConcurrentWiktionaryResource.class);
+
+    private static final String resourceName = "Wiktionary";
+
+    private final String version;
+    private final WiktionaryRelationIndex relationIndex;
+    private final WiktionaryGlossStore glossStore;
+
+    /**
+     * Opens the database, loads or builds its relation index and gloss store and closes the
+     * database again. The resource is case-insensitive, like {@link WiktionaryResource}.
+     *
+     * @param language The language of the database.
+     * @param wiktionaryDirectory The Wiktionary directory as a path or file URL.
+     * @throws LexicalSemanticResourceException
+     */
+    public ConcurrentWiktionaryResource(Language language, String wiktionaryDirectory)
+        throws LexicalSemanticResourceException
+    {
+        String dir = WiktionaryResource.getDirectory(wiktionaryDirectory);
+        version = language.toString();
+        // before the database is opened, which may write to it
+        long fingerprint = WiktionaryRelationIndex.getFingerprint(new File(dir));
+        try {
+            Wiktionary wkt = new Wiktionary(dir);
+            try {
+                wkt.setAllowedEntryLanguage(language);
+                wkt.setAllowedWordLanguage(language);
+                relationIndex = WiktionaryRelationIndex.open(wkt, new File(dir), version,
+                        fingerprint);
+                glossStore = WiktionaryGlossStore.open(wkt, new File(dir), version,
+                        fingerprint);
+            }
+            finally {
+                wkt.close();
+            }
+        }
+        catch (DatabaseException e) {
+            throw new LexicalSemanticResourceException(e);
+        }
+        catch (IOException e) {
+            throw new LexicalSemanticResourceException(e);
+        }
+        log.info("Opened " + version + " Wiktionary with " + relationIndex.getNumberOfNodes()
+                + " entities for concurrent access.");
+    }
+
+    ConcurrentWiktionaryResource(String version, WiktionaryRelationIndex relationIndex,
+            WiktionaryGlossStore glossStore)
+    {
+        this.version = version;
+        this.relationIndex = relationIndex;
+        this.glossStore = glossStore;
+    }
+
+    private ConcurrentWiktionaryResource(ConcurrentWiktionaryResource other,
+            boolean isCaseSensitive)
+    {
+        this.version = other.version;
+        this.relationIndex = other.relationIndex;
+        this.glossStore = other.glossStore;
+        this.isCaseSensitive = isCaseSensitive;
+    }
+
+    /**
+     * @param caseSensitive Whether lexemes have to match in case.
+     * @return A view on the same data with the given case sensitivity.
+     */
+    public ConcurrentWiktionaryResource withCaseSensitivity(boolean caseSensitive) {
+        if (caseSensitive == isCaseSensitive) {
+            return this;
+        }
+        return new ConcurrentWiktionaryResource(this, caseSensitive);
+    }
+
+    /**
+     * The case sensitivity cannot be changed, as the resource is shared between threads.
+     *
+     * @throws UnsupportedOperationException Always, use {@link #withCaseSensitivity(boolean)}.
+     */
+    @Override
+    public void setIsCaseSensitive(boolean isCaseSensitive) {
+        throw new UnsupportedOperationException(
+                "The case sensitivity of a concurrent resource is fixed, use withCaseSensitivity().");
+    }
+
+    public boolean containsLexeme(String lexeme) {
+        return relationIndex.containsLexeme(lexeme, isCaseSensitive);
+    }
+
+    public boolean containsEntity(Entity entity) {
+        return relationIndex.containsEntity(entity, isCaseSensitive);
+    }
+
+    public Set<Entity> getEntity(String lexeme) {
+        return relationIndex.getEntities(lexeme, isCaseSensitive);
+    }
+
+    public Set<Entity> getEntity(String lexeme, PoS pos) {
+        Set<Entity> resultEntities = new HashSet<Entity>();
+        Entity entity = new Entity(lexeme, pos);
+        if (relationIndex.containsEntity(entity, isCaseSensitive)) {
+            resultEntities.add(entity);
+        }
+        return resultEntities;
+    }
+
+    public Set<Entity> getEntity(String lexeme, PoS pos, String sense) {
+        // Wiktionary entities have no senses
+        if (!Entity.UNKNOWN_SENSE.equals(sense)) {
+            return new HashSet<Entity>();
+        }
+        return getEntity(lexeme, pos);
+    }
+
+    public Set<Entity> getParents(Entity entity) {
+        return relationIndex.getRelatedEntities(entity, RelationType.HYPERNYM, isCaseSensitive);
+    }
+
+    public Set<Entity> getChildren(Entity entity) {
+        return relationIndex.getRelatedEntities(entity, RelationType.HYPONYM, isCaseSensitive);
+    }
+
+    @Override
+    public Set<Entity> getNeighbors(Entity entity) {
+        return getChildren(entity);
+    }
+
+    /**
+     * @return The number of (word, PoS) pairs, which is less than the number of word entries
+     *         that {@link WiktionaryResource#getNumberOfEntities()} returns if a word has several
+     *         entries of the same PoS.
+     */
+    public int getNumberOfEntities() {
+        return relationIndex.getNumberOfNodes();
+    }
+
+    public Iterable<Entity> getEntities() {
+        return new Iterable<Entity>() {
+            @Override
+            public Iterator<Entity> iterator() {
+                return relationIndex.entityIterator();
+            }
+        };
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public String getResourceVersion() {
+        return version;
+    }
+
+    public int getShortestPathLength(Entity firstEntity, Entity secondEntity) {
+        throw new UnsupportedOperationException();
+    }
+
+    public String getGloss(Entity entity) {
+        return glossStore.getGloss(entity, isCaseSensitive);
+    }
+
+    /**
+     * @param entities The entities.
+     * @return The gloss of each entity, an empty string if it has none.
+     */
+    public Map<Entity, String> getGlosses(Collection<Entity> entities) {
+        return glossStore.getGlosses(entities, isCaseSensitive);
+    }
+
+    public Set<Entity> getRelatedEntities(Entity entity, SemanticRelation semanticRelation) {
+        RelationType relationType = WiktionaryResource.mapRelation(semanticRelation);
+        if (relationType == null) {
+            return new HashSet<Entity>();
+        }
+        return relationIndex.getRelatedEntities(entity, relationType, isCaseSensitive);
+    }
+
+    public Set<String> getRelatedLexemes(String lexeme, PoS pos, String sense,
+            LexicalRelation lexicalRelation)
+        throws LexicalSemanticResourceException
+    {
+        Entity entity = this.getEntity(Collections.singletonMap(lexeme, sense), pos);
+        if (entity == null) {
+            return Collections.emptySet();
+        }
+
+        if (lexicalRelation.equals(LexicalRelation.antonymy)) {
+            return relationIndex.getRelatedWords(entity, RelationType.ANTONYM, isCaseSensitive);
+        }
+        else if (lexicalRelation.equals(LexicalRelation.synonymy)) {
+            return relationIndex.getRelatedWords(entity, RelationType.SYNONYM, isCaseSensitive);
+        }
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Entity getRoot() {
+        return null;
+    }
+
+    @Override
+    public Entity getRoot(PoS pos) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Entity getMostFrequentEntity(String lexeme) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Entity getMostFrequentEntity(String lexeme, PoS pos) {
+        throw new UnsupportedOperationException();
+    }
+}
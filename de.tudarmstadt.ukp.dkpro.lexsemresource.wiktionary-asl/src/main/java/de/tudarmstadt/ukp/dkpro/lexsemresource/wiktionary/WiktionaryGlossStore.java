@@ -0,0 +1,545 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics.CacheMetrics;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics.MetricsRegistry;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary.util.WiktionaryUtils;
+import de.tudarmstadt.ukp.wiktionary.api.WikiString;
+import de.tudarmstadt.ukp.wiktionary.api.Wiktionary;
+import de.tudarmstadt.ukp.wiktionary.api.WordEntry;
+
+/**
+ * The plain text glosses of a Wiktionary database, rendered once in a single pass over all word
+ * entries. The glosses are stored in deflate compressed blocks of a memory mapped file and are
+ * looked up by entity id, so that a gloss costs neither a database lookup nor wiki markup
+ * parsing. Recently used glosses are cached.
+ * <p>
+ * For each (word, PoS) pair, the store holds the gloss of each sense and, for the unknown sense,
+ * all glosses joined with ";". As in {@link WiktionaryUtils#getGlossFromEntity}, the first
+ * entry with a non-empty gloss wins if several entries share a word and PoS. Case-insensitive
+ * lookups use a second key table over the lower case words.
+ * <p>
+ * Layout (version 1):
+ * <pre>
+ * int    magic ("LSRG")
+ * int    version
+ * long   fingerprint of the database log files
+ * long   position of the footer
+ * blocks: deflated (int byte length, UTF-8 bytes) of up to BLOCK_SIZE glosses each
+ * footer: int number of glosses, int number of blocks, (long offset, int length)* per block,
+ *         int number of exact keys, (UTF key, int gloss)*, the same for the folded keys
+ * </pre>
+ */
+public class WiktionaryGlossStore {
+
+    private static final Log log = LogFactory.getLog(WiktionaryGlossStore.class);
+
+    private static final int MAGIC = 0x4C535247;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
+    private static final String FILE_PREFIX = WiktionaryRelationIndex.LSR_FILE_PREFIX
+            + "glosses-";
+    private static final int BLOCK_SIZE = 64;
+    private static final int CACHE_SIZE = 10000;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final MappedByteBuffer data;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final Map<String, Integer> exactKeys;
+    private final Map<String, Integer> foldedKeys;
+    private final int cacheSize;
+
+    private final Map<Integer, String> cache = new LinkedHashMap<Integer, String>(16, 0.75f,
+            true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    private final CacheMetrics cacheMetrics = MetricsRegistry.getDefault().getCache(
+            WiktionaryGlossStore.class.getSimpleName());
+
+    private WiktionaryGlossStore(MappedByteBuffer data, long[] blockOffsets, int[] blockLengths,
+            Map<String, Integer> exactKeys, Map<String, Integer> foldedKeys, int cacheSize) {
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.blockLengths = blockLengths;
+        this.exactKeys = exactKeys;
+        this.foldedKeys = foldedKeys;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Loads the gloss store of the given database, or builds it if it is missing or the
+     * database changed since it was built.
+     *
+     * @param wkt The database.
+     * @param wiktionaryDirectory The directory of the database, where the store is saved.
+     * @param name A name for the store that distinguishes the settings of the database, e.g.
+     *            the language.
+     * @param fingerprint The fingerprint of the database, as returned by
+     *            {@link WiktionaryRelationIndex#getFingerprint(File)} before the database was
+     *            opened.
+     * @return The gloss store.
+     * @throws IOException If the store can neither be loaded nor built.
+     */
+    public static WiktionaryGlossStore open(final Wiktionary wkt, File wiktionaryDirectory,
+            String name, long fingerprint)
+        throws IOException
+    {
+        return open(new Iterable<WordEntry>() {
+            @Override
+            public Iterator<WordEntry> iterator() {
+                return wkt.wordEntryIterator();
+            }
+        }, wiktionaryDirectory, name, fingerprint);
+    }
+
+    static WiktionaryGlossStore open(Iterable<WordEntry> wordEntries, File directory,
+            String name, long fingerprint)
+        throws IOException
+    {
+        File file = new File(directory, FILE_PREFIX + name);
+        if (file.exists()) {
+            try {
+                WiktionaryGlossStore store = load(file, fingerprint);
+                if (store != null) {
+                    log.info("Loaded gloss store from " + file);
+                    return store;
+                }
+                log.info("Gloss store " + file + " is outdated.");
+            }
+            catch (IOException e) {
+                log.warn("Could not load gloss store " + file + ": " + e.getMessage());
+            }
+        }
+
+        log.info("Building gloss store.");
+        build(wordEntries.iterator(), file, fingerprint);
+        log.info("Saved gloss store to " + file);
+        WiktionaryGlossStore store = load(file, fingerprint);
+        if (store == null) {
+            throw new IOException("Gloss store " + file + " changed while it was loaded.");
+        }
+        return store;
+    }
+
+    /**
+     * Renders the glosses of the given word entries and writes them to a store file.
+     *
+     * @param wordEntries The word entries of the database.
+     * @param file The store file.
+     * @param fingerprint The fingerprint of the database files.
+     * @throws IOException
+     */
+    static void build(Iterator<WordEntry> wordEntries, File file, long fingerprint)
+        throws IOException
+    {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), 1 << 16));
+            out.write(new byte[HEADER_BYTES]);
+
+            Map<String, Integer> exactKeys = new HashMap<String, Integer>();
+            Map<String, Integer> foldedKeys = new HashMap<String, Integer>();
+            BlockWriter blocks = new BlockWriter(out);
+            int entries = 0;
+            while (wordEntries.hasNext()) {
+                WordEntry entry = wordEntries.next();
+                PoS pos = WiktionaryUtils.mapPos(entry.getPartOfSpeech());
+                // an entity only finds the entries of the parts of speech its PoS maps back to
+                if (!WiktionaryUtils.mapPos(pos).contains(entry.getPartOfSpeech())) {
+                    continue;
+                }
+
+                String word = entry.getWord();
+                List<WikiString> glosses = entry.getGlosses();
+                StringBuilder allGlosses = new StringBuilder();
+                for (int sense = 1; sense <= glosses.size(); sense++) {
+                    String gloss = glosses.get(sense - 1).getPlainText();
+                    if (gloss != null) {
+                        allGlosses.append(gloss);
+                    }
+                    allGlosses.append(";");
+                    addGloss(word, pos, String.valueOf(sense), gloss, exactKeys, foldedKeys,
+                            blocks);
+                }
+                addGloss(word, pos, Entity.UNKNOWN_SENSE, allGlosses.toString(), exactKeys,
+                        foldedKeys, blocks);
+
+                entries++;
+                if (entries % 100000 == 0) {
+                    log.info("Rendered the glosses of " + entries + " word entries.");
+                }
+            }
+            blocks.flush();
+
+            long footer = HEADER_BYTES + blocks.written;
+            out.writeInt(blocks.getNumberOfGlosses());
+            out.writeInt(blocks.offsets.size());
+            for (int block = 0; block < blocks.offsets.size(); block++) {
+                out.writeLong(blocks.offsets.get(block));
+                out.writeInt(blocks.lengths.get(block));
+            }
+            writeKeys(out, exactKeys);
+            writeKeys(out, foldedKeys);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(fingerprint);
+            header.putLong(footer);
+            header.flip();
+            channel.write(header, 0);
+            channel.force(false);
+            log.info("Rendered " + blocks.getNumberOfGlosses() + " glosses of " + entries
+                    + " word entries.");
+        }
+        finally {
+            channel.close();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void addGloss(String word, PoS pos, String sense, String gloss,
+            Map<String, Integer> exactKeys, Map<String, Integer> foldedKeys, BlockWriter blocks)
+        throws IOException
+    {
+        if (gloss == null || gloss.length() == 0) {
+            return;
+        }
+        String key = new Entity(word, pos, sense).getId();
+        if (exactKeys.containsKey(key)) {
+            return;
+        }
+        int id = blocks.add(gloss);
+        exactKeys.put(key, id);
+        String foldedKey = new Entity(fold(word), pos, sense).getId();
+        if (!foldedKeys.containsKey(foldedKey)) {
+            foldedKeys.put(foldedKey, id);
+        }
+    }
+
+    private static void writeKeys(DataOutputStream out, Map<String, Integer> keys)
+        throws IOException
+    {
+        out.writeInt(keys.size());
+        for (Map.Entry<String, Integer> entry : keys.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    /**
+     * @return The store, or null if it was built for a different fingerprint.
+     */
+    static WiktionaryGlossStore load(File file, long fingerprint) throws IOException {
+        return load(file, fingerprint, CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize The number of recently used glosses that are cached.
+     * @return The store, or null if it was built for a different fingerprint.
+     */
+    static WiktionaryGlossStore load(File file, long fingerprint, int cacheSize)
+        throws IOException
+    {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("File is too short to be a gloss store: " + file);
+            }
+            MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a gloss store: " + file);
+            }
+            if (header.getInt() != VERSION || header.getLong() != fingerprint) {
+                return null;
+            }
+            long footer = header.getLong();
+            if (footer - HEADER_BYTES > Integer.MAX_VALUE) {
+                throw new IOException("Gloss store is too large to be mapped: " + file);
+            }
+
+            channel.position(footer);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel), 1 << 16));
+            in.readInt();
+            int numberOfBlocks = in.readInt();
+            long[] blockOffsets = new long[numberOfBlocks];
+            int[] blockLengths = new int[numberOfBlocks];
+            for (int block = 0; block < numberOfBlocks; block++) {
+                blockOffsets[block] = in.readLong();
+                blockLengths[block] = in.readInt();
+            }
+            Map<String, Integer> exactKeys = readKeys(in);
+            Map<String, Integer> foldedKeys = readKeys(in);
+
+            MappedByteBuffer data = channel.map(MapMode.READ_ONLY, HEADER_BYTES,
+                    footer - HEADER_BYTES);
+            return new WiktionaryGlossStore(data, blockOffsets, blockLengths, exactKeys,
+                    foldedKeys, cacheSize);
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+    private static Map<String, Integer> readKeys(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, Integer> keys = new HashMap<String, Integer>(2 * size);
+        for (int i = 0; i < size; i++) {
+            keys.put(in.readUTF(), in.readInt());
+        }
+        return keys;
+    }
+
+    /**
+     * @param entity An entity.
+     * @param caseSensitive Whether to match the case of the lexeme.
+     * @return The gloss of the entity, or an empty string if it has none.
+     */
+    public String getGloss(Entity entity, boolean caseSensitive) {
+        int id = getGlossId(entity, caseSensitive);
+        if (id < 0) {
+            return "";
+        }
+        synchronized (cache) {
+            String gloss = cache.get(id);
+            if (gloss != null) {
+                cacheMetrics.hit();
+                return gloss;
+            }
+        }
+        cacheMetrics.miss();
+        String[] block = readBlock(id / BLOCK_SIZE);
+        String gloss = block[id % BLOCK_SIZE];
+        synchronized (cache) {
+            cache.put(id, gloss);
+        }
+        return gloss;
+    }
+
+    /**
+     * Looks up the glosses of several entities, decompressing each block only once.
+     *
+     * @param entities The entities.
+     * @param caseSensitive Whether to match the case of the lexemes.
+     * @return The gloss of each entity, an empty string if it has none.
+     */
+    public Map<Entity, String> getGlosses(Collection<Entity> entities, boolean caseSensitive) {
+        Map<Entity, String> glosses = new HashMap<Entity, String>(2 * entities.size());
+        Map<Entity, Integer> missing = new HashMap<Entity, Integer>();
+        synchronized (cache) {
+            for (Entity entity : entities) {
+                int id = getGlossId(entity, caseSensitive);
+                String gloss = id < 0 ? "" : cache.get(id);
+                if (gloss != null) {
+                    glosses.put(entity, gloss);
+                    if (id >= 0) {
+                        cacheMetrics.hit();
+                    }
+                }
+                else {
+                    missing.put(entity, id);
+                    cacheMetrics.miss();
+                }
+            }
+        }
+
+        // sort the missing glosses by block, so that each block is read once
+        Map.Entry<Entity, Integer>[] byId = sortById(missing);
+        String[] block = null;
+        int blockId = -1;
+        for (Map.Entry<Entity, Integer> entry : byId) {
+            int id = entry.getValue();
+            if (id / BLOCK_SIZE != blockId) {
+                blockId = id / BLOCK_SIZE;
+                block = readBlock(blockId);
+            }
+            glosses.put(entry.getKey(), block[id % BLOCK_SIZE]);
+        }
+        synchronized (cache) {
+            for (Map.Entry<Entity, Integer> entry : byId) {
+                cache.put(entry.getValue(), glosses.get(entry.getKey()));
+            }
+        }
+        return glosses;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map.Entry<Entity, Integer>[] sortById(Map<Entity, Integer> ids) {
+        Map.Entry<Entity, Integer>[] entries = ids.entrySet().toArray(
+                new Map.Entry[ids.size()]);
+        Arrays.sort(entries, new Comparator<Map.Entry<Entity, Integer>>() {
+            @Override
+            public int compare(Map.Entry<Entity, Integer> a, Map.Entry<Entity, Integer> b) {
+                return Integer.compare(a.getValue(), b.getValue());
+            }
+        });
+        return entries;
+    }
+
+    private int getGlossId(Entity entity, boolean caseSensitive) {
+        // a Wiktionary entity only contains one lexeme
+        String lexeme = entity.getFirstLexeme();
+        if (lexeme == null) {
+            return -1;
+        }
+        String sense = entity.getSense(lexeme);
+        Integer id;
+        if (caseSensitive) {
+            id = exactKeys.get(new Entity(lexeme, entity.getPos(), sense).getId());
+        }
+        else {
+            id = foldedKeys.get(new Entity(fold(lexeme), entity.getPos(), sense).getId());
+        }
+        return id != null ? id : -1;
+    }
+
+    private String[] readBlock(int block) {
+        ByteBuffer view = data.duplicate();
+        view.position((int) blockOffsets[block]);
+        int compressedLength = (int) ((block + 1 < blockOffsets.length ? blockOffsets[block + 1]
+                : data.capacity()) - blockOffsets[block]);
+        byte[] compressed = new byte[compressedLength];
+        view.get(compressed);
+
+        byte[] bytes = new byte[blockLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            inflater.inflate(bytes);
+        }
+        catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt gloss store block " + block, e);
+        }
+        finally {
+            inflater.end();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        String[] glosses = new String[BLOCK_SIZE];
+        for (int i = 0; i < BLOCK_SIZE && buffer.hasRemaining(); i++) {
+            int length = buffer.getInt();
+            glosses[i] = new String(bytes, buffer.position(), length, UTF8);
+            buffer.position(buffer.position() + length);
+        }
+        return glosses;
+    }
+
+    private static String fold(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Collects glosses into blocks and writes each full block deflated.
+     */
+    private static class BlockWriter {
+
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        private final DataOutputStream blockOut = new DataOutputStream(block);
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private final byte[] buffer = new byte[1 << 16];
+        private final List<Long> offsets = new ArrayList<Long>();
+        private final List<Integer> lengths = new ArrayList<Integer>();
+        private int numberOfGlosses;
+        private long written;
+
+        public BlockWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        public int add(String gloss) throws IOException {
+            byte[] bytes = gloss.getBytes(UTF8);
+            blockOut.writeInt(bytes.length);
+            blockOut.write(bytes);
+            if (++numberOfGlosses % BLOCK_SIZE == 0) {
+                flush();
+            }
+            return numberOfGlosses - 1;
+        }
+
+        public void flush() throws IOException {
+            if (block.size() == 0) {
+                return;
+            }
+            offsets.add(written);
+            lengths.add(block.size());
+            deflater.reset();
+            deflater.setInput(block.toByteArray());
+            deflater.finish();
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                out.write(buffer, 0, length);
+                written += length;
+            }
+            block.reset();
+        }
+
+        public int getNumberOfGlosses() {
+            return numberOfGlosses;
+        }
+    }
+}
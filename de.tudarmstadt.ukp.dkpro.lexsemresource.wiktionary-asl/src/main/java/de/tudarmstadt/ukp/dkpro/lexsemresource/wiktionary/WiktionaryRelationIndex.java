@@ -0,0 +1,606 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary.util.WiktionaryUtils;
+import de.tudarmstadt.ukp.wiktionary.api.PartOfSpeech;
+import de.tudarmstadt.ukp.wiktionary.api.RelationType;
+import de.tudarmstadt.ukp.wiktionary.api.Wiktionary;
+import de.tudarmstadt.ukp.wiktionary.api.WordEntry;
+
+/**
+ * The relations of a Wiktionary database, collected in a single pass over all word entries and
+ * stored in primitive arrays, so that relation queries do not need any database lookups.
+ * <p>
+ * Each (word, PoS) pair of the database is a node. For each {@link RelationType}, the related
+ * words of a node are stored as word ids in compressed sparse row layout. A word id resolves to
+ * the nodes of that word without a lookup, and in case-insensitive mode to the nodes of all
+ * words with the same lower case form, just like {@link Wiktionary#getWordEntries(String)}.
+ * Related words without an entry of their own are kept in the word table with no nodes.
+ * <p>
+ * The index is saved next to the database together with a fingerprint of the database log files,
+ * and rebuilt when the database changes.
+ */
+public class WiktionaryRelationIndex {
+
+    private static final Log log = LogFactory.getLog(WiktionaryRelationIndex.class);
+
+    private static final int MAGIC = 0x4C535257;
+    private static final int VERSION = 2;
+
+    // marks the nodes with an entry of a part of speech that their PoS maps back to
+    private static final int LOOKUP_FLAG = 0x40;
+    private static final int POS_MASK = 0x3F;
+
+    // the prefix of all files written to the Wiktionary directory, which are no database files
+    static final String LSR_FILE_PREFIX = "lsr-";
+    private static final String FILE_PREFIX = LSR_FILE_PREFIX + "relations-";
+    private static final String LOG_FILE_SUFFIX = ".jdb";
+
+    // persisted
+    private final String[] words;
+    private final int[] nodeWords;
+    private final byte[] nodePos;
+    private final int[][] relationOffsets;
+    private final int[][] relationTargets;
+
+    // derived on load
+    private final Map<String, Integer> wordIds;
+    private final int[] wordNodeOffsets;
+    private final int[] wordNodes;
+    private final Map<String, int[]> foldedWords;
+
+    private WiktionaryRelationIndex(String[] words, int[] nodeWords, byte[] nodePos,
+            int[][] relationOffsets, int[][] relationTargets) {
+        this.words = words;
+        this.nodeWords = nodeWords;
+        this.nodePos = nodePos;
+        this.relationOffsets = relationOffsets;
+        this.relationTargets = relationTargets;
+
+        wordIds = new HashMap<String, Integer>(2 * words.length);
+        for (int word = 0; word < words.length; word++) {
+            wordIds.put(words[word], word);
+        }
+
+        // the nodes of each word, by counting sort over the node words
+        wordNodeOffsets = new int[words.length + 1];
+        for (int word : nodeWords) {
+            wordNodeOffsets[word + 1]++;
+        }
+        for (int word = 0; word < words.length; word++) {
+            wordNodeOffsets[word + 1] += wordNodeOffsets[word];
+        }
+        wordNodes = new int[nodeWords.length];
+        int[] fill = Arrays.copyOf(wordNodeOffsets, words.length);
+        for (int node = 0; node < nodeWords.length; node++) {
+            wordNodes[fill[nodeWords[node]]++] = node;
+        }
+
+        // the case variants of each word
+        Map<String, int[]> variants = new HashMap<String, int[]>(2 * words.length);
+        for (int word = 0; word < words.length; word++) {
+            String folded = fold(words[word]);
+            int[] previous = variants.get(folded);
+            if (previous == null) {
+                variants.put(folded, new int[] { word });
+            }
+            else {
+                int[] extended = Arrays.copyOf(previous, previous.length + 1);
+                extended[previous.length] = word;
+                variants.put(folded, extended);
+            }
+        }
+        foldedWords = variants;
+    }
+
+    /**
+     * Loads the index of the given database, or builds and saves it if it is missing or the
+     * database changed since it was saved. If the index cannot be saved, it is only kept in
+     * memory.
+     *
+     * @param wkt The database.
+     * @param wiktionaryDirectory The directory of the database.
+     * @param name A name for the index that distinguishes the settings of the database, e.g.
+     *            the language.
+     * @param fingerprint The fingerprint of the database, as returned by
+     *            {@link #getFingerprint(File)} before the database was opened.
+     * @return The index.
+     */
+    public static WiktionaryRelationIndex open(final Wiktionary wkt, File wiktionaryDirectory,
+            String name, long fingerprint) {
+        return open(new Iterable<WordEntry>() {
+            @Override
+            public Iterator<WordEntry> iterator() {
+                return wkt.wordEntryIterator();
+            }
+        }, wiktionaryDirectory, name, fingerprint);
+    }
+
+    static WiktionaryRelationIndex open(Iterable<WordEntry> wordEntries, File directory,
+            String name, long fingerprint) {
+        File indexFile = new File(directory, FILE_PREFIX + name);
+        if (indexFile.exists()) {
+            try {
+                WiktionaryRelationIndex index = load(indexFile, fingerprint);
+                if (index != null) {
+                    log.info("Loaded relation index from " + indexFile);
+                    return index;
+                }
+                log.info("Relation index " + indexFile + " is outdated.");
+            }
+            catch (IOException e) {
+                log.warn("Could not load relation index " + indexFile + ": " + e.getMessage());
+            }
+        }
+
+        log.info("Building relation index.");
+        WiktionaryRelationIndex index = build(wordEntries.iterator());
+        try {
+            index.save(indexFile, fingerprint);
+            log.info("Saved relation index to " + indexFile);
+        }
+        catch (IOException e) {
+            log.warn("Could not save relation index " + indexFile + ": " + e.getMessage());
+        }
+        return index;
+    }
+
+    /**
+     * Builds the index in a single pass over the word entries.
+     *
+     * @param wordEntries The word entries of the database.
+     * @return The index.
+     */
+    public static WiktionaryRelationIndex build(Iterator<WordEntry> wordEntries) {
+        RelationType[] relationTypes = RelationType.values();
+        Map<String, Integer> wordIds = new HashMap<String, Integer>();
+        Map<Long, Integer> nodeIds = new HashMap<Long, Integer>();
+        IntList nodeWords = new IntList();
+        IntList nodePos = new IntList();
+        IntList[] sources = new IntList[relationTypes.length];
+        IntList[] targets = new IntList[relationTypes.length];
+        for (int i = 0; i < relationTypes.length; i++) {
+            sources[i] = new IntList();
+            targets[i] = new IntList();
+        }
+
+        int entries = 0;
+        while (wordEntries.hasNext()) {
+            WordEntry entry = wordEntries.next();
+            PoS pos = WiktionaryUtils.mapPos(entry.getPartOfSpeech());
+            int word = getWordId(wordIds, entry.getWord());
+            Long key = ((long) word << 8) | pos.ordinal();
+            Integer node = nodeIds.get(key);
+            if (node == null) {
+                node = nodeWords.size();
+                nodeIds.put(key, node);
+                nodeWords.add(word);
+                nodePos.add(pos.ordinal());
+            }
+
+            // an entity only finds the entries of the parts of speech its PoS maps back to
+            Set<PartOfSpeech> lookupPos = WiktionaryUtils.mapPos(pos);
+            if (lookupPos.contains(entry.getPartOfSpeech())) {
+                nodePos.set(node, pos.ordinal() | LOOKUP_FLAG);
+                for (int i = 0; i < relationTypes.length; i++) {
+                    for (String related : entry.getAllRelatedWords(relationTypes[i])) {
+                        sources[i].add(node);
+                        targets[i].add(getWordId(wordIds, related));
+                    }
+                }
+            }
+
+            entries++;
+            if (entries % 100000 == 0) {
+                log.info("Indexed " + entries + " word entries.");
+            }
+        }
+
+        String[] words = new String[wordIds.size()];
+        for (Map.Entry<String, Integer> entry : wordIds.entrySet()) {
+            words[entry.getValue()] = entry.getKey();
+        }
+        byte[] posBytes = new byte[nodePos.size()];
+        for (int node = 0; node < posBytes.length; node++) {
+            posBytes[node] = (byte) nodePos.get(node);
+        }
+        int numberOfNodes = nodeWords.size();
+        int[][] relationOffsets = new int[relationTypes.length][];
+        int[][] relationTargets = new int[relationTypes.length][];
+        for (int i = 0; i < relationTypes.length; i++) {
+            compress(numberOfNodes, sources[i], targets[i], relationOffsets, relationTargets, i);
+        }
+        log.info("Indexed " + entries + " word entries, " + numberOfNodes + " nodes, "
+                + words.length + " words.");
+        return new WiktionaryRelationIndex(words, nodeWords.toArray(), posBytes, relationOffsets,
+                relationTargets);
+    }
+
+    private static int getWordId(Map<String, Integer> wordIds, String word) {
+        Integer id = wordIds.get(word);
+        if (id == null) {
+            id = wordIds.size();
+            wordIds.put(word, id);
+        }
+        return id;
+    }
+
+    /**
+     * Sorts the arcs by source node and removes duplicates.
+     */
+    private static void compress(int numberOfNodes, IntList sources, IntList targets,
+            int[][] offsetsOut, int[][] targetsOut, int relation) {
+        int[] offsets = new int[numberOfNodes + 1];
+        for (int i = 0; i < sources.size(); i++) {
+            offsets[sources.get(i) + 1]++;
+        }
+        for (int node = 0; node < numberOfNodes; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+        int[] rows = new int[sources.size()];
+        int[] fill = Arrays.copyOf(offsets, numberOfNodes);
+        for (int i = 0; i < sources.size(); i++) {
+            rows[fill[sources.get(i)]++] = targets.get(i);
+        }
+
+        int write = 0;
+        int rowStart = 0;
+        for (int node = 0; node < numberOfNodes; node++) {
+            int rowEnd = offsets[node + 1];
+            Arrays.sort(rows, rowStart, rowEnd);
+            offsets[node] = write;
+            for (int i = rowStart; i < rowEnd; i++) {
+                if (i == rowStart || rows[i] != rows[i - 1]) {
+                    rows[write++] = rows[i];
+                }
+            }
+            rowStart = rowEnd;
+        }
+        offsets[numberOfNodes] = write;
+        offsetsOut[relation] = offsets;
+        targetsOut[relation] = Arrays.copyOf(rows, write);
+    }
+
+    /**
+     * @return The number of (word, PoS) nodes.
+     */
+    public int getNumberOfNodes() {
+        return nodeWords.length;
+    }
+
+    /**
+     * @param lexeme A word.
+     * @param caseSensitive Whether to match the case of the word.
+     * @return True, if the word has an entry.
+     */
+    public boolean containsLexeme(String lexeme, boolean caseSensitive) {
+        for (int word : getWords(lexeme, caseSensitive)) {
+            if (wordNodeOffsets[word + 1] > wordNodeOffsets[word]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param entity An entity.
+     * @param caseSensitive Whether to match the case of the lexeme.
+     * @return True, if the lexeme of the entity has an entry of one of the parts of speech that
+     *         the PoS of the entity maps to.
+     */
+    public boolean containsEntity(Entity entity, boolean caseSensitive) {
+        int pos = entity.getPos().ordinal() | LOOKUP_FLAG;
+        // a Wiktionary entity only contains one lexeme
+        for (int word : getWords(entity.getFirstLexeme(), caseSensitive)) {
+            for (int i = wordNodeOffsets[word]; i < wordNodeOffsets[word + 1]; i++) {
+                if (nodePos[wordNodes[i]] == pos) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return An iterator over the entities of all nodes, independent of any other iterator.
+     */
+    public Iterator<Entity> entityIterator() {
+        return new Iterator<Entity>() {
+            private final PoS[] posValues = PoS.values();
+            private int node = 0;
+
+            @Override
+            public boolean hasNext() {
+                return node < nodeWords.length;
+            }
+
+            @Override
+            public Entity next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Entity entity = new Entity(words[nodeWords[node]],
+                        posValues[nodePos[node] & POS_MASK]);
+                node++;
+                return entity;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * @param lexeme A word.
+     * @param caseSensitive Whether to match the case of the word.
+     * @return The entities of the word, one per PoS.
+     */
+    public Set<Entity> getEntities(String lexeme, boolean caseSensitive) {
+        Set<Entity> entities = new HashSet<Entity>();
+        addEntities(lexeme, getWords(lexeme, caseSensitive), entities);
+        return entities;
+    }
+
+    /**
+     * @param entity An entity.
+     * @param relationType A relation type.
+     * @param caseSensitive Whether to match the case of the words.
+     * @return The entities related to the given entity, as returned by
+     *         {@link WiktionaryResource#getEntity(String)} for each related word.
+     */
+    public Set<Entity> getRelatedEntities(Entity entity, RelationType relationType,
+            boolean caseSensitive) {
+        Set<Entity> results = new HashSet<Entity>();
+        for (int related : getRelatedWordIds(entity, relationType, caseSensitive)) {
+            addEntities(words[related], getWords(words[related], caseSensitive), results);
+        }
+        return results;
+    }
+
+    /**
+     * @param entity An entity.
+     * @param relationType A relation type.
+     * @param caseSensitive Whether to match the case of the words.
+     * @return The words related to the given entity.
+     */
+    public Set<String> getRelatedWords(Entity entity, RelationType relationType,
+            boolean caseSensitive) {
+        Set<String> results = new HashSet<String>();
+        for (int related : getRelatedWordIds(entity, relationType, caseSensitive)) {
+            results.add(words[related]);
+        }
+        return results;
+    }
+
+    private Set<Integer> getRelatedWordIds(Entity entity, RelationType relationType,
+            boolean caseSensitive) {
+        int relation = relationType.ordinal();
+        int[] offsets = relationOffsets[relation];
+        int[] targets = relationTargets[relation];
+        Set<Integer> related = new HashSet<Integer>();
+        // a Wiktionary entity only contains one lexeme
+        int pos = entity.getPos().ordinal();
+        for (int word : getWords(entity.getFirstLexeme(), caseSensitive)) {
+            for (int i = wordNodeOffsets[word]; i < wordNodeOffsets[word + 1]; i++) {
+                int node = wordNodes[i];
+                if ((nodePos[node] & POS_MASK) == pos) {
+                    for (int j = offsets[node]; j < offsets[node + 1]; j++) {
+                        related.add(targets[j]);
+                    }
+                }
+            }
+        }
+        return related;
+    }
+
+    private int[] getWords(String lexeme, boolean caseSensitive) {
+        if (!caseSensitive) {
+            int[] variants = foldedWords.get(fold(lexeme));
+            return variants != null ? variants : new int[0];
+        }
+        Integer word = wordIds.get(lexeme);
+        return word != null ? new int[] { word } : new int[0];
+    }
+
+    private void addEntities(String lexeme, int[] wordIds, Set<Entity> entities) {
+        PoS[] posValues = PoS.values();
+        for (int word : wordIds) {
+            for (int i = wordNodeOffsets[word]; i < wordNodeOffsets[word + 1]; i++) {
+                entities.add(new Entity(lexeme, posValues[nodePos[wordNodes[i]] & POS_MASK]));
+            }
+        }
+    }
+
+    private static String fold(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The fingerprint of a Berkeley DB database is made of the names of its log files and the
+     * sizes of all but the last one. Opening the database may append to the last log file and
+     * creates lock and info files, so these are left out. The fingerprint has to be taken before
+     * the database is opened, as recovery may also start a new log file.
+     */
+    static long getFingerprint(File wiktionaryDirectory) {
+        File[] files = wiktionaryDirectory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        List<File> logFiles = new ArrayList<File>();
+        for (File file : files) {
+            if (file.getName().endsWith(LOG_FILE_SUFFIX)) {
+                logFiles.add(file);
+            }
+        }
+        Collections.sort(logFiles);
+        long fingerprint = 17;
+        for (int i = 0; i < logFiles.size(); i++) {
+            fingerprint = 31 * fingerprint + logFiles.get(i).getName().hashCode();
+            if (i < logFiles.size() - 1) {
+                fingerprint = 31 * fingerprint + logFiles.get(i).length();
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Writes the index to a temporary file, which then replaces the given file.
+     */
+    void save(File file, long fingerprint) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmpFile), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(words.length);
+            for (String word : words) {
+                out.writeUTF(word);
+            }
+            writeInts(out, nodeWords);
+            out.writeInt(nodePos.length);
+            out.write(nodePos);
+            out.writeInt(relationOffsets.length);
+            for (int i = 0; i < relationOffsets.length; i++) {
+                writeInts(out, relationOffsets[i]);
+                writeInts(out, relationTargets[i]);
+            }
+        }
+        finally {
+            out.close();
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return The index, or null if it was saved for a different fingerprint.
+     */
+    static WiktionaryRelationIndex load(File file, long fingerprint) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file), 1 << 16));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a relation index file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION || in.readLong() != fingerprint) {
+                return null;
+            }
+            String[] words = new String[in.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readUTF();
+            }
+            int[] nodeWords = readInts(in);
+            byte[] nodePos = new byte[in.readInt()];
+            in.readFully(nodePos);
+            int relations = in.readInt();
+            if (relations != RelationType.values().length) {
+                return null;
+            }
+            int[][] relationOffsets = new int[relations][];
+            int[][] relationTargets = new int[relations][];
+            for (int i = 0; i < relations; i++) {
+                relationOffsets[i] = readInts(in);
+                relationTargets[i] = readInts(in);
+            }
+            return new WiktionaryRelationIndex(words, nodeWords, nodePos, relationOffsets,
+                    relationTargets);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * A growable int array.
+     */
+    private static class IntList {
+
+        private int[] values = new int[16];
+        private int size;
+
+        public void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        public int get(int i) {
+            return values[i];
+        }
+
+        public void set(int i, int value) {
+            values[i] = value;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -56,6 +57,13 @@ public class WiktionaryResource extends AbstractResource {
     private Iterable<Entity> wktIterable;
     private String version;
 
+    private File wiktionaryDir;
+    private long fingerprint;
+    private boolean useRelationIndex = true;
+    private WiktionaryRelationIndex relationIndex;
+    private boolean useGlossStore = true;
+    private WiktionaryGlossStore glossStore;
+
     public
     WiktionaryResource(
     		Language language,
@@ -63,27 +71,11 @@ public class WiktionaryResource extends AbstractResource {
     throws LexicalSemanticResourceException
     {
         try {
-        	// Check if we got an URL (file URL)
-        	String dir = null;
-        	try {
-        		URL url = new URL(wiktionaryDirectory);
-        		if ("file".equals(url.getProtocol())) {
-        			dir = new File(url.getPath()).getAbsolutePath();
-        		}
-        		else {
-        			throw new LexicalSemanticResourceException(
-        					"Wiktionary resources have to reside on the file "+
-        					"system, but are at ["+url+"]");
-        		}
-        	}
-        	catch (IOException e) {
-        		// Ignore
-        	}
-
-        	if (dir == null) {
-        		dir = wiktionaryDirectory;
-        	}
+            String dir = getDirectory(wiktionaryDirectory);
 
+            wiktionaryDir = new File(dir);
+            // before the database is opened, which may write to it
+            fingerprint = WiktionaryRelationIndex.getFingerprint(wiktionaryDir);
             wkt = new Wiktionary(dir);
 
             // use a certain Wiktionary DB
@@ -105,6 +97,38 @@ public class WiktionaryResource extends AbstractResource {
         }
     }
 
+    /**
+     * @param wiktionaryDirectory The Wiktionary directory as a path or file URL.
+     * @return The path of the Wiktionary directory.
+     * @throws LexicalSemanticResourceException If the URL does not point to the file system.
+     */
+    static String getDirectory(String wiktionaryDirectory)
+        throws LexicalSemanticResourceException
+    {
+        // Check if we got an URL (file URL)
+        String dir = null;
+        try {
+            URL url = new URL(wiktionaryDirectory);
+            if ("file".equals(url.getProtocol())) {
+                dir = new File(url.getPath()).getAbsolutePath();
+            }
+            else {
+                throw new LexicalSemanticResourceException(
+                        "Wiktionary resources have to reside on the file "+
+                        "system, but are at ["+url+"]");
+            }
+        }
+        catch (IOException e) {
+            // Ignore
+        }
+
+        if (dir == null) {
+            dir = wiktionaryDirectory;
+        }
+
+        return dir;
+    }
+
     @Override
 	public void setIsCaseSensitive(boolean isCaseSensitive){
         this.isCaseSensitive = isCaseSensitive;
@@ -179,7 +203,38 @@ public class WiktionaryResource extends AbstractResource {
         return resultEntities;
     }
 
+    /**
+     * Enables or disables the relation index. If enabled, relation queries are answered from a
+     * {@link WiktionaryRelationIndex} that is built on the first query, or loaded from the
+     * Wiktionary directory if it was built before. Otherwise, each query looks up the related
+     * words in the Wiktionary database. The index is enabled by default.
+     *
+     * @param useRelationIndex True, to use the relation index.
+     */
+    public synchronized void setUseRelationIndex(boolean useRelationIndex) {
+        this.useRelationIndex = useRelationIndex;
+    }
+
+    /**
+     * @return The relation index, or null if it is disabled.
+     */
+    private synchronized WiktionaryRelationIndex getRelationIndex() {
+        if (!useRelationIndex) {
+            return null;
+        }
+        if (relationIndex == null) {
+            relationIndex = WiktionaryRelationIndex.open(wkt, wiktionaryDir, version,
+                    fingerprint);
+        }
+        return relationIndex;
+    }
+
     public Set<Entity> getParents(Entity entity) {
+        WiktionaryRelationIndex index = getRelationIndex();
+        if (index != null) {
+            return index.getRelatedEntities(entity, RelationType.HYPERNYM, isCaseSensitive);
+        }
+
         List<String> children = new ArrayList<String>();
 		for (WordEntry word : WiktionaryUtils.entityToWords(wkt, entity)) {
 	        for (String relation : word.getAllRelatedWords(RelationType.HYPERNYM)) {
@@ -194,6 +249,11 @@ public class WiktionaryResource extends AbstractResource {
     }
 
     public Set<Entity> getChildren(Entity entity) throws LexicalSemanticResourceException {
+        WiktionaryRelationIndex index = getRelationIndex();
+        if (index != null) {
+            return index.getRelatedEntities(entity, RelationType.HYPONYM, isCaseSensitive);
+        }
+
         List<String> children = new ArrayList<String>();
 		for (WordEntry word : WiktionaryUtils.entityToWords(wkt, entity)) {
 	        for (String relation : word.getAllRelatedWords(RelationType.HYPONYM)) {
@@ -246,9 +306,68 @@ public class WiktionaryResource extends AbstractResource {
     }
 
     public String getGloss(Entity entity) throws LexicalSemanticResourceException  {
+        WiktionaryGlossStore store = getGlossStore();
+        if (store != null) {
+            return store.getGloss(entity, isCaseSensitive);
+        }
         return WiktionaryUtils.getGlossFromEntity(wkt, entity);
     }
 
+    /**
+     * Looks up the glosses of several entities at once. This is faster than calling
+     * {@link #getGloss(Entity)} for each entity, as the gloss store is read in order.
+     *
+     * @param entities The entities.
+     * @return The gloss of each entity, an empty string if it has none.
+     * @throws LexicalSemanticResourceException
+     */
+    public Map<Entity, String> getGlosses(Collection<Entity> entities)
+        throws LexicalSemanticResourceException
+    {
+        WiktionaryGlossStore store = getGlossStore();
+        if (store != null) {
+            return store.getGlosses(entities, isCaseSensitive);
+        }
+        Map<Entity, String> glosses = new HashMap<Entity, String>();
+        for (Entity entity : entities) {
+            glosses.put(entity, WiktionaryUtils.getGlossFromEntity(wkt, entity));
+        }
+        return glosses;
+    }
+
+    /**
+     * Enables or disables the gloss store. If enabled, glosses are read from a
+     * {@link WiktionaryGlossStore} that is built on the first query, or loaded from the
+     * Wiktionary directory if it was built before. Otherwise, each gloss is rendered from the
+     * Wiktionary database. The store is enabled by default.
+     *
+     * @param useGlossStore True, to use the gloss store.
+     */
+    public synchronized void setUseGlossStore(boolean useGlossStore) {
+        this.useGlossStore = useGlossStore;
+    }
+
+    /**
+     * @return The gloss store, or null if it is disabled or cannot be built.
+     */
+    private synchronized WiktionaryGlossStore getGlossStore() {
+        if (!useGlossStore) {
+            return null;
+        }
+        if (glossStore == null) {
+            try {
+                glossStore = WiktionaryGlossStore.open(wkt, wiktionaryDir, version,
+                        fingerprint);
+            }
+            catch (IOException e) {
+                log.warn("Gloss store not available, rendering glosses from the database: "
+                        + e.getMessage());
+                useGlossStore = false;
+            }
+        }
+        return glossStore;
+    }
+
 //    private List<String> getGloss(Set<Word> words) throws LexicalSemanticResourceException {
 //    	List<String> glosses = new ArrayList<String>();
 //    	for (Word word : words) {
@@ -263,27 +382,20 @@ public class WiktionaryResource extends AbstractResource {
 //    }
 
     public Set<Entity> getRelatedEntities(Entity entity, SemanticRelation semanticRelation) throws LexicalSemanticResourceException {
+        RelationType relationType = mapRelation(semanticRelation);
+        if (relationType == null) {
+            return new HashSet<Entity>();
+        }
+
+        WiktionaryRelationIndex index = getRelationIndex();
+        if (index != null) {
+            return index.getRelatedEntities(entity, relationType, isCaseSensitive);
+        }
+
         Set<String> relatedWords = new HashSet<String>();
         Set<WordEntry> words = WiktionaryUtils.entityToWords(wkt, entity);
         for (WordEntry word : words) {
-            if (semanticRelation.equals(SemanticRelation.holonymy)) {
-                relatedWords.addAll(word.getAllRelatedWords(RelationType.HOLONYM));
-            }
-            else if (semanticRelation.equals(SemanticRelation.hypernymy)) {
-                relatedWords.addAll(word.getAllRelatedWords(RelationType.HYPERNYM));
-            }
-            else if (semanticRelation.equals(SemanticRelation.hyponymy)) {
-                relatedWords.addAll(word.getAllRelatedWords(RelationType.HYPONYM));
-            }
-            else if (semanticRelation.equals(SemanticRelation.meronymy)) {
-                relatedWords.addAll(word.getAllRelatedWords(RelationType.MERONYM));
-            }
-            else if (semanticRelation.equals(SemanticRelation.cohyponymy)) {
-                relatedWords.addAll(word.getAllRelatedWords(RelationType.COORDINATE_TERM));
-            }
-            else if (semanticRelation.equals(SemanticRelation.other)) {
-                relatedWords.addAll(word.getAllRelatedWords(RelationType.SEE_ALSO));
-            }
+            relatedWords.addAll(word.getAllRelatedWords(relationType));
         }
         Set<Entity> results = new HashSet<Entity>();
         for (String relatedWord : relatedWords) {
@@ -292,6 +404,30 @@ public class WiktionaryResource extends AbstractResource {
         return results;
     }
 
+    static RelationType mapRelation(SemanticRelation semanticRelation) {
+        if (semanticRelation.equals(SemanticRelation.holonymy)) {
+            return RelationType.HOLONYM;
+        }
+        else if (semanticRelation.equals(SemanticRelation.hypernymy)) {
+            return RelationType.HYPERNYM;
+        }
+        else if (semanticRelation.equals(SemanticRelation.hyponymy)) {
+            return RelationType.HYPONYM;
+        }
+        else if (semanticRelation.equals(SemanticRelation.meronymy)) {
+            return RelationType.MERONYM;
+        }
+        else if (semanticRelation.equals(SemanticRelation.cohyponymy)) {
+            return RelationType.COORDINATE_TERM;
+        }
+        else if (semanticRelation.equals(SemanticRelation.other)) {
+            return RelationType.SEE_ALSO;
+        }
+        else {
+            return null;
+        }
+    }
+
     public Set<String> getRelatedLexemes(String lexeme, PoS pos, String sense, LexicalRelation lexicalRelation) throws LexicalSemanticResourceException {
         Map<String,String> lexemeMap = new HashMap<String,String>();
         lexemeMap.put(lexeme, sense);
@@ -301,6 +437,17 @@ public class WiktionaryResource extends AbstractResource {
             return Collections.emptySet();
         }
 
+        WiktionaryRelationIndex index = getRelationIndex();
+        if (index != null) {
+            if (lexicalRelation.equals(LexicalRelation.antonymy)) {
+                return index.getRelatedWords(entity, RelationType.ANTONYM, isCaseSensitive);
+            }
+            else if (lexicalRelation.equals(LexicalRelation.synonymy)) {
+                return index.getRelatedWords(entity, RelationType.SYNONYM, isCaseSensitive);
+            }
+            return new HashSet<String>();
+        }
+
         Set<String> relatedWords = new HashSet<String>();
         Set<WordEntry> words = WiktionaryUtils.entityToWords(wkt, entity);
         for (WordEntry word : words) {
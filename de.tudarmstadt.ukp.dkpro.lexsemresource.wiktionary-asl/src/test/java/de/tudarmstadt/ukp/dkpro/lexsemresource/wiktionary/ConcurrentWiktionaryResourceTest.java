@@ -0,0 +1,274 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.LexicalRelation;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.SemanticRelation;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary.util.WiktionaryUtils;
+import de.tudarmstadt.ukp.wiktionary.api.Language;
+import de.tudarmstadt.ukp.wiktionary.api.PartOfSpeech;
+import de.tudarmstadt.ukp.wiktionary.api.RelationType;
+
+public class ConcurrentWiktionaryResourceTest
+{
+	private static final String WIKTIONARY_DIRECTORY = "resource/Wiktionary/latest_de/";
+
+	private File directory;
+
+	@Before
+	public void setUp()
+	{
+		directory = new File("target/test-output/ConcurrentWiktionaryResourceTest");
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	private ConcurrentWiktionaryResource createResource(TestWordEntry... wordEntries)
+		throws Exception
+	{
+		TestWordEntries entries = new TestWordEntries(wordEntries);
+		return new ConcurrentWiktionaryResource("test",
+				WiktionaryRelationIndex.build(entries.iterator()),
+				WiktionaryGlossStore.open(entries, directory, "test", 0));
+	}
+
+	private ConcurrentWiktionaryResource createResource()
+		throws Exception
+	{
+		return createResource(
+				new TestWordEntry("Baum", PartOfSpeech.NOUN)
+						.relate(RelationType.HYPERNYM, "Pflanze")
+						.relate(RelationType.SYNONYM, "Gehölz")
+						.gloss("verholzte Pflanze"),
+				new TestWordEntry("Pflanze", PartOfSpeech.NOUN)
+						.relate(RelationType.HYPONYM, "Baum", "Blume"),
+				new TestWordEntry("Blume", PartOfSpeech.NOUN)
+						.relate(RelationType.HYPERNYM, "Pflanze"),
+				new TestWordEntry("Blume", PartOfSpeech.NOUN),
+				new TestWordEntry("bauen", PartOfSpeech.VERB)
+						.relate(RelationType.SYNONYM, "errichten"),
+				new TestWordEntry("baumeln", PartOfSpeech.UNKNOWN));
+	}
+
+	@Test
+	public void testQueries()
+		throws Exception
+	{
+		ConcurrentWiktionaryResource wiktionary = createResource();
+		Entity baum = new Entity("Baum", PoS.n);
+		Entity pflanze = new Entity("Pflanze", PoS.n);
+		Entity blume = new Entity("Blume", PoS.n);
+
+		// one entity per (word, PoS), although Blume has two entries
+		assertEquals(5, wiktionary.getNumberOfEntities());
+		Set<Entity> entities = new HashSet<Entity>();
+		for (Entity entity : wiktionary.getEntities()) {
+			entities.add(entity);
+		}
+		assertEquals(new HashSet<Entity>(Arrays.asList(baum, pflanze, blume,
+				new Entity("bauen", PoS.v), new Entity("baumeln", PoS.unk))), entities);
+
+		assertTrue(wiktionary.containsLexeme("Baum"));
+		assertTrue(wiktionary.containsLexeme("baum"));
+		assertFalse(wiktionary.containsLexeme("Gehölz"));
+		assertEquals(Collections.singleton(new Entity("baum", PoS.n)),
+				wiktionary.getEntity("baum"));
+		assertEquals(Collections.singleton(baum), wiktionary.getEntity("Baum", PoS.n));
+		assertEquals(Collections.emptySet(), wiktionary.getEntity("Baum", PoS.v));
+		assertEquals(Collections.singleton(new Entity("baumeln", PoS.unk)),
+				wiktionary.getEntity("baumeln", PoS.unk));
+
+		assertEquals(Collections.singleton(pflanze), wiktionary.getParents(baum));
+		assertEquals(new HashSet<Entity>(Arrays.asList(baum, blume)),
+				wiktionary.getChildren(pflanze));
+		assertEquals(Collections.singleton(pflanze),
+				wiktionary.getRelatedEntities(blume, SemanticRelation.hypernymy));
+		assertEquals(Collections.singleton("Gehölz"), wiktionary.getRelatedLexemes("Baum",
+				PoS.n, Entity.UNKNOWN_SENSE, LexicalRelation.synonymy));
+		assertEquals("verholzte Pflanze", wiktionary.getGloss(new Entity("Baum", PoS.n, "1")));
+
+		ConcurrentWiktionaryResource caseSensitive = wiktionary.withCaseSensitivity(true);
+		assertFalse(caseSensitive.containsLexeme("baum"));
+		assertEquals(Collections.emptySet(), caseSensitive.getEntity("baum"));
+		assertEquals(Collections.emptySet(), caseSensitive.getParents(new Entity("baum",
+				PoS.n)));
+		assertTrue(wiktionary.containsLexeme("baum"));
+	}
+
+	@Test
+	public void testLookupPartOfSpeech()
+		throws Exception
+	{
+		// a part of speech that maps to PoS.unk, but is not found by PoS.unk
+		PartOfSpeech unmapped = null;
+		for (PartOfSpeech pos : PartOfSpeech.values()) {
+			if (WiktionaryUtils.mapPos(pos) == PoS.unk
+					&& !WiktionaryUtils.mapPos(PoS.unk).contains(pos)) {
+				unmapped = pos;
+			}
+		}
+		Assume.assumeNotNull(unmapped);
+
+		ConcurrentWiktionaryResource wiktionary = createResource(
+				new TestWordEntry("usw.", unmapped).relate(RelationType.SYNONYM, "etc."),
+				new TestWordEntry("etc.", unmapped));
+		Entity usw = new Entity("usw.", PoS.unk);
+
+		// like WiktionaryResource, which looks the entries up by the parts of speech of PoS.unk
+		assertTrue(wiktionary.containsLexeme("usw."));
+		assertEquals(Collections.singleton(usw), wiktionary.getEntity("usw."));
+		assertFalse(wiktionary.containsEntity(usw));
+		assertEquals(Collections.emptySet(), wiktionary.getEntity("usw.", PoS.unk));
+		assertEquals(Collections.emptySet(), wiktionary.getRelatedLexemes("usw.", PoS.unk,
+				Entity.UNKNOWN_SENSE, LexicalRelation.synonymy));
+	}
+
+	@Test
+	public void testConcurrentQueries()
+		throws Exception
+	{
+		final ConcurrentWiktionaryResource insensitive = createResource();
+		final ConcurrentWiktionaryResource sensitive = insensitive.withCaseSensitivity(true);
+		final String[] lexemes = { "Baum", "baum", "Pflanze", "PFLANZE", "Blume", "bauen",
+				"Gehölz" };
+		final List<Object> expected = query(lexemes, insensitive, sensitive);
+
+		int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(new Callable<List<Object>>()
+				{
+					@Override
+					public List<Object> call()
+						throws Exception
+					{
+						start.await();
+						List<Object> results = null;
+						for (int j = 0; j < 100; j++) {
+							results = query(lexemes, insensitive, sensitive);
+						}
+						return results;
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<List<Object>> future : futures) {
+				assertEquals(expected, future.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	private static List<Object> query(String[] lexemes, ConcurrentWiktionaryResource... resources)
+		throws Exception
+	{
+		List<Object> results = new ArrayList<Object>();
+		for (ConcurrentWiktionaryResource resource : resources) {
+			for (String lexeme : lexemes) {
+				results.add(resource.containsLexeme(lexeme));
+				Set<Entity> entities = resource.getEntity(lexeme);
+				results.add(entities);
+				for (Entity entity : entities) {
+					results.add(resource.getParents(entity));
+					results.add(resource.getChildren(entity));
+					results.add(resource.getGloss(entity));
+				}
+			}
+			int count = 0;
+			for (Entity entity : resource.getEntities()) {
+				results.add(entity);
+				count++;
+			}
+			results.add(count);
+		}
+		return results;
+	}
+
+	/**
+	 * Compares the answers with those of {@link WiktionaryResource} reading the database, if the
+	 * database is available.
+	 */
+	@Test
+	public void testWiktionaryResourceConsistency()
+		throws Exception
+	{
+		Assume.assumeTrue(new File(WIKTIONARY_DIRECTORY).isDirectory());
+		WiktionaryResource wiktionary = new WiktionaryResource(Language.GERMAN,
+				WIKTIONARY_DIRECTORY);
+		wiktionary.setUseRelationIndex(false);
+		ConcurrentWiktionaryResource concurrent = new ConcurrentWiktionaryResource(
+				Language.GERMAN, WIKTIONARY_DIRECTORY);
+		assertEquals(wiktionary.getIsCaseSensitive(), concurrent.getIsCaseSensitive());
+
+		int checked = 0;
+		for (Entity entity : wiktionary.getEntities()) {
+			if (checked++ == 1000) {
+				break;
+			}
+			String lexeme = entity.getFirstLexeme();
+			for (String variant : Arrays.asList(lexeme, lexeme.toLowerCase())) {
+				assertEquals(variant, wiktionary.containsLexeme(variant),
+						concurrent.containsLexeme(variant));
+				assertEquals(variant, wiktionary.getEntity(variant),
+						concurrent.getEntity(variant));
+				for (PoS pos : PoS.values()) {
+					assertEquals(variant + " " + pos, wiktionary.getEntity(variant, pos),
+							concurrent.getEntity(variant, pos));
+				}
+			}
+			for (SemanticRelation relation : SemanticRelation.values()) {
+				assertEquals(entity + " " + relation,
+						wiktionary.getRelatedEntities(entity, relation),
+						concurrent.getRelatedEntities(entity, relation));
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import de.tudarmstadt.ukp.wiktionary.api.WordEntry;
+
+/**
+ * Word entries that count how often they are iterated, i.e. how often an index or store is
+ * built from them.
+ */
+class TestWordEntries
+	implements Iterable<WordEntry>
+{
+	private final List<WordEntry> entries;
+	private int iterations;
+
+	public TestWordEntries(WordEntry... entries)
+	{
+		this(Arrays.asList(entries));
+	}
+
+	public TestWordEntries(List<WordEntry> entries)
+	{
+		this.entries = entries;
+	}
+
+	public int getIterations()
+	{
+		return iterations;
+	}
+
+	@Override
+	public Iterator<WordEntry> iterator()
+	{
+		iterations++;
+		return entries.iterator();
+	}
+}
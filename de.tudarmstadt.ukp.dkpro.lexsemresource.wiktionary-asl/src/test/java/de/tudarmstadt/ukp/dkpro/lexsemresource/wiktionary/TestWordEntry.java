@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import de.tudarmstadt.ukp.wiktionary.api.PartOfSpeech;
+import de.tudarmstadt.ukp.wiktionary.api.RelationType;
+import de.tudarmstadt.ukp.wiktionary.api.WikiString;
+import de.tudarmstadt.ukp.wiktionary.api.WordEntry;
+
+/**
+ * A word entry that is not stored in a database, to build the relation index and the gloss store
+ * from a few entries.
+ */
+class TestWordEntry
+	extends WordEntry
+{
+	private final String word;
+	private final PartOfSpeech partOfSpeech;
+	private final Map<RelationType, List<String>> relations =
+			new EnumMap<RelationType, List<String>>(RelationType.class);
+	private final List<WikiString> glosses = new ArrayList<WikiString>();
+
+	public TestWordEntry(String word, PartOfSpeech partOfSpeech)
+	{
+		this.word = word;
+		this.partOfSpeech = partOfSpeech;
+	}
+
+	public TestWordEntry relate(RelationType relationType, String... relatedWords)
+	{
+		List<String> related = relations.get(relationType);
+		if (related == null) {
+			related = new ArrayList<String>();
+			relations.put(relationType, related);
+		}
+		related.addAll(Arrays.asList(relatedWords));
+		return this;
+	}
+
+	public TestWordEntry gloss(String... plainTexts)
+	{
+		for (String plainText : plainTexts) {
+			glosses.add(new WikiString(plainText));
+		}
+		return this;
+	}
+
+	@Override
+	public String getWord()
+	{
+		return word;
+	}
+
+	@Override
+	public PartOfSpeech getPartOfSpeech()
+	{
+		return partOfSpeech;
+	}
+
+	@Override
+	public List<String> getAllRelatedWords(RelationType relationType)
+	{
+		List<String> related = relations.get(relationType);
+		return related != null ? related : new ArrayList<String>();
+	}
+
+	@Override
+	public List<WikiString> getGlosses()
+	{
+		return glosses;
+	}
+
+	@Override
+	public WikiString getGloss(Integer index)
+	{
+		return glosses.get(index - 1);
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics.CacheMetrics;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.core.metrics.MetricsRegistry;
+import de.tudarmstadt.ukp.wiktionary.api.PartOfSpeech;
+import de.tudarmstadt.ukp.wiktionary.api.WordEntry;
+
+public class WiktionaryGlossStoreTest
+{
+	// more than the 64 glosses of a block
+	private static final int WORDS = 200;
+
+	private File directory;
+
+	@Before
+	public void setUp()
+	{
+		directory = new File("target/test-output/WiktionaryGlossStoreTest");
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTrip()
+		throws Exception
+	{
+		List<WordEntry> wordEntries = new ArrayList<WordEntry>();
+		for (int i = 0; i < WORDS; i++) {
+			wordEntries.add(new TestWordEntry("Wort" + i, PartOfSpeech.NOUN).gloss(
+					"erste Bedeutung " + i, "zweite Bedeutung für Größe " + i));
+		}
+		TestWordEntries entries = new TestWordEntries(wordEntries);
+
+		WiktionaryGlossStore built = WiktionaryGlossStore.open(entries, directory, "test", 42);
+		assertEquals(1, entries.getIterations());
+		WiktionaryGlossStore loaded = WiktionaryGlossStore.open(entries, directory, "test", 42);
+		assertEquals("the saved store is loaded", 1, entries.getIterations());
+
+		for (WiktionaryGlossStore store : Arrays.asList(built, loaded)) {
+			// 3 glosses per word, so that the words cross block boundaries at different senses
+			List<Entity> entities = new ArrayList<Entity>();
+			for (int i = 0; i < WORDS; i++) {
+				Entity first = new Entity("Wort" + i, PoS.n, "1");
+				Entity second = new Entity("Wort" + i, PoS.n, "2");
+				Entity all = new Entity("Wort" + i, PoS.n);
+				assertEquals("erste Bedeutung " + i, store.getGloss(first, true));
+				assertEquals("zweite Bedeutung für Größe " + i, store.getGloss(second, true));
+				assertEquals("erste Bedeutung " + i + ";zweite Bedeutung für Größe " + i + ";",
+						store.getGloss(all, true));
+				assertEquals(store.getGloss(all, true),
+						store.getGloss(new Entity("wort" + i, PoS.n), false));
+				entities.addAll(Arrays.asList(first, second, all));
+			}
+
+			Map<Entity, String> glosses = store.getGlosses(entities, true);
+			assertEquals(entities.size(), glosses.size());
+			for (Entity entity : entities) {
+				assertEquals(entity.getId(), store.getGloss(entity, true), glosses.get(entity));
+			}
+		}
+
+		// a different database
+		WiktionaryGlossStore.open(entries, directory, "test", 43);
+		assertEquals("the outdated store is rebuilt", 2, entries.getIterations());
+	}
+
+	@Test
+	public void testLookup()
+		throws Exception
+	{
+		TestWordEntries entries = new TestWordEntries(
+				new TestWordEntry("Bank", PartOfSpeech.NOUN).gloss("Sitzgelegenheit"),
+				new TestWordEntry("Bank", PartOfSpeech.NOUN).gloss("Geldinstitut", "Blutbank"),
+				new TestWordEntry("Tor", PartOfSpeech.NOUN).gloss(""),
+				new TestWordEntry("Tor", PartOfSpeech.NOUN).gloss("Eingang"),
+				new TestWordEntry("Wache", PartOfSpeech.NOUN),
+				new TestWordEntry("Wache", PartOfSpeech.NOUN).gloss("Posten"),
+				new TestWordEntry("bauen", PartOfSpeech.VERB).gloss("errichten"));
+		WiktionaryGlossStore store = WiktionaryGlossStore.open(entries, directory, "test", 42);
+
+		// the first entry with a gloss wins, in the order of the iterator
+		assertEquals("Sitzgelegenheit", store.getGloss(new Entity("Bank", PoS.n, "1"), true));
+		assertEquals("Sitzgelegenheit;", store.getGloss(new Entity("Bank", PoS.n), true));
+		assertEquals("Eingang", store.getGloss(new Entity("Tor", PoS.n, "1"), true));
+		// the empty gloss still gives a non-empty list of glosses
+		assertEquals(";", store.getGloss(new Entity("Tor", PoS.n), true));
+		// an entry without any glosses gives none
+		assertEquals("Posten;", store.getGloss(new Entity("Wache", PoS.n), true));
+
+		// a missing sense
+		assertEquals("Blutbank", store.getGloss(new Entity("Bank", PoS.n, "2"), true));
+		assertEquals("", store.getGloss(new Entity("Bank", PoS.n, "3"), true));
+		assertEquals("", store.getGloss(new Entity("Tor", PoS.n, "2"), true));
+
+		// a missing word or PoS
+		assertEquals("", store.getGloss(new Entity("Baum", PoS.n), true));
+		assertEquals("", store.getGloss(new Entity("Bank", PoS.v), true));
+		assertEquals("errichten", store.getGloss(new Entity("bauen", PoS.v, "1"), true));
+
+		// case
+		assertEquals("", store.getGloss(new Entity("bank", PoS.n, "1"), true));
+		assertEquals("Sitzgelegenheit", store.getGloss(new Entity("bank", PoS.n, "1"), false));
+		assertEquals("errichten", store.getGloss(new Entity("Bauen", PoS.v, "1"), false));
+	}
+
+	@Test
+	public void testCacheEviction()
+		throws Exception
+	{
+		TestWordEntries entries = new TestWordEntries(
+				new TestWordEntry("a", PartOfSpeech.NOUN).gloss("A"),
+				new TestWordEntry("b", PartOfSpeech.NOUN).gloss("B"),
+				new TestWordEntry("c", PartOfSpeech.NOUN).gloss("C"));
+		WiktionaryGlossStore.open(entries, directory, "test", 42);
+		WiktionaryGlossStore store = WiktionaryGlossStore.load(
+				new File(directory, "lsr-glosses-test"), 42, 2);
+
+		MetricsRegistry registry = MetricsRegistry.getDefault();
+		boolean enabled = registry.isEnabled();
+		registry.setEnabled(true);
+		try {
+			CacheMetrics metrics = registry.getCache(WiktionaryGlossStore.class.getSimpleName());
+			Entity a = new Entity("a", PoS.n, "1");
+			Entity b = new Entity("b", PoS.n, "1");
+			Entity c = new Entity("c", PoS.n, "1");
+
+			long hits = metrics.getHits();
+			long misses = metrics.getMisses();
+			assertEquals("A", store.getGloss(a, true));
+			assertEquals("B", store.getGloss(b, true));
+			assertEquals("A", store.getGloss(a, true));
+			assertEquals(hits + 1, metrics.getHits());
+			assertEquals(misses + 2, metrics.getMisses());
+
+			// evicts b, the least recently used gloss
+			assertEquals("C", store.getGloss(c, true));
+			assertEquals("A", store.getGloss(a, true));
+			assertEquals(hits + 2, metrics.getHits());
+			assertEquals(misses + 3, metrics.getMisses());
+			assertEquals("B", store.getGloss(b, true));
+			assertEquals(hits + 2, metrics.getHits());
+			assertEquals(misses + 4, metrics.getMisses());
+		}
+		finally {
+			registry.setEnabled(enabled);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package de.tudarmstadt.ukp.dkpro.lexsemresource.wiktionary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
+import de.tudarmstadt.ukp.wiktionary.api.PartOfSpeech;
+import de.tudarmstadt.ukp.wiktionary.api.RelationType;
+
+public class WiktionaryRelationIndexTest
+{
+	private File directory;
+
+	@Before
+	public void setUp()
+	{
+		directory = new File("target/test-output/WiktionaryRelationIndexTest");
+		directory.mkdirs();
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testReopenWithoutRebuild()
+		throws Exception
+	{
+		TestWordEntries entries = new TestWordEntries(
+				new TestWordEntry("Baum", PartOfSpeech.NOUN)
+						.relate(RelationType.HYPERNYM, "Pflanze")
+						.relate(RelationType.SYNONYM, "Gehölz"),
+				new TestWordEntry("Pflanze", PartOfSpeech.NOUN)
+						.relate(RelationType.HYPONYM, "Baum", "Blume"),
+				new TestWordEntry("Blume", PartOfSpeech.NOUN)
+						.relate(RelationType.HYPERNYM, "Pflanze"),
+				new TestWordEntry("bauen", PartOfSpeech.VERB));
+		long fingerprint = 42;
+
+		WiktionaryRelationIndex built = WiktionaryRelationIndex.open(entries, directory, "test",
+				fingerprint);
+		assertEquals(1, entries.getIterations());
+		assertTrue(new File(directory, "lsr-relations-test").exists());
+
+		WiktionaryRelationIndex loaded = WiktionaryRelationIndex.open(entries, directory, "test",
+				fingerprint);
+		assertEquals("the saved index is loaded", 1, entries.getIterations());
+
+		for (WiktionaryRelationIndex index : Arrays.asList(built, loaded)) {
+			assertEquals(4, index.getNumberOfNodes());
+			assertTrue(index.containsLexeme("Baum", true));
+			assertFalse(index.containsLexeme("baum", true));
+			assertTrue(index.containsLexeme("baum", false));
+			// a related word without an entry of its own
+			assertFalse(index.containsLexeme("Gehölz", true));
+
+			Entity baum = new Entity("Baum", PoS.n);
+			assertEquals(new HashSet<String>(Arrays.asList("Pflanze")),
+					index.getRelatedWords(baum, RelationType.HYPERNYM, true));
+			assertEquals(new HashSet<String>(Arrays.asList("Gehölz")),
+					index.getRelatedWords(baum, RelationType.SYNONYM, true));
+			assertEquals(
+					new HashSet<Entity>(Arrays.asList(baum, new Entity("Blume", PoS.n))),
+					index.getRelatedEntities(new Entity("Pflanze", PoS.n), RelationType.HYPONYM,
+							true));
+			assertEquals(new HashSet<Entity>(Arrays.asList(new Entity("bauen", PoS.v))),
+					index.getEntities("bauen", true));
+		}
+
+		// a different database
+		WiktionaryRelationIndex.open(entries, directory, "test", fingerprint + 1);
+		assertEquals("the outdated index is rebuilt", 2, entries.getIterations());
+	}
+
+	@Test
+	public void testFingerprint()
+		throws Exception
+	{
+		write("00000000.jdb", 100);
+		write("00000001.jdb", 10);
+		long fingerprint = WiktionaryRelationIndex.getFingerprint(directory);
+
+		// what opening the database and the library do to the directory
+		write("je.lck", 0);
+		write("je.info.0", 50);
+		write("00000001.jdb", 20);
+		write("lsr-relations-test", 30);
+		assertEquals(fingerprint, WiktionaryRelationIndex.getFingerprint(directory));
+
+		// a new log file
+		write("00000002.jdb", 10);
+		long extended = WiktionaryRelationIndex.getFingerprint(directory);
+		assertNotEquals(fingerprint, extended);
+
+		// a full log file of a different size
+		write("00000000.jdb", 200);
+		assertNotEquals(extended, WiktionaryRelationIndex.getFingerprint(directory));
+	}
+
+	private void write(String name, int length)
+		throws IOException
+	{
+		FileOutputStream out = new FileOutputStream(new File(directory, name));
+		try {
+			out.write(new byte[length]);
+		}
+		finally {
+			out.close();
+		}
+	}
+}